@@ -0,0 +1,105 @@
+package com.sme.reactor.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+
+import com.sme.reactor.backpressure.AdaptiveBatchingSubscriber;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares stop-and-wait {@link FixedBatchSubscriber} with {@link AdaptiveBatchingSubscriber}.
+ * <p>
+ * The producer runs on its own thread, so the score shows how long the producer waits for the next request.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdaptiveBatchingBenchmark
+{
+    @Param({"100000"})
+    private int size;
+
+    @Param({"2", "16", "128", "1024"})
+    private int batchSize;
+
+    @Param({"0", "100"})
+    private int tokensPerValue;
+
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp()
+    {
+        scheduler = Schedulers.newSingle("producer");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public void fixedBatch(Blackhole blackhole) throws InterruptedException
+    {
+        run(new FixedBatchSubscriber<Integer>(batchSize, value -> consume(blackhole, value)));
+    }
+
+    @Benchmark
+    public void adaptiveBatch(Blackhole blackhole) throws InterruptedException
+    {
+        run(new AdaptiveBatchingSubscriber<Integer>(value -> consume(blackhole, value), batchSize, 1, Math.max(batchSize, AdaptiveBatchingSubscriber.DEFAULT_MAX_BATCH_SIZE),
+                Duration.ofMillis(1)));
+    }
+
+    /**
+     * Same as adaptive batch, but the size of batch is fixed to see the effect of requesting ahead only.
+     */
+    @Benchmark
+    public void requestAheadBatch(Blackhole blackhole) throws InterruptedException
+    {
+        run(new AdaptiveBatchingSubscriber<Integer>(value -> consume(blackhole, value), batchSize, batchSize, Duration.ofMillis(1)));
+    }
+
+    private void run(Subscriber<Integer> subscriber) throws InterruptedException
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        Flux.range(1, size)
+                .subscribeOn(scheduler)
+                .doFinally(signal -> latch.countDown())
+                .subscribe(subscriber);
+        latch.await();
+    }
+
+    /**
+     * Burns CPU for every value to simulate business logic.
+     */
+    private void consume(Blackhole blackhole, Integer value)
+    {
+        Blackhole.consumeCPU(tokensPerValue);
+        blackhole.consume(value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.sme.reactor.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.distinct.ApproximateDistinct;
+import com.sme.reactor.distinct.PrimitiveDistinct;
+import com.sme.reactor.distinct.RotatingBloomFilter;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares exact distinct operators with {@link ApproximateDistinct} over a stream of longs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApproximateDistinctBenchmark
+{
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"0.01", "0.001"})
+    private double falsePositiveRate;
+
+    private Long[] data;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        data = new Long[size];
+        for (int i = 0; i < size; i++)
+        {
+            data[i] = (long) random.nextInt(size / 2);
+        }
+    }
+
+    @Benchmark
+    public void distinct(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .distinct()
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void distinctLongs(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(PrimitiveDistinct.distinctLongs())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void approximateDistinct(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(ApproximateDistinct.distinctLongs(new RotatingBloomFilter(size / 2, falsePositiveRate)))
+                .subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sme.reactor.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.combining.ArrayZip;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares {@link Flux#zip(org.reactivestreams.Publisher, org.reactivestreams.Publisher, org.reactivestreams.Publisher, org.reactivestreams.Publisher)}
+ * followed by map with {@link ArrayZip}.
+ * <p>
+ * Values are small cached integers and the combiner returns a cached integer too, so {@code gc.alloc.rate.norm} divided by size is the allocation of
+ * the operator per element.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayZipBenchmark
+{
+    private static final int SOURCES = 4;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"32", "256"})
+    private int prefetch;
+
+    private List<Flux<Integer>> sources;
+
+    @Setup
+    public void setUp()
+    {
+        sources = new ArrayList<>(SOURCES);
+        for (int s = 0; s < SOURCES; s++)
+        {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++)
+            {
+                values[i] = (i + s) % 32;
+            }
+            sources.add(Flux.fromArray(values));
+        }
+    }
+
+    // Tuple zip has no prefetch argument, it always prefetches 32 values
+    @Benchmark
+    public void zipTuple(Blackhole blackhole)
+    {
+        Flux.zip(sources.get(0), sources.get(1), sources.get(2), sources.get(3))
+                .map(tuple4 -> tuple4.getT1() + tuple4.getT2() + tuple4.getT3() + tuple4.getT4())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void zipCombinator(Blackhole blackhole)
+    {
+        Flux.zip(values -> (Integer) values[0] + (Integer) values[1] + (Integer) values[2] + (Integer) values[3], prefetch,
+                sources.get(0), sources.get(1), sources.get(2), sources.get(3))
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void arrayZip(Blackhole blackhole)
+    {
+        ArrayZip.zip(sources, prefetch, ArrayZipBenchmark::sum)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void arrayZipBatches(Blackhole blackhole)
+    {
+        ArrayZip.zipBatches(sources, 64, prefetch, ArrayZipBenchmark::sum)
+                .subscribe(batch -> batch.forEach(blackhole::consume));
+    }
+
+    private static Integer sum(List<Integer> values)
+    {
+        return values.get(0) + values.get(1) + values.get(2) + values.get(3);
+    }
+}
@@ -0,0 +1,57 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks of bounded requests from ReactorBackpressureTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackpressureBenchmark
+{
+    @Param({"100000"})
+    private int size;
+
+    @Param({"1", "2", "32", "256"})
+    private int limit;
+
+    @Benchmark
+    public void fixedBatchSubscriber(Blackhole blackhole)
+    {
+        Flux.range(1, size)
+                .subscribe(new FixedBatchSubscriber<>(limit, blackhole::consume));
+    }
+
+    @Benchmark
+    public void limitRate(Blackhole blackhole)
+    {
+        Flux.range(1, size)
+                .limitRate(limit)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void unbounded(Blackhole blackhole)
+    {
+        Flux.range(1, size)
+                .subscribe(blackhole::consume);
+    }
+}
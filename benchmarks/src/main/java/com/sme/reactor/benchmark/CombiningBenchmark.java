@@ -0,0 +1,101 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks of combining operators from ReactorCombiningTest.
+ * <p>
+ * The sleeps of the unit tests are left out on purpose: they would measure {@link Thread#sleep(long)} instead of the operators.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombiningBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private String[] words1;
+    private String[] words2;
+    private String[] words3;
+    private String[] words4;
+    private Integer[] numbers;
+
+    @Setup
+    public void setUp()
+    {
+        words1 = words("hello ");
+        words2 = words("reactive ");
+        words3 = words("world");
+        words4 = words("!");
+
+        numbers = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            numbers[i] = i % 60;
+        }
+    }
+
+    @Benchmark
+    public void zip(Blackhole blackhole)
+    {
+        Flux.zip(Flux.fromArray(words1), Flux.fromArray(words2), Flux.fromArray(words3), Flux.fromArray(words4))
+                .map(tuple4 -> tuple4.getT1().concat(tuple4.getT2()).concat(tuple4.getT3().concat(tuple4.getT4())))
+                .map(String::toUpperCase)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void merge(Blackhole blackhole)
+    {
+        Flux.merge(Flux.fromArray(words1), Flux.fromArray(words2), Flux.fromArray(words3))
+                .map(String::toUpperCase)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void concat(Blackhole blackhole)
+    {
+        Flux.concat(Flux.fromArray(words1), Flux.fromArray(words2), Flux.fromArray(words3))
+                .map(String::toUpperCase)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void switchMap(Blackhole blackhole)
+    {
+        Flux.fromArray(numbers)
+                .switchMap(value -> value >= 10 ? Flux.just(value / 10) : Flux.just(value))
+                .map(value -> value + ",")
+                .subscribe(blackhole::consume);
+    }
+
+    private String[] words(String word)
+    {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++)
+        {
+            words[i] = word;
+        }
+        return words;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sme.reactor.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks of creating operators from ReactorCreatingTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreatingBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private List<String> words;
+
+    @Setup
+    public void setUp()
+    {
+        words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            words.add("word" + (i % 100) + " ");
+        }
+    }
+
+    @Benchmark
+    public void fromStream(Blackhole blackhole)
+    {
+        Flux.fromStream(words.stream()
+                .map(String::toUpperCase)
+                .distinct())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void fromIterable(Blackhole blackhole)
+    {
+        Flux.fromIterable(words)
+                .map(String::toUpperCase)
+                .distinct()
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void subscribeWithAllConsumers(Blackhole blackhole)
+    {
+        Flux.fromIterable(words)
+                .filter(value -> value.length() > 1)
+                .map(String::toUpperCase)
+                .subscribe(blackhole::consume, blackhole::consume, () -> blackhole.consume(true));
+    }
+
+    @Benchmark
+    public void onErrorResume(Blackhole blackhole)
+    {
+        Flux.fromIterable(words)
+                .map(String::toUpperCase)
+                .onErrorResume(throwable -> Flux.just("Error because:" + throwable))
+                .subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sme.reactor.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.distinct.PrimitiveDistinct;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares {@link Flux#distinct()} with {@link PrimitiveDistinct} operators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistinctBenchmark
+{
+    @Param({"1000", "1000000"})
+    private int size;
+
+    // Share of unique keys in percents
+    @Param({"10", "90"})
+    private int uniquePercent;
+
+    private Integer[] data;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        int bound = Math.max(1, size * uniquePercent / 100);
+        data = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            data[i] = random.nextInt(bound);
+        }
+    }
+
+    @Benchmark
+    public void distinct(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .distinct()
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void distinctInts(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(PrimitiveDistinct.distinctInts())
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void distinctLongs(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(PrimitiveDistinct.distinctLongs(Integer::longValue))
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void distinctIntsWithinLastKeys(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(PrimitiveDistinct.distinctInts(Integer::intValue, 10_000))
+                .subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,139 @@
+package com.sme.reactor.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.file.MappedFiles;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares {@link Files#lines(Path)} with {@link Flux#fromStream(Stream)} and memory-mapped {@link MappedFiles} sources and sinks.
+ * <p>
+ * The file is read from the page cache after the first iteration, so the benchmark measures decoding and signal overhead rather than the disk.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark
+{
+    @Param({"1", "64"})
+    private int sizeMb;
+
+    private Path file;
+    private Path copy;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        file = Files.createTempFile("reactor-benchmark", ".txt");
+        copy = Files.createTempFile("reactor-benchmark", ".copy");
+
+        long size = sizeMb * 1024L * 1024L;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            for (long written = 0, i = 0; written < size; i++)
+            {
+                String line = "2020-05-01 12:00:00.000 INFO reactor event number " + i;
+                writer.write(line);
+                writer.newLine();
+                written += line.length() + 1;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(copy);
+    }
+
+    @Benchmark
+    public void filesLines(Blackhole blackhole)
+    {
+        Flux.using(() -> Files.lines(file, StandardCharsets.UTF_8), Flux::fromStream, Stream::close)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void mappedLines(Blackhole blackhole)
+    {
+        MappedFiles.lines(file)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void mappedLineBuffers(Blackhole blackhole)
+    {
+        MappedFiles.lineBuffers(file)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void mappedChunks(Blackhole blackhole)
+    {
+        MappedFiles.chunks(file, 64 * 1024)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void bufferedWriterCopy(Blackhole blackhole) throws IOException
+    {
+        try (BufferedWriter writer = Files.newBufferedWriter(copy, StandardCharsets.UTF_8))
+        {
+            Flux.using(() -> Files.lines(file, StandardCharsets.UTF_8), Flux::fromStream, Stream::close)
+                    .subscribe(line -> write(writer, line));
+        }
+        blackhole.consume(Files.size(copy));
+    }
+
+    @Benchmark
+    public void gatheringCopy(Blackhole blackhole)
+    {
+        blackhole.consume(MappedFiles.writeLines(MappedFiles.lines(file), copy, 256).block());
+    }
+
+    @Benchmark
+    public void chunkCopy(Blackhole blackhole)
+    {
+        blackhole.consume(MappedFiles.write(MappedFiles.chunks(file, 64 * 1024), copy, 16, 0L).block());
+    }
+
+    private static void write(BufferedWriter writer, String line)
+    {
+        try
+        {
+            writer.write(line);
+            writer.newLine();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks of filtering operators from ReactorFilteringTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilteringBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private Integer[] data;
+
+    @Setup
+    public void setUp()
+    {
+        data = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            // Every value is repeated twice to give distinct() some work
+            data[i] = i % Math.max(1, size / 2);
+        }
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole)
+    {
+        int threshold = size / 2;
+        Flux.fromArray(data)
+                .filter(value -> value < threshold)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void distinct(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .distinct()
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void last(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .last()
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void skip(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .skip(size / 2)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void take(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .take(size / 2)
+                .subscribe(blackhole::consume);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sme.reactor.benchmark;
+
+import java.util.function.Consumer;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * The stop-and-wait subscriber of ReactorBackpressureTest: requests the next {@code limit} values only when the whole batch is consumed.
+ * 
+ * @param <T> The generic parameter to work in subscriber with.
+ */
+class FixedBatchSubscriber<T> extends BaseSubscriber<T>
+{
+    private final int limit;
+    private final Consumer<? super T> consumer;
+    private int consumed;
+
+    FixedBatchSubscriber(int limit, Consumer<? super T> consumer)
+    {
+        this.limit = limit;
+        this.consumer = consumer;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription)
+    {
+        request(limit);
+    }
+
+    @Override
+    protected void hookOnNext(T value)
+    {
+        consumer.accept(value);
+
+        consumed++;
+
+        if (consumed == limit)
+        {
+            consumed = 0;
+            request(limit);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.sme.reactor.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.bridge.FluxBridge;
+import com.sme.reactor.bridge.FluxBridge.Overflow;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares feeding a flux from producer threads through {@link FluxBridge} and through a {@link LinkedBlockingQueue} read by
+ * {@link Flux#fromIterable(Iterable)}, both bounded to the same capacity and blocking producers when full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FluxBridgeBenchmark
+{
+    private static final int CAPACITY = 1024;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"1", "4", "16"})
+    private int producers;
+
+    private Integer[] data;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp()
+    {
+        data = new Integer[size / producers];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = i;
+        }
+        executor = Executors.newFixedThreadPool(producers);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void fluxBridge(Blackhole blackhole)
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(CAPACITY, Overflow.BLOCK);
+        Flux<Integer> flux = bridge.flux().take(data.length * producers);
+        produce(bridge::next);
+        flux.doOnNext(blackhole::consume).blockLast();
+    }
+
+    @Benchmark
+    public void blockingQueue(Blackhole blackhole)
+    {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>(CAPACITY);
+        int total = data.length * producers;
+        Iterable<Integer> values = () -> new Iterator<Integer>()
+        {
+            private int taken;
+
+            @Override
+            public boolean hasNext()
+            {
+                return taken < total;
+            }
+
+            @Override
+            public Integer next()
+            {
+                taken++;
+                try
+                {
+                    return queue.take();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        produce(value ->
+        {
+            try
+            {
+                queue.put(value);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Flux.fromIterable(values).doOnNext(blackhole::consume).blockLast();
+    }
+
+    private void produce(Consumer<Integer> sink)
+    {
+        for (int i = 0; i < producers; i++)
+        {
+            executor.execute(() ->
+            {
+                for (Integer value : data)
+                {
+                    sink.accept(value);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.parallel.KeyedParallel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares per-key ordered processing of {@link Flux#groupBy(java.util.function.Function)} with a {@code publishOn} per group and
+ * {@link KeyedParallel}, for a CPU-bound mapper over {@code keys} keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyedParallelBenchmark
+{
+    @Param({"100000"})
+    private int size;
+
+    @Param({"16", "10000"})
+    private int keys;
+
+    private Integer[] data;
+
+    @Setup
+    public void setUp()
+    {
+        data = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            data[i] = i;
+        }
+    }
+
+    @Benchmark
+    public void groupByPublishOn(Blackhole blackhole)
+    {
+        // Every group is subscribed, so the number of open groups equals the number of keys
+        Flux.fromArray(data)
+                .groupBy(i -> i % keys)
+                .flatMap(group -> group.publishOn(Schedulers.parallel()).map(KeyedParallelBenchmark::work), Integer.MAX_VALUE)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    @Benchmark
+    public void keyedParallel(Blackhole blackhole)
+    {
+        Flux.fromArray(data)
+                .transform(KeyedParallel.create(i -> i % keys, KeyedParallelBenchmark::work))
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    private static long work(int value)
+    {
+        long hash = value;
+        for (int i = 0; i < 100; i++)
+        {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,71 @@
+package com.sme.reactor.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sme.reactor.latency.LatencySources;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Merges many sources with simulated latency on two timer threads at different flatMap concurrency.
+ * <p>
+ * With enough concurrency the score stays close to the latency of one source whatever the number of sources is.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeLatencyBenchmark
+{
+    @Param({"100", "10000"})
+    private int sources;
+
+    @Param({"16", "256", "10000"})
+    private int concurrency;
+
+    @Param({"5"})
+    private int latencyMillis;
+
+    private Scheduler timer;
+
+    @Setup
+    public void setUp()
+    {
+        timer = Schedulers.newParallel("timer", 2);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        timer.dispose();
+    }
+
+    @Benchmark
+    public Long merge()
+    {
+        Duration latency = Duration.ofMillis(latencyMillis);
+        return LatencySources.merge(Flux.range(0, sources)
+                .map(value -> LatencySources.delayed(value, latency, timer)), concurrency, 1)
+                .count()
+                .block();
+    }
+}
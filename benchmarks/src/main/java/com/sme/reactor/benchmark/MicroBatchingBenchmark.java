@@ -0,0 +1,104 @@
+package com.sme.reactor.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.batch.BatchPool;
+import com.sme.reactor.batch.MicroBatching;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares {@link Flux#bufferTimeout(int, Duration)} with {@link MicroBatching} lists, pooled and adaptive batches.
+ * <p>
+ * The timeout is long enough to never fire, so batches are flushed by size and the benchmark measures the batching overhead per value, including the
+ * timer task scheduled per batch.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MicroBatchingBenchmark
+{
+    private static final Duration MAX_DELAY = Duration.ofSeconds(10);
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"16", "256"})
+    private int batchSize;
+
+    private Integer[] values;
+    private BatchPool<Integer> pool;
+    private Scheduler timer;
+
+    @Setup
+    public void setUp()
+    {
+        values = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = i % 128;
+        }
+        pool = BatchPool.create(batchSize, 16);
+        timer = Schedulers.parallel();
+    }
+
+    @Benchmark
+    public void bufferTimeout(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .bufferTimeout(batchSize, MAX_DELAY)
+                .subscribe(batch -> blackhole.consume(batch.size()));
+    }
+
+    @Benchmark
+    public void batchList(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .transform(MicroBatching.batch(batchSize, MAX_DELAY, timer))
+                .subscribe(batch -> blackhole.consume(batch.size()));
+    }
+
+    @Benchmark
+    public void batchPooled(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .transform(MicroBatching.pooled(pool, MAX_DELAY, timer))
+                .subscribe(batch ->
+                {
+                    blackhole.consume(batch.size());
+                    batch.release();
+                });
+    }
+
+    @Benchmark
+    public void batchAdaptive(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .transform(MicroBatching.adaptive(pool, 8, MAX_DELAY, Duration.ofMillis(1), timer))
+                .subscribe(batch ->
+                {
+                    blackhole.consume(batch.size());
+                    batch.release();
+                });
+    }
+}
@@ -0,0 +1,115 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.pool.ObjectPool;
+import com.sme.reactor.pool.Pooled;
+import com.sme.reactor.pool.Pooling;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares a pipeline that allocates a new builder at every stage with the same pipeline of {@link Pooled} builders.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation rate per operation. The publishOn variants release elements on the consumer thread, so they
+ * measure the return of elements to the pool of the producer thread.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolingBenchmark
+{
+    @Param({"100000"})
+    private int size;
+
+    private Integer[] values;
+    private ObjectPool<StringBuilder> pool;
+    private Scheduler scheduler;
+
+    @Setup
+    public void setUp()
+    {
+        values = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = i % 128;
+        }
+        pool = ObjectPool.create(() -> new StringBuilder(16), builder -> builder.setLength(0), 1024);
+        scheduler = Schedulers.newSingle("pooling-benchmark");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public void unpooled(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .map(value -> new StringBuilder(16).append("value-").append(value))
+                .map(builder -> new StringBuilder(16).append(builder).reverse())
+                .map(StringBuilder::length)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void pooled(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .map(this::acquire)
+                .transform(Pooling.<StringBuilder, StringBuilder> map(pool, (input, output) -> output.append(input).reverse()))
+                .transform(Pooling.extract(StringBuilder::length))
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void unpooledPublishOn(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .map(value -> new StringBuilder(16).append("value-").append(value))
+                .publishOn(scheduler)
+                .map(StringBuilder::length)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    @Benchmark
+    public void pooledPublishOn(Blackhole blackhole)
+    {
+        Flux.fromArray(values)
+                .map(this::acquire)
+                .transform(Pooling.publishOn(scheduler))
+                .transform(Pooling.extract(StringBuilder::length))
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    private Pooled<StringBuilder> acquire(Integer value)
+    {
+        Pooled<StringBuilder> element = pool.acquire();
+        element.get().append("value-").append(value.intValue());
+        return element;
+    }
+}
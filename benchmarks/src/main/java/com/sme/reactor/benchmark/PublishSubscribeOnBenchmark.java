@@ -0,0 +1,90 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Benchmarks of subscribeOn and publishOn schedulers from ReactorPublishSubscribeOnTest.
+ * <p>
+ * The asynchronous pipelines are awaited by {@link Flux#blockLast()}, so a score includes the thread hand-off.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishSubscribeOnBenchmark
+{
+    private static final int TTL_SECONDS = 15;
+
+    @Param({"1", "1000", "100000"})
+    private int size;
+
+    private Scheduler scheduler1;
+    private Scheduler scheduler2;
+    private Scheduler scheduler3;
+
+    @Setup
+    public void setUp()
+    {
+        scheduler1 = Schedulers.newElastic("scheduler", TTL_SECONDS);
+        scheduler2 = Schedulers.newElastic("scheduler1", TTL_SECONDS);
+        scheduler3 = Schedulers.newElastic("scheduler2", TTL_SECONDS);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scheduler1.dispose();
+        scheduler2.dispose();
+        scheduler3.dispose();
+    }
+
+    @Benchmark
+    public void publishOn(Blackhole blackhole)
+    {
+        blackhole.consume(Flux.range(0, size)
+                .publishOn(scheduler1)
+                .doOnNext(blackhole::consume)
+                .blockLast());
+    }
+
+    @Benchmark
+    public void subscribeOn(Blackhole blackhole)
+    {
+        blackhole.consume(Flux.range(0, size)
+                .subscribeOn(scheduler1)
+                .doOnNext(blackhole::consume)
+                .blockLast());
+    }
+
+    @Benchmark
+    public void asyncZipSubscribeOn(Blackhole blackhole)
+    {
+        blackhole.consume(Flux.zip(
+                Flux.range(0, size).subscribeOn(scheduler1),
+                Flux.range(0, size).subscribeOn(scheduler2),
+                Flux.range(0, size).subscribeOn(scheduler3))
+                .map(tuple3 -> tuple3.getT1() + tuple3.getT2() + tuple3.getT3())
+                .blockLast());
+    }
+}
@@ -0,0 +1,97 @@
+package com.sme.reactor.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sme.reactor.scheduler.VirtualThreadScheduler;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs thousands of concurrent subscriptions with a short blocking call on elastic, bounded and virtual thread schedulers.
+ * <p>
+ * Bismuth has no bounded elastic scheduler, so a fixed pool of {@link #BOUNDED_THREADS} threads stands for it. Run the benchmark on JDK 21 to compare
+ * with virtual threads, on older JDK {@link VirtualThreadScheduler} falls back to platform threads.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadSchedulerBenchmark
+{
+    private static final int BOUNDED_THREADS = 256;
+
+    @Param({"1000", "10000"})
+    private int subscriptions;
+
+    @Param({"1"})
+    private int blockMillis;
+
+    @Param({"elastic", "bounded", "virtual"})
+    private String schedulerType;
+
+    private Scheduler scheduler;
+    private ExecutorService boundedPool;
+
+    @Setup
+    public void setUp()
+    {
+        switch (schedulerType)
+        {
+            case "elastic":
+                scheduler = Schedulers.newElastic("elastic");
+                break;
+            case "bounded":
+                boundedPool = Executors.newFixedThreadPool(BOUNDED_THREADS);
+                scheduler = Schedulers.fromExecutorService(boundedPool);
+                break;
+            default:
+                scheduler = VirtualThreadScheduler.create("virtual");
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scheduler.dispose();
+        if (boundedPool != null)
+        {
+            boundedPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Long blockingSubscriptions()
+    {
+        return Flux.range(0, subscriptions)
+                .flatMap(value -> Mono.fromCallable(() ->
+                {
+                    Thread.sleep(blockMillis);
+                    return value;
+                })
+                        .subscribeOn(scheduler), subscriptions)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,100 @@
+package com.sme.reactor.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sme.reactor.window.EventTimeWindows;
+import com.sme.reactor.window.NumericStats;
+import com.sme.reactor.window.WindowAggregator;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares per-window metrics of materialized windows of {@link Flux#buffer(int)} and {@link Flux#window(int)} with the incremental state of
+ * {@link EventTimeWindows}, for a stream of event times with {@code windowSize} values per window of 1 second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowAggregationBenchmark
+{
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"1000", "100000"})
+    private int windowSize;
+
+    private Long[] times;
+
+    @Setup
+    public void setUp()
+    {
+        times = new Long[size];
+        for (int i = 0; i < size; i++)
+        {
+            times[i] = i * 1000L / windowSize;
+        }
+    }
+
+    @Benchmark
+    public void bufferStats(Blackhole blackhole)
+    {
+        Flux.fromArray(times)
+                .buffer(windowSize)
+                .map(WindowAggregationBenchmark::stats)
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void windowStats(Blackhole blackhole)
+    {
+        Flux.fromArray(times)
+                .window(windowSize)
+                .concatMap(window -> window.collect(NumericStats::new, NumericStats::add))
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void eventTimeStats(Blackhole blackhole)
+    {
+        Flux.fromArray(times)
+                .transform(EventTimeWindows.tumbling(Duration.ofSeconds(1), Duration.ZERO, Long::longValue, WindowAggregator.stats(Long::doubleValue)))
+                .subscribe(blackhole::consume);
+    }
+
+    @Benchmark
+    public void eventTimeQuantiles(Blackhole blackhole)
+    {
+        Flux.fromArray(times)
+                .transform(EventTimeWindows.tumbling(Duration.ofSeconds(1), Duration.ZERO, Long::longValue,
+                        WindowAggregator.quantiles(Long::doubleValue, 100)))
+                .subscribe(window -> blackhole.consume(window.getResult().quantile(0.99)));
+    }
+
+    private static NumericStats stats(List<Long> window)
+    {
+        NumericStats stats = new NumericStats();
+        for (Long time : window)
+        {
+            stats.add(time);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,216 @@
+package com.sme.reactor.backpressure;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+/**
+ * Subscriber that requests values ahead in batches and adapts a size of the batch from observed consumption latency.
+ * <p>
+ * Stop-and-wait subscriber requests the next batch only when the previous one is consumed, so the producer idles once per batch. This subscriber
+ * replenishes demand as soon as 75% of the batch is consumed (the same low tide as {@link Flux#limitRate(int)} uses), so the producer always has
+ * outstanding demand.
+ * </p>
+ * <p>
+ * Every replenish resizes the batch to be drained in about {@code targetBatchLatency}: a fast consumer gets large batches and rare requests, a slow
+ * consumer gets small batches and less values buffered ahead of it.
+ * </p>
+ * 
+ * @param <T> The generic parameter to work in subscriber with.
+ */
+public class AdaptiveBatchingSubscriber<T> extends BaseSubscriber<T>
+{
+    public static final int DEFAULT_MIN_BATCH_SIZE = 8;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+    public static final Duration DEFAULT_TARGET_BATCH_LATENCY = Duration.ofMillis(1);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveBatchingSubscriber.class);
+    private static final double SMOOTHING = 0.5;
+
+    private final Consumer<? super T> consumer;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetBatchNanos;
+
+    // Signals are serialized, so the only writer is the thread that delivers current signal; volatile makes metrics visible to other threads
+    private volatile int batchSize;
+    private volatile long demand;
+    private volatile int inFlight;
+    private volatile long requested;
+    private volatile long consumed;
+    private volatile double nanosPerValue;
+
+    private int consumedInBatch;
+    private long consumingNanos;
+
+    public AdaptiveBatchingSubscriber(Consumer<? super T> consumer)
+    {
+        this(consumer, DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE, DEFAULT_TARGET_BATCH_LATENCY);
+    }
+
+    public AdaptiveBatchingSubscriber(Consumer<? super T> consumer, int minBatchSize, int maxBatchSize, Duration targetBatchLatency)
+    {
+        this(consumer, minBatchSize, minBatchSize, maxBatchSize, targetBatchLatency);
+    }
+
+    /**
+     * Creates subscriber.
+     * 
+     * @param consumer The consumer to perform business logic with every value;
+     * @param initialBatchSize The size of the first request;
+     * @param minBatchSize The lower bound of the batch size;
+     * @param maxBatchSize The upper bound of the batch size;
+     * @param targetBatchLatency The time to consume one batch the size is adapted to.
+     */
+    public AdaptiveBatchingSubscriber(Consumer<? super T> consumer, int initialBatchSize, int minBatchSize, int maxBatchSize, Duration targetBatchLatency)
+    {
+        Validate.notNull(consumer, "Consumer is required");
+        Validate.isTrue(minBatchSize > 0, "Min batch size must be positive: %d", minBatchSize);
+        Validate.isTrue(maxBatchSize >= minBatchSize, "Max batch size %d is less than min batch size %d", maxBatchSize, minBatchSize);
+        Validate.inclusiveBetween(minBatchSize, maxBatchSize, initialBatchSize, "Initial batch size must be between min and max batch sizes");
+        Validate.isTrue(!targetBatchLatency.isNegative() && !targetBatchLatency.isZero(), "Target batch latency must be positive");
+
+        this.consumer = consumer;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetBatchNanos = targetBatchLatency.toNanos();
+        this.batchSize = initialBatchSize;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription)
+    {
+        requestMore(batchSize);
+    }
+
+    @Override
+    protected void hookOnNext(T value)
+    {
+        demand--;
+        inFlight++;
+        long start = System.nanoTime();
+        try
+        {
+            consumer.accept(value);
+        }
+        finally
+        {
+            inFlight--;
+        }
+        consumingNanos += System.nanoTime() - start;
+        consumed++;
+
+        if (++consumedInBatch >= lowTide(batchSize))
+        {
+            replenish();
+        }
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable)
+    {
+        LOGGER.error("Stop consuming after {} values", consumed, throwable);
+    }
+
+    /**
+     * Gets the current size of batch.
+     * 
+     * @return Returns the size of batch.
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Gets the number of values requested from upstream but not delivered yet.
+     * 
+     * @return Returns the outstanding demand.
+     */
+    public long getDemand()
+    {
+        return demand;
+    }
+
+    /**
+     * Gets the number of values delivered to subscriber and being consumed now.
+     * 
+     * @return Returns the number of values in consumer.
+     */
+    public int getInFlight()
+    {
+        return inFlight;
+    }
+
+    /**
+     * Gets the total number of requested values.
+     * 
+     * @return Returns the total demand.
+     */
+    public long getRequested()
+    {
+        return requested;
+    }
+
+    /**
+     * Gets the total number of consumed values.
+     * 
+     * @return Returns the number of consumed values.
+     */
+    public long getConsumed()
+    {
+        return consumed;
+    }
+
+    /**
+     * Gets the smoothed time to consume one value.
+     * 
+     * @return Returns the consumption latency in nanoseconds.
+     */
+    public double getNanosPerValue()
+    {
+        return nanosPerValue;
+    }
+
+    private void replenish()
+    {
+        double nanos = (double) consumingNanos / consumedInBatch;
+        nanosPerValue = nanosPerValue == 0 ? nanos : nanosPerValue * (1 - SMOOTHING) + nanos * SMOOTHING;
+        consumedInBatch = 0;
+        consumingNanos = 0;
+
+        int newBatchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, targetBatchNanos / Math.max(1D, nanosPerValue)));
+        if (newBatchSize != batchSize)
+        {
+            LOGGER.trace("Resize batch from {} to {} with {} ns per value", batchSize, newBatchSize, nanosPerValue);
+            batchSize = newBatchSize;
+        }
+
+        // Top up demand to the high tide; a shrunk batch is drained first
+        long toRequest = newBatchSize - demand;
+        if (toRequest > 0)
+        {
+            requestMore(toRequest);
+        }
+    }
+
+    private void requestMore(long n)
+    {
+        // Count the demand before request, because synchronous upstream emits values inside request call
+        demand += n;
+        requested += n;
+        request(n);
+    }
+
+    private static int lowTide(int batchSize)
+    {
+        return batchSize - (batchSize >> 2);
+    }
+}
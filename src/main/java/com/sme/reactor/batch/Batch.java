@@ -0,0 +1,100 @@
+package com.sme.reactor.batch;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Fixed-capacity list of values emitted by {@link MicroBatching}.
+ * <p>
+ * A batch of a pool must be released exactly once after downstream is done with it, for instance after the bulk write completes. The released batch is
+ * cleared and reused for the next values, so it must not be read after the release. A batch that is not pooled is an ordinary list and release does
+ * nothing.
+ * </p>
+ * 
+ * @param <T> The type of values.
+ */
+public final class Batch<T> extends AbstractList<T> implements RandomAccess
+{
+    private final Object[] values;
+    private final BatchPool<T> pool;
+    private int size;
+
+    private BatchSizer sizer;
+    private long emittedAt;
+
+    Batch(int capacity, BatchPool<T> pool)
+    {
+        this.values = new Object[capacity];
+        this.pool = pool;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index)
+    {
+        if (index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of batch of " + size + " values");
+        }
+        return (T) values[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return values.length;
+    }
+
+    /**
+     * Returns the batch to its pool.
+     */
+    public void release()
+    {
+        if (pool == null)
+        {
+            return;
+        }
+
+        BatchSizer currentSizer = sizer;
+        if (currentSizer != null && size > 0)
+        {
+            currentSizer.sample(System.nanoTime() - emittedAt, size);
+        }
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        sizer = null;
+        pool.recycle(this);
+    }
+
+    boolean isPooled()
+    {
+        return pool != null;
+    }
+
+    void append(T value)
+    {
+        values[size++] = value;
+    }
+
+    boolean isFull()
+    {
+        return size == values.length;
+    }
+
+    void emitted(BatchSizer batchSizer)
+    {
+        this.sizer = batchSizer;
+        this.emittedAt = System.nanoTime();
+    }
+
+    long getEmittedAt()
+    {
+        return emittedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package com.sme.reactor.batch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Bounded pool of batches of the same capacity.
+ * <p>
+ * The pool is backed by an array queue, so recycling does not allocate. When the pool is empty, because downstream holds all batches, a new batch is
+ * allocated; when the pool is full, a released batch is left to the garbage collector.
+ * </p>
+ * 
+ * @param <T> The type of values.
+ */
+public final class BatchPool<T>
+{
+    private final int batchCapacity;
+    private final BlockingQueue<Batch<T>> available;
+
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    private BatchPool(int batchCapacity, int poolSize)
+    {
+        this.batchCapacity = batchCapacity;
+        this.available = poolSize > 0 ? new ArrayBlockingQueue<>(poolSize) : null;
+    }
+
+    /**
+     * Creates the pool.
+     * 
+     * @param batchCapacity The max number of values in a batch;
+     * @param poolSize The max number of idle batches in the pool;
+     * @param <T> The type of values;
+     * @return Returns the pool.
+     */
+    public static <T> BatchPool<T> create(int batchCapacity, int poolSize)
+    {
+        Validate.isTrue(batchCapacity > 0, "Batch capacity should be positive");
+        Validate.isTrue(poolSize > 0, "Pool size should be positive");
+        return new BatchPool<>(batchCapacity, poolSize);
+    }
+
+    /**
+     * Creates the factory of batches that are not recycled.
+     * 
+     * @param batchCapacity The max number of values in a batch;
+     * @param <T> The type of values;
+     * @return Returns the factory.
+     */
+    static <T> BatchPool<T> unpooled(int batchCapacity)
+    {
+        return new BatchPool<>(batchCapacity, 0);
+    }
+
+    public int getBatchCapacity()
+    {
+        return batchCapacity;
+    }
+
+    /**
+     * @return Returns the number of batches allocated because the pool was empty.
+     */
+    public long getAllocated()
+    {
+        return allocated.sum();
+    }
+
+    /**
+     * @return Returns the number of batches taken from the pool.
+     */
+    public long getReused()
+    {
+        return reused.sum();
+    }
+
+    public int getAvailable()
+    {
+        return available == null ? 0 : available.size();
+    }
+
+    Batch<T> acquire()
+    {
+        if (available != null)
+        {
+            Batch<T> batch = available.poll();
+            if (batch != null)
+            {
+                reused.increment();
+                return batch;
+            }
+        }
+        allocated.increment();
+        return new Batch<>(batchCapacity, available == null ? null : this);
+    }
+
+    void recycle(Batch<T> batch)
+    {
+        available.offer(batch);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sme.reactor.batch;
+
+/**
+ * Sizes batches to be processed downstream in about the target latency.
+ * <p>
+ * Latency samples come from the threads that release batches, so the moving average is updated without synchronization: a lost sample only delays the
+ * adaptation.
+ * </p>
+ */
+final class BatchSizer
+{
+    private static final double SMOOTHING = 0.2;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+
+    private volatile double nanosPerValue;
+    private volatile int size;
+
+    BatchSizer(int minSize, int maxSize, long targetNanos)
+    {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetNanos;
+        this.size = minSize;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    double getNanosPerValue()
+    {
+        return nanosPerValue;
+    }
+
+    void sample(long nanos, int values)
+    {
+        double sample = (double) Math.max(1L, nanos) / values;
+        double current = nanosPerValue;
+        double average = current == 0d ? sample : current + SMOOTHING * (sample - current);
+        nanosPerValue = average;
+        size = (int) Math.max(minSize, Math.min(maxSize, targetNanos / average));
+    }
+}
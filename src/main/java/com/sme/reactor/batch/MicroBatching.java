@@ -0,0 +1,414 @@
+package com.sme.reactor.batch;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Groups values into batches that are emitted when either the batch is full or the max delay since its first value passes.
+ * <p>
+ * {@link Flux#bufferTimeout(int, Duration)} flushes on timeout regardless of demand and fails with overflow when downstream is busy. Here upstream is
+ * requested a batch at a time and only while downstream has demand for another batch, so a flushed batch waits for demand and memory is bounded by the
+ * demand of downstream. A partial batch is flushed on complete, and on error after the buffered batches.
+ * </p>
+ * <p>
+ * Pooled batches are recycled on {@link Batch#release()}, so the hot path does not allocate a list per batch. Adaptive batching measures the time from
+ * emitting a batch to its release and resizes batches to be processed in about the target latency, like {@code AdaptiveBatchingSubscriber} does for
+ * requests.
+ * </p>
+ */
+public final class MicroBatching
+{
+    private MicroBatching()
+    {
+    }
+
+    /**
+     * Emits lists of up to the max size of values with the timer of {@link Schedulers#parallel()}.
+     * 
+     * @param maxSize The max number of values in a batch;
+     * @param maxDelay The max time between the first value of a batch and its flush;
+     * @param <T> The type of values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T> Function<Flux<T>, Flux<List<T>>> batch(int maxSize, Duration maxDelay)
+    {
+        return batch(maxSize, maxDelay, Schedulers.parallel());
+    }
+
+    /**
+     * Emits lists of up to the max size of values.
+     * 
+     * @param maxSize The max number of values in a batch;
+     * @param maxDelay The max time between the first value of a batch and its flush;
+     * @param timer The scheduler of flushes;
+     * @param <T> The type of values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T> Function<Flux<T>, Flux<List<T>>> batch(int maxSize, Duration maxDelay, Scheduler timer)
+    {
+        Validate.isTrue(maxSize > 0, "Max size should be positive");
+        validate(maxDelay, timer);
+        return flux -> Flux.from(actual -> flux.subscribe(new MicroBatchSubscriber<T, List<T>>(Operators.toCoreSubscriber(actual), BatchPool.unpooled(maxSize), null,
+                maxDelay.toNanos(), timer)));
+    }
+
+    /**
+     * Emits batches of the pool capacity, every batch must be released after use.
+     * 
+     * @param pool The pool of batches;
+     * @param maxDelay The max time between the first value of a batch and its flush;
+     * @param timer The scheduler of flushes;
+     * @param <T> The type of values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T> Function<Flux<T>, Flux<Batch<T>>> pooled(BatchPool<T> pool, Duration maxDelay, Scheduler timer)
+    {
+        Validate.notNull(pool, "Pool is required");
+        validate(maxDelay, timer);
+        return flux -> Flux.from(actual -> flux.subscribe(new MicroBatchSubscriber<>(Operators.toCoreSubscriber(actual), pool, null, maxDelay.toNanos(), timer)));
+    }
+
+    /**
+     * Emits batches sized to be released in about the target latency, every batch must be released after use.
+     * 
+     * @param pool The pool of batches, its capacity is the max size of a batch;
+     * @param minSize The min size of a batch, the first batches are of this size;
+     * @param maxDelay The max time between the first value of a batch and its flush;
+     * @param targetLatency The time between emitting and releasing a batch the size is adapted to;
+     * @param timer The scheduler of flushes;
+     * @param <T> The type of values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T> Function<Flux<T>, Flux<Batch<T>>> adaptive(BatchPool<T> pool, int minSize, Duration maxDelay, Duration targetLatency, Scheduler timer)
+    {
+        Validate.notNull(pool, "Pool is required");
+        Validate.inclusiveBetween(1, pool.getBatchCapacity(), minSize, "Min size should be between 1 and capacity of batches");
+        Validate.isTrue(targetLatency != null && !targetLatency.isNegative() && !targetLatency.isZero(), "Target latency should be positive");
+        validate(maxDelay, timer);
+        return flux -> Flux.from(actual ->
+        {
+            BatchSizer sizer = new BatchSizer(minSize, pool.getBatchCapacity(), targetLatency.toNanos());
+            flux.subscribe(new MicroBatchSubscriber<>(Operators.toCoreSubscriber(actual), pool, sizer, maxDelay.toNanos(), timer));
+        });
+    }
+
+    private static void validate(Duration maxDelay, Scheduler timer)
+    {
+        Validate.isTrue(maxDelay != null && !maxDelay.isNegative() && !maxDelay.isZero(), "Max delay should be positive");
+        Validate.notNull(timer, "Timer is required");
+    }
+
+    /**
+     * Fills batches from upstream under the monitor of the subscriber and emits them in a drain loop.
+     */
+    private static final class MicroBatchSubscriber<T, B> implements CoreSubscriber<T>, Subscription
+    {
+        private final CoreSubscriber<? super B> actual;
+        private final BatchPool<T> pool;
+        private final BatchSizer sizer;
+        private final long maxDelayNanos;
+        private final Scheduler timer;
+
+        private final AtomicInteger wip = new AtomicInteger();
+        private final ArrayDeque<Batch<T>> ready = new ArrayDeque<>();
+
+        private Subscription upstream;
+        private volatile boolean cancelled;
+
+        // Guarded by the monitor
+        private Batch<T> current;
+        private Disposable flushTask;
+        private long generation;
+        private long demand;
+        private long pendingUpstream;
+        private boolean done;
+        private Throwable error;
+
+        private MicroBatchSubscriber(CoreSubscriber<? super B> actual, BatchPool<T> pool, BatchSizer sizer, long maxDelayNanos, Scheduler timer)
+        {
+            this.actual = actual;
+            this.pool = pool;
+            this.sizer = sizer;
+            this.maxDelayNanos = maxDelayNanos;
+            this.timer = timer;
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t)
+        {
+            long batchGeneration = 0L;
+            Disposable expiredTask = null;
+            synchronized (this)
+            {
+                if (done || cancelled)
+                {
+                    Operators.onNextDropped(t, currentContext());
+                    return;
+                }
+
+                pendingUpstream--;
+                if (current == null)
+                {
+                    current = pool.acquire();
+                    batchGeneration = ++generation;
+                }
+                current.append(t);
+                if (current.size() >= batchSize() || current.isFull())
+                {
+                    ready.offer(current);
+                    current = null;
+                    expiredTask = flushTask;
+                    flushTask = null;
+                }
+            }
+
+            if (batchGeneration != 0L)
+            {
+                scheduleFlush(batchGeneration);
+            }
+            if (expiredTask != null)
+            {
+                expiredTask.dispose();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            synchronized (this)
+            {
+                if (done)
+                {
+                    Operators.onErrorDropped(t, currentContext());
+                    return;
+                }
+                error = t;
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            synchronized (this)
+            {
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                synchronized (this)
+                {
+                    demand = Operators.addCap(demand, n);
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                upstream.cancel();
+                if (wip.getAndIncrement() == 0)
+                {
+                    clear();
+                }
+            }
+        }
+
+        private int batchSize()
+        {
+            return sizer == null ? pool.getBatchCapacity() : sizer.size();
+        }
+
+        private void scheduleFlush(long batchGeneration)
+        {
+            Disposable task = timer.schedule(() -> flush(batchGeneration), maxDelayNanos, TimeUnit.NANOSECONDS);
+            synchronized (this)
+            {
+                if (generation == batchGeneration && current != null)
+                {
+                    flushTask = task;
+                    return;
+                }
+            }
+            task.dispose();
+        }
+
+        private void flush(long batchGeneration)
+        {
+            synchronized (this)
+            {
+                if (generation != batchGeneration || current == null)
+                {
+                    return;
+                }
+                ready.offer(current);
+                current = null;
+                flushTask = null;
+            }
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                for (;;)
+                {
+                    Batch<T> batch = null;
+                    boolean terminate = false;
+                    long request = 0L;
+                    Throwable failure = null;
+
+                    synchronized (this)
+                    {
+                        if (cancelled)
+                        {
+                            clear();
+                            return;
+                        }
+
+                        if (demand > 0 && !ready.isEmpty())
+                        {
+                            batch = ready.poll();
+                            if (demand != Long.MAX_VALUE)
+                            {
+                                demand--;
+                            }
+                        }
+                        else if (current != null && (done || current.size() >= batchSize()))
+                        {
+                            // Flushes the last partial batch or a batch that became full when the adaptive size shrunk
+                            ready.offer(current);
+                            current = null;
+                            disposeFlushTask();
+                            continue;
+                        }
+                        else if (done)
+                        {
+                            terminate = ready.isEmpty();
+                            failure = error;
+                        }
+                        else if (pendingUpstream == 0 && demand > ready.size())
+                        {
+                            request = batchSize() - (current == null ? 0 : current.size());
+                            pendingUpstream = request;
+                        }
+                    }
+
+                    if (batch != null)
+                    {
+                        emit((B) batch, batch);
+                        continue;
+                    }
+                    if (terminate)
+                    {
+                        if (failure != null)
+                        {
+                            actual.onError(failure);
+                        }
+                        else
+                        {
+                            actual.onComplete();
+                        }
+                        return;
+                    }
+                    if (request > 0)
+                    {
+                        upstream.request(request);
+                    }
+                    break;
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        private void emit(B value, Batch<T> batch)
+        {
+            batch.emitted(sizer);
+            actual.onNext(value);
+            if (sizer != null && !batch.isPooled())
+            {
+                sizer.sample(System.nanoTime() - batch.getEmittedAt(), batch.size());
+            }
+        }
+
+        private synchronized void clear()
+        {
+            disposeFlushTask();
+            for (Batch<T> batch : ready)
+            {
+                batch.release();
+            }
+            ready.clear();
+            if (current != null)
+            {
+                current.release();
+                current = null;
+            }
+        }
+
+        private void disposeFlushTask()
+        {
+            if (flushTask != null)
+            {
+                flushTask.dispose();
+                flushTask = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sme.reactor.blocking;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.core.Scannable;
+import reactor.util.context.Context;
+
+/**
+ * Subscriber between an operator and its downstream that marks the thread with the assembly trace of downstream while it delivers a signal.
+ * <p>
+ * Like the tracing subscriber, it always refuses fusion, so every signal of a lifted fuseable publisher passes the mark.
+ * </p>
+ *
+ * @param <T> The type of values.
+ */
+final class AssemblySubscriber<T> implements CoreSubscriber<T>, Fuseable.QueueSubscription<T>, Scannable
+{
+    private final CoreSubscriber<? super T> actual;
+    final StackTraceElement[] assembly;
+    private final StackTraceElement[] downstreamAssembly;
+
+    private Subscription subscription;
+
+    AssemblySubscriber(CoreSubscriber<? super T> actual, StackTraceElement[] assembly, StackTraceElement[] downstreamAssembly)
+    {
+        this.actual = actual;
+        this.assembly = assembly;
+        this.downstreamAssembly = downstreamAssembly;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s)
+    {
+        subscription = s;
+        actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t)
+    {
+        AssemblyTracker.Mark mark = AssemblyTracker.mark();
+        StackTraceElement[] previous = mark.assembly;
+        mark.assembly = downstreamAssembly;
+        try
+        {
+            actual.onNext(t);
+        }
+        finally
+        {
+            mark.assembly = previous;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t)
+    {
+        AssemblyTracker.Mark mark = AssemblyTracker.mark();
+        StackTraceElement[] previous = mark.assembly;
+        mark.assembly = downstreamAssembly;
+        try
+        {
+            actual.onError(t);
+        }
+        finally
+        {
+            mark.assembly = previous;
+        }
+    }
+
+    @Override
+    public void onComplete()
+    {
+        AssemblyTracker.Mark mark = AssemblyTracker.mark();
+        StackTraceElement[] previous = mark.assembly;
+        mark.assembly = downstreamAssembly;
+        try
+        {
+            actual.onComplete();
+        }
+        finally
+        {
+            mark.assembly = previous;
+        }
+    }
+
+    @Override
+    public void request(long n)
+    {
+        subscription.request(n);
+    }
+
+    @Override
+    public void cancel()
+    {
+        subscription.cancel();
+    }
+
+    @Override
+    public int requestFusion(int requestedMode)
+    {
+        return Fuseable.NONE;
+    }
+
+    @Override
+    public T poll()
+    {
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        // Never fused, so there is no queue
+    }
+
+    @Override
+    public Context currentContext()
+    {
+        return actual.currentContext();
+    }
+
+    @Override
+    public Object scanUnsafe(Attr key)
+    {
+        if (key == Attr.PARENT)
+        {
+            return subscription;
+        }
+        if (key == Attr.ACTUAL)
+        {
+            return actual;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.sme.reactor.blocking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.Scannable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Operators;
+
+/**
+ * Tracks the assembly trace of the operator that runs on a thread, so the detector can report it for a blocked thread.
+ * <p>
+ * The hook captures the stack trace of every operator assembled after {@link #install()} and lifts the operator with an {@link AssemblySubscriber}.
+ * The code that runs under a signal of an operator is the callback of the next operator downstream, so the subscriber between them marks its thread
+ * with the assembly trace of that downstream operator while the signal is delivered.
+ * </p>
+ */
+final class AssemblyTracker
+{
+    private static final String KEY = AssemblyTracker.class.getName();
+    private static final StackTraceElement[] NO_TRACE = new StackTraceElement[0];
+    private static final int MAX_ACTUAL_LOOKUP = 4;
+
+    private static final ThreadLocal<Mark> MARK = ThreadLocal.withInitial(AssemblyTracker::register);
+    // Read by the sampler thread, threads of disposed schedulers are collected
+    private static final Map<Thread, Mark> MARKS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private AssemblyTracker()
+    {
+    }
+
+    static void install()
+    {
+        Hooks.onEachOperator(KEY, AssemblyTracker::track);
+    }
+
+    static void reset()
+    {
+        Hooks.resetOnEachOperator(KEY);
+    }
+
+    /**
+     * @param thread The thread;
+     * @return Returns the assembly trace of the operator which callback runs on the thread, or an empty array if it is not known.
+     */
+    static StackTraceElement[] current(Thread thread)
+    {
+        Mark mark = MARKS.get(thread);
+        StackTraceElement[] assembly = mark == null ? null : mark.assembly;
+        return assembly == null ? NO_TRACE : assembly;
+    }
+
+    static Mark mark()
+    {
+        return MARK.get();
+    }
+
+    private static Mark register()
+    {
+        Mark mark = new Mark();
+        MARKS.put(Thread.currentThread(), mark);
+        return mark;
+    }
+
+    private static Publisher<Object> track(Publisher<Object> publisher)
+    {
+        StackTraceElement[] assembly = assemblyTrace(new Throwable().getStackTrace());
+        Function<? super Publisher<Object>, ? extends Publisher<Object>> lift = Operators.lift((s, actual) ->
+                new AssemblySubscriber<>(actual, assembly, downstreamAssembly(actual)));
+        return lift.apply(publisher);
+    }
+
+    /**
+     * The subscriber of an operator is usually scannable for its actual subscriber. The first assembly subscriber down the chain is the one of that
+     * operator, other hooks like {@link Hooks#onOperatorDebug()} can add subscribers in between.
+     */
+    private static StackTraceElement[] downstreamAssembly(Object subscriber)
+    {
+        Object current = actualOf(subscriber);
+        for (int i = 0; current != null && i < MAX_ACTUAL_LOOKUP; i++)
+        {
+            if (current instanceof AssemblySubscriber)
+            {
+                return ((AssemblySubscriber<?>) current).assembly;
+            }
+            current = actualOf(current);
+        }
+        return null;
+    }
+
+    private static Object actualOf(Object subscriber)
+    {
+        return subscriber instanceof Scannable ? ((Scannable) subscriber).scanUnsafe(Scannable.Attr.ACTUAL) : null;
+    }
+
+    /**
+     * Skips the frames of the hook and keeps the operator method, like {@code Flux.doOnNext}, followed by the application frames.
+     */
+    private static StackTraceElement[] assemblyTrace(StackTraceElement[] stackTrace)
+    {
+        for (int i = 0; i < stackTrace.length; i++)
+        {
+            if (!BlockingCallDetector.isInfrastructure(stackTrace[i]))
+            {
+                return Arrays.copyOfRange(stackTrace, Math.max(0, i - 1), stackTrace.length);
+            }
+        }
+        return stackTrace;
+    }
+
+    /**
+     * The assembly trace of the operator which callback runs on a thread.
+     */
+    static final class Mark
+    {
+        volatile StackTraceElement[] assembly;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sme.reactor.blocking;
+
+import java.util.Arrays;
+
+/**
+ * Blocking call detected on a thread that must never block.
+ */
+public final class BlockingCall
+{
+    private final String threadName;
+    private final Thread.State state;
+    private final StackTraceElement blockingFrame;
+    private final StackTraceElement callerFrame;
+    private final StackTraceElement[] stackTrace;
+    private final StackTraceElement[] assemblyTrace;
+
+    BlockingCall(String threadName, Thread.State state, StackTraceElement[] stackTrace, StackTraceElement callerFrame, StackTraceElement[] assemblyTrace)
+    {
+        this.threadName = threadName;
+        this.state = state;
+        this.blockingFrame = stackTrace[0];
+        this.callerFrame = callerFrame;
+        this.stackTrace = stackTrace;
+        this.assemblyTrace = assemblyTrace;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public Thread.State getState()
+    {
+        return state;
+    }
+
+    /**
+     * Gets the top frame, like {@code Thread.sleep} or {@code Unsafe.park}.
+     * 
+     * @return Returns the blocking frame.
+     */
+    public StackTraceElement getBlockingFrame()
+    {
+        return blockingFrame;
+    }
+
+    /**
+     * Gets the first frame of application code under the blocking frame, i.e. the operator callback that blocks.
+     * 
+     * @return Returns the caller frame or null if the stack has JDK and Reactor frames only.
+     */
+    public StackTraceElement getCallerFrame()
+    {
+        return callerFrame;
+    }
+
+    public StackTraceElement[] getStackTrace()
+    {
+        return Arrays.copyOf(stackTrace, stackTrace.length);
+    }
+
+    /**
+     * Gets the assembly trace of the operator which callback blocks: the operator method, like {@code Flux.doOnNext}, and the frames that assembled it.
+     * 
+     * @return Returns the assembly trace or an empty array if assembly is not tracked by {@link BlockingCallDetector#trackAssembly()}.
+     */
+    public StackTraceElement[] getAssemblyTrace()
+    {
+        return Arrays.copyOf(assemblyTrace, assemblyTrace.length);
+    }
+
+    @Override
+    public String toString()
+    {
+        String call = "Blocking call " + blockingFrame + " in " + state + " state on " + threadName + " thread at " + callerFrame;
+        if (assemblyTrace.length < 2)
+        {
+            return call;
+        }
+        return call + " in " + assemblyTrace[0].getMethodName() + " assembled at " + assemblyTrace[1];
+    }
+}
@@ -0,0 +1,301 @@
+package com.sme.reactor.blocking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Hooks;
+
+/**
+ * Detects blocking calls on threads of non-blocking schedulers, like {@code Schedulers.parallel()} and {@code Schedulers.single()}.
+ * <p>
+ * The detector samples stack traces of matching threads on its own daemon thread. A thread that runs a task and stays in sleep, lock wait, monitor wait
+ * or blocking socket and file reads for {@code minSamples} consecutive samples is reported with the application frame that called the blocking method.
+ * Idle workers waiting for the next task are ignored. Sampling needs no agent, so a blocking call shorter than the sampling interval can be missed.
+ * </p>
+ * <p>
+ * After {@link #trackAssembly()} every blocking call carries the assembly trace of the operator which callback blocks, i.e. the line of
+ * {@code doOnNext} or {@code map} in the pipeline. Tracking lifts every operator assembled after it, like {@link Hooks#onOperatorDebug()}, so it is
+ * meant for tests.
+ * </p>
+ * <p>
+ * In interrupting mode the detector also interrupts the blocked thread, so the blocking call fails and its pipeline terminates with the error. Together
+ * with {@link Hooks#onOperatorDebug()} the error carries the assembly location of the failed operator.
+ * </p>
+ */
+public final class BlockingCallDetector implements Disposable
+{
+    public static final Duration DEFAULT_SAMPLING_INTERVAL = Duration.ofMillis(10);
+    public static final int DEFAULT_MIN_SAMPLES = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockingCallDetector.class);
+
+    private static final Set<String> BLOCKING_NATIVE_METHODS = new HashSet<>(Arrays.asList(
+            "java.net.SocketInputStream.socketRead0",
+            "java.net.PlainSocketImpl.socketAccept",
+            "java.net.PlainSocketImpl.socketConnect",
+            "sun.nio.ch.Net.poll",
+            "sun.nio.ch.Net.connect0",
+            "sun.nio.ch.ServerSocketChannelImpl.accept0",
+            "sun.nio.ch.SocketDispatcher.read0",
+            "sun.nio.ch.FileDispatcherImpl.read0",
+            "sun.nio.ch.FileDispatcherImpl.pread0",
+            "java.io.FileInputStream.readBytes",
+            "java.io.FileInputStream.read0"));
+
+    private static final List<String> INFRASTRUCTURE_PACKAGES = Arrays.asList("java.", "javax.", "jdk.", "sun.", "com.sun.", "reactor.",
+            AssemblyTracker.class.getName(), AssemblySubscriber.class.getName());
+
+    private final Predicate<Thread> nonBlockingThreads;
+    private final int minSamples;
+    private final boolean interrupt;
+    private final ScheduledExecutorService sampler;
+    private final List<BlockingCall> blockingCalls = new CopyOnWriteArrayList<>();
+    // Accessed by the sampler thread only
+    private final Map<Long, Episode> episodes = new HashMap<>();
+
+    private BlockingCallDetector(Predicate<Thread> nonBlockingThreads, Duration samplingInterval, int minSamples, boolean interrupt)
+    {
+        this.nonBlockingThreads = nonBlockingThreads;
+        this.minSamples = minSamples;
+        this.interrupt = interrupt;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "blocking-call-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = samplingInterval.toNanos();
+        sampler.scheduleAtFixedRate(this::sample, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts detector of blocking calls on {@code Schedulers.parallel()} and {@code Schedulers.single()} threads.
+     * 
+     * @return Returns the started detector.
+     */
+    public static BlockingCallDetector start()
+    {
+        return start(threadNamePrefixes("parallel-", "single-"), DEFAULT_SAMPLING_INTERVAL, DEFAULT_MIN_SAMPLES, false);
+    }
+
+    /**
+     * Starts detector.
+     * 
+     * @param nonBlockingThreads The predicate to select threads that must never block;
+     * @param samplingInterval The interval between samples of stack traces;
+     * @param minSamples The number of consecutive samples to report a blocked thread;
+     * @param interrupt If true, the blocked thread is interrupted to fail the blocking call;
+     * @return Returns the started detector.
+     */
+    public static BlockingCallDetector start(Predicate<Thread> nonBlockingThreads, Duration samplingInterval, int minSamples, boolean interrupt)
+    {
+        Validate.notNull(nonBlockingThreads, "Predicate of non-blocking threads is required");
+        Validate.isTrue(!samplingInterval.isNegative() && !samplingInterval.isZero(), "Sampling interval must be positive");
+        Validate.isTrue(minSamples > 0, "Min samples must be positive: %d", minSamples);
+        return new BlockingCallDetector(nonBlockingThreads, samplingInterval, minSamples, interrupt);
+    }
+
+    /**
+     * Creates predicate of threads with one of the given name prefixes.
+     * 
+     * @param prefixes The prefixes of thread names, like "parallel-";
+     * @return Returns the predicate.
+     */
+    public static Predicate<Thread> threadNamePrefixes(String... prefixes)
+    {
+        List<String> list = Arrays.asList(prefixes.clone());
+        return thread -> list.stream().anyMatch(prefix -> thread.getName().startsWith(prefix));
+    }
+
+    /**
+     * Installs the hook that captures the assembly trace of every operator assembled after it, so blocking calls carry the assembly trace of the
+     * blocking operator.
+     */
+    public static void trackAssembly()
+    {
+        AssemblyTracker.install();
+    }
+
+    /**
+     * Removes the hook installed by {@link #trackAssembly()}. Operators assembled before keep their assembly traces.
+     */
+    public static void resetAssemblyTracking()
+    {
+        AssemblyTracker.reset();
+    }
+
+    /**
+     * Gets detected blocking calls.
+     * 
+     * @return Returns the calls in the order of detection.
+     */
+    public List<BlockingCall> getBlockingCalls()
+    {
+        return new ArrayList<>(blockingCalls);
+    }
+
+    @Override
+    public void dispose()
+    {
+        sampler.shutdownNow();
+    }
+
+    @Override
+    public boolean isDisposed()
+    {
+        return sampler.isShutdown();
+    }
+
+    private void sample()
+    {
+        try
+        {
+            Set<Long> sampled = new HashSet<>();
+            for (Thread thread : liveThreads())
+            {
+                if (thread != null && nonBlockingThreads.test(thread))
+                {
+                    sampled.add(thread.getId());
+                    sample(thread);
+                }
+            }
+            episodes.keySet().retainAll(sampled);
+        }
+        catch (RuntimeException e)
+        {
+            // An exception would cancel periodic sampling
+            LOGGER.error("Failed to sample threads", e);
+        }
+    }
+
+    private void sample(Thread thread)
+    {
+        Thread.State state = thread.getState();
+        if (state == Thread.State.NEW || state == Thread.State.TERMINATED)
+        {
+            episodes.remove(thread.getId());
+            return;
+        }
+
+        StackTraceElement[] stackTrace = thread.getStackTrace();
+        if (!isBlocked(state, stackTrace))
+        {
+            episodes.remove(thread.getId());
+            return;
+        }
+
+        StackTraceElement callerFrame = callerFrame(stackTrace);
+        Episode episode = episodes.get(thread.getId());
+        if (episode == null || !episode.isSame(stackTrace[0], callerFrame))
+        {
+            episode = new Episode(stackTrace[0], callerFrame);
+            episodes.put(thread.getId(), episode);
+        }
+
+        if (++episode.samples == minSamples)
+        {
+            BlockingCall blockingCall = new BlockingCall(thread.getName(), state, stackTrace, callerFrame, AssemblyTracker.current(thread));
+            blockingCalls.add(blockingCall);
+            LOGGER.warn("{}", blockingCall);
+            if (interrupt)
+            {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static boolean isBlocked(Thread.State state, StackTraceElement[] stackTrace)
+    {
+        if (stackTrace.length == 0 || isIdle(stackTrace))
+        {
+            return false;
+        }
+        if (state == Thread.State.RUNNABLE)
+        {
+            StackTraceElement top = stackTrace[0];
+            return top.isNativeMethod() && BLOCKING_NATIVE_METHODS.contains(top.getClassName() + "." + top.getMethodName());
+        }
+        return true;
+    }
+
+    private static boolean isIdle(StackTraceElement[] stackTrace)
+    {
+        // A worker waits for the next task in the executor queue
+        for (StackTraceElement frame : stackTrace)
+        {
+            if ("java.util.concurrent.ThreadPoolExecutor".equals(frame.getClassName()) && "getTask".equals(frame.getMethodName()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StackTraceElement callerFrame(StackTraceElement[] stackTrace)
+    {
+        for (StackTraceElement frame : stackTrace)
+        {
+            if (!isInfrastructure(frame))
+            {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    static boolean isInfrastructure(StackTraceElement frame)
+    {
+        return INFRASTRUCTURE_PACKAGES.stream().anyMatch(frame.getClassName()::startsWith);
+    }
+
+    private static Thread[] liveThreads()
+    {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        while (group.getParent() != null)
+        {
+            group = group.getParent();
+        }
+
+        Thread[] threads = new Thread[group.activeCount() * 2];
+        int count = group.enumerate(threads, true);
+        return Arrays.copyOf(threads, count);
+    }
+
+    /**
+     * The same blocking call observed in consecutive samples.
+     */
+    private static final class Episode
+    {
+        private final StackTraceElement blockingFrame;
+        private final StackTraceElement callerFrame;
+        private int samples;
+
+        private Episode(StackTraceElement blockingFrame, StackTraceElement callerFrame)
+        {
+            this.blockingFrame = blockingFrame;
+            this.callerFrame = callerFrame;
+        }
+
+        private boolean isSame(StackTraceElement blockingFrame, StackTraceElement callerFrame)
+        {
+            return this.blockingFrame.equals(blockingFrame) && Objects.equals(this.callerFrame, callerFrame);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.sme.reactor.bridge;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Bridge from imperative producer threads into a flux through a lock-free bounded ring buffer.
+ * <p>
+ * {@link Flux#create(java.util.function.Consumer)} serializes producers of its sink through a queue of its own and emits on the thread of a producer,
+ * so a producer runs the pipeline of others. Here producers only claim a slot of an MPSC ring buffer by a CAS and wake the drain when it is idle, the
+ * drain runs on a worker of the scheduler and emits batches of values while there is demand. When the ring is full, the {@link Overflow} policy
+ * blocks the producer, drops the value or keeps the latest one.
+ * </p>
+ * <p>
+ * The bridge has a single subscriber. Values offered before the subscription wait in the ring. {@link #next(Object)}, {@link #complete()} and
+ * {@link #error(Throwable)} can be called from any threads, values of a producer thread are emitted in the order it offered them.
+ * </p>
+ * 
+ * <pre>
+ * FluxBridge&lt;Quote&gt; bridge = FluxBridge.create(4096, Overflow.BLOCK);
+ * bridge.flux().subscribe(this::onQuote);
+ * legacyFeed.addListener(bridge::next);
+ * </pre>
+ * 
+ * @param <T> The type of values.
+ */
+public final class FluxBridge<T>
+{
+    /**
+     * The policy for a value that does not fit the ring.
+     */
+    public enum Overflow
+    {
+        /** Parks the producer until the drain frees a slot, producers should not be threads of non-blocking schedulers. */
+        BLOCK,
+        /** Drops the value. */
+        DROP,
+        /** Keeps only the latest value that did not fit, it is emitted after the ring and newer values replace it until then. */
+        LATEST
+    }
+
+    // A missed wake-up delays a parked producer by this time at most
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Object COMPLETED = new Object();
+
+    private final MpscRingBuffer<T> ring;
+    private final Overflow overflow;
+    private final Scheduler.Worker worker;
+    private final int batchSize;
+
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<CoreSubscriber<? super T>> subscriber = new AtomicReference<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    // The first of COMPLETED or an error wins, a later one is ignored
+    private final AtomicReference<Object> terminal = new AtomicReference<>();
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder parks = new LongAdder();
+
+    // The subscriber the drain emits to, it is set after onSubscribe returns, so no signal precedes or overlaps onSubscribe
+    private volatile CoreSubscriber<? super T> ready;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+
+    private FluxBridge(int capacity, Overflow overflow, Scheduler scheduler)
+    {
+        this.ring = new MpscRingBuffer<>(capacity);
+        this.overflow = overflow;
+        this.worker = scheduler.createWorker();
+        this.batchSize = Math.max(1, ring.capacity() >> 2);
+    }
+
+    /**
+     * Creates the bridge that drains on {@link Schedulers#parallel()}.
+     * 
+     * @param capacity The capacity of the ring, rounded up to a power of two;
+     * @param overflow The policy for a value that does not fit the ring;
+     * @param <T> The type of values;
+     * @return Returns the bridge.
+     */
+    public static <T> FluxBridge<T> create(int capacity, Overflow overflow)
+    {
+        return create(capacity, overflow, Schedulers.parallel());
+    }
+
+    /**
+     * Creates the bridge.
+     * 
+     * @param capacity The capacity of the ring, rounded up to a power of two;
+     * @param overflow The policy for a value that does not fit the ring;
+     * @param scheduler The scheduler to emit values on;
+     * @param <T> The type of values;
+     * @return Returns the bridge.
+     */
+    public static <T> FluxBridge<T> create(int capacity, Overflow overflow, Scheduler scheduler)
+    {
+        Validate.isTrue(capacity > 0, "Capacity should be positive");
+        Validate.notNull(overflow, "Overflow is required");
+        Validate.notNull(scheduler, "Scheduler is required");
+        return new FluxBridge<>(capacity, overflow, scheduler);
+    }
+
+    /**
+     * @return Returns the flux of values, it can be subscribed once.
+     */
+    public Flux<T> flux()
+    {
+        return Flux.from(actual ->
+        {
+            CoreSubscriber<? super T> core = Operators.toCoreSubscriber(actual);
+            if (!subscriber.compareAndSet(null, core))
+            {
+                Operators.error(core, new IllegalStateException("Bridge allows only one subscriber"));
+                return;
+            }
+            core.onSubscribe(new BridgeSubscription());
+            ready = core;
+            signal();
+        });
+    }
+
+    /**
+     * Offers the value from any thread.
+     * 
+     * @param value The value;
+     * @return Returns false if the value was dropped or the bridge is terminated.
+     */
+    public boolean next(T value)
+    {
+        Validate.notNull(value, "Value is required");
+        if (done || cancelled)
+        {
+            return false;
+        }
+        if ((overflow != Overflow.LATEST || latest.get() == null) && ring.offer(value))
+        {
+            offered.increment();
+        }
+        else if (overflow == Overflow.LATEST)
+        {
+            offered.increment();
+            if (latest.getAndSet(value) != null)
+            {
+                dropped.increment();
+            }
+        }
+        else if (overflow == Overflow.BLOCK)
+        {
+            if (!await(value))
+            {
+                return false;
+            }
+            offered.increment();
+        }
+        else
+        {
+            dropped.increment();
+            return false;
+        }
+        // The drain checks the ring after it gets idle, so producers wake it only when it is idle
+        if (wip.get() == 0)
+        {
+            signal();
+        }
+        return true;
+    }
+
+    /**
+     * Completes the flux after the offered values, unless it is already terminated.
+     */
+    public void complete()
+    {
+        if (terminal.compareAndSet(null, COMPLETED))
+        {
+            done = true;
+            signal();
+        }
+    }
+
+    /**
+     * Terminates the flux with the error after the offered values, unless it is already terminated.
+     */
+    public void error(Throwable e)
+    {
+        Validate.notNull(e, "Error is required");
+        if (terminal.compareAndSet(null, e))
+        {
+            done = true;
+            signal();
+        }
+    }
+
+    /**
+     * @return Returns the number of values taken by the ring or kept as the latest one.
+     */
+    public long getOffered()
+    {
+        return offered.sum();
+    }
+
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Returns the number of times producers parked on a full ring.
+     */
+    public long getParks()
+    {
+        return parks.sum();
+    }
+
+    /**
+     * @return Returns the number of values waiting in the ring.
+     */
+    public int getSize()
+    {
+        return ring.size() + (latest.get() == null ? 0 : 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FluxBridge[size=" + getSize() + ", offered=" + getOffered() + ", dropped=" + getDropped() + ", parks=" + getParks() + "]";
+    }
+
+    /**
+     * Parks the producer until the value fits the ring.
+     */
+    private boolean await(T value)
+    {
+        Thread thread = Thread.currentThread();
+        try
+        {
+            for (;;)
+            {
+                if (done || cancelled)
+                {
+                    return false;
+                }
+                // Registers before the last try, so the drain that frees a slot after it sees the waiter
+                if (!waiters.contains(thread))
+                {
+                    waiters.offer(thread);
+                }
+                if (ring.offer(value))
+                {
+                    return true;
+                }
+                signal();
+                parks.increment();
+                LockSupport.parkNanos(this, PARK_NANOS);
+                if (Thread.interrupted())
+                {
+                    thread.interrupt();
+                    return false;
+                }
+            }
+        }
+        finally
+        {
+            waiters.remove(thread);
+        }
+    }
+
+    private void unparkWaiters()
+    {
+        Thread waiter;
+        while ((waiter = waiters.poll()) != null)
+        {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void signal()
+    {
+        if (wip.getAndIncrement() == 0)
+        {
+            worker.schedule(this::drain);
+        }
+    }
+
+    private void drain()
+    {
+        int missed = 1;
+        for (;;)
+        {
+            CoreSubscriber<? super T> actual = ready;
+            if (actual != null && emit(actual))
+            {
+                return;
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0)
+            {
+                // Producers do not wake a busy drain, values offered while it was busy are emitted by another round. Without a subscriber it
+                // stays idle, the subscription signals after onSubscribe returns
+                if (actual == null || ring.isEmpty() && latest.get() == null || requested.get() == 0 || wip.getAndIncrement() != 0)
+                {
+                    return;
+                }
+                missed = 1;
+            }
+        }
+    }
+
+    /**
+     * Emits the values while there is demand.
+     * 
+     * @return Returns true if the subscriber is terminated.
+     */
+    private boolean emit(CoreSubscriber<? super T> actual)
+    {
+        long r = requested.get();
+        long e = 0L;
+        int freed = 0;
+        try
+        {
+            for (;;)
+            {
+                if (cancelled)
+                {
+                    clear();
+                    return true;
+                }
+
+                boolean d = done;
+                boolean empty = ring.isEmpty();
+                if (e == r)
+                {
+                    if (d && empty && latest.get() == null)
+                    {
+                        terminate(actual);
+                        return true;
+                    }
+                    return false;
+                }
+
+                T value = ring.poll();
+                if (value != null)
+                {
+                    if (++freed == batchSize)
+                    {
+                        freed = 0;
+                        unparkWaiters();
+                    }
+                }
+                else if (empty)
+                {
+                    // The latest value that did not fit goes after the ring, so the values of a producer stay in order
+                    value = latest.getAndSet(null);
+                }
+
+                if (value == null)
+                {
+                    if (d && empty)
+                    {
+                        terminate(actual);
+                        return true;
+                    }
+                    // Empty or the next slot is claimed and not written yet
+                    return false;
+                }
+
+                actual.onNext(value);
+                e++;
+            }
+        }
+        finally
+        {
+            if (e != 0L && r != Long.MAX_VALUE)
+            {
+                requested.addAndGet(-e);
+            }
+            if (freed != 0)
+            {
+                unparkWaiters();
+            }
+        }
+    }
+
+    private void terminate(CoreSubscriber<? super T> actual)
+    {
+        worker.dispose();
+        unparkWaiters();
+        Object e = terminal.get();
+        if (e != COMPLETED)
+        {
+            actual.onError((Throwable) e);
+        }
+        else
+        {
+            actual.onComplete();
+        }
+    }
+
+    private void clear()
+    {
+        worker.dispose();
+        unparkWaiters();
+        ring.clear();
+        latest.set(null);
+    }
+
+    /**
+     * The subscription of the single subscriber.
+     */
+    private final class BridgeSubscription implements Subscription
+    {
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (current == Long.MAX_VALUE || requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                signal();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                signal();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.sme.reactor.bridge;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Blocking iterator of a publisher for imperative consumers, with prefetch.
+ * <p>
+ * The iterator subscribes on the first {@link #hasNext()}, requests the prefetch and then replenishes in batches of three quarters of it, so the
+ * publisher emits into an SPSC queue ahead of the consumer. A consumer that finds the queue empty spins shortly and then parks until a value or a
+ * terminal signal comes. An error of the publisher is thrown by {@link #hasNext()} after the values before it. {@link #close()} cancels the
+ * subscription, an iterator that is not consumed to the end should be closed.
+ * </p>
+ * 
+ * <pre>
+ * try (FluxIterator&lt;Row&gt; rows = FluxIterator.create(repository.findAll(), 256))
+ * {
+ *     while (rows.hasNext())
+ *     {
+ *         writer.write(rows.next());
+ *     }
+ * }
+ * </pre>
+ * 
+ * @param <T> The type of values.
+ */
+public final class FluxIterator<T> implements Iterator<T>, AutoCloseable
+{
+    private static final int SPINS = 64;
+    // A missed wake-up delays the consumer by this time at most
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Publisher<? extends T> source;
+    private final int prefetch;
+    private final int limit;
+    private final Queue<T> queue;
+    private final IteratorSubscriber subscriber = new IteratorSubscriber();
+    private final AtomicReference<Thread> waiter = new AtomicReference<>();
+
+    private volatile Subscription upstream;
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    // Used by the consumer thread only
+    private boolean subscribed;
+    private T next;
+    private int consumed;
+
+    private FluxIterator(Publisher<? extends T> source, int prefetch)
+    {
+        this.source = source;
+        this.prefetch = prefetch;
+        this.limit = Math.max(1, prefetch - (prefetch >> 2));
+        this.queue = Queues.<T> get(prefetch).get();
+    }
+
+    /**
+     * Creates the iterator.
+     * 
+     * @param source The publisher of values;
+     * @param prefetch The max number of values requested ahead of the consumer;
+     * @param <T> The type of values;
+     * @return Returns the iterator, it subscribes on the first call.
+     */
+    public static <T> FluxIterator<T> create(Publisher<? extends T> source, int prefetch)
+    {
+        Validate.notNull(source, "Source is required");
+        Validate.isTrue(prefetch > 0, "Prefetch should be positive");
+        return new FluxIterator<>(source, prefetch);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (next != null)
+        {
+            return true;
+        }
+        if (!subscribed)
+        {
+            subscribed = true;
+            source.subscribe(subscriber);
+        }
+        int spins = 0;
+        for (;;)
+        {
+            boolean d = done;
+            T value = queue.poll();
+            if (value != null)
+            {
+                next = value;
+                return true;
+            }
+            if (d)
+            {
+                Throwable e = error;
+                if (e != null)
+                {
+                    throw Exceptions.propagate(e);
+                }
+                return false;
+            }
+            if (spins++ < SPINS)
+            {
+                Thread.yield();
+                continue;
+            }
+            // Registers before the last check, so the publisher that emits after it sees the waiter
+            waiter.set(Thread.currentThread());
+            if (queue.isEmpty() && !done)
+            {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waiter.set(null);
+            if (Thread.currentThread().isInterrupted())
+            {
+                close();
+                throw Exceptions.propagate(new InterruptedException("Interrupted while waiting for a value"));
+            }
+        }
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        T value = next;
+        next = null;
+        if (++consumed == limit)
+        {
+            consumed = 0;
+            upstream.request(limit);
+        }
+        return value;
+    }
+
+    /**
+     * Cancels the subscription and clears the prefetched values.
+     */
+    @Override
+    public void close()
+    {
+        Subscription s = upstream;
+        if (s != null)
+        {
+            s.cancel();
+        }
+        done = true;
+        next = null;
+        queue.clear();
+    }
+
+    private void wakeUp()
+    {
+        Thread thread = waiter.get();
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Subscriber that puts values into the queue.
+     */
+    private final class IteratorSubscriber implements CoreSubscriber<T>
+    {
+        @Override
+        public Context currentContext()
+        {
+            return Context.empty();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T value)
+        {
+            if (!queue.offer(value))
+            {
+                upstream.cancel();
+                onError(Exceptions.failWithOverflow("Queue is full: more values than requested"));
+                return;
+            }
+            wakeUp();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            error = t;
+            done = true;
+            wakeUp();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done = true;
+            wakeUp();
+        }
+    }
+}
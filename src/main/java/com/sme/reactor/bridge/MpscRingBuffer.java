@@ -0,0 +1,112 @@
+package com.sme.reactor.bridge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded ring buffer of many producers and a single consumer.
+ * <p>
+ * A producer claims a slot by a CAS of the producer index and then writes the value into the slot, the consumer reads slots in order and frees them by
+ * moving the consumer index. A claimed slot that is not written yet reads as empty, the consumer sees the value once the producer writes it. Producers
+ * read the consumer index only when the cached one says the buffer is full, so they do not contend with the consumer on every offer.
+ * </p>
+ */
+final class MpscRingBuffer<T>
+{
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    // A stale copy of the consumer index, racy updates only make producers read the consumer index again
+    private volatile long consumerLimit;
+
+    /**
+     * @param capacity The capacity, rounded up to a power of two.
+     */
+    MpscRingBuffer(int capacity)
+    {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.consumerLimit = size;
+    }
+
+    int capacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Offers the value from any thread.
+     *
+     * @return Returns false if the buffer is full.
+     */
+    boolean offer(T value)
+    {
+        for (;;)
+        {
+            long index = producerIndex.get();
+            if (index >= consumerLimit)
+            {
+                long limit = consumerIndex.get() + mask + 1;
+                if (index >= limit)
+                {
+                    return false;
+                }
+                consumerLimit = limit;
+            }
+            if (producerIndex.compareAndSet(index, index + 1))
+            {
+                slots.lazySet((int) index & mask, value);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Polls the next value from the consumer thread.
+     *
+     * @return Returns null if the buffer is empty or the next value is not written yet.
+     */
+    T poll()
+    {
+        long index = consumerIndex.get();
+        int slot = (int) index & mask;
+        T value = slots.get(slot);
+        if (value == null)
+        {
+            return null;
+        }
+        slots.lazySet(slot, null);
+        consumerIndex.lazySet(index + 1);
+        return value;
+    }
+
+    /**
+     * @return Returns true if no slots are claimed, values claimed and not written yet make the buffer not empty.
+     */
+    boolean isEmpty()
+    {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    int size()
+    {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+
+    /**
+     * Clears the buffer from the consumer thread.
+     */
+    void clear()
+    {
+        while (!isEmpty())
+        {
+            if (poll() == null)
+            {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.sme.reactor.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded map of cached values with expiration time, guarded by its monitor.
+ * <p>
+ * LRU keeps all entries in a single access-ordered map and evicts the least recently used entry. W-TinyLFU puts new entries into a small LRU window of
+ * 1% of the size. An entry evicted from the window is admitted into the main LRU only if the frequency sketch estimates it is accessed more often than
+ * the entry the main LRU would evict, so a scan of one-off keys does not flush popular entries.
+ * </p>
+ * 
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+final class CacheStore<K, V>
+{
+    private final Map<K, Entry<V>> main;
+    private final Map<K, Entry<V>> window;
+    private final FrequencySketch sketch;
+    private final int mainSize;
+    private final int windowSize;
+
+    private long evictions;
+    private long expirations;
+
+    CacheStore(int maximumSize, boolean tinyLfu)
+    {
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+        if (tinyLfu && maximumSize > 1)
+        {
+            this.windowSize = Math.max(1, maximumSize / 100);
+            this.mainSize = maximumSize - windowSize;
+            this.window = new LinkedHashMap<>(16, 0.75f, true);
+            this.sketch = new FrequencySketch(maximumSize);
+        }
+        else
+        {
+            this.windowSize = 0;
+            this.mainSize = maximumSize;
+            this.window = null;
+            this.sketch = null;
+        }
+    }
+
+    synchronized V get(K key, long now)
+    {
+        if (sketch != null)
+        {
+            sketch.increment(key);
+        }
+
+        Map<K, Entry<V>> map = main;
+        Entry<V> entry = main.get(key);
+        if (entry == null && window != null)
+        {
+            map = window;
+            entry = window.get(key);
+        }
+        if (entry == null)
+        {
+            return null;
+        }
+        if (entry.expireAt - now <= 0)
+        {
+            map.remove(key);
+            expirations++;
+            return null;
+        }
+        return entry.value;
+    }
+
+    synchronized void put(K key, V value, long expireAt)
+    {
+        Entry<V> entry = new Entry<>(value, expireAt);
+        if (main.containsKey(key))
+        {
+            main.put(key, entry);
+            return;
+        }
+        if (window == null)
+        {
+            main.put(key, entry);
+            if (main.size() > mainSize)
+            {
+                removeEldest(main);
+                evictions++;
+            }
+            return;
+        }
+
+        window.put(key, entry);
+        if (window.size() > windowSize)
+        {
+            Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    synchronized void invalidate(K key)
+    {
+        main.remove(key);
+        if (window != null)
+        {
+            window.remove(key);
+        }
+    }
+
+    synchronized void invalidateAll()
+    {
+        main.clear();
+        if (window != null)
+        {
+            window.clear();
+        }
+    }
+
+    /**
+     * Removes expired entries.
+     * 
+     * @param now The current time;
+     * @return Returns the number of removed entries.
+     */
+    synchronized int expire(long now)
+    {
+        int removed = expire(main, now);
+        if (window != null)
+        {
+            removed += expire(window, now);
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    synchronized int size()
+    {
+        return main.size() + (window == null ? 0 : window.size());
+    }
+
+    synchronized long getEvictions()
+    {
+        return evictions;
+    }
+
+    synchronized long getExpirations()
+    {
+        return expirations;
+    }
+
+    private void admit(K key, Entry<V> entry)
+    {
+        if (main.size() < mainSize)
+        {
+            main.put(key, entry);
+            return;
+        }
+
+        K victim = main.keySet().iterator().next();
+        evictions++;
+        if (sketch.frequency(key) > sketch.frequency(victim))
+        {
+            main.remove(victim);
+            main.put(key, entry);
+        }
+    }
+
+    private static <K, V> Map.Entry<K, Entry<V>> removeEldest(Map<K, Entry<V>> map)
+    {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+        Map.Entry<K, Entry<V>> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    private static <K, V> int expire(Map<K, Entry<V>> map, long now)
+    {
+        int removed = 0;
+        for (Iterator<Entry<V>> iterator = map.values().iterator(); iterator.hasNext();)
+        {
+            if (iterator.next().expireAt - now <= 0)
+            {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Cached value with its expiration time.
+     */
+    private static final class Entry<V>
+    {
+        private final V value;
+        private final long expireAt;
+
+        private Entry(V value, long expireAt)
+        {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
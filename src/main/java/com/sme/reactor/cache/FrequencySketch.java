@@ -0,0 +1,80 @@
+package com.sme.reactor.cache;
+
+/**
+ * Count-min sketch of 4-bit counters that estimates how often keys are accessed.
+ * <p>
+ * Counters are halved every {@code 10 * maximum size} increments, so the sketch forgets old popularity and reflects the recent frequency of keys.
+ * The sketch is not thread-safe, it is guarded by the cache store.
+ * </p>
+ */
+final class FrequencySketch
+{
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb5a5ce45, 0xc2b2ae35, 0x27d4eb2f};
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize)
+    {
+        int size = Integer.highestOneBit(Math.max(16, maximumSize * 16) - 1) << 1;
+        this.table = new byte[size];
+        this.mask = size - 1;
+        this.sampleSize = Math.max(1, 10 * maximumSize);
+    }
+
+    int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int seed : SEEDS)
+        {
+            frequency = Math.min(frequency, table[index(hash, seed)]);
+        }
+        return frequency;
+    }
+
+    void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int seed : SEEDS)
+        {
+            int index = index(hash, seed);
+            if (table[index] < MAX_COUNT)
+            {
+                table[index]++;
+                added = true;
+            }
+        }
+
+        if (added && ++additions == sampleSize)
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        for (int i = 0; i < table.length; i++)
+        {
+            table[i] >>>= 1;
+        }
+        additions >>>= 1;
+    }
+
+    private int index(int hash, int seed)
+    {
+        int h = hash * seed;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash)
+    {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
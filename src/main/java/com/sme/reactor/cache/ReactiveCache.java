@@ -0,0 +1,249 @@
+package com.sme.reactor.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Cache of values loaded by {@link Mono} lookups.
+ * <p>
+ * A pipeline that flatMaps every value into an expensive lookup calls it again for repeated keys. The cache returns a cached value while it is fresh and
+ * coalesces concurrent misses of the same key: the first miss subscribes to the loader, the others share its result, so a burst of requests for a key
+ * costs a single upstream call. Errors and empty results are not cached.
+ * </p>
+ * <p>
+ * The cache keeps up to the maximum size of entries evicted by LRU or W-TinyLFU policy. Entries expire after the time to live since they were loaded: an
+ * expired entry is never returned and a single periodic task on the timer removes expired entries, so there is no task per entry.
+ * </p>
+ * 
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public final class ReactiveCache<K, V> implements Disposable
+{
+    /**
+     * Eviction policy of the cache.
+     */
+    public enum Eviction
+    {
+        /** Evicts the least recently used entry. */
+        LRU,
+        /** Admits new entries through a small LRU window and a frequency filter to keep popular entries. */
+        TINY_LFU
+    }
+
+    private final CacheStore<K, V> store;
+    private final long ttlNanos;
+    private final Scheduler timer;
+    private final Disposable expiration;
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0L);
+
+    private ReactiveCache(int maximumSize, Duration ttl, Eviction eviction, Scheduler timer)
+    {
+        this.store = new CacheStore<>(maximumSize, eviction == Eviction.TINY_LFU);
+        this.ttlNanos = ttl.toNanos();
+        this.timer = timer;
+        this.expiration = timer.schedulePeriodically(() -> store.expire(now()), ttlNanos, ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates the cache.
+     * 
+     * @param maximumSize The max number of entries;
+     * @param ttl The time to live of an entry since it was loaded;
+     * @param eviction The eviction policy;
+     * @param timer The scheduler to remove expired entries on, its clock is the clock of the cache;
+     * @param <K> The type of keys;
+     * @param <V> The type of values;
+     * @return Returns the cache.
+     */
+    public static <K, V> ReactiveCache<K, V> create(int maximumSize, Duration ttl, Eviction eviction, Scheduler timer)
+    {
+        Validate.isTrue(maximumSize > 0, "Maximum size should be positive");
+        Validate.notNull(ttl, "Time to live is required");
+        Validate.isTrue(!ttl.isNegative() && !ttl.isZero(), "Time to live should be positive");
+        Validate.notNull(eviction, "Eviction is required");
+        Validate.notNull(timer, "Timer is required");
+        return new ReactiveCache<>(maximumSize, ttl, eviction, timer);
+    }
+
+    /**
+     * Gets the cached value or loads it, concurrent loads of the same key share a subscription to the loader.
+     * 
+     * @param key The key;
+     * @param loader The function to load a value of the key;
+     * @return Returns the lazy value, the cache is looked up on every subscription.
+     */
+    public Mono<V> get(K key, Function<? super K, ? extends Mono<? extends V>> loader)
+    {
+        Validate.notNull(key, "Key is required");
+        Validate.notNull(loader, "Loader is required");
+
+        return Mono.defer(() ->
+        {
+            V value = store.get(key, now());
+            if (value != null)
+            {
+                hits.increment();
+                return Mono.just(value);
+            }
+
+            misses.increment();
+            boolean[] created = new boolean[1];
+            Mono<V> load = inFlight.computeIfAbsent(key, k ->
+            {
+                created[0] = true;
+                return load(k, loader);
+            });
+            if (!created[0])
+            {
+                coalesced.increment();
+            }
+            return load;
+        });
+    }
+
+    /**
+     * Removes the entry of the key, a load in flight is not cancelled.
+     * 
+     * @param key The key.
+     */
+    public void invalidate(K key)
+    {
+        store.invalidate(key);
+    }
+
+    public void invalidateAll()
+    {
+        store.invalidateAll();
+    }
+
+    public int size()
+    {
+        return store.size();
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return Returns the number of misses that shared a load in flight.
+     */
+    public long getCoalesced()
+    {
+        return coalesced.sum();
+    }
+
+    public long getLoads()
+    {
+        return loads.sum();
+    }
+
+    public long getLoadFailures()
+    {
+        return loadFailures.sum();
+    }
+
+    public long getEvictions()
+    {
+        return store.getEvictions();
+    }
+
+    public long getExpirations()
+    {
+        return store.getExpirations();
+    }
+
+    /**
+     * @return Returns the share of lookups served from the cache.
+     */
+    public double getHitRate()
+    {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0d : (double) hit / total;
+    }
+
+    public long getMeanLoadNanos()
+    {
+        long count = loads.sum();
+        return count == 0 ? 0L : loadNanos.sum() / count;
+    }
+
+    public long getMaxLoadNanos()
+    {
+        return maxLoadNanos.get();
+    }
+
+    @Override
+    public void dispose()
+    {
+        expiration.dispose();
+        store.invalidateAll();
+    }
+
+    @Override
+    public boolean isDisposed()
+    {
+        return expiration.isDisposed();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ReactiveCache[size=%d, hitRate=%.3f, hits=%d, misses=%d, coalesced=%d, loads=%d, failures=%d, evictions=%d, expirations=%d, meanLoad=%dus]",
+                size(), getHitRate(), getHits(), getMisses(), getCoalesced(), getLoads(), getLoadFailures(), getEvictions(), getExpirations(),
+                TimeUnit.NANOSECONDS.toMicros(getMeanLoadNanos()));
+    }
+
+    private Mono<V> load(K key, Function<? super K, ? extends Mono<? extends V>> loader)
+    {
+        long[] start = new long[1];
+        return Mono.<V> defer(() ->
+        {
+            loads.increment();
+            start[0] = System.nanoTime();
+            return loader.apply(key);
+        })
+                .doOnNext(value -> store.put(key, value, now() + ttlNanos))
+                .doOnError(e -> loadFailures.increment())
+                .doFinally(signal ->
+                {
+                    long nanos = System.nanoTime() - start[0];
+                    loadNanos.add(nanos);
+                    maxLoadNanos.accumulate(nanos);
+                    inFlight.remove(key);
+                })
+                .cache();
+    }
+
+    private long now()
+    {
+        return timer.now(TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,505 @@
+package com.sme.reactor.combining;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Zip of N sources of the same type that passes a row of values straight to a combiner.
+ * <p>
+ * {@link Flux#zip(Publisher, Publisher, Publisher, Publisher)} materializes a tuple per row and the combinator variant of zip allocates an array per
+ * row. Here every subscription owns a single row that is refilled for each combination, so the combiner gets a read-only {@link List} view that is
+ * valid only during the call and must not be kept. The only allocation per row is the result of the combiner.
+ * </p>
+ * <p>
+ * The batch mode emits lists of combined rows, so a high-rate join pays request, onNext and downstream operators once per batch.
+ * </p>
+ */
+public final class ArrayZip
+{
+    private ArrayZip()
+    {
+    }
+
+    /**
+     * Zips the sources with {@link Queues#XS_BUFFER_SIZE} prefetch of every source.
+     * 
+     * @param sources The sources to zip;
+     * @param combiner The function to combine a row of values, one per source in the order of sources;
+     * @param <T> The type of values;
+     * @param <R> The type of combined values;
+     * @return Returns the zipped flux.
+     */
+    public static <T, R> Flux<R> zip(List<? extends Publisher<? extends T>> sources, Function<? super List<T>, ? extends R> combiner)
+    {
+        return zip(sources, Queues.XS_BUFFER_SIZE, combiner);
+    }
+
+    /**
+     * Zips the sources with the same prefetch of every source.
+     * 
+     * @param sources The sources to zip;
+     * @param prefetch The number of values to request from every source upfront;
+     * @param combiner The function to combine a row of values;
+     * @param <T> The type of values;
+     * @param <R> The type of combined values;
+     * @return Returns the zipped flux.
+     */
+    public static <T, R> Flux<R> zip(List<? extends Publisher<? extends T>> sources, int prefetch, Function<? super List<T>, ? extends R> combiner)
+    {
+        return zip(sources, prefetches(sources, prefetch), combiner);
+    }
+
+    /**
+     * Zips the sources with a prefetch per source, so a fast feed can be buffered deeper than a slow one.
+     * 
+     * @param sources The sources to zip;
+     * @param prefetch The number of values to request upfront, one per source;
+     * @param combiner The function to combine a row of values;
+     * @param <T> The type of values;
+     * @param <R> The type of combined values;
+     * @return Returns the zipped flux.
+     */
+    public static <T, R> Flux<R> zip(List<? extends Publisher<? extends T>> sources, int[] prefetch, Function<? super List<T>, ? extends R> combiner)
+    {
+        validate(sources, prefetch, combiner);
+        return Flux.from(new ZipPublisher<>(sources, prefetch.clone(), combiner, 0));
+    }
+
+    /**
+     * Zips the sources and emits combined rows in lists, the last list may be shorter.
+     * 
+     * @param sources The sources to zip;
+     * @param batchSize The max number of rows in a list;
+     * @param prefetch The number of values to request from every source upfront;
+     * @param combiner The function to combine a row of values;
+     * @param <T> The type of values;
+     * @param <R> The type of combined values;
+     * @return Returns the flux of batches.
+     */
+    public static <T, R> Flux<List<R>> zipBatches(List<? extends Publisher<? extends T>> sources, int batchSize, int prefetch,
+            Function<? super List<T>, ? extends R> combiner)
+    {
+        Validate.isTrue(batchSize > 0, "Batch size should be positive");
+        int[] prefetches = prefetches(sources, prefetch);
+        validate(sources, prefetches, combiner);
+        return Flux.from(new ZipPublisher<>(sources, prefetches, combiner, batchSize));
+    }
+
+    /**
+     * Zips the upstream flux with other sources, to be used with {@link Flux#transform(Function)}.
+     * 
+     * @param others The sources to zip with, their values follow the value of upstream in a row;
+     * @param combiner The function to combine a row of values;
+     * @param <T> The type of values;
+     * @param <R> The type of combined values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> zipWith(List<? extends Publisher<? extends T>> others, Function<? super List<T>, ? extends R> combiner)
+    {
+        Validate.notNull(others, "Sources are required");
+        return flux ->
+        {
+            List<Publisher<? extends T>> sources = new ArrayList<>(others.size() + 1);
+            sources.add(flux);
+            sources.addAll(others);
+            return zip(sources, combiner);
+        };
+    }
+
+    private static int[] prefetches(List<?> sources, int prefetch)
+    {
+        Validate.notNull(sources, "Sources are required");
+        int[] prefetches = new int[sources.size()];
+        Arrays.fill(prefetches, prefetch);
+        return prefetches;
+    }
+
+    private static void validate(List<?> sources, int[] prefetch, Function<?, ?> combiner)
+    {
+        Validate.notNull(sources, "Sources are required");
+        Validate.noNullElements(sources, "Source is required");
+        Validate.notNull(combiner, "Combiner is required");
+        Validate.isTrue(prefetch.length == sources.size(), "Expects a prefetch per source");
+        for (int value : prefetch)
+        {
+            Validate.isTrue(value > 0, "Prefetch should be positive");
+        }
+    }
+
+    /**
+     * Publisher that creates a coordinator per subscription.
+     */
+    private static final class ZipPublisher<T, R, O> implements Publisher<O>
+    {
+        private final List<? extends Publisher<? extends T>> sources;
+        private final int[] prefetch;
+        private final Function<? super List<T>, ? extends R> combiner;
+        private final int batchSize;
+
+        private ZipPublisher(List<? extends Publisher<? extends T>> sources, int[] prefetch, Function<? super List<T>, ? extends R> combiner, int batchSize)
+        {
+            this.sources = sources;
+            this.prefetch = prefetch;
+            this.combiner = combiner;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super O> actual)
+        {
+            if (sources.isEmpty())
+            {
+                Operators.complete(actual);
+                return;
+            }
+
+            ZipCoordinator<T, R, O> coordinator = new ZipCoordinator<>(actual, sources.size(), prefetch, combiner, batchSize);
+            actual.onSubscribe(coordinator);
+            coordinator.subscribe(sources);
+        }
+    }
+
+    /**
+     * Drains a row from the queues of inner subscribers whenever every queue has a value and downstream has demand.
+     */
+    private static final class ZipCoordinator<T, R, O> implements Subscription
+    {
+        private final Subscriber<? super O> actual;
+        private final ZipInner<T>[] inners;
+        private final Function<? super List<T>, ? extends R> combiner;
+        private final int batchSize;
+        private final Object[] row;
+        private final List<T> rowView;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        private List<R> batch;
+
+        @SuppressWarnings("unchecked")
+        private ZipCoordinator(Subscriber<? super O> actual, int size, int[] prefetch, Function<? super List<T>, ? extends R> combiner, int batchSize)
+        {
+            this.actual = actual;
+            this.combiner = combiner;
+            this.batchSize = batchSize;
+            this.row = new Object[size];
+            this.rowView = Collections.unmodifiableList((List<T>) Arrays.asList(row));
+            this.inners = new ZipInner[size];
+            for (int i = 0; i < size; i++)
+            {
+                inners[i] = new ZipInner<>(this, prefetch[i]);
+            }
+        }
+
+        private void subscribe(List<? extends Publisher<? extends T>> sources)
+        {
+            for (int i = 0; i < inners.length && !cancelled && error.get() == null; i++)
+            {
+                sources.get(i).subscribe(inners[i]);
+            }
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                cancelAll();
+                if (wip.getAndIncrement() == 0)
+                {
+                    clearAll();
+                }
+            }
+        }
+
+        private Context currentContext()
+        {
+            return actual instanceof CoreSubscriber ? ((CoreSubscriber<?>) actual).currentContext() : Context.empty();
+        }
+
+        private void innerError(Throwable t)
+        {
+            if (error.compareAndSet(null, t))
+            {
+                drain();
+            }
+            else
+            {
+                Operators.onErrorDropped(t, currentContext());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;)
+                {
+                    if (cancelled)
+                    {
+                        clearAll();
+                        return;
+                    }
+
+                    Throwable t = error.get();
+                    if (t != null)
+                    {
+                        terminate();
+                        actual.onError(t);
+                        return;
+                    }
+
+                    boolean finished = false;
+                    boolean ready = true;
+                    for (ZipInner<T> inner : inners)
+                    {
+                        boolean done = inner.done;
+                        if (inner.queue.isEmpty())
+                        {
+                            ready = false;
+                            finished |= done;
+                        }
+                    }
+
+                    if (finished)
+                    {
+                        if (batch != null && !batch.isEmpty())
+                        {
+                            if (e == r)
+                            {
+                                break;
+                            }
+                            emitBatch();
+                            e++;
+                        }
+                        terminate();
+                        actual.onComplete();
+                        return;
+                    }
+
+                    if (!ready || e == r)
+                    {
+                        break;
+                    }
+
+                    for (int i = 0; i < inners.length; i++)
+                    {
+                        row[i] = inners[i].poll();
+                    }
+
+                    R value;
+                    try
+                    {
+                        value = Validate.notNull(combiner.apply(rowView), "Combiner returned null value");
+                    }
+                    catch (Throwable ex)
+                    {
+                        Exceptions.throwIfFatal(ex);
+                        terminate();
+                        actual.onError(Operators.onOperatorError(ex, currentContext()));
+                        return;
+                    }
+
+                    if (batchSize == 0)
+                    {
+                        ((Subscriber<? super R>) actual).onNext(value);
+                        e++;
+                    }
+                    else
+                    {
+                        if (batch == null)
+                        {
+                            batch = new ArrayList<>(batchSize);
+                        }
+                        batch.add(value);
+                        if (batch.size() == batchSize)
+                        {
+                            emitBatch();
+                            e++;
+                        }
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE)
+                {
+                    requested.addAndGet(-e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void emitBatch()
+        {
+            List<R> full = batch;
+            batch = null;
+            ((Subscriber<? super List<R>>) actual).onNext(full);
+        }
+
+        private void terminate()
+        {
+            cancelAll();
+            clearAll();
+        }
+
+        private void cancelAll()
+        {
+            for (ZipInner<T> inner : inners)
+            {
+                inner.cancel();
+            }
+        }
+
+        private void clearAll()
+        {
+            for (ZipInner<T> inner : inners)
+            {
+                inner.queue.clear();
+            }
+            Arrays.fill(row, null);
+            batch = null;
+        }
+    }
+
+    /**
+     * Subscriber to a source that buffers up to prefetch values and replenishes when 75% of them are consumed.
+     */
+    private static final class ZipInner<T> implements CoreSubscriber<T>
+    {
+        private final ZipCoordinator<T, ?, ?> parent;
+        private final int prefetch;
+        private final int limit;
+        private final Queue<T> queue;
+        private final AtomicReference<Subscription> subscription = new AtomicReference<>();
+
+        private volatile boolean done;
+        private int consumed;
+
+        private ZipInner(ZipCoordinator<T, ?, ?> parent, int prefetch)
+        {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = Math.max(1, prefetch - (prefetch >> 2));
+            this.queue = Queues.<T> get(prefetch).get();
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return parent.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (subscription.compareAndSet(null, s))
+            {
+                s.request(prefetch);
+            }
+            else
+            {
+                s.cancel();
+            }
+        }
+
+        @Override
+        public void onNext(T t)
+        {
+            if (!queue.offer(t))
+            {
+                subscription.get().cancel();
+                onError(Exceptions.failWithOverflow("Queue is full: source emits more than requested"));
+                return;
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            done = true;
+            parent.innerError(t);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done = true;
+            parent.drain();
+        }
+
+        private T poll()
+        {
+            T value = queue.poll();
+            if (++consumed == limit)
+            {
+                consumed = 0;
+                subscription.get().request(limit);
+            }
+            return value;
+        }
+
+        private void cancel()
+        {
+            Subscription s = subscription.getAndSet(Operators.cancelledSubscription());
+            if (s != null && s != Operators.cancelledSubscription())
+            {
+                s.cancel();
+            }
+        }
+    }
+}
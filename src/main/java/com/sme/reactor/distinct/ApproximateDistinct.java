@@ -0,0 +1,69 @@
+package com.sme.reactor.distinct;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Approximate distinct operators for endless streams to use with {@link Flux#transform(Function)}.
+ * <p>
+ * The operators remember recent keys in {@link RotatingBloomFilter}, so the memory is fixed however long the stream is. A new key is dropped with the
+ * configured false positive rate, and a key older than two generations of the filter passes again.
+ * </p>
+ */
+public final class ApproximateDistinct
+{
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private ApproximateDistinct()
+    {
+    }
+
+    /**
+     * Filters out recently seen longs.
+     * 
+     * @param filter The filter of seen keys, it can be shared by several pipelines to dedupe all of them together;
+     * @return Returns the operator.
+     */
+    public static Function<Flux<Long>, Flux<Long>> distinctLongs(RotatingBloomFilter filter)
+    {
+        return distinct(filter, Long::longValue);
+    }
+
+    /**
+     * Filters out values with recently seen keys.
+     * 
+     * @param filter The filter of seen keys, it can be shared by several pipelines to dedupe all of them together;
+     * @param keyHasher The function to get 64-bit hash of the key of value;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinct(RotatingBloomFilter filter, ToLongFunction<? super T> keyHasher)
+    {
+        Validate.notNull(filter, "Filter is required");
+        Validate.notNull(keyHasher, "Key hasher is required");
+        return flux -> flux.filter(value -> filter.add(keyHasher.applyAsLong(value)));
+    }
+
+    /**
+     * Calculates 64-bit FNV-1a hash of characters, which is enough to tell apart string keys like event identifiers.
+     * 
+     * @param value The characters to hash;
+     * @return Returns the hash.
+     */
+    public static long hash64(CharSequence value)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++)
+        {
+            char ch = value.charAt(i);
+            hash = (hash ^ (ch & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (ch >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,162 @@
+package com.sme.reactor.distinct;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Fixed-size Bloom filter of long keys.
+ * <p>
+ * Bits are set by CAS on {@link AtomicLongArray}, so many threads can add and check keys without locks. The filter never answers "absent" for an added
+ * key, but can answer "present" for a new key with the probability that grows with the number of set bits.
+ * </p>
+ */
+public final class BloomFilter
+{
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+    private final LongAdder bitCount = new LongAdder();
+
+    /**
+     * Creates filter.
+     * 
+     * @param expectedInsertions The number of keys the filter is sized for;
+     * @param falsePositiveRate The probability of false positive when the filter holds {@code expectedInsertions} keys.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate)
+    {
+        Validate.isTrue(expectedInsertions > 0, "Expected insertions must be positive: %d", expectedInsertions);
+        Validate.exclusiveBetween(0D, 1D, falsePositiveRate, "False positive rate must be between 0 and 1");
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int numWords = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+        this.words = new AtomicLongArray(numWords);
+        this.numBits = (long) numWords << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * LN2));
+    }
+
+    /**
+     * Adds the key.
+     * 
+     * @param key The key to add;
+     * @return Returns true if at least one bit was set, i.e. the key was definitely absent.
+     */
+    public boolean put(long key)
+    {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++)
+        {
+            changed |= setBit(index(hash1, hash2, i));
+        }
+        return changed;
+    }
+
+    /**
+     * Checks the key.
+     * 
+     * @param key The key to check;
+     * @return Returns false if the key was never added, true if it was probably added.
+     */
+    public boolean mightContain(long key)
+    {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++)
+        {
+            long index = index(hash1, hash2, i);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the share of set bits.
+     * 
+     * @return Returns the fill ratio between 0 and 1.
+     */
+    public double fillRatio()
+    {
+        return (double) bitCount.sum() / numBits;
+    }
+
+    /**
+     * Estimates the probability of false positive from the current fill ratio.
+     * 
+     * @return Returns the estimated false positive rate.
+     */
+    public double estimatedFalsePositiveRate()
+    {
+        return Math.pow(fillRatio(), numHashes);
+    }
+
+    /**
+     * Estimates the number of added distinct keys from the current fill ratio.
+     * 
+     * @return Returns the approximate number of keys.
+     */
+    public long approximateCount()
+    {
+        double fillRatio = fillRatio();
+        if (fillRatio >= 1D)
+        {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-(double) numBits / numHashes * Math.log(1D - fillRatio));
+    }
+
+    public long bitSize()
+    {
+        return numBits;
+    }
+
+    public int numHashes()
+    {
+        return numHashes;
+    }
+
+    private boolean setBit(long index)
+    {
+        int wordIndex = (int) (index >>> 6);
+        long mask = 1L << index;
+        long word;
+        do
+        {
+            word = words.get(wordIndex);
+            if ((word & mask) != 0)
+            {
+                return false;
+            }
+        }
+        while (!words.compareAndSet(wordIndex, word, word | mask));
+
+        bitCount.increment();
+        return true;
+    }
+
+    private long index(long hash1, long hash2, int i)
+    {
+        // Kirsch-Mitzenmacher: k indexes from two hashes
+        return ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+    }
+
+    private static long mix(long key)
+    {
+        // MurmurHash3 finalizer
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
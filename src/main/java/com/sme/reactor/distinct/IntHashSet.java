@@ -0,0 +1,209 @@
+package com.sme.reactor.distinct;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Set of primitive ints based on open addressing with linear probing.
+ * <p>
+ * Keys are stored in a plain int array, so adding a key neither boxes it nor allocates a node like {@link java.util.HashSet} does. The set is not thread
+ * safe.
+ * </p>
+ */
+public final class IntHashSet
+{
+    private static final int EMPTY = 0;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private int[] keys;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+    // Zero marks an empty slot, so zero key is kept aside
+    private boolean containsZero;
+
+    public IntHashSet()
+    {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize)
+    {
+        Validate.isTrue(expectedSize >= 0, "Expected size must not be negative: %d", expectedSize);
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds the key.
+     * 
+     * @param key The key to add;
+     * @return Returns true if the set did not contain the key.
+     */
+    public boolean add(int key)
+    {
+        if (key == EMPTY)
+        {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        int index = index(key);
+        int existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            if (existing == key)
+            {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        if (++size > resizeThreshold)
+        {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the set contains the key.
+     * 
+     * @param key The key to check;
+     * @return Returns true if the set contains the key.
+     */
+    public boolean contains(int key)
+    {
+        if (key == EMPTY)
+        {
+            return containsZero;
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * Removes the key.
+     * 
+     * @param key The key to remove;
+     * @return Returns true if the set contained the key.
+     */
+    public boolean remove(int key)
+    {
+        if (key == EMPTY)
+        {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+
+        int gap = find(key);
+        if (gap < 0)
+        {
+            return false;
+        }
+
+        keys[gap] = EMPTY;
+        size--;
+
+        // Shift the following keys of the probe sequence back, so the lookup never stops on the removed slot
+        int index = (gap + 1) & mask;
+        int existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            int ideal = index(existing);
+            if (((index - ideal) & mask) >= ((index - gap) & mask))
+            {
+                keys[gap] = existing;
+                keys[index] = EMPTY;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        return true;
+    }
+
+    public int size()
+    {
+        return containsZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     * 
+     * @return Returns the capacity.
+     */
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        containsZero = false;
+    }
+
+    private int find(int key)
+    {
+        int index = index(key);
+        int existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            if (existing == key)
+            {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int index(int key)
+    {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity)
+    {
+        Validate.validState(capacity <= MAX_CAPACITY && capacity > 0, "Set of %d keys exceeds the max capacity", size);
+
+        int[] oldKeys = keys;
+        allocate(capacity);
+        for (int key : oldKeys)
+        {
+            if (key != EMPTY)
+            {
+                int index = index(key);
+                while (keys[index] != EMPTY)
+                {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int capacityFor(int expectedSize)
+    {
+        long capacity = Math.max(16L, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        Validate.isTrue(capacity <= MAX_CAPACITY, "Expected size is too big: %d", expectedSize);
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+}
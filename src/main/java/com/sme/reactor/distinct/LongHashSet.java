@@ -0,0 +1,202 @@
+package com.sme.reactor.distinct;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Set of primitive longs based on open addressing with linear probing.
+ * <p>
+ * Keys are stored in a plain long array, so adding a key neither boxes it nor allocates a node like {@link java.util.HashSet} does. The set is not thread
+ * safe.
+ * </p>
+ */
+public final class LongHashSet
+{
+    private static final long EMPTY = 0L;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+    // Zero marks an empty slot, so zero key is kept aside
+    private boolean containsZero;
+
+    public LongHashSet()
+    {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize)
+    {
+        Validate.isTrue(expectedSize >= 0, "Expected size must not be negative: %d", expectedSize);
+        allocate(IntHashSet.capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds the key.
+     * 
+     * @param key The key to add;
+     * @return Returns true if the set did not contain the key.
+     */
+    public boolean add(long key)
+    {
+        if (key == EMPTY)
+        {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        int index = index(key);
+        long existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            if (existing == key)
+            {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        if (++size > resizeThreshold)
+        {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the set contains the key.
+     * 
+     * @param key The key to check;
+     * @return Returns true if the set contains the key.
+     */
+    public boolean contains(long key)
+    {
+        if (key == EMPTY)
+        {
+            return containsZero;
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * Removes the key.
+     * 
+     * @param key The key to remove;
+     * @return Returns true if the set contained the key.
+     */
+    public boolean remove(long key)
+    {
+        if (key == EMPTY)
+        {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+
+        int gap = find(key);
+        if (gap < 0)
+        {
+            return false;
+        }
+
+        keys[gap] = EMPTY;
+        size--;
+
+        // Shift the following keys of the probe sequence back, so the lookup never stops on the removed slot
+        int index = (gap + 1) & mask;
+        long existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            int ideal = index(existing);
+            if (((index - ideal) & mask) >= ((index - gap) & mask))
+            {
+                keys[gap] = existing;
+                keys[index] = EMPTY;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        return true;
+    }
+
+    public int size()
+    {
+        return containsZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     * 
+     * @return Returns the capacity.
+     */
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        containsZero = false;
+    }
+
+    private int find(long key)
+    {
+        int index = index(key);
+        long existing;
+        while ((existing = keys[index]) != EMPTY)
+        {
+            if (existing == key)
+            {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int index(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity)
+    {
+        Validate.validState(capacity <= MAX_CAPACITY && capacity > 0, "Set of %d keys exceeds the max capacity", size);
+
+        long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys)
+        {
+            if (key != EMPTY)
+            {
+                int index = index(key);
+                while (keys[index] != EMPTY)
+                {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sme.reactor.distinct;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Bounded set of long keys that forgets the oldest key when it is full or when the key is older than the max age.
+ * <p>
+ * Keys are kept in admission order in a ring, so a repeated key does not refresh its age. The window is not thread safe.
+ * </p>
+ */
+final class LongKeyWindow
+{
+    private final LongHashSet keys;
+    private final long[] ring;
+    private final long[] admittedAt;
+    private final long maxAge;
+    private int head;
+    private int count;
+
+    /**
+     * Creates window.
+     * 
+     * @param maxKeys The max number of remembered keys;
+     * @param maxAge The max age of a key in time units of {@link #add(long, long)}, or {@link Long#MAX_VALUE} to never expire keys.
+     */
+    LongKeyWindow(int maxKeys, long maxAge)
+    {
+        Validate.isTrue(maxKeys > 0, "Max keys must be positive: %d", maxKeys);
+        Validate.isTrue(maxAge > 0, "Max age must be positive: %d", maxAge);
+
+        this.keys = new LongHashSet(maxKeys);
+        this.ring = new long[maxKeys];
+        this.admittedAt = maxAge == Long.MAX_VALUE ? null : new long[maxKeys];
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Adds the key if it is not remembered.
+     * 
+     * @param key The key to add;
+     * @param now The current time;
+     * @return Returns true if the key is added.
+     */
+    boolean add(long key, long now)
+    {
+        if (admittedAt != null)
+        {
+            while (count > 0 && now - admittedAt[head] >= maxAge)
+            {
+                evict();
+            }
+        }
+
+        if (keys.contains(key))
+        {
+            return false;
+        }
+
+        if (count == ring.length)
+        {
+            evict();
+        }
+
+        int tail = (head + count) % ring.length;
+        ring[tail] = key;
+        if (admittedAt != null)
+        {
+            admittedAt[tail] = now;
+        }
+        count++;
+        keys.add(key);
+        return true;
+    }
+
+    int size()
+    {
+        return count;
+    }
+
+    private void evict()
+    {
+        keys.remove(ring[head]);
+        head = (head + 1) % ring.length;
+        count--;
+    }
+}
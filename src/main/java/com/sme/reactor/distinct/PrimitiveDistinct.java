@@ -0,0 +1,142 @@
+package com.sme.reactor.distinct;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Distinct operators for int and long keys to use with {@link Flux#transform(Function)}.
+ * <p>
+ * {@link Flux#distinct()} keeps every seen value in {@link java.util.HashSet}, which allocates a node per value and grows without a bound. These
+ * operators keep keys in {@link IntHashSet} or {@link LongHashSet} instead, and windowed operators forget old keys to bound the memory.
+ * </p>
+ * <p>
+ * Every subscription gets its own set of keys.
+ * </p>
+ */
+public final class PrimitiveDistinct
+{
+    private PrimitiveDistinct()
+    {
+    }
+
+    /**
+     * Filters out repeated ints.
+     * 
+     * @return Returns the operator.
+     */
+    public static Function<Flux<Integer>, Flux<Integer>> distinctInts()
+    {
+        return distinctInts(Integer::intValue);
+    }
+
+    /**
+     * Filters out values with repeated int keys.
+     * 
+     * @param keyExtractor The function to get the key of value;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinctInts(ToIntFunction<? super T> keyExtractor)
+    {
+        Validate.notNull(keyExtractor, "Key extractor is required");
+        return flux -> Flux.defer(() ->
+        {
+            IntHashSet keys = new IntHashSet();
+            return flux.filter(value -> keys.add(keyExtractor.applyAsInt(value)));
+        });
+    }
+
+    /**
+     * Filters out repeated longs.
+     * 
+     * @return Returns the operator.
+     */
+    public static Function<Flux<Long>, Flux<Long>> distinctLongs()
+    {
+        return distinctLongs(Long::longValue);
+    }
+
+    /**
+     * Filters out values with repeated long keys.
+     * 
+     * @param keyExtractor The function to get the key of value;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinctLongs(ToLongFunction<? super T> keyExtractor)
+    {
+        Validate.notNull(keyExtractor, "Key extractor is required");
+        return flux -> Flux.defer(() ->
+        {
+            LongHashSet keys = new LongHashSet();
+            return flux.filter(value -> keys.add(keyExtractor.applyAsLong(value)));
+        });
+    }
+
+    /**
+     * Filters out values with int keys repeated within the last {@code maxKeys} passed keys.
+     * 
+     * @param keyExtractor The function to get the key of value;
+     * @param maxKeys The max number of remembered keys;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinctInts(ToIntFunction<? super T> keyExtractor, int maxKeys)
+    {
+        Validate.notNull(keyExtractor, "Key extractor is required");
+        return distinctLongs(keyExtractor::applyAsInt, maxKeys);
+    }
+
+    /**
+     * Filters out values with long keys repeated within the last {@code maxKeys} passed keys.
+     * 
+     * @param keyExtractor The function to get the key of value;
+     * @param maxKeys The max number of remembered keys;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinctLongs(ToLongFunction<? super T> keyExtractor, int maxKeys)
+    {
+        return windowed(keyExtractor, maxKeys, Long.MAX_VALUE, Schedulers.immediate());
+    }
+
+    /**
+     * Filters out values with long keys passed less than {@code maxAge} ago, remembering {@code maxKeys} keys at most.
+     * 
+     * @param keyExtractor The function to get the key of value;
+     * @param maxKeys The max number of remembered keys;
+     * @param maxAge The time to remember a passed key;
+     * @param clock The scheduler to get the current time from;
+     * @param <T> The type of values;
+     * @return Returns the operator.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> distinctLongs(ToLongFunction<? super T> keyExtractor, int maxKeys, Duration maxAge, Scheduler clock)
+    {
+        Validate.notNull(maxAge, "Max age is required");
+        Validate.notNull(clock, "Clock is required");
+        return windowed(keyExtractor, maxKeys, maxAge.toNanos(), clock);
+    }
+
+    private static <T> Function<Flux<T>, Flux<T>> windowed(ToLongFunction<? super T> keyExtractor, int maxKeys, long maxAgeNanos, Scheduler clock)
+    {
+        Validate.notNull(keyExtractor, "Key extractor is required");
+        Validate.isTrue(maxKeys > 0, "Max keys must be positive: %d", maxKeys);
+        Validate.isTrue(maxAgeNanos > 0, "Max age must be positive: %d", maxAgeNanos);
+
+        boolean expiring = maxAgeNanos != Long.MAX_VALUE;
+        return flux -> Flux.defer(() ->
+        {
+            LongKeyWindow keys = new LongKeyWindow(maxKeys, maxAgeNanos);
+            return flux.filter(value -> keys.add(keyExtractor.applyAsLong(value), expiring ? clock.now(TimeUnit.NANOSECONDS) : 0L));
+        });
+    }
+}
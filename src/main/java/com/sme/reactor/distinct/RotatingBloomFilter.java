@@ -0,0 +1,173 @@
+package com.sme.reactor.distinct;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Two generations of {@link BloomFilter} to dedupe an endless stream of keys in fixed memory.
+ * <p>
+ * A single Bloom filter fills up on an endless stream until every key looks like a duplicate. This filter adds keys to the current generation and, when
+ * it holds {@code keysPerGeneration} keys, drops the previous generation and starts a new one. So a key is remembered for at least
+ * {@code keysPerGeneration} and at most twice as many later distinct keys, and the memory never exceeds two filters.
+ * </p>
+ * <p>
+ * The filter is lock-free and can be shared by many pipelines. Two threads adding the same new key at the same time can both see it as new.
+ * </p>
+ */
+public final class RotatingBloomFilter
+{
+    private final long keysPerGeneration;
+    private final double generationFalsePositiveRate;
+    private final AtomicReference<Generations> generations;
+    private final LongAdder added = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final AtomicLong rotations = new AtomicLong();
+
+    /**
+     * Creates filter.
+     * 
+     * @param keysPerGeneration The number of distinct keys in a generation;
+     * @param falsePositiveRate The max probability to take a new key for duplicate.
+     */
+    public RotatingBloomFilter(long keysPerGeneration, double falsePositiveRate)
+    {
+        Validate.exclusiveBetween(0D, 1D, falsePositiveRate, "False positive rate must be between 0 and 1");
+
+        this.keysPerGeneration = keysPerGeneration;
+        // A key is checked against both generations, so every generation gets a half of the rate
+        this.generationFalsePositiveRate = falsePositiveRate / 2;
+        this.generations = new AtomicReference<>(new Generations(new BloomFilter(keysPerGeneration, generationFalsePositiveRate), null));
+    }
+
+    /**
+     * Adds the key if it is not seen recently.
+     * 
+     * @param key The key to add;
+     * @return Returns true if the key is new, false if it is probably a duplicate.
+     */
+    public boolean add(long key)
+    {
+        Generations current = generations.get();
+        boolean inPrevious = current.previous != null && current.previous.mightContain(key);
+        // A recent key is added to the current generation anyway to survive the next rotation
+        boolean newInCurrent = current.current.put(key);
+
+        // The counter belongs to the generation, so exactly one thread fills it and rotates, a stale pair does not count toward the next one
+        if (newInCurrent && current.keys.incrementAndGet() == keysPerGeneration)
+        {
+            rotate(current);
+        }
+
+        boolean isNew = newInCurrent && !inPrevious;
+        if (isNew)
+        {
+            added.increment();
+        }
+        else
+        {
+            duplicates.increment();
+        }
+        return isNew;
+    }
+
+    /**
+     * Checks if the key is seen recently.
+     * 
+     * @param key The key to check;
+     * @return Returns true if the key is probably seen.
+     */
+    public boolean mightContain(long key)
+    {
+        Generations current = generations.get();
+        return current.current.mightContain(key) || current.previous != null && current.previous.mightContain(key);
+    }
+
+    /**
+     * Gets the fill ratio of the current generation.
+     * 
+     * @return Returns the share of set bits.
+     */
+    public double fillRatio()
+    {
+        return generations.get().current.fillRatio();
+    }
+
+    /**
+     * Estimates the probability to take a new key for duplicate now.
+     * 
+     * @return Returns the estimated false positive rate.
+     */
+    public double estimatedFalsePositiveRate()
+    {
+        Generations current = generations.get();
+        double currentRate = current.current.estimatedFalsePositiveRate();
+        double previousRate = current.previous == null ? 0D : current.previous.estimatedFalsePositiveRate();
+        return 1D - (1D - currentRate) * (1D - previousRate);
+    }
+
+    /**
+     * Gets the number of keys taken as new.
+     * 
+     * @return Returns the number of added keys.
+     */
+    public long getAdded()
+    {
+        return added.sum();
+    }
+
+    /**
+     * Gets the number of keys taken as duplicates.
+     * 
+     * @return Returns the number of duplicates.
+     */
+    public long getDuplicates()
+    {
+        return duplicates.sum();
+    }
+
+    /**
+     * Gets the number of started generations after the first one.
+     * 
+     * @return Returns the number of rotations.
+     */
+    public long getRotations()
+    {
+        return rotations.get();
+    }
+
+    /**
+     * Gets the memory of bit arrays.
+     * 
+     * @return Returns the max number of bytes of both generations.
+     */
+    public long byteSize()
+    {
+        return generations.get().current.bitSize() / Byte.SIZE * 2;
+    }
+
+    private void rotate(Generations expected)
+    {
+        // Only the thread that filled the generation rotates it, so the new filter is allocated once
+        generations.set(new Generations(new BloomFilter(keysPerGeneration, generationFalsePositiveRate), expected.current));
+        rotations.incrementAndGet();
+    }
+
+    /**
+     * Immutable pair of generations to swap them at once, with the number of keys put into the current generation.
+     */
+    private static final class Generations
+    {
+        private final BloomFilter current;
+        private final BloomFilter previous;
+        private final AtomicLong keys = new AtomicLong();
+
+        private Generations(BloomFilter current, BloomFilter previous)
+        {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.sme.reactor.eventbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Hot event bus that multicasts every event to all current subscribers, each one through its own bounded queue.
+ * <p>
+ * {@link Flux#publish()} and {@code EmitterProcessor} share one buffer between subscribers and emit at the pace of the slowest one, so one slow
+ * consumer throttles all of them. Here the publisher offers an event to the lock-free SPSC queue of every subscriber and never waits: when the queue
+ * of a subscriber is full, the {@link Overflow} policy drops the event, keeps only the latest one or disconnects that subscriber, while others
+ * proceed at their own pace. Every subscriber is drained on its own worker of the scheduler, so the publisher only enqueues and a slow
+ * {@code onNext} of one subscriber delays neither the publisher nor other subscribers.
+ * </p>
+ * <p>
+ * The bus follows the Reactive Streams rules of a subscriber: {@link #publish(Object)}, {@link #complete()} and {@link #error(Throwable)} should not be
+ * called concurrently. {@link #connect(Publisher)} feeds the bus from a flux with unbounded demand.
+ * </p>
+ *
+ * @param <T> The type of event.
+ */
+public final class EventBus<T>
+{
+    /**
+     * The policy for an event that does not fit the queue of a slow subscriber.
+     */
+    public enum Overflow
+    {
+        /** Drops the event for the subscriber. */
+        DROP,
+        /** Keeps only the latest event that did not fit, the subscriber samples the feed until it catches up. */
+        LATEST,
+        /** Terminates the subscriber with an overflow error after its queued events. */
+        DISCONNECT
+    }
+
+    /** Above this capacity {@link Queues#get(int)} returns an unbounded queue. */
+    private static final int MAX_QUEUE_CAPACITY = 10_000_000;
+
+    private final int queueCapacity;
+    private final Overflow overflow;
+    private final Scheduler scheduler;
+
+    private final CopyOnWriteArrayList<BusSubscription<T>> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    private EventBus(int queueCapacity, Overflow overflow, Scheduler scheduler)
+    {
+        this.queueCapacity = queueCapacity;
+        this.overflow = overflow;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Creates an event bus.
+     *
+     * @param queueCapacity The capacity of the queue of every subscriber, it is rounded up to a power of 2 and 8 at least;
+     * @param overflow The policy for events that do not fit the queue of a slow subscriber;
+     * @param scheduler The scheduler to deliver events on, every subscriber gets its own worker;
+     * @param <T> The type of event;
+     * @return Returns the event bus.
+     */
+    public static <T> EventBus<T> create(int queueCapacity, Overflow overflow, Scheduler scheduler)
+    {
+        Validate.inclusiveBetween(2, MAX_QUEUE_CAPACITY, queueCapacity, "Queue capacity should be between 2 and %d", MAX_QUEUE_CAPACITY);
+        Validate.notNull(overflow, "Overflow is required");
+        Validate.notNull(scheduler, "Scheduler is required");
+        return new EventBus<>(queueCapacity, overflow, scheduler);
+    }
+
+    /**
+     * Subscribes to the events published after subscription.
+     *
+     * @param name The name of the subscriber in metrics;
+     * @return Returns the hot flux of events.
+     */
+    public Flux<T> flux(String name)
+    {
+        Validate.notBlank(name, "Name is required");
+        return Flux.from(actual ->
+        {
+            BusSubscription<T> subscription = new BusSubscription<>(this, Operators.toCoreSubscriber(actual), name + "#" + ids.incrementAndGet());
+            actual.onSubscribe(subscription);
+            subscribers.add(subscription);
+            if (subscription.cancelled)
+            {
+                // Cancelled in onSubscribe
+                subscribers.remove(subscription);
+            }
+            else if (done)
+            {
+                // Terminated before or while subscribing
+                subscription.terminate(error);
+            }
+        });
+    }
+
+    /**
+     * Publishes an event to all current subscribers without waiting for them.
+     *
+     * @param event The event;
+     */
+    public void publish(T event)
+    {
+        Validate.notNull(event, "Event is required");
+        if (done)
+        {
+            return;
+        }
+        published.increment();
+        for (BusSubscription<T> subscription : subscribers)
+        {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Completes all subscribers after their queued events.
+     */
+    public void complete()
+    {
+        terminate(null);
+    }
+
+    /**
+     * Fails all subscribers after their queued events.
+     *
+     * @param e The error;
+     */
+    public void error(Throwable e)
+    {
+        Validate.notNull(e, "Error is required");
+        terminate(e);
+    }
+
+    /**
+     * Publishes all events of the source.
+     *
+     * @param source The feed;
+     * @return Returns the disposable to disconnect the source.
+     */
+    public Disposable connect(Publisher<? extends T> source)
+    {
+        Validate.notNull(source, "Source is required");
+        BaseSubscriber<T> feed = new BaseSubscriber<T>()
+        {
+            @Override
+            protected void hookOnNext(T value)
+            {
+                publish(value);
+            }
+
+            @Override
+            protected void hookOnComplete()
+            {
+                complete();
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable)
+            {
+                error(throwable);
+            }
+        };
+        source.subscribe(feed);
+        return feed;
+    }
+
+    public long getPublished()
+    {
+        return published.sum();
+    }
+
+    public int getSubscriberCount()
+    {
+        return subscribers.size();
+    }
+
+    /**
+     * @return Returns the lag of every current subscriber.
+     */
+    public List<SubscriberLag> getLags()
+    {
+        List<SubscriberLag> lags = new ArrayList<>(subscribers.size());
+        for (BusSubscription<T> subscription : subscribers)
+        {
+            lags.add(subscription.lag());
+        }
+        return lags;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("EventBus[published=%d, subscribers=%s]", getPublished(), getLags());
+    }
+
+    private void terminate(Throwable e)
+    {
+        if (done)
+        {
+            return;
+        }
+        error = e;
+        done = true;
+        for (BusSubscription<T> subscription : subscribers)
+        {
+            subscription.terminate(e);
+        }
+    }
+
+    private void remove(BusSubscription<T> subscription)
+    {
+        subscribers.remove(subscription);
+    }
+
+    /**
+     * The lag of a subscriber behind the publisher.
+     */
+    public static final class SubscriberLag
+    {
+        private final String name;
+        private final int pending;
+        private final long delivered;
+        private final long dropped;
+
+        private SubscriberLag(String name, int pending, long delivered, long dropped)
+        {
+            this.name = name;
+            this.pending = pending;
+            this.delivered = delivered;
+            this.dropped = dropped;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return Returns the number of events queued for the subscriber.
+         */
+        public int getPending()
+        {
+            return pending;
+        }
+
+        public long getDelivered()
+        {
+            return delivered;
+        }
+
+        /**
+         * @return Returns the number of events the subscriber missed because its queue was full.
+         */
+        public long getDropped()
+        {
+            return dropped;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s[pending=%d, delivered=%d, dropped=%d]", name, pending, delivered, dropped);
+        }
+    }
+
+    /**
+     * The queue and the drain loop of a subscriber.
+     */
+    private static final class BusSubscription<T> implements Subscription, Runnable
+    {
+        private final EventBus<T> bus;
+        private final CoreSubscriber<? super T> actual;
+        private final String name;
+        private final Queue<T> queue;
+        private final Scheduler.Worker worker;
+
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicReference<T> latest = new AtomicReference<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        private BusSubscription(EventBus<T> bus, CoreSubscriber<? super T> actual, String name)
+        {
+            this.bus = bus;
+            this.actual = actual;
+            this.name = name;
+            this.queue = Queues.<T> get(bus.queueCapacity).get();
+            this.worker = bus.scheduler.createWorker();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (current == Long.MAX_VALUE || requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                bus.remove(this);
+                // A scheduled drain clears and disposes the worker itself, disposing it here would drop that drain
+                if (wip.getAndIncrement() == 0)
+                {
+                    clear();
+                    worker.dispose();
+                }
+            }
+        }
+
+        /**
+         * Called by the publisher thread only, it is the single producer of the queue.
+         */
+        private void offer(T event)
+        {
+            if (done || cancelled)
+            {
+                return;
+            }
+
+            // While an overflowed event waits for the queue to drain, newer events replace it, so events stay in publish order
+            if ((bus.overflow != Overflow.LATEST || latest.get() == null) && queue.offer(event))
+            {
+                pending.incrementAndGet();
+            }
+            else if (bus.overflow == Overflow.LATEST)
+            {
+                if (latest.getAndSet(event) != null)
+                {
+                    dropped.increment();
+                }
+            }
+            else
+            {
+                dropped.increment();
+                if (bus.overflow == Overflow.DISCONNECT)
+                {
+                    bus.remove(this);
+                    terminate(Exceptions.failWithOverflow("Subscriber " + name + " is too slow, its queue is full"));
+                    return;
+                }
+            }
+            drain();
+        }
+
+        private void terminate(Throwable e)
+        {
+            error = e;
+            done = true;
+            drain();
+        }
+
+        private SubscriberLag lag()
+        {
+            return new SubscriberLag(name, pending.get() + (latest.get() == null ? 0 : 1), delivered.sum(), dropped.sum());
+        }
+
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            try
+            {
+                worker.schedule(this);
+            }
+            catch (RejectedExecutionException e)
+            {
+                cancelled = true;
+                bus.remove(this);
+                clear();
+                worker.dispose();
+                actual.onError(e);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r)
+                {
+                    if (cancelled)
+                    {
+                        clear();
+                        worker.dispose();
+                        return;
+                    }
+
+                    boolean d = done;
+                    T event = queue.poll();
+                    if (event == null)
+                    {
+                        // The latest event that did not fit goes after the queued ones, so events stay in publish order
+                        event = latest.getAndSet(null);
+                    }
+                    else
+                    {
+                        pending.decrementAndGet();
+                    }
+
+                    if (event == null)
+                    {
+                        if (d)
+                        {
+                            complete();
+                            return;
+                        }
+                        break;
+                    }
+
+                    actual.onNext(event);
+                    delivered.increment();
+                    e++;
+                }
+
+                if (e == r)
+                {
+                    if (cancelled)
+                    {
+                        clear();
+                        worker.dispose();
+                        return;
+                    }
+                    if (done && queue.isEmpty() && latest.get() == null)
+                    {
+                        complete();
+                        return;
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE)
+                {
+                    requested.addAndGet(-e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void complete()
+        {
+            bus.remove(this);
+            Throwable e = error;
+            if (e != null)
+            {
+                actual.onError(e);
+            }
+            else
+            {
+                actual.onComplete();
+            }
+            worker.dispose();
+        }
+
+        private void clear()
+        {
+            queue.clear();
+            latest.set(null);
+            pending.set(0);
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package com.sme.reactor.eventlog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+
+import com.sme.reactor.spill.SpillCodec;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Persistent append-only log of events split into segment files, readable from any offset.
+ * <p>
+ * Every event gets the next offset. {@link #append(Object)} completes with the offset once the event is on disk: appends are queued and written by one
+ * task on the writer scheduler, which writes all queued events, up to the max batch, with one fsync. So concurrent appends share the cost of fsync,
+ * which is the group commit of databases, and {@link #appendAll(Publisher)} keeps a batch of appends in flight.
+ * </p>
+ * <p>
+ * {@link #read(long)} emits the committed records from an offset on demand, through the memory-mapped segments, and completes at the end of the log.
+ * {@link #tail(long, Scheduler)} keeps following the log, so a subscriber that restarts resumes from the offset after its last processed record.
+ * Reading blocks on page faults, so subscribe on a scheduler made for I/O.
+ * </p>
+ * <p>
+ * Segments are named by the offset of their first record. On open, the records of every segment are scanned up to the first torn record, which rebuilds
+ * the sparse offset index of the segment.
+ * </p>
+ *
+ * @param <T> The type of event.
+ */
+public final class EventLog<T> implements Disposable
+{
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+    private final Path directory;
+    private final SpillCodec<T> codec;
+    private final int segmentSize;
+    private final int maxBatch;
+    private final Scheduler writer;
+
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Queue<PendingAppend> appends = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // Used by the writer task only
+    private final PendingAppend[] batch;
+    private final int[] recordPositions;
+    private final ByteBuffer writeBuffer;
+    private final ByteBuffer header = ByteBuffer.allocate(LogSegment.HEADER_SIZE);
+    private LogSegment active;
+    private int buffered;
+    private boolean segmentsClosed;
+
+    private volatile long endOffset;
+    private volatile boolean disposed;
+    private volatile Throwable failure;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private EventLog(Path directory, SpillCodec<T> codec, int segmentSize, int maxBatch, Scheduler writer)
+    {
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.writer = writer;
+        this.batch = new PendingAppend[maxBatch];
+        this.recordPositions = new int[maxBatch];
+        this.writeBuffer = ByteBuffer.allocateDirect(Math.min(WRITE_BUFFER_SIZE, segmentSize));
+    }
+
+    /**
+     * Opens the log in the directory, or creates an empty log.
+     *
+     * @param directory The directory of segment files;
+     * @param codec The codec of events;
+     * @param segmentSize The size of a segment file, an event with its 8 bytes header should fit a segment;
+     * @param maxBatch The max number of events written with one fsync;
+     * @param writer The scheduler to write and fsync on, made for I/O;
+     * @param <T> The type of event;
+     * @return Returns the log.
+     * @throws IOException if the segments cannot be opened.
+     */
+    public static <T> EventLog<T> open(Path directory, SpillCodec<T> codec, int segmentSize, int maxBatch, Scheduler writer) throws IOException
+    {
+        Validate.notNull(directory, "Directory is required");
+        Validate.notNull(codec, "Codec is required");
+        Validate.isTrue(segmentSize > LogSegment.HEADER_SIZE, "Segment size should be greater than the record header");
+        Validate.isTrue(maxBatch > 0, "Max batch should be positive");
+        Validate.notNull(writer, "Writer is required");
+
+        EventLog<T> log = new EventLog<>(directory, codec, segmentSize, maxBatch, writer);
+        log.load();
+        return log;
+    }
+
+    /**
+     * Appends the event.
+     *
+     * @param event The event;
+     * @return Returns the offset of the event once it is on disk, or fails with {@link IllegalStateException} if the log is disposed.
+     */
+    public Mono<Long> append(T event)
+    {
+        Validate.notNull(event, "Event is required");
+        return Mono.create(sink ->
+        {
+            if (disposed)
+            {
+                sink.error(disposedError());
+                return;
+            }
+            // Encodes on the caller thread, so the writer task only copies bytes
+            ByteBuffer payload = codec.encode(event);
+            if (LogSegment.HEADER_SIZE + payload.remaining() > segmentSize)
+            {
+                sink.error(new IllegalArgumentException("Event of " + payload.remaining() + " bytes does not fit a segment of " + segmentSize + " bytes"));
+                return;
+            }
+            appends.offer(new PendingAppend(payload, sink));
+            if (wip.getAndIncrement() == 0)
+            {
+                writer.schedule(this::drain);
+            }
+        });
+    }
+
+    /**
+     * Appends all events of the source, a batch of them are written at a time.
+     *
+     * @param source The events;
+     * @return Returns the offsets of the events in order.
+     */
+    public Flux<Long> appendAll(Publisher<? extends T> source)
+    {
+        Validate.notNull(source, "Source is required");
+        return Flux.<T> from(source).flatMapSequential(this::append, maxBatch);
+    }
+
+    /**
+     * Reads the committed records from the offset to the end of the log.
+     *
+     * @param fromOffset The offset of the first record to read, an offset before the start of the log reads from the start;
+     * @return Returns the flux of records.
+     */
+    public Flux<LogRecord<T>> read(long fromOffset)
+    {
+        return Flux.generate(() -> seek(fromOffset), this::next);
+    }
+
+    /**
+     * Reads the records from the offset and waits for new records at the end of the log, until the log is disposed.
+     *
+     * @param fromOffset The offset of the first record to read;
+     * @param reader The scheduler to read on, so records are not read on the writer thread that signals new records;
+     * @return Returns the flux of records that completes when the log is disposed.
+     */
+    public Flux<LogRecord<T>> tail(long fromOffset, Scheduler reader)
+    {
+        Validate.notNull(reader, "Reader is required");
+        return Flux.defer(() ->
+        {
+            AtomicLong next = new AtomicLong(fromOffset);
+            return Flux.defer(() -> read(next.get()))
+                    .subscribeOn(reader)
+                    .doOnNext(record -> next.set(record.getOffset() + 1))
+                    .repeatWhen(ends -> ends
+                            .concatMap(end -> awaitAfter(next.get()))
+                            .takeWhile(offset -> offset >= 0));
+        });
+    }
+
+    /**
+     * @return Returns the offset of the next event, all events before it are on disk.
+     */
+    public long getEndOffset()
+    {
+        return endOffset;
+    }
+
+    /**
+     * @return Returns the offset of the first event in the log.
+     */
+    public long getStartOffset()
+    {
+        return segments.firstKey();
+    }
+
+    public int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    public long getAppended()
+    {
+        return appended.sum();
+    }
+
+    /**
+     * @return Returns the number of fsync calls.
+     */
+    public long getCommits()
+    {
+        return commits.sum();
+    }
+
+    /**
+     * @return Returns the average number of events written with one fsync.
+     */
+    public double getAverageBatch()
+    {
+        long count = commits.sum();
+        return count == 0 ? 0d : (double) appended.sum() / count;
+    }
+
+    public long getBytes()
+    {
+        return bytes.sum();
+    }
+
+    /**
+     * Closes the segments after the queued appends fail, pending tails complete.
+     */
+    @Override
+    public void dispose()
+    {
+        if (!disposed)
+        {
+            disposed = true;
+            if (wip.getAndIncrement() == 0)
+            {
+                writer.schedule(this::drain);
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed()
+    {
+        return disposed;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("EventLog[directory=%s, segments=%d, endOffset=%d, appended=%d, commits=%d, averageBatch=%.1f]",
+                directory, getSegmentCount(), getEndOffset(), getAppended(), getCommits(), getAverageBatch());
+    }
+
+    private void load() throws IOException
+    {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX))
+        {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                long baseOffset = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(baseOffset, LogSegment.open(file, baseOffset));
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            closeSegments();
+            throw e;
+        }
+
+        if (segments.isEmpty())
+        {
+            roll(0L);
+        }
+        else
+        {
+            for (LogSegment segment : segments.headMap(segments.lastKey()).values())
+            {
+                segment.seal();
+            }
+            active = segments.lastEntry().getValue();
+        }
+        endOffset = active.getNextOffset();
+    }
+
+    private void drain()
+    {
+        int missed = 1;
+        for (;;)
+        {
+            if (disposed)
+            {
+                // Keeps draining, so an append queued while the log is disposed fails too
+                closeAll();
+            }
+            else
+            {
+                int count = 0;
+                PendingAppend append;
+                while (count < maxBatch && (append = appends.poll()) != null)
+                {
+                    batch[count++] = append;
+                }
+
+                if (count > 0)
+                {
+                    writeBatch(count);
+                    continue;
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0)
+            {
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(int count)
+    {
+        long firstOffset = endOffset;
+        int written = 0;
+        Throwable error = failure;
+        if (error == null)
+        {
+            try
+            {
+                for (; written < count; written++)
+                {
+                    append(batch[written].payload);
+                }
+                flush();
+                active.commit();
+                commits.increment();
+                appended.add(count);
+                endOffset = active.getNextOffset();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // Records after the last commit may be on disk, so the log stops accepting appends rather than leave a gap of offsets
+                failure = e;
+                error = e;
+            }
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            PendingAppend pending = batch[i];
+            batch[i] = null;
+            if (error == null)
+            {
+                pending.sink.success(firstOffset + i);
+            }
+            else
+            {
+                pending.sink.error(error);
+            }
+        }
+        wakeUpWaiters();
+    }
+
+    private void append(ByteBuffer payload) throws IOException
+    {
+        int length = payload.remaining();
+        int recordSize = LogSegment.HEADER_SIZE + length;
+
+        if (!active.fits((long) writeBuffer.position() + recordSize))
+        {
+            flush();
+            active.commit();
+            active.seal();
+            roll(active.getNextOffset());
+        }
+        if (recordSize > writeBuffer.remaining())
+        {
+            flush();
+        }
+
+        header.clear();
+        LogSegment.header(header, payload);
+        header.flip();
+        if (recordSize > writeBuffer.capacity())
+        {
+            // A record larger than the buffer is written on its own
+            recordPositions[0] = 0;
+            ByteBuffer record = ByteBuffer.allocate(recordSize).put(header).put(payload);
+            record.flip();
+            active.write(record, 1, recordPositions);
+        }
+        else
+        {
+            recordPositions[buffered++] = writeBuffer.position();
+            writeBuffer.put(header).put(payload);
+        }
+        bytes.add(recordSize);
+    }
+
+    private void flush() throws IOException
+    {
+        if (buffered > 0)
+        {
+            writeBuffer.flip();
+            active.write(writeBuffer, buffered, recordPositions);
+            writeBuffer.clear();
+            buffered = 0;
+        }
+    }
+
+    private void roll(long baseOffset) throws IOException
+    {
+        LogSegment segment = LogSegment.create(directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX)), baseOffset, segmentSize);
+        segments.put(baseOffset, segment);
+        active = segment;
+    }
+
+    private Cursor seek(long fromOffset)
+    {
+        long offset = Math.max(fromOffset, segments.firstKey());
+        Map.Entry<Long, LogSegment> entry = segments.floorEntry(offset);
+        LogSegment segment = entry.getValue();
+
+        long indexed = segment.lookup(offset);
+        Cursor cursor = new Cursor(segment, segment.getBaseOffset() + (indexed >>> 32), (int) indexed);
+        while (cursor.offset < offset && cursor.offset < endOffset && cursor.position < segment.getCommittedPosition())
+        {
+            cursor.position += LogSegment.HEADER_SIZE + segment.length(cursor.position);
+            cursor.offset++;
+        }
+        return cursor;
+    }
+
+    private Cursor next(Cursor cursor, SynchronousSink<LogRecord<T>> sink)
+    {
+        for (;;)
+        {
+            if (cursor.offset >= endOffset)
+            {
+                sink.complete();
+                return cursor;
+            }
+
+            LogSegment segment = cursor.segment;
+            if (cursor.position >= segment.getCommittedPosition())
+            {
+                // The segment was sealed, its records are read, so the next segment starts with the offset of the cursor
+                cursor.segment = segments.get(cursor.offset);
+                cursor.position = 0;
+                if (cursor.segment == null)
+                {
+                    sink.error(new IllegalStateException("Segment of offset " + cursor.offset + " is not found in " + directory));
+                    return cursor;
+                }
+                continue;
+            }
+
+            int length = segment.length(cursor.position);
+            T value = codec.decode(segment.read(cursor.position));
+            sink.next(new LogRecord<>(cursor.offset, value));
+            cursor.offset++;
+            cursor.position += LogSegment.HEADER_SIZE + length;
+            return cursor;
+        }
+    }
+
+    /**
+     * @return Returns the mono of the offset when a record is committed after it, or -1 when the log is disposed.
+     */
+    private Mono<Long> awaitAfter(long offset)
+    {
+        return Mono.create(sink ->
+        {
+            Runnable waiter = () -> sink.success(disposed ? -1L : offset);
+            waiters.offer(waiter);
+            sink.onDispose(() -> waiters.remove(waiter));
+            // Checks after the waiter is registered, so a commit between the end of the read and the registration is not missed
+            if (disposed)
+            {
+                sink.success(-1L);
+            }
+            else if (endOffset > offset)
+            {
+                sink.success(offset);
+            }
+        });
+    }
+
+    private void wakeUpWaiters()
+    {
+        Runnable waiter;
+        while ((waiter = waiters.poll()) != null)
+        {
+            waiter.run();
+        }
+    }
+
+    private void closeAll()
+    {
+        PendingAppend append;
+        while ((append = appends.poll()) != null)
+        {
+            append.sink.error(disposedError());
+        }
+        if (!segmentsClosed)
+        {
+            segmentsClosed = true;
+            closeSegments();
+        }
+        // Tails complete when they find the log disposed
+        wakeUpWaiters();
+    }
+
+    private IllegalStateException disposedError()
+    {
+        return new IllegalStateException("Event log " + directory + " is disposed");
+    }
+
+    private void closeSegments()
+    {
+        for (LogSegment segment : segments.values())
+        {
+            try
+            {
+                segment.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * An encoded event waiting to be written.
+     */
+    private static final class PendingAppend
+    {
+        private final ByteBuffer payload;
+        private final MonoSink<Long> sink;
+
+        private PendingAppend(ByteBuffer payload, MonoSink<Long> sink)
+        {
+            this.payload = payload;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * The read position of a subscriber.
+     */
+    private static final class Cursor
+    {
+        private LogSegment segment;
+        private long offset;
+        private int position;
+
+        private Cursor(LogSegment segment, long offset, int position)
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.position = position;
+        }
+    }
+}
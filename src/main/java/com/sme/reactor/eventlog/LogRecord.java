@@ -0,0 +1,37 @@
+package com.sme.reactor.eventlog;
+
+/**
+ * Value read from an event log with its offset.
+ *
+ * @param <T> The type of value.
+ */
+public final class LogRecord<T>
+{
+    private final long offset;
+    private final T value;
+
+    LogRecord(long offset, T value)
+    {
+        this.offset = offset;
+        this.value = value;
+    }
+
+    /**
+     * @return Returns the offset of the record, a subscriber resumes from the offset of its last processed record plus 1.
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    public T getValue()
+    {
+        return value;
+    }
+
+    @Override
+    public String toString()
+    {
+        return offset + ":" + value;
+    }
+}
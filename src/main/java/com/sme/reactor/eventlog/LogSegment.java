@@ -0,0 +1,312 @@
+package com.sme.reactor.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Segment file of an event log: records appended at the end of a preallocated file and read through a memory-mapped view of the whole file.
+ * <p>
+ * Every record is {@code [int length + 1][int crc32 of bytes][bytes]}. The file is preallocated to the segment size, so the mapping covers the
+ * records written after it and a zero header marks the end. The length is stored plus 1, so an event encoded into no bytes is not taken for the end.
+ * Readers see records up to the committed position only, which the writer moves after fsync.
+ * </p>
+ * <p>
+ * The sparse index keeps the offset and position of a record every {@link #INDEX_INTERVAL} bytes, a read from an offset scans at most that many bytes
+ * from the closest indexed record. The index is rebuilt by the scan that recovers the segment on open.
+ * </p>
+ */
+final class LogSegment implements Closeable
+{
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int INDEX_INTERVAL = 4096;
+
+    private final Path path;
+    private final long baseOffset;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int size;
+
+    // Written by the writer thread only
+    private int position;
+    private long nextOffset;
+    private int lastIndexedPosition = -INDEX_INTERVAL;
+
+    // Guarded by the monitor, the writer appends and readers search
+    private long[] indexOffsets = new long[16];
+    private int[] indexPositions = new int[16];
+    private int indexSize;
+
+    private volatile int committedPosition;
+    private volatile boolean sealed;
+
+    private LogSegment(Path path, long baseOffset, FileChannel channel, int size) throws IOException
+    {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.channel = channel;
+        this.size = size;
+        this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.nextOffset = baseOffset;
+    }
+
+    /**
+     * Creates a new preallocated segment.
+     */
+    static LogSegment create(Path path, long baseOffset, int size) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            // Writes the last byte, so the file has the size of the mapping
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            return new LogSegment(path, baseOffset, channel, size);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing segment and recovers its valid records: the scan stops at the first record with a zero length or a wrong checksum, like a record
+     * torn by a crash. The bytes after it are zeroed and forced before the next append overwrites them.
+     */
+    static LogSegment open(Path path, long baseOffset) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            LogSegment segment = new LogSegment(path, baseOffset, channel, (int) channel.size());
+            segment.recover();
+            return segment;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    long getBaseOffset()
+    {
+        return baseOffset;
+    }
+
+    long getNextOffset()
+    {
+        return nextOffset;
+    }
+
+    int getCommittedPosition()
+    {
+        return committedPosition;
+    }
+
+    boolean isSealed()
+    {
+        return sealed;
+    }
+
+    /**
+     * @param bytes The number of bytes of records with headers;
+     * @return Returns true if the records fit the rest of the segment.
+     */
+    boolean fits(long bytes)
+    {
+        return position + bytes <= size;
+    }
+
+    /**
+     * Writes whole records at the end of the segment.
+     *
+     * @param records The records between position and limit;
+     * @param count The number of records in the buffer;
+     * @param recordPositions The positions of the records relative to the position of the buffer;
+     */
+    void write(ByteBuffer records, int count, int[] recordPositions) throws IOException
+    {
+        int start = position;
+        while (records.hasRemaining())
+        {
+            position += channel.write(records, position);
+        }
+        for (int i = 0; i < count; i++)
+        {
+            int recordPosition = start + recordPositions[i];
+            if (recordPosition - lastIndexedPosition >= INDEX_INTERVAL)
+            {
+                index(nextOffset, recordPosition);
+            }
+            nextOffset++;
+        }
+    }
+
+    /**
+     * Forces the written records to disk and makes them visible to readers.
+     */
+    void commit() throws IOException
+    {
+        if (committedPosition != position)
+        {
+            channel.force(false);
+            committedPosition = position;
+        }
+    }
+
+    /**
+     * Marks the segment as full: readers move to the next segment after its committed records.
+     */
+    void seal()
+    {
+        sealed = true;
+    }
+
+    /**
+     * Finds the closest indexed record at or before the offset.
+     *
+     * @param offset The offset to read from;
+     * @return Returns the position of the record in the low 32 bits and its offset minus the base offset in the high 32 bits.
+     */
+    synchronized long lookup(long offset)
+    {
+        int index = Arrays.binarySearch(indexOffsets, 0, indexSize, offset);
+        if (index < 0)
+        {
+            index = -index - 2;
+        }
+        if (index < 0)
+        {
+            return 0L;
+        }
+        return (indexOffsets[index] - baseOffset) << 32 | indexPositions[index];
+    }
+
+    /**
+     * @param position The position of a committed record;
+     * @return Returns the length of the record bytes.
+     */
+    int length(int position)
+    {
+        return mapped.getInt(position) - 1;
+    }
+
+    /**
+     * @param position The position of a committed record;
+     * @return Returns the read-only bytes of the record, valid while the segment is open.
+     */
+    ByteBuffer read(int position)
+    {
+        ByteBuffer record = mapped.duplicate();
+        record.limit(position + HEADER_SIZE + length(position));
+        record.position(position + HEADER_SIZE);
+        return record.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LogSegment[baseOffset=" + baseOffset + ", nextOffset=" + nextOffset + ", position=" + position + "]";
+    }
+
+    /**
+     * Writes the header of a record.
+     *
+     * @param header The buffer of {@link #HEADER_SIZE} bytes;
+     * @param payload The bytes of the record between position and limit;
+     */
+    static void header(ByteBuffer header, ByteBuffer payload)
+    {
+        header.putInt(payload.remaining() + 1).putInt(checksum(payload));
+    }
+
+    static int checksum(ByteBuffer bytes)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private void recover() throws IOException
+    {
+        int recordPosition = 0;
+        while (recordPosition + HEADER_SIZE <= size)
+        {
+            int length = length(recordPosition);
+            if (length < 0 || (long) recordPosition + HEADER_SIZE + length > size)
+            {
+                break;
+            }
+            if (checksum(read(recordPosition)) != mapped.getInt(recordPosition + Integer.BYTES))
+            {
+                break;
+            }
+            if (recordPosition - lastIndexedPosition >= INDEX_INTERVAL)
+            {
+                index(nextOffset, recordPosition);
+            }
+            nextOffset++;
+            recordPosition += HEADER_SIZE + length;
+        }
+        position = recordPosition;
+        committedPosition = recordPosition;
+        zeroTail();
+    }
+
+    /**
+     * Zeroes the bytes of torn records after the recovered position: otherwise an append of the same size could end right at an old record with a
+     * valid checksum, and the next recovery would take it for a new one.
+     */
+    private void zeroTail() throws IOException
+    {
+        int end = size;
+        while (end > position && mapped.get(end - 1) == 0)
+        {
+            end--;
+        }
+        if (end == position)
+        {
+            return;
+        }
+
+        ByteBuffer zeros = ByteBuffer.allocate(Math.min(end - position, 64 * 1024));
+        int zeroPosition = position;
+        while (zeroPosition < end)
+        {
+            zeros.clear().limit(Math.min(zeros.capacity(), end - zeroPosition));
+            zeroPosition += channel.write(zeros, zeroPosition);
+        }
+        channel.force(false);
+    }
+
+    private synchronized void index(long offset, int recordPosition)
+    {
+        if (indexSize == indexOffsets.length)
+        {
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+            indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+        }
+        indexOffsets[indexSize] = offset;
+        indexPositions[indexSize] = recordPosition;
+        indexSize++;
+        lastIndexedPosition = recordPosition;
+    }
+}
@@ -0,0 +1,136 @@
+package com.sme.reactor.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through a sliding memory-mapped region.
+ * <p>
+ * Only one region is mapped at a time, so a file of any size is read with the address space of a region and without heap copies: records are slices of
+ * the mapped region. A record that crosses the end of the region is read after the region is remapped from the start of the record.
+ * </p>
+ */
+final class MappedFileReader implements Closeable
+{
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int offset;
+
+    MappedFileReader(Path path, int regionSize) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Reads the next chunk, the last chunk of the file may be shorter.
+     * 
+     * @param chunkSize The max size of a chunk;
+     * @return Returns the read-only chunk or null at the end of file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    ByteBuffer nextChunk(int chunkSize) throws IOException
+    {
+        long position = regionStart + offset;
+        if (position >= size)
+        {
+            return null;
+        }
+
+        int length = (int) Math.min(chunkSize, size - position);
+        if (region == null || offset + length > region.limit())
+        {
+            map(position);
+        }
+        ByteBuffer chunk = slice(offset, length);
+        offset += length;
+        return chunk;
+    }
+
+    /**
+     * Reads the next line without line terminator.
+     * 
+     * @return Returns the read-only line or null at the end of file.
+     * @throws IOException if the file cannot be mapped or a line does not fit into a region.
+     */
+    ByteBuffer nextLine() throws IOException
+    {
+        long position = regionStart + offset;
+        if (position >= size)
+        {
+            return null;
+        }
+        if (region == null)
+        {
+            map(position);
+        }
+
+        for (;;)
+        {
+            int limit = region.limit();
+            for (int i = offset; i < limit; i++)
+            {
+                if (region.get(i) == LF)
+                {
+                    ByteBuffer line = line(offset, i);
+                    offset = i + 1;
+                    return line;
+                }
+            }
+
+            if (regionStart + limit >= size)
+            {
+                // The last line without line terminator
+                ByteBuffer line = line(offset, limit);
+                offset = limit;
+                return line;
+            }
+            if (offset == 0)
+            {
+                throw new IOException("Line at " + regionStart + " position is longer than " + regionSize + " bytes of mapped region");
+            }
+            map(regionStart + offset);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        region = null;
+        channel.close();
+    }
+
+    private void map(long position) throws IOException
+    {
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+        regionStart = position;
+        offset = 0;
+    }
+
+    private ByteBuffer line(int from, int to)
+    {
+        int end = to > from && region.get(to - 1) == CR ? to - 1 : to;
+        return slice(from, end - from);
+    }
+
+    private ByteBuffer slice(int from, int length)
+    {
+        ByteBuffer duplicate = region.duplicate();
+        duplicate.position(from);
+        duplicate.limit(from + length);
+        return duplicate.slice().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,269 @@
+package com.sme.reactor.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+/**
+ * File sources and sinks that stream files larger than heap.
+ * <p>
+ * {@link java.nio.file.Files#lines(Path)} with {@link Flux#fromStream(java.util.stream.Stream)} decodes the file through a heap buffer. The sources below
+ * are built on {@link Flux#generate(java.util.concurrent.Callable, java.util.function.BiFunction, java.util.function.Consumer)}, so a record is read
+ * only when downstream requests it, from a sliding memory-mapped region. Chunks and line buffers are read-only slices of the region without copies. The
+ * file is closed on complete, error and cancel.
+ * </p>
+ * <p>
+ * Reading a mapped file blocks on page faults, so subscribe on a scheduler made for I/O rather than on {@code parallel}.
+ * </p>
+ */
+public final class MappedFiles
+{
+    /** The default size of the mapped region. */
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private MappedFiles()
+    {
+    }
+
+    /**
+     * Reads the file in chunks of the given size.
+     * 
+     * @param path The file to read;
+     * @param chunkSize The size of a chunk, the last chunk may be shorter;
+     * @return Returns the flux of read-only chunks.
+     */
+    public static Flux<ByteBuffer> chunks(Path path, int chunkSize)
+    {
+        return chunks(path, chunkSize, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Reads the file in chunks of the given size.
+     * 
+     * @param path The file to read;
+     * @param chunkSize The size of a chunk, the last chunk may be shorter;
+     * @param regionSize The size of the mapped region;
+     * @return Returns the flux of read-only chunks.
+     */
+    public static Flux<ByteBuffer> chunks(Path path, int chunkSize, int regionSize)
+    {
+        Validate.notNull(path, "Path is required");
+        Validate.isTrue(chunkSize > 0 && chunkSize <= regionSize, "Chunk size should be positive and fit into the region");
+
+        return Flux.generate(() -> new MappedFileReader(path, regionSize),
+                (MappedFileReader reader, SynchronousSink<ByteBuffer> sink) ->
+                {
+                    try
+                    {
+                        emit(sink, reader.nextChunk(chunkSize));
+                    }
+                    catch (IOException e)
+                    {
+                        sink.error(e);
+                    }
+                    return reader;
+                },
+                MappedFiles::close);
+    }
+
+    /**
+     * Reads lines of the file as buffers without line terminators.
+     * 
+     * @param path The file to read;
+     * @return Returns the flux of read-only lines.
+     */
+    public static Flux<ByteBuffer> lineBuffers(Path path)
+    {
+        return lineBuffers(path, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Reads lines of the file as buffers without line terminators.
+     * 
+     * @param path The file to read;
+     * @param regionSize The size of the mapped region, a line longer than the region fails the flux;
+     * @return Returns the flux of read-only lines.
+     */
+    public static Flux<ByteBuffer> lineBuffers(Path path, int regionSize)
+    {
+        Validate.notNull(path, "Path is required");
+        Validate.isTrue(regionSize > 0, "Region size should be positive");
+
+        return Flux.generate(() -> new MappedFileReader(path, regionSize),
+                (MappedFileReader reader, SynchronousSink<ByteBuffer> sink) ->
+                {
+                    try
+                    {
+                        emit(sink, reader.nextLine());
+                    }
+                    catch (IOException e)
+                    {
+                        sink.error(e);
+                    }
+                    return reader;
+                },
+                MappedFiles::close);
+    }
+
+    /**
+     * Reads lines of the UTF-8 file.
+     * 
+     * @param path The file to read;
+     * @return Returns the flux of lines.
+     */
+    public static Flux<String> lines(Path path)
+    {
+        return lines(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads lines of the file.
+     * 
+     * @param path The file to read;
+     * @param charset The charset that encodes line feed as a single byte, like UTF-8 or ISO-8859-1;
+     * @return Returns the flux of lines.
+     */
+    public static Flux<String> lines(Path path, Charset charset)
+    {
+        Validate.notNull(charset, "Charset is required");
+        return lineBuffers(path).map(line -> charset.decode(line).toString());
+    }
+
+    /**
+     * Writes buffers to the file with gathering writes of the given batch size.
+     * 
+     * @param source The buffers to write;
+     * @param path The file to create or truncate;
+     * @param batchSize The max number of buffers in a gathering write;
+     * @param forceBytes The number of written bytes to force to the storage device, 0 forces once on complete;
+     * @return Returns the number of written bytes.
+     */
+    public static Mono<Long> write(Publisher<ByteBuffer> source, Path path, int batchSize, long forceBytes)
+    {
+        Validate.notNull(source, "Source is required");
+        Validate.notNull(path, "Path is required");
+        Validate.isTrue(batchSize > 0, "Batch size should be positive");
+        Validate.isTrue(forceBytes >= 0, "Force bytes should not be negative");
+
+        return Mono.using(() -> new ChannelWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), forceBytes),
+                writer -> Flux.from(source)
+                        .buffer(batchSize)
+                        .reduce(0L, (written, batch) -> written + writer.write(batch))
+                        .doOnNext(written -> writer.force()),
+                MappedFiles::close);
+    }
+
+    /**
+     * Writes lines to the UTF-8 file, every line is terminated by line feed.
+     * 
+     * @param lines The lines to write;
+     * @param path The file to create or truncate;
+     * @param batchSize The max number of lines in a gathering write;
+     * @return Returns the number of written bytes.
+     */
+    public static Mono<Long> writeLines(Publisher<String> lines, Path path, int batchSize)
+    {
+        return write(Flux.from(lines).map(line -> StandardCharsets.UTF_8.encode(line.concat("\n"))), path, batchSize, 0L);
+    }
+
+    private static void emit(SynchronousSink<ByteBuffer> sink, ByteBuffer record)
+    {
+        if (record == null)
+        {
+            sink.complete();
+        }
+        else
+        {
+            sink.next(record);
+        }
+    }
+
+    private static void close(AutoCloseable closeable)
+    {
+        try
+        {
+            closeable.close();
+        }
+        catch (Exception e)
+        {
+            throw new UncheckedIOException(new IOException("Cannot close file", e));
+        }
+    }
+
+    /**
+     * Channel with gathering writes and forces after the given number of bytes.
+     */
+    private static final class ChannelWriter implements AutoCloseable
+    {
+        private final FileChannel channel;
+        private final long forceBytes;
+        private long unforced;
+
+        private ChannelWriter(FileChannel channel, long forceBytes)
+        {
+            this.channel = channel;
+            this.forceBytes = forceBytes;
+        }
+
+        private long write(List<ByteBuffer> batch)
+        {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+            long remaining = 0L;
+            for (ByteBuffer buffer : buffers)
+            {
+                remaining += buffer.remaining();
+            }
+
+            try
+            {
+                long written = 0L;
+                while (written < remaining)
+                {
+                    written += channel.write(buffers);
+                }
+                unforced += written;
+                if (forceBytes > 0 && unforced >= forceBytes)
+                {
+                    force();
+                }
+                return written;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void force()
+        {
+            try
+            {
+                channel.force(false);
+                unforced = 0L;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.sme.reactor.latency;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Hedged requests: races a backup call against a slow primary call.
+ * <p>
+ * {@link Flux#merge(org.reactivestreams.Publisher...)} of redundant sources subscribes to all of them upfront and waits for the slowest one to complete.
+ * A hedged request subscribes to the primary call only; if it has not emitted within the hedge delay, the backup call is subscribed too and the first
+ * value wins, the loser is cancelled. The hedge delay is the configured percentile of recent latencies of primary calls, so only the slow tail of calls
+ * pays for a second call.
+ * </p>
+ * <p>
+ * A primary call that lost the race is a censored sample: its real latency is unknown, but it is at least the time it ran, which is at least the hedge
+ * delay. So it is recorded as the longer of both, and the delay grows when the backend slows down. Latencies of backups are not recorded, they are not
+ * latencies of primary calls. Latencies are measured by {@link System#nanoTime()}, a scheduler clock is meant for tests on virtual time only.
+ * </p>
+ */
+public final class HedgedRequests
+{
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final Scheduler timer;
+    private final LongSupplier clock;
+
+    private final long[] latencies = new long[WINDOW];
+    private long samples;
+    private volatile long delayNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder primaryWins = new LongAdder();
+    private final LongAdder backupWins = new LongAdder();
+
+    private HedgedRequests(double percentile, long initialDelayNanos, long minDelayNanos, long maxDelayNanos, Scheduler timer, LongSupplier clock)
+    {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.timer = timer;
+        this.clock = clock;
+        this.delayNanos = initialDelayNanos;
+    }
+
+    /**
+     * Creates hedged requests.
+     * 
+     * @param percentile The percentile of primary latencies to hedge after, like 0.95;
+     * @param initialDelay The hedge delay until enough latencies are observed;
+     * @param minDelay The lower bound of the hedge delay;
+     * @param maxDelay The upper bound of the hedge delay;
+     * @param timer The scheduler to wait for the hedge delay on;
+     * @return Returns hedged requests.
+     */
+    public static HedgedRequests create(double percentile, Duration initialDelay, Duration minDelay, Duration maxDelay, Scheduler timer)
+    {
+        return create(percentile, initialDelay, minDelay, maxDelay, timer, System::nanoTime);
+    }
+
+    /**
+     * Creates hedged requests that measure latencies by the clock of a scheduler, like a {@code VirtualTimeScheduler} in tests.
+     * 
+     * @param percentile The percentile of primary latencies to hedge after, like 0.95;
+     * @param initialDelay The hedge delay until enough latencies are observed;
+     * @param minDelay The lower bound of the hedge delay;
+     * @param maxDelay The upper bound of the hedge delay;
+     * @param timer The scheduler to wait for the hedge delay on;
+     * @param clock The scheduler which clock measures latencies;
+     * @return Returns hedged requests.
+     */
+    public static HedgedRequests create(double percentile, Duration initialDelay, Duration minDelay, Duration maxDelay, Scheduler timer,
+            Scheduler clock)
+    {
+        Validate.notNull(clock, "Clock is required");
+        return create(percentile, initialDelay, minDelay, maxDelay, timer, () -> clock.now(TimeUnit.NANOSECONDS));
+    }
+
+    private static HedgedRequests create(double percentile, Duration initialDelay, Duration minDelay, Duration maxDelay, Scheduler timer,
+            LongSupplier clock)
+    {
+        Validate.exclusiveBetween(0d, 1d, percentile, "Percentile should be in (0, 1) range");
+        Validate.notNull(initialDelay, "Initial delay is required");
+        Validate.notNull(minDelay, "Min delay is required");
+        Validate.notNull(maxDelay, "Max delay is required");
+        Validate.isTrue(!minDelay.isNegative() && minDelay.compareTo(maxDelay) <= 0, "Min delay should be between 0 and max delay");
+        Validate.isTrue(initialDelay.compareTo(minDelay) >= 0 && initialDelay.compareTo(maxDelay) <= 0, "Initial delay should be between min and max delays");
+        Validate.notNull(timer, "Timer is required");
+        return new HedgedRequests(percentile, initialDelay.toNanos(), minDelay.toNanos(), maxDelay.toNanos(), timer, clock);
+    }
+
+    /**
+     * Hedges the call with the same call, for instance the same query to another replica behind a load balancer.
+     * 
+     * @param call The supplier of the call, invoked for the primary and for the backup;
+     * @param <T> The type of value;
+     * @return Returns the hedged call.
+     */
+    public <T> Mono<T> hedge(Supplier<? extends Mono<? extends T>> call)
+    {
+        Validate.notNull(call, "Call is required");
+        return hedge(Mono.defer(call), Mono.defer(call));
+    }
+
+    /**
+     * Hedges the primary call with the backup call.
+     * 
+     * @param primary The call subscribed first;
+     * @param backup The call subscribed after the hedge delay if the primary has not emitted yet;
+     * @param <T> The type of value;
+     * @return Returns the hedged call, the first signal of the race wins, so an error of a call is not hedged.
+     */
+    public <T> Mono<T> hedge(Mono<? extends T> primary, Mono<? extends T> backup)
+    {
+        Validate.notNull(primary, "Primary is required");
+        Validate.notNull(backup, "Backup is required");
+
+        return Mono.defer(() ->
+        {
+            requests.increment();
+            long start = now();
+            long delay = delayNanos;
+
+            Mono<? extends T> timedPrimary = primary
+                    .doOnSuccess(value ->
+                    {
+                        primaryWins.increment();
+                        record(now() - start);
+                    });
+
+            Mono<T> delayedBackup = Mono.delay(Duration.ofNanos(delay), timer)
+                    .flatMap(tick ->
+                    {
+                        hedged.increment();
+                        return backup.doOnSuccess(value ->
+                        {
+                            backupWins.increment();
+                            // The primary is cancelled now, its latency is censored at the time it ran
+                            record(Math.max(now() - start, delay));
+                        });
+                    });
+
+            return Mono.first(timedPrimary, delayedBackup);
+        });
+    }
+
+    /**
+     * @return Returns the current hedge delay.
+     */
+    public Duration getDelay()
+    {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    /**
+     * @return Returns the number of requests that subscribed to the backup.
+     */
+    public long getHedged()
+    {
+        return hedged.sum();
+    }
+
+    public long getPrimaryWins()
+    {
+        return primaryWins.sum();
+    }
+
+    public long getBackupWins()
+    {
+        return backupWins.sum();
+    }
+
+    /**
+     * @return Returns the share of requests that subscribed to the backup.
+     */
+    public double getHedgeRate()
+    {
+        long total = requests.sum();
+        return total == 0 ? 0d : (double) hedged.sum() / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("HedgedRequests[delay=%dms, requests=%d, hedged=%d, primaryWins=%d, backupWins=%d]",
+                TimeUnit.NANOSECONDS.toMillis(delayNanos), getRequests(), getHedged(), getPrimaryWins(), getBackupWins());
+    }
+
+    private synchronized void record(long latency)
+    {
+        latencies[(int) (samples++ % WINDOW)] = latency;
+        if (samples >= MIN_SAMPLES && samples % RECOMPUTE_EVERY == 0 || samples == MIN_SAMPLES)
+        {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            Arrays.sort(window);
+            long value = window[(int) Math.min(window.length - 1, Math.ceil(percentile * window.length) - 1)];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+        }
+    }
+
+    private long now()
+    {
+        return clock.getAsLong();
+    }
+}
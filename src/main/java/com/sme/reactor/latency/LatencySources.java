@@ -0,0 +1,140 @@
+package com.sme.reactor.latency;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking sources to simulate slow calls and to bridge asynchronous I/O into pipelines.
+ * <p>
+ * {@link Thread#sleep(long)} in doOnNext blocks the thread that emits the value, so {@link Flux#merge(Publisher...)} waits for every source in turn and
+ * needs a thread per slow call. The sources below wait on a timer instead: no thread is blocked while a value is delayed, so merge completes in the
+ * max latency of sources and thousands of sources share a couple of timer threads.
+ * </p>
+ */
+public final class LatencySources
+{
+    private LatencySources()
+    {
+    }
+
+    /**
+     * Emits the value after the latency on {@link Schedulers#parallel()} timer.
+     * 
+     * @param value The value to emit;
+     * @param latency The time to wait before emitting;
+     * @param <T> The type of value;
+     * @return Returns the delayed source.
+     */
+    public static <T> Mono<T> delayed(T value, Duration latency)
+    {
+        return delayed(value, latency, Schedulers.parallel());
+    }
+
+    /**
+     * Emits the value after the latency on the given timer.
+     * 
+     * @param value The value to emit;
+     * @param latency The time to wait before emitting;
+     * @param timer The scheduler to wait on;
+     * @param <T> The type of value;
+     * @return Returns the delayed source.
+     */
+    public static <T> Mono<T> delayed(T value, Duration latency, Scheduler timer)
+    {
+        Validate.notNull(value, "Value is required");
+        return Mono.delay(latency, timer).map(tick -> value);
+    }
+
+    /**
+     * Subscribes to the source after the latency, like a call that takes time before the first response.
+     * 
+     * @param source The source to delay;
+     * @param latency The time to wait before subscribing;
+     * @param <T> The type of values;
+     * @return Returns the delayed source.
+     */
+    public static <T> Flux<T> delayed(Publisher<T> source, Duration latency)
+    {
+        return Mono.delay(latency).flatMapMany(tick -> source);
+    }
+
+    /**
+     * Creates a future that completes with the value after the latency, like a response of asynchronous client.
+     * 
+     * @param value The value to complete with;
+     * @param latency The time to wait before completing;
+     * @param timer The scheduler to wait on;
+     * @param <T> The type of value;
+     * @return Returns the future.
+     */
+    public static <T> CompletableFuture<T> completeLater(T value, Duration latency, Scheduler timer)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Disposable task = timer.schedule(() -> future.complete(value), latency.toNanos(), TimeUnit.NANOSECONDS);
+        future.whenComplete((result, throwable) -> task.dispose());
+        return future;
+    }
+
+    /**
+     * Bridges a future into the pipeline.
+     * <p>
+     * The future is created per subscription and cancelled when the subscriber cancels, so abandoned calls do not keep running.
+     * </p>
+     * 
+     * @param futureSupplier The supplier to start the call;
+     * @param <T> The type of value;
+     * @return Returns the source of the future result.
+     */
+    public static <T> Mono<T> fromFuture(Supplier<? extends CompletableFuture<T>> futureSupplier)
+    {
+        Validate.notNull(futureSupplier, "Future supplier is required");
+        return Mono.defer(() ->
+        {
+            CompletableFuture<T> future = futureSupplier.get();
+            return Mono.fromFuture(future)
+                    .doOnCancel(() -> future.cancel(true));
+        });
+    }
+
+    /**
+     * Moves a blocking call to the given scheduler, so it never blocks the thread of pipeline.
+     * 
+     * @param call The blocking call, like JDBC or file I/O;
+     * @param blockingScheduler The scheduler to run blocking calls on, like {@link Schedulers#elastic()};
+     * @param <T> The type of value;
+     * @return Returns the source of the call result.
+     */
+    public static <T> Mono<T> fromBlocking(Callable<? extends T> call, Scheduler blockingScheduler)
+    {
+        return Mono.<T> fromCallable(call).subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * Merges sources in the order of their values, subscribing to {@code concurrency} sources at once.
+     * 
+     * @param sources The sources to merge;
+     * @param concurrency The max number of sources subscribed at once;
+     * @param prefetch The number of values requested from every source ahead;
+     * @param <T> The type of values;
+     * @return Returns the merged values.
+     */
+    public static <T> Flux<T> merge(Flux<? extends Publisher<? extends T>> sources, int concurrency, int prefetch)
+    {
+        Validate.isTrue(concurrency > 0, "Concurrency must be positive: %d", concurrency);
+        Validate.isTrue(prefetch > 0, "Prefetch must be positive: %d", prefetch);
+        return sources.flatMap(Function.identity(), concurrency, prefetch);
+    }
+}
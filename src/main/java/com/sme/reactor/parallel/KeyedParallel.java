@@ -0,0 +1,551 @@
+package com.sme.reactor.parallel;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Maps values on parallel partitions by key: values of a key are mapped one at a time in order, values of different keys concurrently.
+ * <p>
+ * {@link Flux#groupBy(Function)} opens a group per key, a source with many keys keeps groups open until the source completes and a group that is not
+ * consumed stalls the whole source. Here keys are hashed to a fixed number of key groups, {@value #GROUPS_PER_PARTITION} per partition, so the number
+ * of queues does not grow with keys, and no more than the window of values are in flight between the source and downstream.
+ * </p>
+ * <p>
+ * Every partition runs on a worker of the scheduler and has a deque of the key groups with values. A group is in one deque at most and is mapped by
+ * one worker at a time, a batch of values at once, so the order of a key is kept. A worker without groups steals from the tail of the deques of other
+ * partitions: a hot key keeps its worker busy, but the other keys of its partition move to idle workers. The values of a single key are never mapped
+ * concurrently, so one key is limited to one core.
+ * </p>
+ * <p>
+ * Values of different keys are emitted in the order of completion. The function collects metrics of all its subscriptions:
+ * </p>
+ * 
+ * <pre>
+ * KeyedParallel&lt;Order, Position&gt; positions = KeyedParallel.create(Order::getAccount, this::applyOrder);
+ * orders.transform(positions).subscribe(this::publish);
+ * </pre>
+ * 
+ * @param <T> The type of values;
+ * @param <R> The type of mapped values.
+ */
+public final class KeyedParallel<T, R> implements Function<Flux<T>, Flux<R>>
+{
+    static final int GROUPS_PER_PARTITION = 16;
+    private static final int BATCH_SIZE = 64;
+    private static final int DEFAULT_WINDOW = 1024;
+
+    private final Function<? super T, ?> key;
+    private final Function<? super T, ? extends R> mapper;
+    private final int parallelism;
+    private final int window;
+    private final Scheduler scheduler;
+
+    private final LongAdder mapped = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private final LongAccumulator maxGroupBacklog = new LongAccumulator(Math::max, 0L);
+
+    private KeyedParallel(Function<? super T, ?> key, Function<? super T, ? extends R> mapper, int parallelism, int window, Scheduler scheduler)
+    {
+        this.key = key;
+        this.mapper = mapper;
+        this.parallelism = parallelism;
+        this.window = window;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Creates the keyed map on {@link Schedulers#parallel()} with a partition per core.
+     * 
+     * @param key The function of the key of value;
+     * @param mapper The function to map values;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the keyed map.
+     */
+    public static <T, R> KeyedParallel<T, R> create(Function<? super T, ?> key, Function<? super T, ? extends R> mapper)
+    {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        return create(key, mapper, parallelism, Math.max(DEFAULT_WINDOW, 4 * parallelism), Schedulers.parallel());
+    }
+
+    /**
+     * Creates the keyed map.
+     * 
+     * @param key The function of the key of value;
+     * @param mapper The function to map values;
+     * @param parallelism The number of partitions;
+     * @param window The max number of values in flight between the source and downstream;
+     * @param scheduler The scheduler to run partitions on;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the keyed map.
+     */
+    public static <T, R> KeyedParallel<T, R> create(Function<? super T, ?> key, Function<? super T, ? extends R> mapper, int parallelism, int window,
+            Scheduler scheduler)
+    {
+        Validate.notNull(key, "Key is required");
+        Validate.notNull(mapper, "Mapper is required");
+        Validate.notNull(scheduler, "Scheduler is required");
+        Validate.isTrue(parallelism > 0, "Parallelism should be positive");
+        Validate.isTrue(window >= 4 * parallelism, "Window should be at least 4 values per partition");
+        return new KeyedParallel<>(key, mapper, parallelism, window, scheduler);
+    }
+
+    @Override
+    public Flux<R> apply(Flux<T> flux)
+    {
+        return Flux.from(actual -> flux.subscribe(new KeyedSubscriber<>(Operators.toCoreSubscriber(actual), this)));
+    }
+
+    /**
+     * @return Returns the number of mapped values.
+     */
+    public long getMapped()
+    {
+        return mapped.sum();
+    }
+
+    /**
+     * @return Returns the number of key groups that workers took from the deques of other partitions.
+     */
+    public long getSteals()
+    {
+        return steals.sum();
+    }
+
+    /**
+     * @return Returns the max number of values queued in a key group.
+     */
+    public long getMaxGroupBacklog()
+    {
+        return maxGroupBacklog.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "KeyedParallel[parallelism=" + parallelism + ", mapped=" + getMapped() + ", steals=" + getSteals() + ", maxGroupBacklog="
+            + getMaxGroupBacklog() + "]";
+    }
+
+    /**
+     * Queue of the values of the keys hashed to the group, the counter is the number of values offered and not mapped yet.
+     */
+    private static final class KeyGroup<T>
+    {
+        private final int home;
+        private final Queue<T> queue = Queues.<T> unbounded().get();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private KeyGroup(int home)
+        {
+            this.home = home;
+        }
+    }
+
+    /**
+     * Worker of a partition with its deque of groups to map, the counter is the number of wake-ups not handled yet.
+     */
+    private static final class Partition<T>
+    {
+        private final Scheduler.Worker worker;
+        private final ConcurrentLinkedDeque<KeyGroup<T>> ready = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Partition(Scheduler.Worker worker)
+        {
+            this.worker = worker;
+        }
+    }
+
+    /**
+     * Dispatches values to key groups and drains mapped values downstream.
+     */
+    private static final class KeyedSubscriber<T, R> implements CoreSubscriber<T>, Subscription
+    {
+        private final CoreSubscriber<? super R> actual;
+        private final KeyedParallel<T, R> parent;
+        private final KeyGroup<T>[] groups;
+        private final Partition<T>[] partitions;
+        private final Queue<R> output = new ConcurrentLinkedQueue<>();
+        private final int limit;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        // Values received and not offered to the output yet
+        private final AtomicLong active = new AtomicLong();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private int consumed;
+
+        @SuppressWarnings("unchecked")
+        private KeyedSubscriber(CoreSubscriber<? super R> actual, KeyedParallel<T, R> parent)
+        {
+            this.actual = actual;
+            this.parent = parent;
+            this.limit = parent.window - (parent.window >> 2);
+            this.partitions = new Partition[parent.parallelism];
+            for (int i = 0; i < partitions.length; i++)
+            {
+                partitions[i] = new Partition<>(parent.scheduler.createWorker());
+            }
+            this.groups = new KeyGroup[parent.parallelism * GROUPS_PER_PARTITION];
+            for (int i = 0; i < groups.length; i++)
+            {
+                groups[i] = new KeyGroup<>(i % parent.parallelism);
+            }
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+                s.request(parent.window);
+            }
+        }
+
+        @Override
+        public void onNext(T value)
+        {
+            if (done || cancelled)
+            {
+                Operators.onNextDropped(value, currentContext());
+                return;
+            }
+            KeyGroup<T> group;
+            try
+            {
+                group = groups[groupOf(parent.key.apply(value))];
+            }
+            catch (Throwable e)
+            {
+                Exceptions.throwIfFatal(e);
+                fail(e);
+                return;
+            }
+            active.incrementAndGet();
+            group.queue.offer(value);
+            int pending = group.pending.getAndIncrement();
+            parent.maxGroupBacklog.accumulate(pending + 1);
+            if (pending == 0)
+            {
+                schedule(group);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            if (done)
+            {
+                Operators.onErrorDropped(t, currentContext());
+                return;
+            }
+            error.compareAndSet(null, t);
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                upstream.cancel();
+                dispose();
+                if (wip.getAndIncrement() == 0)
+                {
+                    output.clear();
+                }
+            }
+        }
+
+        private int groupOf(Object key)
+        {
+            int hash = key == null ? 0 : key.hashCode();
+            return Math.floorMod(hash ^ hash >>> 16, groups.length);
+        }
+
+        /**
+         * Puts the group with values into the deque of its partition, an idle worker is woken if the partition is busy, so it steals the group.
+         */
+        private void schedule(KeyGroup<T> group)
+        {
+            Partition<T> home = partitions[group.home];
+            home.ready.offerLast(group);
+            if (home.wip.getAndIncrement() == 0)
+            {
+                wake(home, group.home);
+                return;
+            }
+            for (int i = 1; i < partitions.length; i++)
+            {
+                int index = (group.home + i) % partitions.length;
+                Partition<T> partition = partitions[index];
+                if (partition.wip.get() == 0 && partition.wip.getAndIncrement() == 0)
+                {
+                    wake(partition, index);
+                    return;
+                }
+            }
+        }
+
+        private void wake(Partition<T> partition, int index)
+        {
+            try
+            {
+                partition.worker.schedule(() -> run(index));
+            }
+            catch (RejectedExecutionException e)
+            {
+                // The workers are disposed on termination, a rejection before it is an error of the scheduler
+                if (!cancelled && !done)
+                {
+                    upstream.cancel();
+                    fail(e);
+                }
+            }
+        }
+
+        /**
+         * Maps groups of the own deque and steals groups of other partitions until there are no groups with values.
+         */
+        private void run(int index)
+        {
+            Partition<T> partition = partitions[index];
+            int missed = 1;
+            for (;;)
+            {
+                KeyGroup<T> group;
+                while ((group = next(index)) != null)
+                {
+                    if (!map(group))
+                    {
+                        return;
+                    }
+                }
+                missed = partition.wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    return;
+                }
+            }
+        }
+
+        private KeyGroup<T> next(int index)
+        {
+            KeyGroup<T> group = partitions[index].ready.pollFirst();
+            if (group != null)
+            {
+                return group;
+            }
+            for (int i = 1; i < partitions.length; i++)
+            {
+                group = partitions[(index + i) % partitions.length].ready.pollLast();
+                if (group != null)
+                {
+                    parent.steals.increment();
+                    return group;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Maps a batch of values of the group and puts the group back if it has more values.
+         *
+         * @return Returns false if the subscription is terminated.
+         */
+        private boolean map(KeyGroup<T> group)
+        {
+            // The values counted as pending are offered already
+            int count = Math.min(group.pending.get(), BATCH_SIZE);
+            for (int i = 0; i < count; i++)
+            {
+                if (cancelled || error.get() != null)
+                {
+                    return false;
+                }
+                R result;
+                try
+                {
+                    result = Validate.notNull(parent.mapper.apply(group.queue.poll()), "Mapper returned null value");
+                }
+                catch (Throwable e)
+                {
+                    Exceptions.throwIfFatal(e);
+                    upstream.cancel();
+                    fail(e);
+                    return false;
+                }
+                output.offer(result);
+                active.decrementAndGet();
+            }
+            parent.mapped.add(count);
+            drain();
+            if (group.pending.addAndGet(-count) != 0)
+            {
+                schedule(group);
+            }
+            return true;
+        }
+
+        private void fail(Throwable e)
+        {
+            if (error.compareAndSet(null, e))
+            {
+                done = true;
+                drain();
+            }
+            else
+            {
+                Operators.onErrorDropped(e, currentContext());
+            }
+        }
+
+        private void dispose()
+        {
+            for (Partition<T> partition : partitions)
+            {
+                partition.worker.dispose();
+            }
+        }
+
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;)
+                {
+                    if (cancelled)
+                    {
+                        output.clear();
+                        return;
+                    }
+
+                    boolean d = done;
+                    Throwable t = error.get();
+                    if (d && t != null)
+                    {
+                        upstream.cancel();
+                        dispose();
+                        output.clear();
+                        actual.onError(t);
+                        return;
+                    }
+
+                    // All values are offered to the output before it is found empty
+                    boolean idle = active.get() == 0;
+                    if (e == r)
+                    {
+                        if (d && idle && output.isEmpty())
+                        {
+                            dispose();
+                            actual.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+
+                    R value = output.poll();
+                    if (value == null)
+                    {
+                        if (d && idle)
+                        {
+                            dispose();
+                            actual.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+
+                    actual.onNext(value);
+                    e++;
+
+                    if (++consumed == limit)
+                    {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE)
+                {
+                    requested.addAndGet(-e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package com.sme.reactor.parallel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Runs a CPU-heavy map on parallel rails and restores the order of values.
+ * <p>
+ * {@link Flux#publishOn(Scheduler)} runs the whole pipeline on a single thread. {@link Flux#parallel(int)} spreads values over rails, but
+ * {@link reactor.core.publisher.ParallelFlux#sequential()} merges rails in the order of completion. The ordered map numbers values before the split and
+ * puts mapped values into a reorder buffer that emits them by sequence number.
+ * </p>
+ * <p>
+ * The reorder buffer is bounded: a gate after the source takes no more than window values ahead of the last emitted one, so the buffer is a ring of
+ * slots indexed by sequence number. The buffer itself takes every value the rails deliver, so the next expected value never waits for demand behind
+ * values that came early. A slow value holds back the values behind it, but never more than the window.
+ * </p>
+ */
+public final class OrderedParallel
+{
+    private static final int DEFAULT_WINDOW = 1024;
+
+    private OrderedParallel()
+    {
+    }
+
+    /**
+     * Maps values on {@link Schedulers#parallel()} with a rail per core and keeps the order.
+     * 
+     * @param mapper The function to map values;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> map(Function<? super T, ? extends R> mapper)
+    {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        return map(mapper, parallelism, Math.max(DEFAULT_WINDOW, 4 * parallelism), Schedulers.parallel());
+    }
+
+    /**
+     * Maps values on parallel rails and keeps the order.
+     * 
+     * @param mapper The function to map values;
+     * @param parallelism The number of rails;
+     * @param window The max number of values in flight between the source and the reorder buffer;
+     * @param scheduler The scheduler to run rails on;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> map(Function<? super T, ? extends R> mapper, int parallelism, int window, Scheduler scheduler)
+    {
+        Validate.notNull(mapper, "Mapper is required");
+        Validate.notNull(scheduler, "Scheduler is required");
+        Validate.isTrue(parallelism > 0, "Parallelism should be positive");
+        Validate.isTrue(window >= 4 * parallelism, "Window should be at least 4 values per rail");
+
+        int sourcePrefetch = window / 4;
+        int railPrefetch = Math.max(1, window / (4 * parallelism));
+        int capacity = nextPowerOfTwo(window);
+
+        return flux -> Flux.defer(() ->
+        {
+            long[] index = new long[1];
+            WindowGate gate = new WindowGate(flux.map(value -> new Sequenced(index[0]++, value)), window);
+            Flux<Sequenced> mapped = Flux.from(gate)
+                    .parallel(parallelism, sourcePrefetch)
+                    .runOn(scheduler, railPrefetch)
+                    .map(sequenced -> sequenced.map(mapper))
+                    .sequential(railPrefetch);
+            return Flux.from(new ReorderPublisher<R>(mapped, capacity, gate));
+        });
+    }
+
+    /**
+     * Maps values on {@link Schedulers#parallel()} with a rail per core, values are emitted in the order of completion.
+     * 
+     * @param mapper The function to map values;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> mapUnordered(Function<? super T, ? extends R> mapper)
+    {
+        return mapUnordered(mapper, Runtime.getRuntime().availableProcessors(), Schedulers.parallel());
+    }
+
+    /**
+     * Maps values on parallel rails, values are emitted in the order of completion.
+     * 
+     * @param mapper The function to map values;
+     * @param parallelism The number of rails;
+     * @param scheduler The scheduler to run rails on;
+     * @param <T> The type of values;
+     * @param <R> The type of mapped values;
+     * @return Returns the function to transform a flux.
+     */
+    public static <T, R> Function<Flux<T>, Flux<R>> mapUnordered(Function<? super T, ? extends R> mapper, int parallelism, Scheduler scheduler)
+    {
+        Validate.notNull(mapper, "Mapper is required");
+        Validate.notNull(scheduler, "Scheduler is required");
+        Validate.isTrue(parallelism > 0, "Parallelism should be positive");
+
+        return flux -> flux.parallel(parallelism)
+                .runOn(scheduler)
+                .<R> map(mapper::apply)
+                .sequential();
+    }
+
+    private static int nextPowerOfTwo(int value)
+    {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * A value with its sequence number, the value is replaced by the mapped one on a rail.
+     */
+    private static final class Sequenced
+    {
+        private final long index;
+        private Object value;
+
+        private Sequenced(long index, Object value)
+        {
+            this.index = index;
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T, R> Sequenced map(Function<? super T, ? extends R> mapper)
+        {
+            value = Validate.notNull(mapper.apply((T) value), "Mapper returned null value");
+            return this;
+        }
+    }
+
+    /**
+     * Gate between the source and the rails that passes the demand of the rails on while the source is less than window values ahead of the reorder
+     * buffer, a publisher of a single subscription.
+     */
+    private static final class WindowGate implements Publisher<Sequenced>, CoreSubscriber<Sequenced>, Subscription
+    {
+        private final Flux<Sequenced> source;
+        private final long window;
+
+        // Demand of the rails not passed to the source yet
+        private final AtomicLong requested = new AtomicLong();
+        // Values emitted by the reorder buffer
+        private final AtomicLong released = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private CoreSubscriber<? super Sequenced> actual;
+        private Subscription upstream;
+        // Guarded by wip
+        private long issued;
+
+        private WindowGate(Flux<Sequenced> source, int window)
+        {
+            this.source = source;
+            this.window = window;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Sequenced> s)
+        {
+            actual = Operators.toCoreSubscriber(s);
+            source.subscribe(this);
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(Sequenced value)
+        {
+            actual.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                issue();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            upstream.cancel();
+        }
+
+        /**
+         * Called by the reorder buffer after it emitted values.
+         */
+        private void release(long n)
+        {
+            released.addAndGet(n);
+            issue();
+        }
+
+        private void issue()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long n = Math.min(r, released.get() + window - issued);
+                if (n > 0)
+                {
+                    issued += n;
+                    if (r != Long.MAX_VALUE)
+                    {
+                        requested.addAndGet(-n);
+                    }
+                    upstream.request(n);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publisher that subscribes a reorder buffer to the merged rails.
+     */
+    private static final class ReorderPublisher<R> implements Publisher<R>
+    {
+        private final Flux<Sequenced> source;
+        private final int capacity;
+        private final WindowGate gate;
+
+        private ReorderPublisher(Flux<Sequenced> source, int capacity, WindowGate gate)
+        {
+            this.source = source;
+            this.capacity = capacity;
+            this.gate = gate;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super R> actual)
+        {
+            source.subscribe(new ReorderSubscriber<>(actual, capacity, gate));
+        }
+    }
+
+    /**
+     * Ring of slots indexed by sequence number, drains values downstream while the next expected slot is filled.
+     */
+    private static final class ReorderSubscriber<R> implements CoreSubscriber<Sequenced>, Subscription
+    {
+        private final Subscriber<? super R> actual;
+        private final AtomicReferenceArray<Sequenced> slots;
+        private final int mask;
+        private final WindowGate gate;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        private long next;
+
+        private ReorderSubscriber(Subscriber<? super R> actual, int capacity, WindowGate gate)
+        {
+            this.actual = actual;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.gate = gate;
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual instanceof CoreSubscriber ? ((CoreSubscriber<?>) actual).currentContext() : Context.empty();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+                // The gate bounds the values in flight, so the buffer takes all values the rails deliver
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(Sequenced value)
+        {
+            if (done)
+            {
+                Operators.onNextDropped(value.value, currentContext());
+                return;
+            }
+            if (!slots.compareAndSet((int) (value.index & mask), null, value))
+            {
+                upstream.cancel();
+                onError(Exceptions.failWithOverflow("Reorder buffer is full: more values in flight than the window"));
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            if (done)
+            {
+                Operators.onErrorDropped(t, currentContext());
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                upstream.cancel();
+                if (wip.getAndIncrement() == 0)
+                {
+                    clear();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;)
+                {
+                    if (cancelled)
+                    {
+                        clear();
+                        return;
+                    }
+
+                    boolean d = done;
+                    Throwable t = error;
+                    if (d && t != null)
+                    {
+                        clear();
+                        actual.onError(t);
+                        return;
+                    }
+
+                    int slot = (int) (next & mask);
+                    Sequenced value = slots.get(slot);
+                    if (value == null)
+                    {
+                        if (d)
+                        {
+                            actual.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+
+                    if (e == r)
+                    {
+                        break;
+                    }
+
+                    slots.lazySet(slot, null);
+                    next++;
+                    actual.onNext((R) value.value);
+                    e++;
+                }
+
+                if (e != 0L)
+                {
+                    if (r != Long.MAX_VALUE)
+                    {
+                        requested.addAndGet(-e);
+                    }
+                    // The freed slots let the source take more values
+                    gate.release(e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        private void clear()
+        {
+            for (int i = 0; i < slots.length(); i++)
+            {
+                slots.lazySet(i, null);
+            }
+        }
+    }
+}
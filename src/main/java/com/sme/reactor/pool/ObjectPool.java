@@ -0,0 +1,236 @@
+package com.sme.reactor.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Pool of reusable objects with a local pool per thread.
+ * <p>
+ * {@link com.sme.reactor.batch.BatchPool} shares one queue between threads, which is fine for batches but contended for single elements. Here a thread
+ * acquires from and recycles into its own array stack without synchronization. An element released on another thread, like the consumer thread of
+ * {@code publishOn}, is offered to a bounded lock-free return queue of the thread it was created on, which that thread drains when its stack is empty.
+ * Recycling does not allocate: when a stack or a return queue is full, the element is left to the garbage collector.
+ * </p>
+ *
+ * @param <T> The type of pooled object.
+ */
+public final class ObjectPool<T>
+{
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T> reset;
+    private final int maxPerThread;
+    private final ThreadLocal<LocalPool<T>> local;
+
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder crossThreadReturns = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private ObjectPool(Supplier<? extends T> factory, Consumer<? super T> reset, int maxPerThread)
+    {
+        this.factory = factory;
+        this.reset = reset;
+        this.maxPerThread = maxPerThread;
+        this.local = ThreadLocal.withInitial(() -> new LocalPool<>(this.maxPerThread));
+    }
+
+    /**
+     * Creates an object pool.
+     *
+     * @param factory The factory of new objects when the pool of a thread is empty;
+     * @param reset The action that clears an object before it is recycled, like {@code builder -> builder.setLength(0)};
+     * @param maxPerThread The max number of idle objects per thread, the capacity of return queues is the same;
+     * @param <T> The type of pooled object;
+     * @return Returns the object pool.
+     */
+    public static <T> ObjectPool<T> create(Supplier<? extends T> factory, Consumer<? super T> reset, int maxPerThread)
+    {
+        Validate.notNull(factory, "Factory is required");
+        Validate.notNull(reset, "Reset is required");
+        Validate.isTrue(maxPerThread > 0, "Max per thread should be positive");
+        return new ObjectPool<>(factory, reset, maxPerThread);
+    }
+
+    /**
+     * Acquires an element with a reference count of 1.
+     *
+     * @return Returns the element.
+     */
+    public Pooled<T> acquire()
+    {
+        LocalPool<T> pool = local.get();
+        Pooled<T> element = pool.pop();
+        if (element == null)
+        {
+            allocated.increment();
+            element = new Pooled<>(factory.get(), this, pool);
+        }
+        else
+        {
+            reused.increment();
+        }
+        element.init();
+        return element;
+    }
+
+    /**
+     * @return Returns the number of objects created because the pool of a thread was empty.
+     */
+    public long getAllocated()
+    {
+        return allocated.sum();
+    }
+
+    /**
+     * @return Returns the number of elements taken from a pool.
+     */
+    public long getReused()
+    {
+        return reused.sum();
+    }
+
+    /**
+     * @return Returns the number of elements released on another thread than the one they were created on.
+     */
+    public long getCrossThreadReturns()
+    {
+        return crossThreadReturns.sum();
+    }
+
+    /**
+     * @return Returns the number of released elements left to the garbage collector because a pool was full.
+     */
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ObjectPool[allocated=%d, reused=%d, crossThreadReturns=%d, dropped=%d]",
+                getAllocated(), getReused(), getCrossThreadReturns(), getDropped());
+    }
+
+    void recycle(Pooled<T> element)
+    {
+        reset.accept(element.value());
+        LocalPool<T> owner = element.owner;
+        boolean recycled;
+        if (owner.thread == Thread.currentThread())
+        {
+            recycled = owner.push(element);
+        }
+        else
+        {
+            crossThreadReturns.increment();
+            recycled = owner.returns.offer(element);
+        }
+        if (!recycled)
+        {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * The stack of idle elements of a thread and the queue of its elements released by other threads.
+     */
+    static final class LocalPool<T>
+    {
+        private final Thread thread = Thread.currentThread();
+        private final Object[] stack;
+        private int size;
+        private final ReturnQueue<Pooled<T>> returns;
+
+        private LocalPool(int capacity)
+        {
+            this.stack = new Object[capacity];
+            this.returns = new ReturnQueue<>(capacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Pooled<T> pop()
+        {
+            if (size == 0)
+            {
+                Pooled<T> returned;
+                while (size < stack.length && (returned = returns.poll()) != null)
+                {
+                    stack[size++] = returned;
+                }
+                if (size == 0)
+                {
+                    return null;
+                }
+            }
+            Pooled<T> element = (Pooled<T>) stack[--size];
+            stack[size] = null;
+            return element;
+        }
+
+        private boolean push(Pooled<T> element)
+        {
+            if (size == stack.length)
+            {
+                return false;
+            }
+            stack[size++] = element;
+            return true;
+        }
+    }
+
+    /**
+     * Bounded multi-producer single-consumer array queue: producers claim a slot by CAS of the producer index, the owner thread polls.
+     */
+    static final class ReturnQueue<E>
+    {
+        private final AtomicReferenceArray<E> buffer;
+        private final int mask;
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+
+        ReturnQueue(int capacity)
+        {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            this.buffer = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        boolean offer(E e)
+        {
+            for (;;)
+            {
+                long index = producerIndex.get();
+                if (index - consumerIndex.get() > mask)
+                {
+                    return false;
+                }
+                if (producerIndex.compareAndSet(index, index + 1))
+                {
+                    buffer.lazySet((int) index & mask, e);
+                    return true;
+                }
+            }
+        }
+
+        E poll()
+        {
+            long index = consumerIndex.get();
+            int slot = (int) index & mask;
+            // The slot is null until the producer that claimed it has written the element
+            E e = buffer.get(slot);
+            if (e == null)
+            {
+                return null;
+            }
+            buffer.lazySet(slot, null);
+            consumerIndex.lazySet(index + 1);
+            return e;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sme.reactor.pool;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Reference-counted container of a pooled object.
+ * <p>
+ * An element is acquired with a reference count of 1. A stage that passes the element on keeps the count, a stage that needs the element after
+ * passing it on, like a cache, retains it. The last {@link #release()} resets the object and recycles the container into its {@link ObjectPool}, so
+ * the value must not be used after release.
+ * </p>
+ *
+ * @param <T> The type of pooled object.
+ */
+public final class Pooled<T>
+{
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Pooled> REF_COUNT = AtomicIntegerFieldUpdater.newUpdater(Pooled.class, "refCount");
+
+    private final T value;
+    private final ObjectPool<T> pool;
+    final ObjectPool.LocalPool<T> owner;
+
+    private volatile int refCount;
+
+    Pooled(T value, ObjectPool<T> pool, ObjectPool.LocalPool<T> owner)
+    {
+        this.value = value;
+        this.pool = pool;
+        this.owner = owner;
+    }
+
+    /**
+     * @return Returns the pooled object.
+     * @throws IllegalStateException if the element is released.
+     */
+    public T get()
+    {
+        if (refCount == 0)
+        {
+            throw new IllegalStateException("Pooled element is released");
+        }
+        return value;
+    }
+
+    /**
+     * Increments the reference count.
+     *
+     * @return Returns this element.
+     * @throws IllegalStateException if the element is released.
+     */
+    public Pooled<T> retain()
+    {
+        for (;;)
+        {
+            int count = refCount;
+            if (count == 0)
+            {
+                throw new IllegalStateException("Pooled element is released");
+            }
+            if (REF_COUNT.compareAndSet(this, count, count + 1))
+            {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Decrements the reference count and recycles the element when it drops to 0.
+     *
+     * @return Returns true if the element is recycled.
+     * @throws IllegalStateException if the element is released already.
+     */
+    public boolean release()
+    {
+        for (;;)
+        {
+            int count = refCount;
+            if (count == 0)
+            {
+                throw new IllegalStateException("Pooled element is released already");
+            }
+            if (REF_COUNT.compareAndSet(this, count, count - 1))
+            {
+                if (count == 1)
+                {
+                    pool.recycle(this);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    public int refCount()
+    {
+        return refCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Pooled[refCount=" + refCount + ", value=" + value + "]";
+    }
+
+    void init()
+    {
+        refCount = 1;
+    }
+
+    T value()
+    {
+        return value;
+    }
+}
@@ -0,0 +1,402 @@
+package com.sme.reactor.pool;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Scheduler.Worker;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Operators of fluxes of {@link Pooled} elements that release elements a pipeline does not pass on.
+ * <p>
+ * Reactor 3.1 has no discard hook, an operator that drops an element just forgets it. So the operators below release elements themselves: a stage
+ * that maps, filters or extracts an element releases the input, {@link #publishOn(Scheduler, int)} releases the elements still in its queue when
+ * downstream cancels, and {@link #releaseDropped()} releases the elements that operators drop after termination.
+ * </p>
+ * <p>
+ * An element passed downstream belongs to downstream, so cancel never releases it: another thread may still use it, and a forced release would
+ * recycle the object under that thread. On error, elements already emitted are still delivered by the queues downstream, so they are released by
+ * downstream as usual.
+ * </p>
+ */
+public final class Pooling
+{
+    private Pooling()
+    {
+    }
+
+    /**
+     * Emits elements on a worker of the scheduler, see {@link #publishOn(Scheduler, int)}.
+     *
+     * @param scheduler The scheduler of downstream;
+     * @param <T> The type of pooled object;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T> Function<Flux<Pooled<T>>, Flux<Pooled<T>>> publishOn(Scheduler scheduler)
+    {
+        return publishOn(scheduler, Queues.SMALL_BUFFER_SIZE);
+    }
+
+    /**
+     * Emits elements on a worker of the scheduler like {@link Flux#publishOn(Scheduler, int)}, and releases the elements that are still in the queue
+     * when downstream cancels.
+     *
+     * @param scheduler The scheduler of downstream;
+     * @param prefetch The max number of elements requested ahead of downstream;
+     * @param <T> The type of pooled object;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T> Function<Flux<Pooled<T>>, Flux<Pooled<T>>> publishOn(Scheduler scheduler, int prefetch)
+    {
+        Validate.notNull(scheduler, "Scheduler is required");
+        Validate.isTrue(prefetch > 0, "Prefetch should be positive");
+        return flux -> Flux.from(actual -> flux.subscribe(new PublishOnSubscriber<>(Operators.toCoreSubscriber(actual), scheduler.createWorker(),
+                prefetch)));
+    }
+
+    /**
+     * Maps every element into a new element of the pool and releases the input.
+     *
+     * @param pool The pool of output elements;
+     * @param mapper The function that writes the input object into the output object;
+     * @param <T> The type of input object;
+     * @param <R> The type of output object;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T, R> Function<Flux<Pooled<T>>, Flux<Pooled<R>>> map(ObjectPool<R> pool, BiConsumer<? super T, ? super R> mapper)
+    {
+        Validate.notNull(pool, "Pool is required");
+        Validate.notNull(mapper, "Mapper is required");
+        return flux -> flux.map(input ->
+        {
+            Pooled<R> output = pool.acquire();
+            try
+            {
+                mapper.accept(input.get(), output.get());
+            }
+            catch (RuntimeException | Error e)
+            {
+                output.release();
+                throw e;
+            }
+            finally
+            {
+                input.release();
+            }
+            return output;
+        });
+    }
+
+    /**
+     * Filters elements and releases the rejected ones.
+     *
+     * @param predicate The predicate of the objects to pass on;
+     * @param <T> The type of pooled object;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T> Function<Flux<Pooled<T>>, Flux<Pooled<T>>> filter(Predicate<? super T> predicate)
+    {
+        Validate.notNull(predicate, "Predicate is required");
+        return flux -> flux.filter(element ->
+        {
+            boolean passed = false;
+            try
+            {
+                passed = predicate.test(element.get());
+                return passed;
+            }
+            finally
+            {
+                if (!passed)
+                {
+                    element.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Maps every element into a value that is not pooled and releases the element.
+     *
+     * @param mapper The function of the pooled object, it should not return the pooled object itself;
+     * @param <T> The type of pooled object;
+     * @param <R> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T, R> Function<Flux<Pooled<T>>, Flux<R>> extract(Function<? super T, ? extends R> mapper)
+    {
+        Validate.notNull(mapper, "Mapper is required");
+        return flux -> flux.map(element ->
+        {
+            try
+            {
+                return mapper.apply(element.get());
+            }
+            finally
+            {
+                element.release();
+            }
+        });
+    }
+
+    /**
+     * Installs the global hook that releases the pooled elements dropped by operators after termination or cancel.
+     */
+    public static void releaseDropped()
+    {
+        Hooks.onNextDropped(value ->
+        {
+            if (value instanceof Pooled)
+            {
+                ((Pooled<?>) value).release();
+            }
+        });
+    }
+
+    /**
+     * Queues elements and emits them on the worker in a drain loop, the thread that owns the drain releases the queue after cancel.
+     */
+    private static final class PublishOnSubscriber<T> implements CoreSubscriber<Pooled<T>>, Subscription, Runnable
+    {
+        private final CoreSubscriber<? super Pooled<T>> actual;
+        private final Worker worker;
+        private final int prefetch;
+        private final int limit;
+        private final Queue<Pooled<T>> queue;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        // Used by the drain loop only
+        private int consumed;
+
+        private PublishOnSubscriber(CoreSubscriber<? super Pooled<T>> actual, Worker worker, int prefetch)
+        {
+            this.actual = actual;
+            this.worker = worker;
+            this.prefetch = prefetch;
+            this.limit = Math.max(1, prefetch - (prefetch >> 2));
+            this.queue = Queues.<Pooled<T>> get(prefetch).get();
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(Pooled<T> element)
+        {
+            if (done)
+            {
+                element.release();
+                return;
+            }
+            if (!queue.offer(element))
+            {
+                element.release();
+                upstream.cancel();
+                onError(Exceptions.failWithOverflow("Queue is full: source emits more than requested"));
+                return;
+            }
+            // After cancel the drain releases the element
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            if (done)
+            {
+                Operators.onErrorDropped(t, actual.currentContext());
+                return;
+            }
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            if (!done)
+            {
+                done = true;
+                schedule();
+            }
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                schedule();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                upstream.cancel();
+                // A drain already scheduled on the worker releases the queue and disposes the worker, disposing it here would cancel that drain
+                schedule();
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            for (;;)
+            {
+                if (cancelled)
+                {
+                    clear();
+                    worker.dispose();
+                }
+                else if (emit())
+                {
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void schedule()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+            if (cancelled)
+            {
+                // No drain is running or scheduled, the calling thread releases the queue
+                run();
+                return;
+            }
+            try
+            {
+                worker.schedule(this);
+            }
+            catch (RejectedExecutionException e)
+            {
+                cancelled = true;
+                upstream.cancel();
+                run();
+                actual.onError(e);
+            }
+        }
+
+        /**
+         * Emits queued elements up to the requested number.
+         *
+         * @return Returns true if the flux is terminated.
+         */
+        private boolean emit()
+        {
+            long r = requested.get();
+            long e = 0L;
+            while (e != r && !cancelled)
+            {
+                boolean d = done;
+                Pooled<T> element = queue.poll();
+                if (element == null)
+                {
+                    if (d)
+                    {
+                        terminate();
+                        return true;
+                    }
+                    break;
+                }
+                actual.onNext(element);
+                e++;
+                if (++consumed == limit)
+                {
+                    consumed = 0;
+                    upstream.request(limit);
+                }
+            }
+            if (e == r && !cancelled && done && queue.isEmpty())
+            {
+                terminate();
+                return true;
+            }
+            if (e != 0L && r != Long.MAX_VALUE)
+            {
+                requested.addAndGet(-e);
+            }
+            return false;
+        }
+
+        private void terminate()
+        {
+            worker.dispose();
+            Throwable t = error;
+            if (t != null)
+            {
+                actual.onError(t);
+            }
+            else
+            {
+                actual.onComplete();
+            }
+        }
+
+        private void clear()
+        {
+            Pooled<T> element;
+            while ((element = queue.poll()) != null)
+            {
+                element.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.sme.reactor.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Rate limiting operators that shape the requests to upstream with a {@link TokenBucket}.
+ * <p>
+ * Values are not delayed after they are produced: every {@code request(n)} to upstream is paid with n tokens, so upstream produces no more than the
+ * bucket allows and nothing is buffered. When downstream has demand but the bucket is empty, the operator schedules a timer task for the time the
+ * tokens are refilled instead of sleeping, so the scheduler thread is free in the meantime.
+ * </p>
+ * <p>
+ * A bucket can be shared by many pipelines to cap their total throughput to a downstream system, like
+ * {@code flux1.transform(RateLimiter.limit(bucket))} and {@code flux2.transform(RateLimiter.limit(bucket))}.
+ * </p>
+ */
+public final class RateLimiter
+{
+    private RateLimiter()
+    {
+    }
+
+    /**
+     * Limits the rate of the flux, requests are paid token by token and retried on {@link Schedulers#parallel()}.
+     *
+     * @param bucket The bucket of tokens;
+     * @param <T> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> limit(TokenBucket bucket)
+    {
+        return limit(bucket, 1, Schedulers.parallel());
+    }
+
+    /**
+     * Limits the rate of the flux.
+     *
+     * @param bucket The bucket of tokens;
+     * @param minRequest The number of tokens to wait for when the bucket is empty, larger values schedule fewer timer tasks at high rates;
+     * @param timer The scheduler to wait for tokens on;
+     * @param <T> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public static <T> Function<Flux<T>, Flux<T>> limit(TokenBucket bucket, int minRequest, Scheduler timer)
+    {
+        Validate.notNull(bucket, "Bucket is required");
+        Validate.inclusiveBetween(1L, bucket.getCapacity(), minRequest, "Min request should be between 1 and the capacity of the bucket");
+        Validate.notNull(timer, "Timer is required");
+        return flux -> Flux.from(actual -> flux.subscribe(new RateLimiterSubscriber<>(Operators.toCoreSubscriber(actual), bucket, minRequest, timer)));
+    }
+
+    /**
+     * Forwards values and requests upstream only the demand paid with tokens.
+     */
+    private static final class RateLimiterSubscriber<T> implements CoreSubscriber<T>, Subscription
+    {
+        private final CoreSubscriber<? super T> actual;
+        private final TokenBucket bucket;
+        private final int minRequest;
+        private final Scheduler timer;
+
+        private final AtomicInteger wip = new AtomicInteger();
+        // Demand of downstream that is not paid with tokens yet
+        private final AtomicLong unpaid = new AtomicLong();
+
+        private Subscription upstream;
+        private volatile Disposable retryTask;
+        private volatile boolean waiting;
+        private volatile boolean cancelled;
+
+        private RateLimiterSubscriber(CoreSubscriber<? super T> actual, TokenBucket bucket, int minRequest, Scheduler timer)
+        {
+            this.actual = actual;
+            this.bucket = bucket;
+            this.minRequest = minRequest;
+            this.timer = timer;
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T t)
+        {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            disposeRetry();
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            disposeRetry();
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                addCap(unpaid, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            disposeRetry();
+            upstream.cancel();
+        }
+
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                if (cancelled)
+                {
+                    return;
+                }
+
+                long demand = unpaid.get();
+                while (demand > 0 && !waiting && !cancelled)
+                {
+                    long granted = bucket.tryAcquire(Math.min(demand, bucket.getCapacity()));
+                    if (granted == 0)
+                    {
+                        scheduleRetry(Math.min(demand, minRequest));
+                        break;
+                    }
+                    demand = demand == Long.MAX_VALUE ? demand : unpaid.addAndGet(-granted);
+                    upstream.request(granted);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void scheduleRetry(long tokens)
+        {
+            long delay = Math.max(1L, bucket.nanosUntilAvailable(tokens));
+            bucket.recordThrottle(delay);
+            waiting = true;
+            retryTask = timer.schedule(() ->
+            {
+                waiting = false;
+                drain();
+            }, delay, TimeUnit.NANOSECONDS);
+            if (cancelled)
+            {
+                disposeRetry();
+            }
+        }
+
+        private void disposeRetry()
+        {
+            Disposable task = retryTask;
+            if (task != null)
+            {
+                task.dispose();
+            }
+        }
+
+        private static void addCap(AtomicLong requested, long n)
+        {
+            for (;;)
+            {
+                long current = requested.get();
+                if (current == Long.MAX_VALUE)
+                {
+                    return;
+                }
+                if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.sme.reactor.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Token bucket that many pipelines can draw from concurrently without locks.
+ * <p>
+ * The bucket does not keep a token counter refilled by a timer. It keeps one timestamp, the instant the bucket was empty: the number of tokens is the
+ * time elapsed since that instant multiplied by the refill rate, capped by the capacity. Taking tokens moves the instant forward by their cost in one
+ * CAS, so the refill is computed lazily by whoever acquires next and the bucket costs nothing while idle.
+ * </p>
+ * <p>
+ * Time is measured by {@link System#nanoTime()}. The clock of a scheduler in Reactor 3.1 is {@link System#currentTimeMillis()}, which has a resolution of
+ * a millisecond and steps back when the wall clock is adjusted, so a scheduler clock is meant for tests on virtual time only.
+ * </p>
+ */
+public final class TokenBucket
+{
+    private final long capacity;
+    private final long tokens;
+    private final long periodNanos;
+    private final long fullNanos;
+    private final LongSupplier clock;
+
+    private final AtomicLong emptyAt;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+
+    private TokenBucket(long capacity, long tokens, long periodNanos, LongSupplier clock)
+    {
+        this.capacity = capacity;
+        this.tokens = tokens;
+        this.periodNanos = periodNanos;
+        this.clock = clock;
+        this.fullNanos = cost(capacity);
+        this.emptyAt = new AtomicLong(now() - fullNanos);
+    }
+
+    /**
+     * Creates a full token bucket.
+     *
+     * @param capacity The max number of tokens, it is the burst allowed after the bucket has been idle;
+     * @param tokens The number of tokens added every period;
+     * @param period The refill period;
+     * @return Returns the token bucket.
+     */
+    public static TokenBucket create(long capacity, long tokens, Duration period)
+    {
+        return create(capacity, tokens, period, System::nanoTime);
+    }
+
+    /**
+     * Creates a full token bucket that measures the refill by the clock of a scheduler, like a {@code VirtualTimeScheduler} in tests.
+     *
+     * @param capacity The max number of tokens, it is the burst allowed after the bucket has been idle;
+     * @param tokens The number of tokens added every period;
+     * @param period The refill period;
+     * @param clock The scheduler which clock measures the refill;
+     * @return Returns the token bucket.
+     */
+    public static TokenBucket create(long capacity, long tokens, Duration period, Scheduler clock)
+    {
+        Validate.notNull(clock, "Clock is required");
+        return create(capacity, tokens, period, () -> clock.now(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Takes up to the given number of tokens.
+     *
+     * @param max The max number of tokens to take;
+     * @return Returns the number of tokens taken, 0 if the bucket is empty.
+     */
+    public long tryAcquire(long max)
+    {
+        Validate.isTrue(max > 0, "Max should be positive");
+        for (;;)
+        {
+            long now = now();
+            long current = emptyAt.get();
+            long base = Math.max(current, now - fullNanos);
+            long available = (now - base) * tokens / periodNanos;
+            if (available <= 0)
+            {
+                return 0L;
+            }
+
+            long granted = Math.min(available, max);
+            if (emptyAt.compareAndSet(current, base + cost(granted)))
+            {
+                acquired.add(granted);
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Estimates the time to wait before the given number of tokens is available.
+     *
+     * @param n The number of tokens, capped by the capacity;
+     * @return Returns the nanoseconds to wait, 0 if the tokens are available now.
+     */
+    public long nanosUntilAvailable(long n)
+    {
+        long now = now();
+        long base = Math.max(emptyAt.get(), now - fullNanos);
+        return Math.max(0L, base + cost(Math.min(n, capacity)) - now);
+    }
+
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return Returns the number of tokens available now.
+     */
+    public long getAvailable()
+    {
+        long now = now();
+        long base = Math.max(emptyAt.get(), now - fullNanos);
+        return (now - base) * tokens / periodNanos;
+    }
+
+    public long getAcquired()
+    {
+        return acquired.sum();
+    }
+
+    /**
+     * @return Returns the number of times a pipeline had demand but had to wait for tokens.
+     */
+    public long getThrottles()
+    {
+        return throttles.sum();
+    }
+
+    /**
+     * @return Returns the total time pipelines waited for tokens.
+     */
+    public Duration getThrottledTime()
+    {
+        return Duration.ofNanos(throttledNanos.sum());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("TokenBucket[capacity=%d, rate=%d/%dms, available=%d, acquired=%d, throttles=%d, throttled=%dms]",
+                capacity, tokens, TimeUnit.NANOSECONDS.toMillis(periodNanos), getAvailable(), getAcquired(), getThrottles(),
+                getThrottledTime().toMillis());
+    }
+
+    void recordThrottle(long nanos)
+    {
+        throttles.increment();
+        throttledNanos.add(nanos);
+    }
+
+    long now()
+    {
+        return clock.getAsLong();
+    }
+
+    private static TokenBucket create(long capacity, long tokens, Duration period, LongSupplier clock)
+    {
+        Validate.isTrue(capacity > 0, "Capacity should be positive");
+        Validate.isTrue(tokens > 0, "Tokens should be positive");
+        Validate.notNull(period, "Period is required");
+        Validate.isTrue(!period.isNegative() && !period.isZero(), "Period should be positive");
+        Validate.isTrue(capacity <= Long.MAX_VALUE / period.toNanos(), "Capacity is too large for the period");
+        return new TokenBucket(capacity, tokens, period.toNanos(), clock);
+    }
+
+    private long cost(long n)
+    {
+        // Rounds up, so granted tokens never exceed the rate
+        return (n * periodNanos + tokens - 1) / tokens;
+    }
+}
@@ -0,0 +1,154 @@
+package com.sme.reactor.resilience;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulkhead that caps the number of in-flight subscriptions to a dependency.
+ * <p>
+ * A subscription over the limit fails fast with {@link CallNotPermittedException} instead of waiting, so a slow dependency holds at most the given
+ * number of calls and the rest of the application keeps its resources. A permit is taken by CAS on subscribe and given back on complete, error or
+ * cancel.
+ * </p>
+ */
+public final class Bulkhead
+{
+    private final String name;
+    private final int maxConcurrent;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0L);
+
+    private Bulkhead(String name, int maxConcurrent)
+    {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Creates a bulkhead.
+     *
+     * @param name The name of the protected dependency, used in errors;
+     * @param maxConcurrent The max number of in-flight subscriptions;
+     * @return Returns the bulkhead.
+     */
+    public static Bulkhead create(String name, int maxConcurrent)
+    {
+        Validate.notBlank(name, "Name is required");
+        Validate.isTrue(maxConcurrent > 0, "Max concurrent should be positive");
+        return new Bulkhead(name, maxConcurrent);
+    }
+
+    /**
+     * Protects every subscription to the flux, a rejected subscription fails with {@link CallNotPermittedException}.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public <T> Function<Flux<T>, Flux<T>> protect()
+    {
+        return flux -> Flux.defer(() ->
+        {
+            if (!tryAcquire())
+            {
+                return Flux.error(rejected());
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            return flux.doFinally(signal -> release(released));
+        });
+    }
+
+    /**
+     * Protects every subscription to the mono, a rejected subscription fails with {@link CallNotPermittedException}.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the mono.
+     */
+    public <T> Function<Mono<T>, Mono<T>> protectMono()
+    {
+        return mono -> Mono.defer(() ->
+        {
+            if (!tryAcquire())
+            {
+                return Mono.error(rejected());
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            return mono.doFinally(signal -> release(released));
+        });
+    }
+
+    public int getMaxConcurrent()
+    {
+        return maxConcurrent;
+    }
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    public long getMaxInFlight()
+    {
+        return maxInFlight.get();
+    }
+
+    public long getPermitted()
+    {
+        return permitted.sum();
+    }
+
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Bulkhead[name=%s, inFlight=%d/%d, maxInFlight=%d, permitted=%d, rejected=%d]",
+                name, getInFlight(), maxConcurrent, getMaxInFlight(), getPermitted(), getRejected());
+    }
+
+    private boolean tryAcquire()
+    {
+        for (;;)
+        {
+            int current = inFlight.get();
+            if (current >= maxConcurrent)
+            {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                permitted.increment();
+                maxInFlight.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    private void release(AtomicBoolean released)
+    {
+        if (released.compareAndSet(false, true))
+        {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private CallNotPermittedException rejected()
+    {
+        return new CallNotPermittedException("Bulkhead " + name + " is full with " + maxConcurrent + " in-flight calls");
+    }
+}
@@ -0,0 +1,15 @@
+package com.sme.reactor.resilience;
+
+/**
+ * Signals that a call was rejected without subscribing to it, because a circuit breaker is open or a bulkhead is full.
+ */
+public class CallNotPermittedException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(String message)
+    {
+        // Fail fast errors are expected under load, the stack trace is not filled since it is the same for every rejected call
+        super(message, null, false, false);
+    }
+}
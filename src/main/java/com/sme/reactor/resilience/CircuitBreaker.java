@@ -0,0 +1,364 @@
+package com.sme.reactor.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Circuit breaker that fails fast with {@link CallNotPermittedException} while a dependency is down.
+ * <p>
+ * The breaker is closed while the failure rate of the last calls, kept in a ring buffer, is below the threshold. Then it opens and rejects calls
+ * without subscribing to them. After the open duration it lets a few trial calls through in half-open state: it closes if their failure rate is below
+ * the threshold and opens again otherwise.
+ * </p>
+ * <p>
+ * The state is an immutable snapshot with its own ring buffer, transitions replace it by CAS, so calls do not take locks. An outcome is recorded into
+ * the snapshot the call was permitted by, so late outcomes of calls from a previous state do not count.
+ * </p>
+ * <p>
+ * The open duration is measured by {@link System#nanoTime()}, the clock of a scheduler in Reactor 3.1 is the wall clock, which steps back when it is
+ * adjusted. A scheduler clock is meant for tests on virtual time only.
+ * </p>
+ */
+public final class CircuitBreaker
+{
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final double failureRateThreshold;
+    private final int minCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    private final LongAdder successful = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder[] transitions = new LongAdder[State.values().length];
+
+    private CircuitBreaker(String name, int windowSize, double failureRateThreshold, int minCalls, long openNanos, int halfOpenCalls, LongSupplier clock)
+    {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minCalls = minCalls;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+        this.snapshot = new AtomicReference<>(new Snapshot(State.CLOSED, 0L, windowSize, 0));
+        for (int i = 0; i < transitions.length; i++)
+        {
+            transitions[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param name The name of the protected dependency, used in errors;
+     * @param windowSize The number of last calls to compute the failure rate of;
+     * @param failureRateThreshold The failure rate to open at, like 0.5;
+     * @param minCalls The min number of calls in the window before the failure rate is computed;
+     * @param openDuration The time to reject calls before trial calls are permitted;
+     * @param halfOpenCalls The number of trial calls in half-open state;
+     * @return Returns the circuit breaker.
+     */
+    public static CircuitBreaker create(String name, int windowSize, double failureRateThreshold, int minCalls, Duration openDuration, int halfOpenCalls)
+    {
+        return create(name, windowSize, failureRateThreshold, minCalls, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    /**
+     * Creates a closed circuit breaker that measures the open duration by the clock of a scheduler, like a {@code VirtualTimeScheduler} in tests.
+     *
+     * @param name The name of the protected dependency, used in errors;
+     * @param windowSize The number of last calls to compute the failure rate of;
+     * @param failureRateThreshold The failure rate to open at, like 0.5;
+     * @param minCalls The min number of calls in the window before the failure rate is computed;
+     * @param openDuration The time to reject calls before trial calls are permitted;
+     * @param halfOpenCalls The number of trial calls in half-open state;
+     * @param clock The scheduler which clock measures the open duration;
+     * @return Returns the circuit breaker.
+     */
+    public static CircuitBreaker create(String name, int windowSize, double failureRateThreshold, int minCalls, Duration openDuration, int halfOpenCalls,
+            Scheduler clock)
+    {
+        Validate.notNull(clock, "Clock is required");
+        return create(name, windowSize, failureRateThreshold, minCalls, openDuration, halfOpenCalls, () -> clock.now(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Protects every subscription to the flux, a rejected subscription fails with {@link CallNotPermittedException}.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public <T> Function<Flux<T>, Flux<T>> protect()
+    {
+        return flux -> Flux.defer(() ->
+        {
+            Snapshot permit = tryAcquire();
+            if (permit == null)
+            {
+                return Flux.error(rejected());
+            }
+
+            AtomicBoolean reported = new AtomicBoolean();
+            return flux
+                    .doOnComplete(() -> onResult(permit, reported, false))
+                    .doOnError(e -> onResult(permit, reported, true))
+                    .doOnCancel(() -> onCancel(permit, reported));
+        });
+    }
+
+    /**
+     * Protects every subscription to the mono, a rejected subscription fails with {@link CallNotPermittedException}.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the mono.
+     */
+    public <T> Function<Mono<T>, Mono<T>> protectMono()
+    {
+        return mono -> Mono.defer(() ->
+        {
+            Snapshot permit = tryAcquire();
+            if (permit == null)
+            {
+                return Mono.error(rejected());
+            }
+
+            AtomicBoolean reported = new AtomicBoolean();
+            return mono
+                    .doOnSuccess(value -> onResult(permit, reported, false))
+                    .doOnError(e -> onResult(permit, reported, true))
+                    .doOnCancel(() -> onCancel(permit, reported));
+        });
+    }
+
+    public State getState()
+    {
+        return snapshot.get().state;
+    }
+
+    /**
+     * @return Returns the failure rate of the calls in the current window, or -1 while there are fewer calls than required.
+     */
+    public double getFailureRate()
+    {
+        Snapshot current = snapshot.get();
+        int calls = current.calls.get();
+        return calls < (current.state == State.HALF_OPEN ? halfOpenCalls : minCalls) ? -1d : (double) current.failures.get() / calls;
+    }
+
+    public long getSuccessful()
+    {
+        return successful.sum();
+    }
+
+    public long getFailed()
+    {
+        return failed.sum();
+    }
+
+    public long getNotPermitted()
+    {
+        return notPermitted.sum();
+    }
+
+    /**
+     * @param state The state transitioned to;
+     * @return Returns the number of transitions to the given state.
+     */
+    public long getTransitions(State state)
+    {
+        return transitions[state.ordinal()].sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("CircuitBreaker[name=%s, state=%s, successful=%d, failed=%d, notPermitted=%d, opened=%d]",
+                name, getState(), getSuccessful(), getFailed(), getNotPermitted(), getTransitions(State.OPEN));
+    }
+
+    private Snapshot tryAcquire()
+    {
+        for (;;)
+        {
+            Snapshot current = snapshot.get();
+            switch (current.state)
+            {
+                case CLOSED:
+                    return current;
+                case OPEN:
+                    if (now() - current.openedAt < openNanos)
+                    {
+                        notPermitted.increment();
+                        return null;
+                    }
+                    transition(current, new Snapshot(State.HALF_OPEN, 0L, halfOpenCalls, halfOpenCalls));
+                    break;
+                default:
+                    if (current.tryAcquirePermit())
+                    {
+                        return current;
+                    }
+                    notPermitted.increment();
+                    return null;
+            }
+        }
+    }
+
+    private void onResult(Snapshot permit, AtomicBoolean reported, boolean failure)
+    {
+        if (!reported.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        (failure ? failed : successful).increment();
+        if (snapshot.get() != permit)
+        {
+            return;
+        }
+
+        permit.record(failure);
+        int calls = permit.calls.get();
+        double failureRate = (double) permit.failures.get() / calls;
+        if (permit.state == State.CLOSED)
+        {
+            if (calls >= minCalls && failureRate >= failureRateThreshold)
+            {
+                transition(permit, new Snapshot(State.OPEN, now(), 0, 0));
+            }
+        }
+        else if (calls >= halfOpenCalls)
+        {
+            transition(permit, failureRate >= failureRateThreshold
+                    ? new Snapshot(State.OPEN, now(), 0, 0)
+                    : new Snapshot(State.CLOSED, 0L, windowSize, 0));
+        }
+    }
+
+    private void onCancel(Snapshot permit, AtomicBoolean reported)
+    {
+        // A cancelled call says nothing about the dependency, a trial permit is given back so half-open state can complete
+        if (reported.compareAndSet(false, true) && permit.state == State.HALF_OPEN)
+        {
+            permit.permits.incrementAndGet();
+        }
+    }
+
+    private void transition(Snapshot from, Snapshot to)
+    {
+        if (snapshot.compareAndSet(from, to))
+        {
+            transitions[to.state.ordinal()].increment();
+        }
+    }
+
+    private static CircuitBreaker create(String name, int windowSize, double failureRateThreshold, int minCalls, Duration openDuration,
+            int halfOpenCalls, LongSupplier clock)
+    {
+        Validate.notBlank(name, "Name is required");
+        Validate.isTrue(windowSize > 0, "Window size should be positive");
+        Validate.exclusiveBetween(0d, 1d, failureRateThreshold, "Failure rate threshold should be in (0, 1) range");
+        Validate.inclusiveBetween(1, windowSize, minCalls, "Min calls should be between 1 and the window size");
+        Validate.notNull(openDuration, "Open duration is required");
+        Validate.isTrue(!openDuration.isNegative(), "Open duration should not be negative");
+        Validate.isTrue(halfOpenCalls > 0, "Half-open calls should be positive");
+        return new CircuitBreaker(name, windowSize, failureRateThreshold, minCalls, openDuration.toNanos(), halfOpenCalls, clock);
+    }
+
+    private CallNotPermittedException rejected()
+    {
+        return new CallNotPermittedException("Circuit breaker " + name + " is " + getState());
+    }
+
+    private long now()
+    {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Immutable state with the mutable ring buffer of outcomes recorded in this state.
+     */
+    private static final class Snapshot
+    {
+        private static final int EMPTY = 0;
+        private static final int SUCCESS = 1;
+        private static final int FAILURE = 2;
+
+        private final State state;
+        private final long openedAt;
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong index = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger permits;
+
+        private Snapshot(State state, long openedAt, int windowSize, int permits)
+        {
+            this.state = state;
+            this.openedAt = openedAt;
+            this.outcomes = new AtomicIntegerArray(Math.max(1, windowSize));
+            this.permits = new AtomicInteger(permits);
+        }
+
+        private boolean tryAcquirePermit()
+        {
+            for (;;)
+            {
+                int current = permits.get();
+                if (current <= 0)
+                {
+                    return false;
+                }
+                if (permits.compareAndSet(current, current - 1))
+                {
+                    return true;
+                }
+            }
+        }
+
+        private void record(boolean failure)
+        {
+            int slot = (int) (index.getAndIncrement() % outcomes.length());
+            int previous = outcomes.getAndSet(slot, failure ? FAILURE : SUCCESS);
+            if (previous == EMPTY)
+            {
+                calls.incrementAndGet();
+            }
+            else if (previous == FAILURE)
+            {
+                failures.decrementAndGet();
+            }
+            if (failure)
+            {
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.sme.reactor.resilience;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Retry operators with exponential backoff and jitter, policies per error type and a shared {@link RetryBudget}.
+ * <p>
+ * Every subscription deposits a call into the budget. On error, the policy is looked up by the class of the error and then by its super classes,
+ * the default policy applies if none matches. The source is resubscribed after the backoff on the timer, if the policy allows another retry of the
+ * subscription and the budget allows another retry across all pipelines; otherwise the error is propagated.
+ * </p>
+ */
+public final class Retries
+{
+    private final RetryPolicy defaultPolicy;
+    private final Map<Class<? extends Throwable>, RetryPolicy> policies;
+    private final RetryBudget budget;
+    private final Scheduler timer;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    private Retries(RetryPolicy defaultPolicy, Map<Class<? extends Throwable>, RetryPolicy> policies, RetryBudget budget, Scheduler timer)
+    {
+        this.defaultPolicy = defaultPolicy;
+        this.policies = policies;
+        this.budget = budget;
+        this.timer = timer;
+    }
+
+    /**
+     * Creates retries.
+     *
+     * @param defaultPolicy The policy of errors without a policy of their type;
+     * @param policies The policies per error type, like {@link RetryPolicy#none()} for {@link IllegalArgumentException};
+     * @param budget The budget shared with other retries;
+     * @param timer The scheduler to wait for backoffs on;
+     * @return Returns the retries.
+     */
+    public static Retries create(RetryPolicy defaultPolicy, Map<Class<? extends Throwable>, RetryPolicy> policies, RetryBudget budget, Scheduler timer)
+    {
+        Validate.notNull(defaultPolicy, "Default policy is required");
+        Validate.notNull(policies, "Policies are required");
+        Validate.noNullElements(policies.values(), "Policies should not contain null");
+        Validate.notNull(budget, "Budget is required");
+        Validate.notNull(timer, "Timer is required");
+        return new Retries(defaultPolicy, new HashMap<>(policies), budget, timer);
+    }
+
+    /**
+     * Retries the flux on error.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the flux.
+     */
+    public <T> Function<Flux<T>, Flux<T>> retry()
+    {
+        return flux -> Flux.defer(() ->
+        {
+            budget.deposit();
+            AtomicInteger attempts = new AtomicInteger();
+            return flux.retryWhen(errors -> errors.concatMap(error -> backoff(error, attempts)));
+        });
+    }
+
+    /**
+     * Retries the mono on error.
+     *
+     * @param <T> The type of value;
+     * @return Returns the function to transform the mono.
+     */
+    public <T> Function<Mono<T>, Mono<T>> retryMono()
+    {
+        return mono -> Mono.defer(() ->
+        {
+            budget.deposit();
+            AtomicInteger attempts = new AtomicInteger();
+            return mono.retryWhen(errors -> errors.concatMap(error -> backoff(error, attempts)));
+        });
+    }
+
+    /**
+     * @param error The error;
+     * @return Returns the policy of the error type.
+     */
+    public RetryPolicy policyOf(Throwable error)
+    {
+        for (Class<?> type = error.getClass(); type != Object.class; type = type.getSuperclass())
+        {
+            RetryPolicy policy = policies.get(type);
+            if (policy != null)
+            {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    public long getRetries()
+    {
+        return retries.sum();
+    }
+
+    /**
+     * @return Returns the number of errors propagated because the policy allowed no more retries.
+     */
+    public long getExhausted()
+    {
+        return exhausted.sum();
+    }
+
+    /**
+     * @return Returns the number of errors propagated because the budget allowed no more retries.
+     */
+    public long getOverBudget()
+    {
+        return overBudget.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Retries[retries=%d, exhausted=%d, overBudget=%d, budget=%s]", getRetries(), getExhausted(), getOverBudget(), budget);
+    }
+
+    private Publisher<Long> backoff(Throwable error, AtomicInteger attempts)
+    {
+        RetryPolicy policy = policyOf(error);
+        int retry = attempts.incrementAndGet();
+        if (retry > policy.getMaxRetries())
+        {
+            exhausted.increment();
+            return Mono.error(error);
+        }
+        if (!budget.tryWithdraw())
+        {
+            overBudget.increment();
+            return Mono.error(error);
+        }
+
+        retries.increment();
+        return Mono.delay(policy.backoff(retry), timer);
+    }
+}
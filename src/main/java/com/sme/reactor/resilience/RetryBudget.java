@@ -0,0 +1,122 @@
+package com.sme.reactor.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Retry budget shared by many pipelines: caps retries to a ratio of calls.
+ * <p>
+ * Every call deposits the ratio into the budget and every retry withdraws 1, so under a full outage the load on a dependency grows by the ratio at
+ * most, instead of multiplying by the max number of retries of every pipeline. The balance is capped, it starts full so a burst of failures after an
+ * idle period can still be retried.
+ * </p>
+ * <p>
+ * The balance is kept in thousandths of a retry in an {@link AtomicLong}, deposits and withdrawals are lock-free.
+ * </p>
+ */
+public final class RetryBudget
+{
+    private static final long SCALE = 1000L;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private RetryBudget(long deposit, long maxBalance)
+    {
+        this.deposit = deposit;
+        this.maxBalance = maxBalance;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Creates a full retry budget.
+     *
+     * @param ratio The max ratio of retries to calls, like 0.1;
+     * @param maxRetries The max number of retries the budget saves up;
+     * @return Returns the retry budget.
+     */
+    public static RetryBudget create(double ratio, int maxRetries)
+    {
+        Validate.exclusiveBetween(0d, 1d, ratio, "Ratio should be in (0, 1) range");
+        Validate.isTrue(maxRetries > 0, "Max retries should be positive");
+        return new RetryBudget(Math.max(1L, Math.round(ratio * SCALE)), maxRetries * SCALE);
+    }
+
+    /**
+     * Deposits a call.
+     */
+    public void deposit()
+    {
+        calls.increment();
+        for (;;)
+        {
+            long current = balance.get();
+            if (current >= maxBalance || balance.compareAndSet(current, Math.min(maxBalance, current + deposit)))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Withdraws a retry.
+     *
+     * @return Returns true if the retry is within the budget.
+     */
+    public boolean tryWithdraw()
+    {
+        for (;;)
+        {
+            long current = balance.get();
+            if (current < SCALE)
+            {
+                rejected.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE))
+            {
+                retries.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return Returns the number of retries available now.
+     */
+    public double getBalance()
+    {
+        return (double) balance.get() / SCALE;
+    }
+
+    public long getCalls()
+    {
+        return calls.sum();
+    }
+
+    public long getRetries()
+    {
+        return retries.sum();
+    }
+
+    /**
+     * @return Returns the number of retries rejected because the budget was exhausted.
+     */
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("RetryBudget[balance=%.3f, calls=%d, retries=%d, rejected=%d]", getBalance(), getCalls(), getRetries(), getRejected());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sme.reactor.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Exponential backoff with jitter: the n-th retry waits {@code min(maxBackoff, firstBackoff * 2^(n-1))}, reduced by a random share up to the jitter.
+ * <p>
+ * Jitter spreads retries of many pipelines that failed at the same time, otherwise they all retry at the same instants and hit a recovering
+ * dependency in waves.
+ * </p>
+ */
+public final class RetryPolicy
+{
+    private static final RetryPolicy NONE = new RetryPolicy(0, 0L, 0L, 0d);
+
+    private final int maxRetries;
+    private final long firstBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double jitter;
+
+    private RetryPolicy(int maxRetries, long firstBackoffNanos, long maxBackoffNanos, double jitter)
+    {
+        this.maxRetries = maxRetries;
+        this.firstBackoffNanos = firstBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxRetries The max number of retries of a subscription;
+     * @param firstBackoff The backoff before the first retry;
+     * @param maxBackoff The upper bound of the backoff;
+     * @param jitter The max share of the backoff to subtract at random, 0 disables jitter and 1 is full jitter;
+     * @return Returns the retry policy.
+     */
+    public static RetryPolicy create(int maxRetries, Duration firstBackoff, Duration maxBackoff, double jitter)
+    {
+        Validate.isTrue(maxRetries >= 0, "Max retries should not be negative");
+        Validate.notNull(firstBackoff, "First backoff is required");
+        Validate.notNull(maxBackoff, "Max backoff is required");
+        Validate.isTrue(!firstBackoff.isNegative() && firstBackoff.compareTo(maxBackoff) <= 0, "First backoff should be between 0 and max backoff");
+        Validate.inclusiveBetween(0d, 1d, jitter, "Jitter should be in [0, 1] range");
+        return new RetryPolicy(maxRetries, firstBackoff.toNanos(), maxBackoff.toNanos(), jitter);
+    }
+
+    /**
+     * @return Returns the policy that never retries, like for errors of a caller that a retry does not fix.
+     */
+    public static RetryPolicy none()
+    {
+        return NONE;
+    }
+
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    /**
+     * Computes the backoff before a retry.
+     *
+     * @param retry The number of the retry starting with 1;
+     * @return Returns the backoff.
+     */
+    public Duration backoff(int retry)
+    {
+        int shift = Math.min(retry - 1, 62);
+        long backoff = firstBackoffNanos > maxBackoffNanos >> shift ? maxBackoffNanos : Math.min(maxBackoffNanos, firstBackoffNanos << shift);
+        if (jitter > 0d)
+        {
+            backoff -= (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        return Duration.ofNanos(backoff);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("RetryPolicy[maxRetries=%d, firstBackoff=%dms, maxBackoff=%dms, jitter=%.2f]",
+                maxRetries, firstBackoffNanos / 1_000_000, maxBackoffNanos / 1_000_000, jitter);
+    }
+}
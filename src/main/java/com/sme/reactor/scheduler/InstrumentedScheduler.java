@@ -0,0 +1,388 @@
+package com.sme.reactor.scheduler;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler decorator that measures how loaded the decorated scheduler is.
+ * <p>
+ * Every task is wrapped to record the time it waits for a thread after it is due and the time it runs, into HdrHistogram recorders. Counters of
+ * scheduled, completed, failed and rejected tasks and gauges of pending tasks, running tasks and active workers are kept in atomics, so recording does not
+ * lock. A delayed or periodic task is not pending until it is due, so such tasks are kept in a set that a snapshot scans for the due ones. Metrics are
+ * pulled by {@link #metrics()} or dumped to the log periodically by {@link #startReporting(Duration)}.
+ * </p>
+ */
+public final class InstrumentedScheduler implements Scheduler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedScheduler.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Scheduler delegate;
+    private final String name;
+    private final Recorder queueWaitRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder executionRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    // Guarded by this, recorders are drained into them on every pull
+    private final Histogram queueWait = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram execution = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // Tasks without delay, delayed tasks are counted as pending by the snapshot once they are due
+    private final AtomicLong pending = new AtomicLong();
+    private final Set<TimedTask> delayedTasks = ConcurrentHashMap.newKeySet();
+    private final AtomicLong running = new AtomicLong();
+    private final AtomicLong activeWorkers = new AtomicLong();
+    // Tasks that have not finished, to release pending gauge of tasks dropped by dispose of scheduler or worker
+    private final Set<TimedTask> tasks = ConcurrentHashMap.newKeySet();
+
+    private InstrumentedScheduler(Scheduler delegate, String name)
+    {
+        this.delegate = delegate;
+        this.name = name;
+    }
+
+    /**
+     * Decorates the scheduler.
+     * 
+     * @param delegate The scheduler to measure;
+     * @param name The name of scheduler in metrics;
+     * @return Returns the instrumented scheduler.
+     */
+    public static InstrumentedScheduler wrap(Scheduler delegate, String name)
+    {
+        Validate.notNull(delegate, "Scheduler is required");
+        Validate.notBlank(name, "Name is required");
+        return new InstrumentedScheduler(delegate, name);
+    }
+
+    /**
+     * Takes a snapshot of metrics.
+     * 
+     * @return Returns the metrics.
+     */
+    public SchedulerMetrics metrics()
+    {
+        // Counters are read before the histograms, and a task records its times before it is counted, so the histograms have every counted task
+        long scheduledCount = scheduled.sum();
+        long completedCount = completed.sum();
+        long failedCount = failed.sum();
+        long rejectedCount = rejected.sum();
+        long now = System.nanoTime();
+        long pendingCount = pending.get() + delayedTasks.stream().filter(task -> task.isWaiting() && task.dueNanos - now <= 0L).count();
+        long runningCount = running.get();
+        long workers = activeWorkers.get();
+
+        Histogram queueWaitCopy;
+        Histogram executionCopy;
+        synchronized (this)
+        {
+            queueWait.add(queueWaitRecorder.getIntervalHistogram());
+            execution.add(executionRecorder.getIntervalHistogram());
+            queueWaitCopy = queueWait.copy();
+            executionCopy = execution.copy();
+        }
+
+        return new SchedulerMetrics(name, scheduledCount, completedCount, failedCount, rejectedCount, pendingCount, runningCount, workers, queueWaitCopy,
+                executionCopy);
+    }
+
+    /**
+     * Logs metrics periodically.
+     * 
+     * @param period The period of reports;
+     * @return Returns the disposable to stop reporting.
+     */
+    public Disposable startReporting(Duration period)
+    {
+        return Flux.interval(period, Schedulers.single())
+                .subscribe(tick -> LOGGER.info("{}", metrics()));
+    }
+
+    @Override
+    public Disposable schedule(Runnable task)
+    {
+        return submit(task, 0L, 0L, tasks, wrapped -> delegate.schedule(wrapped));
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        return submit(task, unit.toNanos(delay), 0L, tasks, wrapped -> delegate.schedule(wrapped, delay, unit));
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit)
+    {
+        return submit(task, unit.toNanos(initialDelay), unit.toNanos(period), tasks,
+                wrapped -> delegate.schedulePeriodically(wrapped, initialDelay, period, unit));
+    }
+
+    @Override
+    public Worker createWorker()
+    {
+        return new InstrumentedWorker(delegate.createWorker());
+    }
+
+    @Override
+    public long now(TimeUnit unit)
+    {
+        return delegate.now(unit);
+    }
+
+    @Override
+    public void start()
+    {
+        delegate.start();
+    }
+
+    @Override
+    public void dispose()
+    {
+        delegate.dispose();
+        tasks.forEach(TimedTask::dispose);
+    }
+
+    @Override
+    public boolean isDisposed()
+    {
+        return delegate.isDisposed();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "InstrumentedScheduler(" + name + ", " + delegate + ")";
+    }
+
+    private Disposable submit(Runnable task, long delayNanos, long periodNanos, Set<TimedTask> registry, Function<Runnable, Disposable> scheduler)
+    {
+        TimedTask timedTask = new TimedTask(task, System.nanoTime() + delayNanos, delayNanos > 0L, periodNanos, registry);
+        return timedTask.submit(scheduler);
+    }
+
+    /**
+     * Task that records its queue wait and execution time.
+     */
+    private final class TimedTask implements Runnable, Disposable
+    {
+        private static final int WAITING = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        private final Runnable task;
+        private final long periodNanos;
+        private final Set<TimedTask> registry;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile long dueNanos;
+        private volatile boolean delayed;
+        private volatile Disposable disposable;
+
+        private TimedTask(Runnable task, long dueNanos, boolean delayed, long periodNanos, Set<TimedTask> registry)
+        {
+            this.task = task;
+            this.dueNanos = dueNanos;
+            this.delayed = delayed;
+            this.periodNanos = periodNanos;
+            this.registry = registry;
+        }
+
+        private Disposable submit(Function<Runnable, Disposable> scheduler)
+        {
+            scheduled.increment();
+            trackWaiting();
+            registry.add(this);
+            try
+            {
+                disposable = scheduler.apply(this);
+            }
+            catch (RejectedExecutionException e)
+            {
+                registry.remove(this);
+                state.set(CANCELLED);
+                untrackWaiting();
+                rejected.increment();
+                throw e;
+            }
+            return this;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!state.compareAndSet(WAITING, RUNNING))
+            {
+                return;
+            }
+
+            long start = System.nanoTime();
+            untrackWaiting();
+            running.incrementAndGet();
+            // A delayed task waits for a thread since it is due, not since it is scheduled
+            queueWaitRecorder.recordValue(Math.max(0L, start - dueNanos));
+            boolean succeeded = false;
+            try
+            {
+                task.run();
+                succeeded = true;
+            }
+            finally
+            {
+                executionRecorder.recordValue(System.nanoTime() - start);
+                if (succeeded)
+                {
+                    completed.increment();
+                }
+                else
+                {
+                    failed.increment();
+                }
+                running.decrementAndGet();
+                finishRun();
+            }
+        }
+
+        private void finishRun()
+        {
+            if (periodNanos > 0)
+            {
+                // The next run of periodic task is tracked before it is waiting, so dispose in between untracks it
+                dueNanos += periodNanos;
+                delayed = true;
+                trackWaiting();
+                if (state.compareAndSet(RUNNING, WAITING))
+                {
+                    scheduled.increment();
+                    return;
+                }
+                untrackWaiting();
+            }
+            state.compareAndSet(RUNNING, DONE);
+            registry.remove(this);
+        }
+
+        private boolean isWaiting()
+        {
+            return state.get() == WAITING;
+        }
+
+        private void trackWaiting()
+        {
+            if (delayed)
+            {
+                delayedTasks.add(this);
+            }
+            else
+            {
+                pending.incrementAndGet();
+            }
+        }
+
+        private void untrackWaiting()
+        {
+            if (delayed)
+            {
+                delayedTasks.remove(this);
+            }
+            else
+            {
+                pending.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void dispose()
+        {
+            int current = state.getAndSet(CANCELLED);
+            if (current == WAITING)
+            {
+                untrackWaiting();
+            }
+            registry.remove(this);
+            Disposable scheduledTask = disposable;
+            if (scheduledTask != null)
+            {
+                scheduledTask.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed()
+        {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    /**
+     * Worker that wraps tasks of the decorated worker.
+     */
+    private final class InstrumentedWorker implements Worker
+    {
+        private final Worker worker;
+        private final Set<TimedTask> workerTasks = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean disposed = new AtomicBoolean();
+
+        private InstrumentedWorker(Worker worker)
+        {
+            this.worker = worker;
+            activeWorkers.incrementAndGet();
+        }
+
+        @Override
+        public Disposable schedule(Runnable task)
+        {
+            return submit(task, 0L, 0L, workerTasks, wrapped -> worker.schedule(wrapped));
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit)
+        {
+            return submit(task, unit.toNanos(delay), 0L, workerTasks, wrapped -> worker.schedule(wrapped, delay, unit));
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit)
+        {
+            return submit(task, unit.toNanos(initialDelay), unit.toNanos(period), workerTasks,
+                    wrapped -> worker.schedulePeriodically(wrapped, initialDelay, period, unit));
+        }
+
+        @Override
+        public void dispose()
+        {
+            if (disposed.compareAndSet(false, true))
+            {
+                activeWorkers.decrementAndGet();
+            }
+            worker.dispose();
+            workerTasks.forEach(TimedTask::dispose);
+        }
+
+        @Override
+        public boolean isDisposed()
+        {
+            return worker.isDisposed();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.sme.reactor.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Snapshot of {@link InstrumentedScheduler} metrics.
+ * <p>
+ * Histograms hold nanoseconds and are cumulative since the scheduler is instrumented.
+ * </p>
+ */
+public final class SchedulerMetrics
+{
+    private final String name;
+    private final long scheduled;
+    private final long completed;
+    private final long failed;
+    private final long rejected;
+    private final long pending;
+    private final long running;
+    private final long activeWorkers;
+    private final Histogram queueWait;
+    private final Histogram execution;
+
+    SchedulerMetrics(String name, long scheduled, long completed, long failed, long rejected, long pending, long running, long activeWorkers,
+            Histogram queueWait, Histogram execution)
+    {
+        this.name = name;
+        this.scheduled = scheduled;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.pending = pending;
+        this.running = running;
+        this.activeWorkers = activeWorkers;
+        this.queueWait = queueWait;
+        this.execution = execution;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the number of accepted tasks, every run of periodic task is counted.
+     * 
+     * @return Returns the number of scheduled tasks.
+     */
+    public long getScheduled()
+    {
+        return scheduled;
+    }
+
+    public long getCompleted()
+    {
+        return completed;
+    }
+
+    /**
+     * Gets the number of tasks that threw an exception.
+     * 
+     * @return Returns the number of failed tasks.
+     */
+    public long getFailed()
+    {
+        return failed;
+    }
+
+    public long getRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of due tasks waiting for a thread, i.e. the queue depth.
+     * 
+     * @return Returns the number of pending tasks.
+     */
+    public long getPending()
+    {
+        return pending;
+    }
+
+    /**
+     * Gets the number of tasks running now, i.e. the number of busy threads.
+     * 
+     * @return Returns the number of running tasks.
+     */
+    public long getRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Gets the number of created and not disposed workers.
+     * 
+     * @return Returns the number of workers.
+     */
+    public long getActiveWorkers()
+    {
+        return activeWorkers;
+    }
+
+    /**
+     * Gets the histogram of time between the moment a task is due and the moment it starts.
+     * 
+     * @return Returns the histogram in nanoseconds.
+     */
+    public Histogram getQueueWait()
+    {
+        return queueWait;
+    }
+
+    /**
+     * Gets the histogram of task execution time.
+     * 
+     * @return Returns the histogram in nanoseconds.
+     */
+    public Histogram getExecution()
+    {
+        return execution;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + ": scheduled=" + scheduled + ", completed=" + completed + ", failed=" + failed + ", rejected=" + rejected
+            + ", pending=" + pending + ", running=" + running + ", workers=" + activeWorkers
+            + ", queue wait " + percentiles(queueWait) + ", execution " + percentiles(execution);
+    }
+
+    private static String percentiles(Histogram histogram)
+    {
+        return "p50/p99/max=" + micros(histogram.getValueAtPercentile(50)) + "/" + micros(histogram.getValueAtPercentile(99)) + "/"
+            + micros(histogram.getMaxValue()) + " us";
+    }
+
+    private static long micros(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
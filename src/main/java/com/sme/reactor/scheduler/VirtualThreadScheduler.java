@@ -0,0 +1,404 @@
+package com.sme.reactor.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler that runs every task on a new virtual thread, to use in {@code subscribeOn} and {@code publishOn} instead of
+ * {@link Schedulers#newElastic(String)}.
+ * <p>
+ * An elastic scheduler keeps a platform thread per concurrent blocking task, so a burst of blocking subscriptions creates thousands of threads with
+ * their stacks. A virtual thread unmounts from its carrier while it blocks, so the same burst runs on a handful of carrier threads.
+ * </p>
+ * <p>
+ * Virtual threads appear in JDK 21, while the project is built for Java 8, so they are looked up by reflection. On older JDK the scheduler falls back to
+ * a cached pool of platform daemon threads, see {@link #isVirtual()}. Delayed and periodic tasks wait on one platform timer thread and start a virtual
+ * thread when they are due.
+ * </p>
+ */
+public final class VirtualThreadScheduler implements Scheduler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadScheduler.class);
+
+    private final String name;
+    private final boolean virtual;
+    private final Executor executor;
+    private final ExecutorService fallbackPool;
+    private final ScheduledExecutorService timer;
+    private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean disposed;
+
+    private VirtualThreadScheduler(String name)
+    {
+        this.name = name;
+
+        ThreadFactory virtualThreadFactory = virtualThreadFactory(name);
+        this.virtual = virtualThreadFactory != null;
+        if (virtual)
+        {
+            this.fallbackPool = null;
+            this.executor = task -> virtualThreadFactory.newThread(task).start();
+        }
+        else
+        {
+            LOGGER.warn("Virtual threads are not supported by {} JVM, {} scheduler runs tasks on platform threads", System.getProperty("java.version"), name);
+            this.fallbackPool = Executors.newCachedThreadPool(daemonThreadFactory(name));
+            this.executor = fallbackPool;
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory(name + "-timer"));
+    }
+
+    /**
+     * Creates scheduler.
+     * 
+     * @param name The prefix of thread names;
+     * @return Returns the scheduler.
+     */
+    public static VirtualThreadScheduler create(String name)
+    {
+        Validate.notBlank(name, "Name is required");
+        return new VirtualThreadScheduler(name);
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads.
+     * 
+     * @return Returns true if tasks run on virtual threads.
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return virtualThreadFactory("probe") != null;
+    }
+
+    /**
+     * Checks if the scheduler runs tasks on virtual threads.
+     * 
+     * @return Returns false if the scheduler falls back to platform threads.
+     */
+    public boolean isVirtual()
+    {
+        return virtual;
+    }
+
+    /**
+     * Gets the number of tasks that are pending or running now.
+     * 
+     * @return Returns the number of tasks.
+     */
+    public int getActiveTasks()
+    {
+        return tasks.size();
+    }
+
+    @Override
+    public Disposable schedule(Runnable task)
+    {
+        Task scheduled = new Task(task, 0L, this::submit, tasks);
+        submit(scheduled);
+        return scheduled;
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        Task scheduled = new Task(task, 0L, this::submit, tasks);
+        scheduled.submitLater(delay, unit);
+        return scheduled;
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit)
+    {
+        Validate.isTrue(period > 0, "Period must be positive: %d", period);
+        Task scheduled = new Task(task, unit.toNanos(period), this::submit, tasks);
+        scheduled.submitLater(initialDelay, unit);
+        return scheduled;
+    }
+
+    @Override
+    public Worker createWorker()
+    {
+        checkNotDisposed();
+        return new VirtualWorker();
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (disposed)
+        {
+            return;
+        }
+        disposed = true;
+        timer.shutdownNow();
+        tasks.forEach(Task::dispose);
+        if (fallbackPool != null)
+        {
+            fallbackPool.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isDisposed()
+    {
+        return disposed;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "VirtualThreadScheduler(" + name + ", virtual=" + virtual + ")";
+    }
+
+    private void submit(Task task)
+    {
+        checkNotDisposed();
+        executor.execute(task);
+    }
+
+    private void checkNotDisposed()
+    {
+        if (disposed)
+        {
+            throw new RejectedExecutionException(name + " scheduler is disposed");
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name)
+    {
+        try
+        {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            // Before JDK 21 or preview features are disabled
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name)
+    {
+        AtomicLong counter = new AtomicLong();
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Task that can be cancelled before and during its run, and resubmits itself if it is periodic.
+     */
+    private final class Task implements Runnable, Disposable
+    {
+        private final Runnable action;
+        private final long periodNanos;
+        private final Consumer<Task> submitter;
+        private final Set<Task> registry;
+        private volatile boolean cancelled;
+        private volatile Thread runner;
+        private volatile Future<?> pending;
+        private long nextRunNanos;
+
+        private Task(Runnable action, long periodNanos, Consumer<Task> submitter, Set<Task> registry)
+        {
+            this.action = action;
+            this.periodNanos = periodNanos;
+            this.submitter = submitter;
+            this.registry = registry;
+            registry.add(this);
+        }
+
+        private void submitLater(long delay, TimeUnit unit)
+        {
+            checkNotDisposed();
+            nextRunNanos = System.nanoTime() + unit.toNanos(delay);
+            pending = timer.schedule(() -> submitter.accept(this), delay, unit);
+        }
+
+        @Override
+        public void run()
+        {
+            if (cancelled)
+            {
+                return;
+            }
+
+            runner = Thread.currentThread();
+            try
+            {
+                action.run();
+            }
+            catch (Throwable e)
+            {
+                LOGGER.error("Task failed on {} scheduler", name, e);
+            }
+            finally
+            {
+                runner = null;
+                // Clear the interrupt of a cancelled task, so it does not leak to the next task on a pooled thread
+                Thread.interrupted();
+            }
+
+            if (periodNanos > 0 && !cancelled && !disposed)
+            {
+                // Fixed rate without overlapping: a late run starts the next one right away
+                nextRunNanos += periodNanos;
+                long delay = Math.max(0L, nextRunNanos - System.nanoTime());
+                pending = timer.schedule(() -> submitter.accept(this), delay, TimeUnit.NANOSECONDS);
+            }
+            else
+            {
+                registry.remove(this);
+            }
+        }
+
+        @Override
+        public void dispose()
+        {
+            cancelled = true;
+            registry.remove(this);
+
+            Future<?> future = pending;
+            if (future != null)
+            {
+                future.cancel(false);
+            }
+
+            Thread thread = runner;
+            if (thread != null && thread != Thread.currentThread())
+            {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public boolean isDisposed()
+        {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Worker that runs its tasks one by one in the order of scheduling, every drain loop on a new virtual thread.
+     */
+    private final class VirtualWorker implements Worker, Runnable
+    {
+        private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Set<Task> workerTasks = ConcurrentHashMap.newKeySet();
+        private volatile boolean workerDisposed;
+
+        @Override
+        public Disposable schedule(Runnable task)
+        {
+            Task scheduled = new Task(task, 0L, this::enqueue, workerTasks);
+            enqueue(scheduled);
+            return scheduled;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit)
+        {
+            checkNotDisposed();
+            Task scheduled = new Task(task, 0L, this::enqueue, workerTasks);
+            scheduled.submitLater(delay, unit);
+            return scheduled;
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit)
+        {
+            Validate.isTrue(period > 0, "Period must be positive: %d", period);
+            checkNotDisposed();
+            Task scheduled = new Task(task, unit.toNanos(period), this::enqueue, workerTasks);
+            scheduled.submitLater(initialDelay, unit);
+            return scheduled;
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            for (;;)
+            {
+                Task task;
+                while ((task = queue.poll()) != null)
+                {
+                    if (workerDisposed)
+                    {
+                        queue.clear();
+                        break;
+                    }
+                    task.run();
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void dispose()
+        {
+            workerDisposed = true;
+            queue.clear();
+            workerTasks.forEach(Task::dispose);
+        }
+
+        @Override
+        public boolean isDisposed()
+        {
+            return workerDisposed || disposed;
+        }
+
+        private void checkNotDisposed()
+        {
+            if (isDisposed())
+            {
+                throw new RejectedExecutionException("Worker of " + name + " scheduler is disposed");
+            }
+        }
+
+        private void enqueue(Task task)
+        {
+            checkNotDisposed();
+            queue.offer(task);
+            if (wip.getAndIncrement() == 0)
+            {
+                submit(new Task(this, 0L, VirtualThreadScheduler.this::submit, tasks));
+            }
+        }
+    }
+}
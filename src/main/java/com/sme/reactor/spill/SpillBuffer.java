@@ -0,0 +1,440 @@
+package com.sme.reactor.spill;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+/**
+ * Unbounded buffer for slow consumers that keeps a bounded number of values on heap and spills the rest to disk.
+ * <p>
+ * {@link Flux#onBackpressureBuffer()} grows on heap while the consumer stalls and the bounded variant drops values. The spill buffer requests
+ * {@link Long#MAX_VALUE} from upstream like onBackpressureBuffer, keeps up to the memory capacity of values in a queue and appends the overflow to an
+ * append-only file of the subscription. Once a value is spilled, the values after it are spilled too until the file is read back, so the order is kept.
+ * When demand returns, spilled values are replayed in batches of the memory capacity. The file is deleted on termination.
+ * </p>
+ * <p>
+ * The buffer is a {@link Function} to be used with {@link Flux#transform(Function)} and collects metrics of all its subscriptions:
+ * </p>
+ * 
+ * <pre>
+ * SpillBuffer&lt;String&gt; buffer = SpillBuffer.create(1024, directory, SpillCodec.utf8());
+ * lines.transform(buffer).subscribe(slowConsumer);
+ * </pre>
+ * 
+ * @param <T> The type of values.
+ */
+public final class SpillBuffer<T> implements Function<Flux<T>, Flux<T>>
+{
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final SpillCodec<T> codec;
+
+    private final LongAdder spilledRecords = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder replayedRecords = new LongAdder();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong lastReplayLagNanos = new AtomicLong();
+    private final LongAccumulator maxReplayLagNanos = new LongAccumulator(Math::max, 0L);
+
+    private SpillBuffer(int memoryCapacity, Path directory, SpillCodec<T> codec)
+    {
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.codec = codec;
+    }
+
+    /**
+     * Creates the spill buffer.
+     * 
+     * @param memoryCapacity The max number of values on heap per subscription;
+     * @param directory The directory of spill files;
+     * @param codec The codec of values;
+     * @param <T> The type of values;
+     * @return Returns the spill buffer.
+     */
+    public static <T> SpillBuffer<T> create(int memoryCapacity, Path directory, SpillCodec<T> codec)
+    {
+        Validate.isTrue(memoryCapacity > 0, "Memory capacity should be positive");
+        Validate.notNull(directory, "Directory is required");
+        Validate.notNull(codec, "Codec is required");
+        return new SpillBuffer<>(memoryCapacity, directory, codec);
+    }
+
+    @Override
+    public Flux<T> apply(Flux<T> flux)
+    {
+        return Flux.from(actual -> flux.subscribe(new SpillSubscriber<>(Operators.toCoreSubscriber(actual), this)));
+    }
+
+    public long getSpilledRecords()
+    {
+        return spilledRecords.sum();
+    }
+
+    /**
+     * @return Returns the bytes written to spill files, including record headers.
+     */
+    public long getSpilledBytes()
+    {
+        return spilledBytes.sum();
+    }
+
+    public long getReplayedRecords()
+    {
+        return replayedRecords.sum();
+    }
+
+    /**
+     * @return Returns the number of spilled records that are not replayed yet.
+     */
+    public long getPendingRecords()
+    {
+        return pendingRecords.get();
+    }
+
+    /**
+     * @return Returns the size of spilled records that are not replayed yet.
+     */
+    public long getPendingBytes()
+    {
+        return pendingBytes.get();
+    }
+
+    /**
+     * @return Returns the time the last replayed record spent on disk.
+     */
+    public long getLastReplayLagNanos()
+    {
+        return lastReplayLagNanos.get();
+    }
+
+    public long getMaxReplayLagNanos()
+    {
+        return maxReplayLagNanos.get();
+    }
+
+    private void spilled(int bytes)
+    {
+        spilledRecords.increment();
+        spilledBytes.add(bytes);
+        pendingRecords.incrementAndGet();
+        pendingBytes.addAndGet(bytes);
+    }
+
+    private void replayed(long lagNanos)
+    {
+        replayedRecords.increment();
+        pendingRecords.decrementAndGet();
+        lastReplayLagNanos.set(lagNanos);
+        maxReplayLagNanos.accumulate(lagNanos);
+    }
+
+    /**
+     * Memory queue followed by the spill file, guarded by the monitor of the queue.
+     */
+    private static final class SpillQueue<T>
+    {
+        private final SpillBuffer<T> parent;
+        private final Queue<T> memory = new ArrayDeque<>();
+        private final long[] spillTime = new long[1];
+        private SpillFile file;
+        private boolean closed;
+
+        private SpillQueue(SpillBuffer<T> parent)
+        {
+            this.parent = parent;
+        }
+
+        private synchronized void offer(T value) throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            if ((file == null || file.isEmpty()) && memory.size() < parent.memoryCapacity)
+            {
+                memory.offer(value);
+                return;
+            }
+
+            if (file == null)
+            {
+                file = new SpillFile(parent.directory, FILE_BUFFER_SIZE);
+            }
+            parent.spilled(file.append(parent.codec.encode(value), System.nanoTime()));
+        }
+
+        private synchronized T poll() throws IOException
+        {
+            T value = memory.poll();
+            if (value != null || file == null || file.isEmpty())
+            {
+                return value;
+            }
+
+            // Replays a batch of spilled records, so values offered meanwhile keep going to the file after them
+            long now = System.nanoTime();
+            long size = file.getSize();
+            for (int i = 0; i < parent.memoryCapacity && !file.isEmpty(); i++)
+            {
+                ByteBuffer record = file.poll(spillTime);
+                memory.offer(parent.codec.decode(record));
+                parent.replayed(now - spillTime[0]);
+            }
+            parent.pendingBytes.addAndGet(file.getSize() - size);
+            return memory.poll();
+        }
+
+        private synchronized boolean isEmpty()
+        {
+            return memory.isEmpty() && (file == null || file.isEmpty());
+        }
+
+        private synchronized void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            memory.clear();
+            if (file != null)
+            {
+                parent.pendingRecords.addAndGet(-file.getRecords());
+                parent.pendingBytes.addAndGet(-file.getSize());
+                try
+                {
+                    file.close();
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscriber that requests everything from upstream and drains the spill queue on demand of downstream.
+     */
+    private static final class SpillSubscriber<T> implements CoreSubscriber<T>, Subscription
+    {
+        private final CoreSubscriber<? super T> actual;
+        private final SpillQueue<T> queue;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Subscription upstream;
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        private SpillSubscriber(CoreSubscriber<? super T> actual, SpillBuffer<T> parent)
+        {
+            this.actual = actual;
+            this.queue = new SpillQueue<>(parent);
+        }
+
+        @Override
+        public Context currentContext()
+        {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s)
+        {
+            if (Operators.validate(upstream, s))
+            {
+                upstream = s;
+                actual.onSubscribe(this);
+                s.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(T t)
+        {
+            if (done)
+            {
+                Operators.onNextDropped(t, currentContext());
+                return;
+            }
+            try
+            {
+                queue.offer(t);
+            }
+            catch (Throwable e)
+            {
+                Exceptions.throwIfFatal(e);
+                upstream.cancel();
+                onError(Operators.onOperatorError(e, currentContext()));
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            if (done)
+            {
+                Operators.onErrorDropped(t, currentContext());
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (Operators.validate(n))
+            {
+                for (;;)
+                {
+                    long current = requested.get();
+                    if (requested.compareAndSet(current, Operators.addCap(current, n)))
+                    {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                upstream.cancel();
+                if (wip.getAndIncrement() == 0)
+                {
+                    queue.close();
+                }
+            }
+        }
+
+        private void drain()
+        {
+            if (wip.getAndIncrement() != 0)
+            {
+                return;
+            }
+
+            int missed = 1;
+            for (;;)
+            {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r)
+                {
+                    if (cancelled)
+                    {
+                        queue.close();
+                        return;
+                    }
+
+                    boolean d = done;
+                    T value;
+                    try
+                    {
+                        value = queue.poll();
+                    }
+                    catch (Throwable ex)
+                    {
+                        Exceptions.throwIfFatal(ex);
+                        upstream.cancel();
+                        queue.close();
+                        actual.onError(Operators.onOperatorError(ex, currentContext()));
+                        return;
+                    }
+
+                    if (value == null)
+                    {
+                        if (d)
+                        {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+
+                    actual.onNext(value);
+                    e++;
+                }
+
+                if (e == r)
+                {
+                    if (cancelled)
+                    {
+                        queue.close();
+                        return;
+                    }
+                    if (done && queue.isEmpty())
+                    {
+                        terminate();
+                        return;
+                    }
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE)
+                {
+                    requested.addAndGet(-e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                {
+                    break;
+                }
+            }
+        }
+
+        private void terminate()
+        {
+            queue.close();
+            Throwable t = error;
+            if (t != null)
+            {
+                actual.onError(t);
+            }
+            else
+            {
+                actual.onComplete();
+            }
+        }
+    }
+}
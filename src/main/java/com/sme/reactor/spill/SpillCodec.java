@@ -0,0 +1,72 @@
+package com.sme.reactor.spill;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes values to records of a spill file and decodes them back.
+ *
+ * @param <T> The type of values.
+ */
+public interface SpillCodec<T>
+{
+    /**
+     * Encodes the value.
+     * 
+     * @param value The value to encode;
+     * @return Returns the buffer with the record between position and limit.
+     */
+    ByteBuffer encode(T value);
+
+    /**
+     * Decodes the value, the buffer is valid only during the call.
+     * 
+     * @param record The record between position and limit;
+     * @return Returns the decoded value.
+     */
+    T decode(ByteBuffer record);
+
+    /**
+     * @return Returns the codec of UTF-8 strings.
+     */
+    static SpillCodec<String> utf8()
+    {
+        return new SpillCodec<String>()
+        {
+            @Override
+            public ByteBuffer encode(String value)
+            {
+                return StandardCharsets.UTF_8.encode(value);
+            }
+
+            @Override
+            public String decode(ByteBuffer record)
+            {
+                return StandardCharsets.UTF_8.decode(record).toString();
+            }
+        };
+    }
+
+    /**
+     * @return Returns the codec of long values.
+     */
+    static SpillCodec<Long> longs()
+    {
+        return new SpillCodec<Long>()
+        {
+            @Override
+            public ByteBuffer encode(Long value)
+            {
+                ByteBuffer record = ByteBuffer.allocate(Long.BYTES);
+                record.putLong(0, value);
+                return record;
+            }
+
+            @Override
+            public Long decode(ByteBuffer record)
+            {
+                return record.getLong(record.position());
+            }
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.sme.reactor.spill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file segment of length-prefixed records read back in FIFO order.
+ * <p>
+ * Every record is {@code [int length][long spill time in nanos][bytes]}. Appends go through a write buffer and reads through a read buffer, so the
+ * channel is touched once per buffer rather than once per record. The file is truncated when the reader catches up with the writer, so a consumer that
+ * recovers reclaims the disk space, and {@link #close()} deletes the file.
+ * </p>
+ */
+final class SpillFile implements Closeable
+{
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer;
+    private ByteBuffer readBuffer;
+
+    private long writePosition;
+    private long readPosition;
+    private long records;
+
+    SpillFile(Path directory, int bufferSize) throws IOException
+    {
+        this.path = Files.createTempFile(directory, "spill-", ".log");
+        try
+        {
+            // Not DELETE_ON_CLOSE: it unlinks the file right after open on Linux, so the file would not be visible while it is used
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        this.writeBuffer = ByteBuffer.allocateDirect(bufferSize);
+        this.readBuffer = ByteBuffer.allocateDirect(bufferSize);
+        this.readBuffer.flip();
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    boolean isEmpty()
+    {
+        return records == 0;
+    }
+
+    long getRecords()
+    {
+        return records;
+    }
+
+    /**
+     * @return Returns the bytes of records that are not read yet, including the write buffer.
+     */
+    long getSize()
+    {
+        return writePosition + writeBuffer.position() - readPosition + readBuffer.remaining();
+    }
+
+    /**
+     * Appends the record.
+     * 
+     * @param record The record between position and limit;
+     * @param spillTime The nano time of the spill;
+     * @return Returns the number of appended bytes with the header.
+     * @throws IOException if the record cannot be written.
+     */
+    int append(ByteBuffer record, long spillTime) throws IOException
+    {
+        int length = record.remaining();
+        if (HEADER_SIZE + length > writeBuffer.remaining())
+        {
+            flush();
+        }
+
+        if (HEADER_SIZE + length > writeBuffer.capacity())
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(length).putLong(spillTime).flip();
+            write(header);
+            write(record.duplicate());
+        }
+        else
+        {
+            writeBuffer.putInt(length).putLong(spillTime).put(record.duplicate());
+        }
+        records++;
+        return HEADER_SIZE + length;
+    }
+
+    /**
+     * Reads the next record, the returned buffer is valid until the next call.
+     * 
+     * @param spillTime The array to store the nano time of the spill;
+     * @return Returns the record or null if the file is empty.
+     * @throws IOException if the record cannot be read.
+     */
+    ByteBuffer poll(long[] spillTime) throws IOException
+    {
+        if (records == 0)
+        {
+            return null;
+        }
+
+        ensureReadable(HEADER_SIZE);
+        int length = readBuffer.getInt();
+        spillTime[0] = readBuffer.getLong();
+        ensureReadable(length);
+
+        ByteBuffer record = readBuffer.slice();
+        record.limit(length);
+        readBuffer.position(readBuffer.position() + length);
+
+        if (--records == 0)
+        {
+            reset();
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void ensureReadable(int length) throws IOException
+    {
+        if (readBuffer.remaining() >= length)
+        {
+            return;
+        }
+
+        if (readPosition + length > writePosition)
+        {
+            flush();
+        }
+
+        if (length > readBuffer.capacity())
+        {
+            ByteBuffer larger = ByteBuffer.allocateDirect(length);
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+        else
+        {
+            readBuffer.compact();
+        }
+
+        while (readBuffer.position() < length)
+        {
+            int read = channel.read(readBuffer, readPosition);
+            if (read < 0)
+            {
+                throw new IOException("Unexpected end of spill file " + path);
+            }
+            readPosition += read;
+        }
+        readBuffer.flip();
+    }
+
+    private void flush() throws IOException
+    {
+        writeBuffer.flip();
+        write(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            writePosition += channel.write(buffer, writePosition);
+        }
+    }
+
+    private void reset() throws IOException
+    {
+        writeBuffer.clear();
+        readBuffer.clear();
+        readBuffer.flip();
+        writePosition = 0L;
+        readPosition = 0L;
+        channel.truncate(0L);
+    }
+}
@@ -0,0 +1,242 @@
+package com.sme.reactor.tracing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Signal counters and sampled latencies of an operator stage.
+ * <p>
+ * Stages are identified by the label {@code <depth>:<operator name>}, so a pipeline assembled many times shares the stats of its stages. All counters are
+ * striped {@link LongAdder}s, so concurrent subscriptions update the stats without contention.
+ * </p>
+ * <p>
+ * The onNext time is the time spent in downstream onNext of the signal emitted by the operator, that includes the work of all stages below. The self time
+ * of the operator is the difference between onNext time of its parent and its own onNext time.
+ * </p>
+ */
+public final class OperatorStats
+{
+    private final String label;
+    private final int depth;
+    private final OperatorStats parent;
+
+    private final LongAdder subscriptions = new LongAdder();
+    private final LongAdder onNext = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder unboundedRequests = new LongAdder();
+    private final LongAdder completions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+
+    private final LongAdder intervalSamples = new LongAdder();
+    private final LongAdder intervalNanos = new LongAdder();
+    private final LongAccumulator maxIntervalNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder onNextSamples = new LongAdder();
+    private final LongAdder onNextNanos = new LongAdder();
+    private final LongAccumulator maxOnNextNanos = new LongAccumulator(Math::max, 0L);
+
+    OperatorStats(String label, int depth, OperatorStats parent)
+    {
+        this.label = label;
+        this.depth = depth;
+        this.parent = parent;
+    }
+
+    void subscribed()
+    {
+        subscriptions.increment();
+    }
+
+    void emitted(long count)
+    {
+        onNext.add(count);
+    }
+
+    void requested(long n)
+    {
+        requests.increment();
+        if (n == Long.MAX_VALUE)
+        {
+            unboundedRequests.increment();
+        }
+        else
+        {
+            requested.add(n);
+        }
+    }
+
+    void completed()
+    {
+        completions.increment();
+    }
+
+    void failed()
+    {
+        errors.increment();
+    }
+
+    void cancelled()
+    {
+        cancellations.increment();
+    }
+
+    void sampleInterval(long nanos)
+    {
+        intervalSamples.increment();
+        intervalNanos.add(nanos);
+        maxIntervalNanos.accumulate(nanos);
+    }
+
+    void sampleOnNext(long nanos)
+    {
+        onNextSamples.increment();
+        onNextNanos.add(nanos);
+        maxOnNextNanos.accumulate(nanos);
+    }
+
+    void reset()
+    {
+        subscriptions.reset();
+        onNext.reset();
+        requests.reset();
+        requested.reset();
+        unboundedRequests.reset();
+        completions.reset();
+        errors.reset();
+        cancellations.reset();
+        intervalSamples.reset();
+        intervalNanos.reset();
+        maxIntervalNanos.reset();
+        onNextSamples.reset();
+        onNextNanos.reset();
+        maxOnNextNanos.reset();
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return Returns the stats of upstream stage or null if the operator is a source.
+     */
+    public OperatorStats getParent()
+    {
+        return parent;
+    }
+
+    public long getSubscriptions()
+    {
+        return subscriptions.sum();
+    }
+
+    public long getOnNextCount()
+    {
+        return onNext.sum();
+    }
+
+    public long getRequestCount()
+    {
+        return requests.sum();
+    }
+
+    /**
+     * @return Returns the sum of bounded requests, unbounded requests are counted by {@link #getUnboundedRequests()}.
+     */
+    public long getRequested()
+    {
+        return requested.sum();
+    }
+
+    public long getUnboundedRequests()
+    {
+        return unboundedRequests.sum();
+    }
+
+    public long getCompletions()
+    {
+        return completions.sum();
+    }
+
+    public long getErrors()
+    {
+        return errors.sum();
+    }
+
+    public long getCancellations()
+    {
+        return cancellations.sum();
+    }
+
+    public long getSamples()
+    {
+        return onNextSamples.sum();
+    }
+
+    /**
+     * @return Returns the mean time between two onNext signals emitted by the operator.
+     */
+    public long getMeanIntervalNanos()
+    {
+        return mean(intervalNanos, intervalSamples);
+    }
+
+    public long getMaxIntervalNanos()
+    {
+        return maxIntervalNanos.get();
+    }
+
+    /**
+     * @return Returns the mean time spent in downstream onNext of the signal emitted by the operator.
+     */
+    public long getMeanOnNextNanos()
+    {
+        return mean(onNextNanos, onNextSamples);
+    }
+
+    public long getMaxOnNextNanos()
+    {
+        return maxOnNextNanos.get();
+    }
+
+    /**
+     * Estimates the time the operator spends on a signal without the stages below.
+     * 
+     * @return Returns the mean self time or 0 if the operator is a source or the parent was not sampled.
+     */
+    public long getSelfNanos()
+    {
+        if (parent == null || parent.getSamples() == 0 || getSamples() == 0)
+        {
+            return 0L;
+        }
+        return Math.max(0L, parent.getMeanOnNextNanos() - getMeanOnNextNanos());
+    }
+
+    private static long mean(LongAdder sum, LongAdder count)
+    {
+        long samples = count.sum();
+        return samples == 0 ? 0L : sum.sum() / samples;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%-40s onNext=%d, requests=%d, requested=%d%s, interval=%dus, onNext=%dus, self=%dus",
+                label,
+                getOnNextCount(),
+                getRequestCount(),
+                getRequested(),
+                getUnboundedRequests() > 0 ? " (unbounded " + getUnboundedRequests() + ")" : "",
+                TimeUnit.NANOSECONDS.toMicros(getMeanIntervalNanos()),
+                TimeUnit.NANOSECONDS.toMicros(getMeanOnNextNanos()),
+                TimeUnit.NANOSECONDS.toMicros(getSelfNanos()));
+    }
+}
@@ -0,0 +1,194 @@
+package com.sme.reactor.tracing;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.reactivestreams.Publisher;
+
+import reactor.core.Scannable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Operators;
+
+/**
+ * Lightweight tracing of operators via {@link Hooks#onEachOperator(String, Function)}.
+ * <p>
+ * {@link Hooks#onOperatorDebug()} captures a stack trace on every assembly and {@code log()} writes a line per signal. The tracer wraps every operator
+ * assembled after {@link #install(double)} with a subscriber that counts onNext, request and terminal signals in striped counters and times a sample of
+ * onNext signals, so it can stay enabled on a loaded pipeline to find the slowest stage:
+ * </p>
+ * 
+ * <pre>
+ * OperatorTracer tracer = OperatorTracer.install(0.01);
+ * try
+ * {
+ *     pipeline.blockLast();
+ *     LOGGER.info(tracer.report(5));
+ * }
+ * finally
+ * {
+ *     tracer.uninstall();
+ * }
+ * </pre>
+ * <p>
+ * The hook lifts every operator and the tracing subscriber refuses fusion, so a traced pipeline runs without operator fusion and with a queue where
+ * a fused stage would have none.
+ * </p>
+ */
+public final class OperatorTracer
+{
+    private static final String DEFAULT_KEY = OperatorTracer.class.getName();
+    private static final int MAX_PARENT_LOOKUP = 16;
+
+    private final String key;
+    private final int samplingInterval;
+    private final ConcurrentMap<String, OperatorStats> stages = new ConcurrentHashMap<>();
+    private final Map<Object, OperatorStats> assembled = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private OperatorTracer(String key, int samplingInterval)
+    {
+        this.key = key;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Installs the tracer with the default hook key.
+     * 
+     * @param samplingRate The fraction of onNext signals to time, 1 times every signal;
+     * @return Returns the installed tracer.
+     */
+    public static OperatorTracer install(double samplingRate)
+    {
+        return install(DEFAULT_KEY, samplingRate);
+    }
+
+    /**
+     * Installs the tracer with the given hook key, a tracer installed with the same key is replaced.
+     * 
+     * @param key The key of the hook;
+     * @param samplingRate The fraction of onNext signals to time, 1 times every signal;
+     * @return Returns the installed tracer.
+     */
+    public static OperatorTracer install(String key, double samplingRate)
+    {
+        Validate.notEmpty(key, "Hook key is required");
+        Validate.isTrue(samplingRate > 0 && samplingRate <= 1, "Sampling rate should be in (0, 1] range");
+
+        OperatorTracer tracer = new OperatorTracer(key, (int) Math.max(1L, Math.round(1 / samplingRate)));
+        Hooks.onEachOperator(key, tracer::trace);
+        return tracer;
+    }
+
+    /**
+     * Removes the hook. Operators assembled before keep reporting to the tracer.
+     */
+    public void uninstall()
+    {
+        Hooks.resetOnEachOperator(key);
+    }
+
+    public int getSamplingInterval()
+    {
+        return samplingInterval;
+    }
+
+    /**
+     * @return Returns stats of all traced stages ordered by depth.
+     */
+    public List<OperatorStats> getOperators()
+    {
+        return stages.values()
+                .stream()
+                .sorted(Comparator.comparingInt(OperatorStats::getDepth).thenComparing(OperatorStats::getLabel))
+                .collect(toList());
+    }
+
+    /**
+     * Lists the stages with the highest self time.
+     * 
+     * @param limit The max number of stages;
+     * @return Returns the slowest stages first.
+     */
+    public List<OperatorStats> slowest(int limit)
+    {
+        List<OperatorStats> operators = new ArrayList<>(stages.values());
+        operators.sort(Comparator.comparingLong(OperatorStats::getSelfNanos)
+                .thenComparingLong(OperatorStats::getMeanIntervalNanos)
+                .reversed());
+        return operators.subList(0, Math.min(limit, operators.size()));
+    }
+
+    /**
+     * Formats the slowest stages.
+     * 
+     * @param limit The max number of stages;
+     * @return Returns a line per stage.
+     */
+    public String report(int limit)
+    {
+        return slowest(limit).stream()
+                .map(OperatorStats::toString)
+                .collect(joining(System.lineSeparator(), "Slowest operators (1 of " + samplingInterval + " signals sampled):" + System.lineSeparator(), ""));
+    }
+
+    /**
+     * Resets counters of all stages.
+     */
+    public void reset()
+    {
+        stages.values().forEach(OperatorStats::reset);
+    }
+
+    private Publisher<Object> trace(Publisher<Object> publisher)
+    {
+        OperatorStats parent = findParent(publisher);
+        int depth = parent == null ? 0 : parent.getDepth() + 1;
+        String label = depth + ":" + nameOf(publisher);
+        OperatorStats stats = stages.computeIfAbsent(label, l -> new OperatorStats(l, depth, parent));
+
+        Function<? super Publisher<Object>, ? extends Publisher<Object>> lift = Operators.lift((s, actual) -> new TracingSubscriber<>(actual, stats, samplingInterval));
+        Publisher<Object> lifted = lift.apply(publisher);
+        assembled.put(publisher, stats);
+        assembled.put(lifted, stats);
+        return lifted;
+    }
+
+    private OperatorStats findParent(Publisher<Object> publisher)
+    {
+        Object current = parentOf(publisher);
+        for (int i = 0; current != null && i < MAX_PARENT_LOOKUP; i++)
+        {
+            OperatorStats stats = assembled.get(current);
+            if (stats != null)
+            {
+                return stats;
+            }
+            current = parentOf(current);
+        }
+        return null;
+    }
+
+    /**
+     * Sources like {@code FluxRange} are not scannable in every version, so the parent is scanned unsafe and not cast.
+     */
+    private static Object parentOf(Object publisher)
+    {
+        return publisher instanceof Scannable ? ((Scannable) publisher).scanUnsafe(Scannable.Attr.PARENT) : null;
+    }
+
+    private static String nameOf(Publisher<Object> publisher)
+    {
+        String name = publisher instanceof Scannable ? ((Scannable) publisher).scan(Scannable.Attr.NAME) : null;
+        return name != null ? name : publisher.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,174 @@
+package com.sme.reactor.tracing;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.core.Scannable;
+import reactor.util.context.Context;
+
+/**
+ * Subscriber between an operator and its downstream that counts signals and times every n-th onNext.
+ * <p>
+ * Signals of a subscription are serialized, so the counters of the subscription are plain fields flushed to the stats on a sample and on termination.
+ * </p>
+ * <p>
+ * A lifted fuseable publisher hands the subscriber to downstream as a {@link Fuseable.QueueSubscription}, so the subscriber is one that always
+ * refuses fusion: downstream falls back to request and onNext, and every signal passes the counters.
+ * </p>
+ * 
+ * @param <T> The type of values.
+ */
+final class TracingSubscriber<T> implements CoreSubscriber<T>, Fuseable.QueueSubscription<T>, Scannable
+{
+    private final CoreSubscriber<? super T> actual;
+    private final OperatorStats stats;
+    private final int samplingInterval;
+
+    private Subscription subscription;
+    private int countdown;
+    private long unreported;
+    private long previous;
+
+    TracingSubscriber(CoreSubscriber<? super T> actual, OperatorStats stats, int samplingInterval)
+    {
+        this.actual = actual;
+        this.stats = stats;
+        this.samplingInterval = samplingInterval;
+        this.countdown = samplingInterval;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s)
+    {
+        subscription = s;
+        stats.subscribed();
+        actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t)
+    {
+        unreported++;
+        int c = countdown - 1;
+        if (c > 1)
+        {
+            countdown = c;
+            actual.onNext(t);
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (c == 1)
+        {
+            // Remember the arrival of the signal before the sampled one to measure the interval
+            previous = now;
+            countdown = c;
+            actual.onNext(t);
+            return;
+        }
+
+        if (previous != 0L)
+        {
+            stats.sampleInterval(now - previous);
+        }
+        previous = now;
+        countdown = samplingInterval;
+        stats.emitted(unreported);
+        unreported = 0L;
+
+        actual.onNext(t);
+        stats.sampleOnNext(System.nanoTime() - now);
+    }
+
+    @Override
+    public void onError(Throwable t)
+    {
+        flush();
+        stats.failed();
+        actual.onError(t);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        flush();
+        stats.completed();
+        actual.onComplete();
+    }
+
+    @Override
+    public void request(long n)
+    {
+        stats.requested(n);
+        subscription.request(n);
+    }
+
+    @Override
+    public void cancel()
+    {
+        // Usually called from onNext of downstream, like take, so the pending count is flushed on the emitting thread
+        flush();
+        stats.cancelled();
+        subscription.cancel();
+    }
+
+    @Override
+    public int requestFusion(int requestedMode)
+    {
+        return Fuseable.NONE;
+    }
+
+    @Override
+    public T poll()
+    {
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        // Never fused, so there is no queue
+    }
+
+    @Override
+    public Context currentContext()
+    {
+        return actual.currentContext();
+    }
+
+    @Override
+    public Object scanUnsafe(Attr key)
+    {
+        if (key == Attr.PARENT)
+        {
+            return subscription;
+        }
+        if (key == Attr.ACTUAL)
+        {
+            return actual;
+        }
+        return null;
+    }
+
+    private void flush()
+    {
+        if (unreported > 0L)
+        {
+            stats.emitted(unreported);
+            unreported = 0L;
+        }
+    }
+}
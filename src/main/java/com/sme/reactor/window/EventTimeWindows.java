@@ -0,0 +1,329 @@
+package com.sme.reactor.window;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.lang3.Validate;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Tumbling, sliding and session windows of event time that aggregate values incrementally and emit results on watermarks.
+ * <p>
+ * {@link Flux#window(Duration)} and {@link Flux#buffer(Duration)} keep every value of an open window until it closes, and close windows by the clock of
+ * the subscriber rather than by the time of events. Here every open window keeps only the accumulator of its {@link WindowAggregator}, like count,
+ * min and max, a {@link TDigest} or a {@link HyperLogLog}, so the memory is constant per window whatever the rate of values.
+ * </p>
+ * <p>
+ * The watermark is the max event time seen minus the allowed out-of-orderness. A window is emitted once the watermark passes its end, in order of
+ * window starts; a value whose windows are all emitted already is late, it is dropped and counted. On completion the open windows are emitted too.
+ * </p>
+ * <p>
+ * The windows are a {@link Function} to be used with {@link Flux#transform(Function)} and collect metrics of all their subscriptions:
+ * </p>
+ * 
+ * <pre>
+ * EventTimeWindows&lt;Trade, TDigest, TDigest&gt; windows = EventTimeWindows.tumbling(Duration.ofMinutes(1), Duration.ofSeconds(5), Trade::getTime,
+ *     WindowAggregator.quantiles(Trade::getPrice, 100));
+ * trades.transform(windows).subscribe(w -&gt; report(w.getStart(), w.getResult().quantile(0.99)));
+ * </pre>
+ * 
+ * @param <T> The type of values;
+ * @param <A> The type of accumulator;
+ * @param <R> The type of result.
+ */
+public final class EventTimeWindows<T, A, R> implements Function<Flux<T>, Flux<WindowResult<R>>>
+{
+    private final long size;
+    private final long slide;
+    private final long gap;
+    private final long maxOutOfOrder;
+    private final ToLongFunction<? super T> eventTime;
+    private final WindowAggregator<? super T, A, R> aggregator;
+
+    private final LongAdder windows = new LongAdder();
+    private final LongAdder lateValues = new LongAdder();
+    private final LongAccumulator maxOpenWindows = new LongAccumulator(Math::max, 0L);
+
+    private EventTimeWindows(long size, long slide, long gap, Duration maxOutOfOrder, ToLongFunction<? super T> eventTime,
+            WindowAggregator<? super T, A, R> aggregator)
+    {
+        Validate.notNull(maxOutOfOrder, "Max out-of-orderness is required");
+        Validate.isTrue(!maxOutOfOrder.isNegative(), "Max out-of-orderness should not be negative");
+        Validate.notNull(eventTime, "Event time is required");
+        Validate.notNull(aggregator, "Aggregator is required");
+        this.size = size;
+        this.slide = slide;
+        this.gap = gap;
+        this.maxOutOfOrder = maxOutOfOrder.toMillis();
+        this.eventTime = eventTime;
+        this.aggregator = aggregator;
+    }
+
+    /**
+     * Creates tumbling windows: adjacent windows of the same size aligned to the epoch.
+     * 
+     * @param size The size of windows;
+     * @param maxOutOfOrder The max delay of an event behind the latest event, before its window is emitted;
+     * @param eventTime The function of the event time of value in milliseconds;
+     * @param aggregator The aggregator of values;
+     * @param <T> The type of values;
+     * @param <A> The type of accumulator;
+     * @param <R> The type of result;
+     * @return Returns the windows.
+     */
+    public static <T, A, R> EventTimeWindows<T, A, R> tumbling(Duration size, Duration maxOutOfOrder, ToLongFunction<? super T> eventTime,
+            WindowAggregator<? super T, A, R> aggregator)
+    {
+        return sliding(size, size, maxOutOfOrder, eventTime, aggregator);
+    }
+
+    /**
+     * Creates sliding windows: windows of the same size that start every slide, aligned to the epoch, so a value is in {@code size / slide} windows.
+     * 
+     * @param size The size of windows;
+     * @param slide The interval between starts of windows, a divisor of the size;
+     * @param maxOutOfOrder The max delay of an event behind the latest event, before its window is emitted;
+     * @param eventTime The function of the event time of value in milliseconds;
+     * @param aggregator The aggregator of values;
+     * @param <T> The type of values;
+     * @param <A> The type of accumulator;
+     * @param <R> The type of result;
+     * @return Returns the windows.
+     */
+    public static <T, A, R> EventTimeWindows<T, A, R> sliding(Duration size, Duration slide, Duration maxOutOfOrder, ToLongFunction<? super T> eventTime,
+            WindowAggregator<? super T, A, R> aggregator)
+    {
+        Validate.notNull(size, "Size is required");
+        Validate.notNull(slide, "Slide is required");
+        long sizeMillis = size.toMillis();
+        long slideMillis = slide.toMillis();
+        Validate.isTrue(slideMillis > 0, "Slide should be 1 ms at least");
+        Validate.isTrue(sizeMillis >= slideMillis && sizeMillis % slideMillis == 0, "Size should be a multiple of slide");
+        return new EventTimeWindows<>(sizeMillis, slideMillis, 0L, maxOutOfOrder, eventTime, aggregator);
+    }
+
+    /**
+     * Creates session windows: a session lasts while values come within the gap after each other and ends a gap after its last value.
+     * <p>
+     * An out-of-order value that fills the gap between two sessions merges them with {@link WindowAggregator#merge(Object, Object)}.
+     * </p>
+     * 
+     * @param gap The max gap between values of a session;
+     * @param maxOutOfOrder The max delay of an event behind the latest event, before its window is emitted;
+     * @param eventTime The function of the event time of value in milliseconds;
+     * @param aggregator The aggregator of values;
+     * @param <T> The type of values;
+     * @param <A> The type of accumulator;
+     * @param <R> The type of result;
+     * @return Returns the windows.
+     */
+    public static <T, A, R> EventTimeWindows<T, A, R> session(Duration gap, Duration maxOutOfOrder, ToLongFunction<? super T> eventTime,
+            WindowAggregator<? super T, A, R> aggregator)
+    {
+        Validate.notNull(gap, "Gap is required");
+        long gapMillis = gap.toMillis();
+        Validate.isTrue(gapMillis > 0, "Gap should be 1 ms at least");
+        return new EventTimeWindows<>(0L, 0L, gapMillis, maxOutOfOrder, eventTime, aggregator);
+    }
+
+    @Override
+    public Flux<WindowResult<R>> apply(Flux<T> flux)
+    {
+        return Flux.defer(() ->
+        {
+            WindowState state = new WindowState();
+            return flux.concatMapIterable(state::onNext).concatWith(Flux.defer(() -> Flux.fromIterable(state.flush())));
+        });
+    }
+
+    /**
+     * @return Returns the number of emitted windows.
+     */
+    public long getWindows()
+    {
+        return windows.sum();
+    }
+
+    /**
+     * @return Returns the number of values dropped because their windows were emitted already.
+     */
+    public long getLateValues()
+    {
+        return lateValues.sum();
+    }
+
+    /**
+     * @return Returns the max number of windows open at once in a subscription.
+     */
+    public long getMaxOpenWindows()
+    {
+        return maxOpenWindows.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EventTimeWindows[windows=" + getWindows() + ", lateValues=" + getLateValues() + ", maxOpenWindows=" + getMaxOpenWindows() + "]";
+    }
+
+    /**
+     * Open window with its accumulator.
+     */
+    private final class OpenWindow
+    {
+        private final long start;
+        private long end;
+        private long count;
+        private A accumulator;
+
+        private OpenWindow(long start, long end)
+        {
+            this.start = start;
+            this.end = end;
+            this.accumulator = aggregator.create();
+        }
+
+        private void add(T value)
+        {
+            accumulator = aggregator.add(accumulator, value);
+            count++;
+        }
+
+        private WindowResult<R> close()
+        {
+            windows.increment();
+            return new WindowResult<>(start, end, count, aggregator.result(accumulator));
+        }
+    }
+
+    /**
+     * Windows of a subscription, called serially by the source.
+     */
+    private final class WindowState
+    {
+        // Open windows by start
+        private final TreeMap<Long, OpenWindow> open = new TreeMap<>();
+        private long watermark = Long.MIN_VALUE;
+
+        private Iterable<WindowResult<R>> onNext(T value)
+        {
+            long time = eventTime.applyAsLong(value);
+            if (!(gap > 0 ? addToSession(time, value) : addToWindows(time, value)))
+            {
+                lateValues.increment();
+            }
+            maxOpenWindows.accumulate(open.size());
+            if (time - maxOutOfOrder > watermark)
+            {
+                watermark = time - maxOutOfOrder;
+                return closeUpTo(watermark);
+            }
+            return Collections.emptyList();
+        }
+
+        private boolean addToWindows(long time, T value)
+        {
+            boolean added = false;
+            // From the latest window of the value back, the earlier windows end earlier
+            for (long start = Math.floorDiv(time, slide) * slide; start > time - size; start -= slide)
+            {
+                if (start + size <= watermark)
+                {
+                    break;
+                }
+                OpenWindow window = open.get(start);
+                if (window == null)
+                {
+                    window = new OpenWindow(start, start + size);
+                    open.put(start, window);
+                }
+                window.add(value);
+                added = true;
+            }
+            return added;
+        }
+
+        private boolean addToSession(long time, T value)
+        {
+            Map.Entry<Long, OpenWindow> floor = open.floorEntry(time);
+            OpenWindow session;
+            if (floor != null && time < floor.getValue().end)
+            {
+                session = floor.getValue();
+                session.end = Math.max(session.end, time + gap);
+            }
+            else if (time + gap <= watermark && !startsBefore(time + gap))
+            {
+                return false;
+            }
+            else
+            {
+                session = new OpenWindow(time, time + gap);
+                open.put(time, session);
+            }
+            session.add(value);
+
+            // The value may fill the gap to the following sessions
+            Map.Entry<Long, OpenWindow> next = open.higherEntry(session.start);
+            while (next != null && next.getKey() < session.end)
+            {
+                OpenWindow following = next.getValue();
+                session.accumulator = aggregator.merge(session.accumulator, following.accumulator);
+                session.count += following.count;
+                session.end = Math.max(session.end, following.end);
+                open.remove(next.getKey());
+                next = open.higherEntry(session.start);
+            }
+            return true;
+        }
+
+        /**
+         * @return Returns true if an open session starts before the time, so a late value that reaches it is not late.
+         */
+        private boolean startsBefore(long time)
+        {
+            Long start = open.lowerKey(time);
+            return start != null;
+        }
+
+        private List<WindowResult<R>> closeUpTo(long time)
+        {
+            List<WindowResult<R>> closed = Collections.emptyList();
+            Iterator<OpenWindow> iterator = open.values().iterator();
+            while (iterator.hasNext())
+            {
+                OpenWindow window = iterator.next();
+                if (window.end <= time)
+                {
+                    if (closed.isEmpty())
+                    {
+                        closed = new ArrayList<>();
+                    }
+                    closed.add(window.close());
+                    iterator.remove();
+                }
+                else if (gap == 0)
+                {
+                    // Fixed windows end in order of starts, sessions do not
+                    break;
+                }
+            }
+            return closed;
+        }
+
+        private List<WindowResult<R>> flush()
+        {
+            return closeUpTo(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.sme.reactor.window;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * HyperLogLog sketch of the number of distinct 64-bit hashes in {@code 2^precision} byte registers.
+ * <p>
+ * Every hash is mixed again, so hashes with poor low or high bits are fine. Small cardinalities are estimated by linear counting of empty registers,
+ * 64-bit hashes need no correction of large cardinalities.
+ * </p>
+ */
+public final class HyperLogLog
+{
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision)
+    {
+        Validate.inclusiveBetween(MIN_PRECISION, MAX_PRECISION, precision, "Precision should be between 4 and 18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(long hash)
+    {
+        long mixed = mix(hash);
+        int index = (int) (mixed >>> (Long.SIZE - precision));
+        // The marker bit bounds the rank, when all remaining bits are zero
+        int rank = Long.numberOfLeadingZeros(mixed << precision | 1L << (precision - 1)) + 1;
+        if (rank > registers[index])
+        {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merges the registers of the sketch with the same precision.
+     */
+    public void merge(HyperLogLog other)
+    {
+        Validate.isTrue(other.precision == precision, "Precision of sketches should be equal");
+        for (int i = 0; i < registers.length; i++)
+        {
+            if (other.registers[i] > registers[i])
+            {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return Returns the estimated number of distinct hashes.
+     */
+    public long estimate()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers)
+        {
+            sum += Double.longBitsToDouble((1023L - register) << 52);
+            if (register == 0)
+            {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0)
+        {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision()
+    {
+        return precision;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HyperLogLog[precision=" + precision + ", estimate=" + estimate() + "]";
+    }
+
+    private static double alpha(int m)
+    {
+        switch (m)
+        {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * The finalizer of MurmurHash3.
+     */
+    private static long mix(long hash)
+    {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,68 @@
+package com.sme.reactor.window;
+
+/**
+ * Count, sum, min and max of a metric, updated in place.
+ */
+public final class NumericStats
+{
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value)
+    {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(NumericStats other)
+    {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public double getSum()
+    {
+        return sum;
+    }
+
+    /**
+     * @return Returns the min value, or NaN if there are no values.
+     */
+    public double getMin()
+    {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return Returns the max value, or NaN if there are no values.
+     */
+    public double getMax()
+    {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return Returns the mean value, or NaN if there are no values.
+     */
+    public double getMean()
+    {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("NumericStats[count=%d, sum=%.3f, min=%.3f, max=%.3f, mean=%.3f]", count, sum, getMin(), getMax(), getMean());
+    }
+}
@@ -0,0 +1,274 @@
+package com.sme.reactor.window;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Merging t-digest of the distribution of a metric for quantile estimates.
+ * <p>
+ * Values are added to a buffer, a full buffer is sorted and merged with the centroids. The size of centroids is bounded by the scale function
+ * {@code k(q) = compression / (2 * PI) * asin(2 * q - 1)}: a centroid spans a unit of {@code k} at most, so the centroids in the tails are small and
+ * keep extreme quantiles precise, and the number of centroids is about the compression whatever the number of values.
+ * </p>
+ */
+public final class TDigest
+{
+    private final double compression;
+    private final int bufferSize;
+
+    // Centroids sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private double mergedWeight;
+
+    // Unmerged values followed by room for the centroids while merging
+    private double[] bufferMeans;
+    private double[] bufferWeights;
+    private int buffered;
+    private double bufferedWeight;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression)
+    {
+        Validate.isTrue(compression >= 10, "Compression should be 10 at least");
+        this.compression = compression;
+        this.bufferSize = (int) (5 * compression);
+        int capacity = (int) (2 * compression) + 16;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[bufferSize + capacity];
+        this.bufferWeights = new double[bufferSize + capacity];
+    }
+
+    public void add(double value)
+    {
+        add(value, 1);
+    }
+
+    /**
+     * Merges the centroids of other digest.
+     */
+    public void merge(TDigest other)
+    {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++)
+        {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param q The quantile from 0 to 1;
+     * @return Returns the estimated value at the quantile, or NaN if there are no values.
+     */
+    public double quantile(double q)
+    {
+        Validate.inclusiveBetween(0.0, 1.0, q, "Quantile should be between 0 and 1");
+        compress();
+        if (centroids == 0)
+        {
+            return Double.NaN;
+        }
+        if (centroids == 1)
+        {
+            return means[0];
+        }
+        double index = q * mergedWeight;
+        // The values of a centroid are spread around its mean, the mean is at the middle of the centroid weight
+        if (index < weights[0] / 2)
+        {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double center = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++)
+        {
+            double nextCenter = center + (weights[i] + weights[i + 1]) / 2;
+            if (index < nextCenter)
+            {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (nextCenter - center);
+            }
+            center = nextCenter;
+        }
+        double rest = mergedWeight - center;
+        return rest <= 0 ? max : means[centroids - 1] + (max - means[centroids - 1]) * Math.min(1, (index - center) / rest);
+    }
+
+    public long getCount()
+    {
+        return Math.round(mergedWeight + bufferedWeight);
+    }
+
+    public double getMin()
+    {
+        return getCount() == 0 ? Double.NaN : min;
+    }
+
+    public double getMax()
+    {
+        return getCount() == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return Returns the number of centroids after merging the buffer.
+     */
+    public int getCentroids()
+    {
+        compress();
+        return centroids;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("TDigest[count=%d, p50=%.3f, p99=%.3f]", getCount(), quantile(0.5), quantile(0.99));
+    }
+
+    private void add(double mean, double weight)
+    {
+        if (buffered == bufferSize)
+        {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        bufferedWeight += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    private void compress()
+    {
+        if (buffered == 0)
+        {
+            return;
+        }
+        if (bufferMeans.length < buffered + centroids)
+        {
+            bufferMeans = Arrays.copyOf(bufferMeans, buffered + centroids);
+            bufferWeights = Arrays.copyOf(bufferWeights, buffered + centroids);
+        }
+        System.arraycopy(means, 0, bufferMeans, buffered, centroids);
+        System.arraycopy(weights, 0, bufferWeights, buffered, centroids);
+        int size = buffered + centroids;
+        sort(bufferMeans, bufferWeights, 0, size - 1);
+
+        double total = mergedWeight + bufferedWeight;
+        centroids = 0;
+        double weightSoFar = 0;
+        double weightLimit = total * quantileLimit(0);
+        double mean = bufferMeans[0];
+        double weight = bufferWeights[0];
+        for (int i = 1; i < size; i++)
+        {
+            double proposed = weight + bufferWeights[i];
+            if (weightSoFar + proposed <= weightLimit)
+            {
+                mean += (bufferMeans[i] - mean) * bufferWeights[i] / proposed;
+                weight = proposed;
+            }
+            else
+            {
+                append(mean, weight);
+                weightSoFar += weight;
+                weightLimit = total * quantileLimit(weightSoFar / total);
+                mean = bufferMeans[i];
+                weight = bufferWeights[i];
+            }
+        }
+        append(mean, weight);
+        mergedWeight = total;
+        buffered = 0;
+        bufferedWeight = 0;
+    }
+
+    /**
+     * @return Returns the max quantile of the end of a centroid that starts at the quantile, one unit of the scale function from it.
+     */
+    private double quantileLimit(double q)
+    {
+        double k = Math.asin(2 * q - 1) + 2 * Math.PI / compression;
+        return k >= Math.PI / 2 ? 1 : (Math.sin(k) + 1) / 2;
+    }
+
+    private void append(double mean, double weight)
+    {
+        if (centroids == means.length)
+        {
+            means = Arrays.copyOf(means, centroids * 2);
+            weights = Arrays.copyOf(weights, centroids * 2);
+        }
+        means[centroids] = mean;
+        weights[centroids] = weight;
+        centroids++;
+    }
+
+    /**
+     * Sorts the means with their weights, quicksort with insertion sort of small ranges.
+     */
+    private static void sort(double[] keys, double[] values, int from, int to)
+    {
+        while (to - from > 16)
+        {
+            double pivot = keys[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j)
+            {
+                while (keys[i] < pivot)
+                {
+                    i++;
+                }
+                while (keys[j] > pivot)
+                {
+                    j--;
+                }
+                if (i <= j)
+                {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            // Recurses into the smaller part, so the depth is logarithmic
+            if (j - from < to - i)
+            {
+                sort(keys, values, from, j);
+                from = i;
+            }
+            else
+            {
+                sort(keys, values, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++)
+        {
+            double key = keys[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= from && keys[j] > key)
+            {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(double[] keys, double[] values, int i, int j)
+    {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
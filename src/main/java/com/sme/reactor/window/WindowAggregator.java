@@ -0,0 +1,199 @@
+package com.sme.reactor.window;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Incremental aggregation of the values of a window into an accumulator of constant size.
+ *
+ * @param <T> The type of values;
+ * @param <A> The type of accumulator;
+ * @param <R> The type of result.
+ */
+public interface WindowAggregator<T, A, R>
+{
+    /**
+     * @return Returns the accumulator of an empty window.
+     */
+    A create();
+
+    /**
+     * Adds the value to the accumulator.
+     *
+     * @param accumulator The accumulator of the window;
+     * @param value The value;
+     * @return Returns the accumulator, the same one for mutable accumulators.
+     */
+    A add(A accumulator, T value);
+
+    /**
+     * Merges accumulators of session windows that an out-of-order value joined.
+     *
+     * @param left The accumulator of the earlier window;
+     * @param right The accumulator of the later window;
+     * @return Returns the merged accumulator.
+     */
+    A merge(A left, A right);
+
+    /**
+     * @param accumulator The accumulator of a closed window;
+     * @return Returns the result of the window.
+     */
+    R result(A accumulator);
+
+    /**
+     * @param <T> The type of values;
+     * @return Returns the aggregator of the number of values.
+     */
+    static <T> WindowAggregator<T, long[], Long> count()
+    {
+        return new WindowAggregator<T, long[], Long>()
+        {
+            @Override
+            public long[] create()
+            {
+                return new long[1];
+            }
+
+            @Override
+            public long[] add(long[] accumulator, T value)
+            {
+                accumulator[0]++;
+                return accumulator;
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right)
+            {
+                left[0] += right[0];
+                return left;
+            }
+
+            @Override
+            public Long result(long[] accumulator)
+            {
+                return accumulator[0];
+            }
+        };
+    }
+
+    /**
+     * @param metric The function of the metric of value;
+     * @param <T> The type of values;
+     * @return Returns the aggregator of count, sum, min and max of the metric.
+     */
+    static <T> WindowAggregator<T, NumericStats, NumericStats> stats(ToDoubleFunction<? super T> metric)
+    {
+        Validate.notNull(metric, "Metric is required");
+        return new WindowAggregator<T, NumericStats, NumericStats>()
+        {
+            @Override
+            public NumericStats create()
+            {
+                return new NumericStats();
+            }
+
+            @Override
+            public NumericStats add(NumericStats accumulator, T value)
+            {
+                accumulator.add(metric.applyAsDouble(value));
+                return accumulator;
+            }
+
+            @Override
+            public NumericStats merge(NumericStats left, NumericStats right)
+            {
+                left.merge(right);
+                return left;
+            }
+
+            @Override
+            public NumericStats result(NumericStats accumulator)
+            {
+                return accumulator;
+            }
+        };
+    }
+
+    /**
+     * @param metric The function of the metric of value;
+     * @param compression The compression of the digest, like 100, a larger one keeps more centroids and gives more precise quantiles;
+     * @param <T> The type of values;
+     * @return Returns the aggregator of quantiles of the metric.
+     */
+    static <T> WindowAggregator<T, TDigest, TDigest> quantiles(ToDoubleFunction<? super T> metric, double compression)
+    {
+        Validate.notNull(metric, "Metric is required");
+        Validate.isTrue(compression >= 10, "Compression should be 10 at least");
+        return new WindowAggregator<T, TDigest, TDigest>()
+        {
+            @Override
+            public TDigest create()
+            {
+                return new TDigest(compression);
+            }
+
+            @Override
+            public TDigest add(TDigest accumulator, T value)
+            {
+                accumulator.add(metric.applyAsDouble(value));
+                return accumulator;
+            }
+
+            @Override
+            public TDigest merge(TDigest left, TDigest right)
+            {
+                left.merge(right);
+                return left;
+            }
+
+            @Override
+            public TDigest result(TDigest accumulator)
+            {
+                return accumulator;
+            }
+        };
+    }
+
+    /**
+     * @param keyHasher The function to get 64-bit hash of the key of value, like {@link com.sme.reactor.distinct.ApproximateDistinct#hash64(CharSequence)};
+     * @param precision The number of bits of the register index, from 4 to 18, the standard error is {@code 1.04 / sqrt(2^precision)};
+     * @param <T> The type of values;
+     * @return Returns the aggregator of the approximate number of distinct keys.
+     */
+    static <T> WindowAggregator<T, HyperLogLog, HyperLogLog> distinctCount(ToLongFunction<? super T> keyHasher, int precision)
+    {
+        Validate.notNull(keyHasher, "Key hasher is required");
+        Validate.inclusiveBetween(HyperLogLog.MIN_PRECISION, HyperLogLog.MAX_PRECISION, precision, "Precision should be between 4 and 18");
+        return new WindowAggregator<T, HyperLogLog, HyperLogLog>()
+        {
+            @Override
+            public HyperLogLog create()
+            {
+                return new HyperLogLog(precision);
+            }
+
+            @Override
+            public HyperLogLog add(HyperLogLog accumulator, T value)
+            {
+                accumulator.add(keyHasher.applyAsLong(value));
+                return accumulator;
+            }
+
+            @Override
+            public HyperLogLog merge(HyperLogLog left, HyperLogLog right)
+            {
+                left.merge(right);
+                return left;
+            }
+
+            @Override
+            public HyperLogLog result(HyperLogLog accumulator)
+            {
+                return accumulator;
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.sme.reactor.window;
+
+/**
+ * Result of a closed event-time window.
+ *
+ * @param <R> The type of result.
+ */
+public final class WindowResult<R>
+{
+    private final long start;
+    private final long end;
+    private final long count;
+    private final R result;
+
+    WindowResult(long start, long end, long count, R result)
+    {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.result = result;
+    }
+
+    /**
+     * @return Returns the event time of the start of the window in milliseconds, inclusive.
+     */
+    public long getStart()
+    {
+        return start;
+    }
+
+    /**
+     * @return Returns the event time of the end of the window in milliseconds, exclusive.
+     */
+    public long getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * @return Returns the number of values in the window.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    public R getResult()
+    {
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WindowResult[" + start + ".." + end + ", count=" + count + ", result=" + result + "]";
+    }
+}
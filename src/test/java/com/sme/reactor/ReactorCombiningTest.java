@@ -1,16 +1,24 @@
 package com.sme.reactor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sme.reactor.blocking.BlockingCallDetectorExtension;
+import com.sme.reactor.latency.LatencySources;
+
 import reactor.core.publisher.Flux;
 
 /**
  * Unit tests of different Flux operations.
  */
+@ExtendWith(BlockingCallDetectorExtension.class)
 public class ReactorCombiningTest
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReactorCombiningTest.class);
@@ -76,6 +84,31 @@ public class ReactorCombiningTest
         assertEquals("HELLO REACTIVE WORLD!", result.toString());
     }
 
+    /**
+     * The same latencies as in {@link #testMerge()}, but sources wait on a timer instead of sleeping, so merge takes the max latency instead of the sum.
+     */
+    @Test
+    public void testMergeWithoutBlocking()
+    {
+        Flux<String> flux1 = LatencySources.delayed("Hello ", Duration.ofMillis(1000)).flux();
+        Flux<String> flux2 = LatencySources.delayed("reactive ", Duration.ofMillis(2000)).flux();
+        Flux<String> flux3 = Flux.just("world!");
+
+        long start = System.nanoTime();
+
+        String result = Flux.merge(flux1, flux2, flux3)
+                .map(String::toUpperCase)
+                .doOnNext(value -> LOGGER.debug("Prepard {} result", value))
+                .reduce("", String::concat)
+                .block();
+
+        long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        LOGGER.debug("Merged in {} ms", millis);
+
+        assertEquals("WORLD!HELLO REACTIVE ", result);
+        assertTrue(millis < 3000, "Expects max latency of 2000 ms rather than sum of 3000 ms, but took " + millis + " ms");
+    }
+
     @Test
     public void testConcat()
     {
@@ -13,9 +13,12 @@ import java.util.concurrent.CountDownLatch;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sme.reactor.blocking.BlockingCallDetectorExtension;
+
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -23,6 +26,7 @@ import reactor.core.publisher.Mono;
 /**
  * Unit tests to work with all consumers of subscriber.
  */
+@ExtendWith(BlockingCallDetectorExtension.class)
 public class ReactorCreatingTest
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReactorCreatingTest.class);
@@ -6,9 +6,12 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sme.reactor.blocking.BlockingCallDetectorExtension;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
 import reactor.core.scheduler.Scheduler;
@@ -21,6 +24,7 @@ import reactor.util.function.Tuples;
 /**
  * Unit tests to work with subscribeOn and publishOn schedulers.
  */
+@ExtendWith(BlockingCallDetectorExtension.class)
 public class ReactorPublishSubscribeOnTest
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReactorPublishSubscribeOnTest.class);
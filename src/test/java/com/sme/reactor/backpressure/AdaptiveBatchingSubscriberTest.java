@@ -0,0 +1,77 @@
+package com.sme.reactor.backpressure;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests of {@link AdaptiveBatchingSubscriber}.
+ */
+public class AdaptiveBatchingSubscriberTest
+{
+    @Test
+    void testRequestAheadBeforeBatchIsConsumed() throws Exception
+    {
+        List<Integer> list = new ArrayList<>();
+        List<Long> requests = new ArrayList<>();
+
+        AdaptiveBatchingSubscriber<Integer> subscriber = new AdaptiveBatchingSubscriber<>(list::add, 4, 4, 4, Duration.ofSeconds(1));
+
+        Flux.range(1, 10)
+                .doOnRequest(requests::add)
+                .subscribe(subscriber);
+
+        Integer[] expected = IntStream.range(1, 11).boxed().toArray(Integer[]::new);
+        assertEquals(asList(expected), list);
+        // 4 values requested first, then 3 values every time when the demand falls to 1
+        assertEquals(asList(4L, 3L, 3L, 3L), requests);
+        assertEquals(10, subscriber.getConsumed());
+        assertEquals(0, subscriber.getInFlight());
+        assertEquals(subscriber.getRequested() - subscriber.getConsumed(), subscriber.getDemand());
+    }
+
+    @Test
+    void testGrowBatchForFastConsumer() throws Exception
+    {
+        AdaptiveBatchingSubscriber<Integer> subscriber = new AdaptiveBatchingSubscriber<>(value ->
+        {
+        }, 8, 8, 512, Duration.ofMillis(10));
+
+        Flux.range(1, 10_000).subscribe(subscriber);
+
+        assertEquals(10_000, subscriber.getConsumed());
+        assertEquals(512, subscriber.getBatchSize());
+    }
+
+    @Test
+    void testShrinkBatchForSlowConsumer() throws Exception
+    {
+        AdaptiveBatchingSubscriber<Integer> subscriber = new AdaptiveBatchingSubscriber<>(value -> sleep(2), 64, 1, 64, Duration.ofMillis(4));
+
+        Flux.range(1, 100).subscribe(subscriber);
+
+        assertEquals(100, subscriber.getConsumed());
+        assertTrue(subscriber.getBatchSize() <= 2, "Expects batch of 2 values at most, but was " + subscriber.getBatchSize());
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.sme.reactor.batch;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link MicroBatching}.
+ */
+public class MicroBatchingTest
+{
+    @Test
+    public void testFlushBySize()
+    {
+        StepVerifier.create(Flux.range(1, 10).transform(MicroBatching.batch(4, Duration.ofHours(1))))
+                .expectNext(asList(1, 2, 3, 4), asList(5, 6, 7, 8), asList(9, 10))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testFlushByTime()
+    {
+        StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofSeconds(1))
+                .take(5)
+                .transform(MicroBatching.batch(10, Duration.ofMillis(2500), Schedulers.parallel())))
+                .thenAwait(Duration.ofSeconds(4))
+                .expectNext(asList(0L, 1L, 2L))
+                .thenAwait(Duration.ofSeconds(2))
+                .expectNext(asList(3L, 4L))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testRequestsUpstreamOnDemand()
+    {
+        AtomicLong requested = new AtomicLong();
+
+        StepVerifier.create(Flux.range(0, 1000)
+                .doOnRequest(requested::addAndGet)
+                .transform(MicroBatching.batch(10, Duration.ofHours(1))), 0)
+                .expectSubscription()
+                .then(() -> assertEquals(0, requested.get()))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .then(() -> assertEquals(20, requested.get(), "Expects a batch is requested per demand"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void testPooledBatchesAreRecycled()
+    {
+        BatchPool<Integer> pool = BatchPool.create(8, 4);
+        AtomicLong sum = new AtomicLong();
+
+        Flux.range(0, 100)
+                .transform(MicroBatching.pooled(pool, Duration.ofHours(1), Schedulers.parallel()))
+                .doOnNext(batch ->
+                {
+                    batch.forEach(sum::addAndGet);
+                    batch.release();
+                })
+                .blockLast();
+
+        assertEquals(4950, sum.get());
+        assertEquals(1, pool.getAllocated());
+        assertEquals(12, pool.getReused());
+        assertEquals(1, pool.getAvailable());
+    }
+
+    @Test
+    public void testAdaptiveBatchSize()
+    {
+        BatchPool<Integer> pool = BatchPool.create(512, 4);
+        List<Integer> sizes = new ArrayList<>();
+
+        Flux.range(0, 20_000)
+                .transform(MicroBatching.adaptive(pool, 4, Duration.ofHours(1), Duration.ofMillis(1), Schedulers.parallel()))
+                .doOnNext(batch ->
+                {
+                    sizes.add(batch.size());
+                    // About 10us per value, so 1ms is about 100 values
+                    spin(TimeUnit.MICROSECONDS.toNanos(10) * batch.size());
+                    batch.release();
+                })
+                .blockLast();
+
+        assertEquals(4, sizes.get(0).intValue());
+        int last = sizes.get(sizes.size() - 2);
+        assertTrue(last > 16 && last < 512, "Expects batch size adapted to the latency, but got " + last);
+        assertEquals(20_000, sizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testErrorAfterBufferedBatch()
+    {
+        StepVerifier.create(Flux.concat(Flux.range(1, 3), Flux.error(new IllegalStateException("Source failed")))
+                .transform(MicroBatching.batch(10, Duration.ofHours(1))))
+                .expectNext(asList(1, 2, 3))
+                .verifyError(IllegalStateException.class);
+    }
+
+    private static void spin(long nanos)
+    {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+    }
+}
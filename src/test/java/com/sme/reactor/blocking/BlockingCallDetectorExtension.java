@@ -0,0 +1,35 @@
+package com.sme.reactor.blocking;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+
+/**
+ * JUnit extension that fails a test if it runs a blocking call on {@code Schedulers.parallel()} or {@code Schedulers.single()} thread.
+ */
+public class BlockingCallDetectorExtension implements BeforeEachCallback, AfterEachCallback
+{
+    private static final Namespace NAMESPACE = Namespace.create(BlockingCallDetectorExtension.class);
+    private static final String DETECTOR = "detector";
+
+    @Override
+    public void beforeEach(ExtensionContext context)
+    {
+        context.getStore(NAMESPACE).put(DETECTOR, BlockingCallDetector.start());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context)
+    {
+        BlockingCallDetector detector = context.getStore(NAMESPACE).remove(DETECTOR, BlockingCallDetector.class);
+        detector.dispose();
+
+        List<BlockingCall> blockingCalls = detector.getBlockingCalls();
+        assertTrue(blockingCalls.isEmpty(), () -> context.getDisplayName() + " runs blocking calls on non-blocking threads: " + blockingCalls);
+    }
+}
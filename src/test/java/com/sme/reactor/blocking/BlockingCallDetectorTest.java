@@ -0,0 +1,145 @@
+package com.sme.reactor.blocking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link BlockingCallDetector}.
+ */
+public class BlockingCallDetectorTest
+{
+    @Test
+    public void testDetectSleepOnParallelThread()
+    {
+        BlockingCallDetector.trackAssembly();
+        BlockingCallDetector detector = BlockingCallDetector.start();
+        try
+        {
+            Flux.just("hello ")
+                    .publishOn(Schedulers.parallel())
+                    .doOnNext(value -> sleep(300))
+                    .blockLast(Duration.ofSeconds(5));
+        }
+        finally
+        {
+            detector.dispose();
+            BlockingCallDetector.resetAssemblyTracking();
+        }
+
+        List<BlockingCall> blockingCalls = detector.getBlockingCalls();
+        assertEquals(1, blockingCalls.size());
+        assertTrue(blockingCalls.get(0).getThreadName().startsWith("parallel-"));
+        assertEquals("sleep", blockingCalls.get(0).getBlockingFrame().getMethodName());
+        assertEquals(BlockingCallDetectorTest.class.getName(), blockingCalls.get(0).getCallerFrame().getClassName());
+        assertEquals("doOnNext", blockingCalls.get(0).getAssemblyTrace()[0].getMethodName());
+    }
+
+    @Test
+    public void testDetectLockWaitOnSingleThread() throws InterruptedException
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        BlockingCallDetector detector = BlockingCallDetector.start();
+        try
+        {
+            Flux.just("hello ")
+                    .publishOn(Schedulers.single())
+                    .subscribe(value -> await(latch));
+
+            Thread.sleep(300);
+            latch.countDown();
+        }
+        finally
+        {
+            detector.dispose();
+        }
+
+        List<BlockingCall> blockingCalls = detector.getBlockingCalls();
+        assertEquals(1, blockingCalls.size());
+        assertEquals(Thread.State.WAITING, blockingCalls.get(0).getState());
+    }
+
+    @Test
+    public void testIgnoreBlockingOnOtherThreads()
+    {
+        BlockingCallDetector detector = BlockingCallDetector.start();
+        try
+        {
+            Flux.just("hello ")
+                    .doOnNext(value -> sleep(300))
+                    .publishOn(Schedulers.parallel())
+                    .blockLast(Duration.ofSeconds(5));
+        }
+        finally
+        {
+            detector.dispose();
+        }
+
+        assertTrue(detector.getBlockingCalls().isEmpty(), "Expects sleep on main thread is allowed");
+    }
+
+    @Test
+    public void testInterruptBlockingCall()
+    {
+        Hooks.onOperatorDebug();
+        BlockingCallDetector.trackAssembly();
+        BlockingCallDetector detector = BlockingCallDetector.start(BlockingCallDetector.threadNamePrefixes("parallel-"), Duration.ofMillis(10), 2, true);
+        try
+        {
+            StepVerifier.create(Flux.just("hello ")
+                    .publishOn(Schedulers.parallel())
+                    .doOnNext(value -> sleep(10_000)))
+                    .expectErrorMatches(throwable -> throwable.getCause() instanceof InterruptedException
+                            && Arrays.stream(throwable.getSuppressed()).anyMatch(suppressed -> suppressed.getMessage().contains("Flux.doOnNext")))
+                    .verify(Duration.ofSeconds(5));
+        }
+        finally
+        {
+            detector.dispose();
+            BlockingCallDetector.resetAssemblyTracking();
+            Hooks.resetOnOperatorDebug();
+        }
+
+        List<BlockingCall> blockingCalls = detector.getBlockingCalls();
+        assertEquals(1, blockingCalls.size());
+        StackTraceElement[] assemblyTrace = blockingCalls.get(0).getAssemblyTrace();
+        assertEquals("doOnNext", assemblyTrace[0].getMethodName());
+        assertEquals(BlockingCallDetectorTest.class.getName(), assemblyTrace[1].getClassName());
+        assertEquals("testInterruptBlockingCall", assemblyTrace[1].getMethodName());
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.sme.reactor.bridge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import com.sme.reactor.bridge.FluxBridge.Overflow;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link FluxBridge}.
+ */
+public class FluxBridgeTest
+{
+    private static final int PRODUCERS = 4;
+    private static final int SIZE = 10_000;
+
+    @Test
+    public void testProducersKeepOrder() throws InterruptedException
+    {
+        FluxBridge<int[]> bridge = FluxBridge.create(64, Overflow.BLOCK);
+        Mono<List<int[]>> result = bridge.flux().collectList().cache();
+        result.subscribe();
+
+        List<Thread> producers = IntStream.range(0, PRODUCERS)
+                .mapToObj(producer -> new Thread(() -> IntStream.range(0, SIZE).forEach(i -> bridge.next(new int[] {producer, i}))))
+                .collect(Collectors.toList());
+        producers.forEach(Thread::start);
+        for (Thread producer : producers)
+        {
+            producer.join();
+        }
+        bridge.complete();
+
+        List<int[]> values = result.block(Duration.ofSeconds(30));
+        assertEquals(PRODUCERS * SIZE, values.size());
+        for (int producer = 0; producer < PRODUCERS; producer++)
+        {
+            int p = producer;
+            List<Integer> sequence = values.stream().filter(value -> value[0] == p).map(value -> value[1]).collect(Collectors.toList());
+            assertEquals(IntStream.range(0, SIZE).boxed().collect(Collectors.toList()), sequence);
+        }
+        assertEquals(PRODUCERS * SIZE, bridge.getOffered());
+        assertEquals(0, bridge.getDropped());
+    }
+
+    @Test
+    public void testDropWhenFull()
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.DROP);
+
+        List<Boolean> accepted = IntStream.rangeClosed(1, 20).mapToObj(bridge::next).collect(Collectors.toList());
+        bridge.complete();
+
+        assertEquals(8, accepted.stream().filter(Boolean::booleanValue).count());
+        assertEquals(12, bridge.getDropped());
+        StepVerifier.create(bridge.flux()).expectNext(1, 2, 3, 4, 5, 6, 7, 8).verifyComplete();
+    }
+
+    @Test
+    public void testLatestWhenFull()
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.LATEST);
+
+        IntStream.rangeClosed(1, 20).forEach(bridge::next);
+        bridge.complete();
+
+        assertEquals(9, bridge.getSize());
+        assertEquals(11, bridge.getDropped());
+        StepVerifier.create(bridge.flux()).expectNext(1, 2, 3, 4, 5, 6, 7, 8, 20).verifyComplete();
+    }
+
+    @Test
+    public void testBlockedProducerResumesOnDemand() throws InterruptedException
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(4, Overflow.BLOCK);
+        Thread producer = new Thread(() ->
+        {
+            IntStream.range(0, 100).forEach(bridge::next);
+            bridge.complete();
+        });
+        producer.start();
+
+        // The producer parks until there is a subscriber
+        while (bridge.getParks() == 0)
+        {
+            Thread.sleep(1);
+        }
+        List<Integer> values = bridge.flux().collectList().block(Duration.ofSeconds(10));
+        producer.join();
+
+        assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), values);
+    }
+
+    @Test
+    public void testCancelReleasesBlockedProducer() throws InterruptedException
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(4, Overflow.BLOCK);
+        List<Integer> values = new ArrayList<>();
+        AtomicBoolean rejected = new AtomicBoolean();
+        Thread producer = new Thread(() -> rejected.set(!IntStream.range(0, 100).allMatch(bridge::next)));
+        producer.start();
+
+        Disposable subscription = bridge.flux().take(2).subscribe(values::add);
+        producer.join(10_000);
+
+        assertFalse(producer.isAlive());
+        assertTrue(rejected.get());
+        assertTrue(subscription.isDisposed());
+        assertEquals(Arrays.asList(0, 1), values);
+    }
+
+    @Test
+    public void testErrorAfterValues()
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.DROP);
+        bridge.next(1);
+        bridge.error(new IllegalStateException("Feed is down"));
+
+        assertFalse(bridge.next(2));
+        StepVerifier.create(bridge.flux()).expectNext(1).verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testFirstTerminationWins()
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.DROP);
+        bridge.next(1);
+        bridge.complete();
+        bridge.error(new IllegalStateException("Feed is down"));
+
+        StepVerifier.create(bridge.flux()).expectNext(1).verifyComplete();
+    }
+
+    @Test
+    public void testNoSignalsBeforeOnSubscribeReturns()
+    {
+        // The immediate scheduler drains on the terminating thread, here it is inside onSubscribe
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.DROP, Schedulers.immediate());
+        AtomicBoolean subscribed = new AtomicBoolean();
+        List<String> signals = new ArrayList<>();
+
+        bridge.flux().subscribe(new BaseSubscriber<Integer>()
+        {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription)
+            {
+                requestUnbounded();
+                bridge.next(1);
+                bridge.complete();
+                subscribed.set(true);
+            }
+
+            @Override
+            protected void hookOnNext(Integer value)
+            {
+                signals.add("onNext " + value + " subscribed=" + subscribed.get());
+            }
+
+            @Override
+            protected void hookOnComplete()
+            {
+                signals.add("onComplete subscribed=" + subscribed.get());
+            }
+        });
+
+        assertEquals(Arrays.asList("onNext 1 subscribed=true", "onComplete subscribed=true"), signals);
+    }
+
+    @Test
+    public void testSingleSubscriber()
+    {
+        FluxBridge<Integer> bridge = FluxBridge.create(8, Overflow.DROP);
+        bridge.flux().subscribe();
+
+        StepVerifier.create(bridge.flux()).verifyError(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.sme.reactor.bridge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests of {@link FluxIterator}.
+ */
+public class FluxIteratorTest
+{
+    @Test
+    public void testPrefetchInBatches()
+    {
+        AtomicLong maxRequest = new AtomicLong();
+        List<Integer> values = new ArrayList<>();
+
+        try (FluxIterator<Integer> iterator = FluxIterator.create(Flux.range(0, 1000).doOnRequest(n -> maxRequest.accumulateAndGet(n, Math::max)), 16))
+        {
+            iterator.forEachRemaining(values::add);
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+
+        assertEquals(IntStream.range(0, 1000).boxed().collect(Collectors.toList()), values);
+        assertEquals(16, maxRequest.get());
+    }
+
+    @Test
+    public void testAsyncSource()
+    {
+        List<Integer> values = new ArrayList<>();
+
+        try (FluxIterator<Integer> iterator = FluxIterator.create(Flux.range(0, 10_000).publishOn(Schedulers.parallel()), 64))
+        {
+            iterator.forEachRemaining(values::add);
+        }
+
+        assertEquals(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()), values);
+    }
+
+    @Test
+    public void testErrorAfterValues()
+    {
+        FluxIterator<Integer> iterator = FluxIterator.create(Flux.just(1, 2).concatWith(Flux.error(new IllegalStateException("Boom"))), 8);
+
+        assertEquals(1, iterator.next().intValue());
+        assertEquals(2, iterator.next().intValue());
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+
+    @Test
+    public void testCloseCancels()
+    {
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        try (FluxIterator<Long> iterator = FluxIterator.create(Flux.interval(Duration.ofMillis(1)).doOnCancel(() -> cancelled.set(true)), 4))
+        {
+            assertEquals(0L, iterator.next().longValue());
+            assertEquals(1L, iterator.next().longValue());
+        }
+
+        assertTrue(cancelled.get());
+    }
+}
@@ -0,0 +1,183 @@
+package com.sme.reactor.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sme.reactor.cache.ReactiveCache.Eviction;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link ReactiveCache}.
+ */
+public class ReactiveCacheTest
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveCacheTest.class);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Function<Integer, Mono<String>> loader = key -> Mono.fromCallable(() ->
+    {
+        calls.incrementAndGet();
+        return "value" + key;
+    });
+
+    private ReactiveCache<Integer, String> cache;
+
+    @AfterEach
+    public void tearDown()
+    {
+        LOGGER.debug("{}", cache);
+        cache.dispose();
+    }
+
+    @Test
+    public void testHitsAndMisses()
+    {
+        cache = ReactiveCache.create(10, Duration.ofMinutes(1), Eviction.LRU, Schedulers.single());
+
+        StepVerifier.create(cache.get(1, loader)).expectNext("value1").verifyComplete();
+        StepVerifier.create(cache.get(1, loader)).expectNext("value1").verifyComplete();
+        StepVerifier.create(cache.get(2, loader)).expectNext("value2").verifyComplete();
+
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getLoads());
+        assertEquals(1d / 3, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testSwitchMapPipeline()
+    {
+        cache = ReactiveCache.create(10, Duration.ofMinutes(1), Eviction.TINY_LFU, Schedulers.single());
+        StringBuilder result = new StringBuilder("");
+
+        Flux.just(12, 3, 40, 4, 50, 1)
+                .switchMap(value -> cache.get(value >= 10 ? value / 10 : value, key -> Mono.fromCallable(() ->
+                {
+                    calls.incrementAndGet();
+                    return String.valueOf(key);
+                })))
+                .map(v -> v + ",")
+                .subscribe(result::append);
+
+        assertEquals("1,3,4,4,5,1,", result.toString());
+        assertEquals(4, calls.get());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testCoalescesConcurrentMisses()
+    {
+        cache = ReactiveCache.create(10, Duration.ofMinutes(1), Eviction.LRU, Schedulers.single());
+        Function<Integer, Mono<String>> slowLoader = key -> Mono.delay(Duration.ofMillis(100)).then(loader.apply(key));
+
+        StepVerifier.create(Flux.range(0, 20)
+                .flatMap(i -> cache.get(i % 2, slowLoader))
+                .collectList())
+                .expectNextMatches(values -> values.size() == 20)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.getLoads());
+        assertEquals(18, cache.getCoalesced());
+        assertTrue(cache.getMeanLoadNanos() >= Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    public void testExpiration()
+    {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        cache = ReactiveCache.create(10, Duration.ofMinutes(1), Eviction.LRU, timer);
+
+        cache.get(1, loader).block();
+        timer.advanceTimeBy(Duration.ofSeconds(30));
+        cache.get(1, loader).block();
+        assertEquals(1, calls.get());
+
+        timer.advanceTimeBy(Duration.ofSeconds(31));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+
+        cache.get(1, loader).block();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testLruEviction()
+    {
+        cache = ReactiveCache.create(2, Duration.ofMinutes(1), Eviction.LRU, Schedulers.single());
+
+        cache.get(1, loader).block();
+        cache.get(2, loader).block();
+        cache.get(1, loader).block();
+        cache.get(3, loader).block();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        cache.get(1, loader).block();
+        assertEquals(3, calls.get(), "Expects the recently used key is kept");
+        cache.get(2, loader).block();
+        assertEquals(4, calls.get(), "Expects the least recently used key is evicted");
+    }
+
+    @Test
+    public void testTinyLfuResistsScan()
+    {
+        assertTrue(hotHitRate(Eviction.TINY_LFU) > 0.9, "Expects hot keys survive the scan");
+        cache.dispose();
+        assertTrue(hotHitRate(Eviction.LRU) < 0.1, "Expects the scan flushes LRU");
+    }
+
+    @Test
+    public void testErrorsAreNotCached()
+    {
+        cache = ReactiveCache.create(10, Duration.ofMinutes(1), Eviction.LRU, Schedulers.single());
+        Function<Integer, Mono<String>> failOnce = key -> calls.getAndIncrement() == 0 ? Mono.error(new IllegalStateException("Lookup failed")) : Mono.just("value" + key);
+
+        StepVerifier.create(cache.get(1, failOnce)).verifyError(IllegalStateException.class);
+        StepVerifier.create(cache.get(1, failOnce)).expectNext("value1").verifyComplete();
+
+        assertEquals(1, cache.getLoadFailures());
+        assertEquals(2, cache.getLoads());
+    }
+
+    private double hotHitRate(Eviction eviction)
+    {
+        cache = ReactiveCache.create(100, Duration.ofMinutes(1), eviction, Schedulers.single());
+
+        for (int round = 0; round < 10; round++)
+        {
+            for (int key = 0; key < 50; key++)
+            {
+                cache.get(key, loader).block();
+            }
+        }
+        for (int key = 1000; key < 2000; key++)
+        {
+            cache.get(key, loader).block();
+        }
+
+        long hits = cache.getHits();
+        for (int key = 0; key < 50; key++)
+        {
+            cache.get(key, loader).block();
+        }
+        return (cache.getHits() - hits) / 50d;
+    }
+}
@@ -0,0 +1,126 @@
+package com.sme.reactor.combining;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link ArrayZip}.
+ */
+public class ArrayZipTest
+{
+    @Test
+    public void testZip()
+    {
+        List<Flux<String>> sources = asList(Flux.just("hello "), Flux.just("reactive "), Flux.just("world"), Flux.just("!"));
+
+        StepVerifier.create(ArrayZip.zip(sources, values -> String.join("", values).toUpperCase()))
+                .expectNext("HELLO REACTIVE WORLD!")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testCompletesWithShortestSource()
+    {
+        List<Flux<Integer>> sources = asList(Flux.range(0, 10), Flux.range(100, 3), Flux.range(1000, 5));
+
+        StepVerifier.create(ArrayZip.zip(sources, ArrayZipTest::sum))
+                .expectNext(1100, 1103, 1106)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testBackpressureWithPrefetchPerSource()
+    {
+        List<Flux<Integer>> sources = asList(Flux.range(0, 100), Flux.range(0, 100));
+
+        StepVerifier.create(ArrayZip.zip(sources, new int[] {1, 64}, ArrayZipTest::sum), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(2)
+                .expectNext(0, 2)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(98)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testAsyncSources()
+    {
+        List<Flux<Integer>> sources = asList(
+                Flux.range(0, 10_000).publishOn(Schedulers.parallel()),
+                Flux.range(0, 10_000).subscribeOn(Schedulers.elastic()),
+                Flux.range(0, 10_000));
+
+        StepVerifier.create(ArrayZip.zip(sources, 16, values -> values.get(0).equals(values.get(1)) && values.get(1).equals(values.get(2)))
+                .reduce(0, (count, sameIndex) -> sameIndex ? count + 1 : count))
+                .expectNext(10_000)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testBatches()
+    {
+        List<Flux<Integer>> sources = asList(Flux.range(0, 10), Flux.range(0, 10));
+
+        StepVerifier.create(ArrayZip.zipBatches(sources, 4, 8, ArrayZipTest::sum), 1)
+                .expectNext(asList(0, 2, 4, 6))
+                .thenRequest(2)
+                .expectNext(asList(8, 10, 12, 14))
+                .expectNext(asList(16, 18))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testZipWith()
+    {
+        List<Publisher<String>> others = asList(Flux.just("b", "b"), Flux.just("c", "c", "c"));
+
+        StepVerifier.create(Flux.just("a1", "a2", "a3").transform(ArrayZip.zipWith(others, values -> String.join("", values))))
+                .expectNext("a1bc", "a2bc")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testErrors()
+    {
+        List<Flux<Integer>> sources = asList(Flux.range(0, 10), Flux.concat(Flux.range(0, 2), Flux.error(new IllegalStateException("Source failed"))));
+        StepVerifier.create(ArrayZip.zip(sources, ArrayZipTest::sum))
+                .expectNext(0, 2)
+                .verifyError(IllegalStateException.class);
+
+        List<Flux<Integer>> failingCombiner = asList(Flux.range(0, 10), Flux.range(0, 10));
+        StepVerifier.create(ArrayZip.zip(failingCombiner, values -> 10 / values.get(0)))
+                .verifyError(ArithmeticException.class);
+    }
+
+    @Test
+    public void testEmptySources()
+    {
+        StepVerifier.create(ArrayZip.zip(asList(), values -> values))
+                .verifyComplete();
+
+        assertThrows(IllegalArgumentException.class, () -> ArrayZip.zip(asList(Flux.just(1)), 0, values -> values));
+    }
+
+    private static int sum(List<Integer> values)
+    {
+        int sum = 0;
+        for (int i = 0; i < values.size(); i++)
+        {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+}
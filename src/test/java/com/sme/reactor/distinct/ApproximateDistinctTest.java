@@ -0,0 +1,155 @@
+package com.sme.reactor.distinct;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link ApproximateDistinct} operators.
+ */
+public class ApproximateDistinctTest
+{
+    @Test
+    public void testDistinctLongs()
+    {
+        List<Long> list = new ArrayList<>();
+
+        Flux.just(7L, 5L, 1L, 2L, 3L, 4L, 4L, 5L, 5L, 8L, 6L, 7L, 7L)
+                .transform(ApproximateDistinct.distinctLongs(new RotatingBloomFilter(1000, 0.01)))
+                .subscribe(list::add);
+
+        assertEquals(Arrays.asList(7L, 5L, 1L, 2L, 3L, 4L, 8L, 6L), list);
+    }
+
+    @Test
+    public void testDistinctStrings()
+    {
+        List<String> list = new ArrayList<>();
+
+        Flux.just("hello ", "reactive ", "hello ", "world", "world")
+                .transform(ApproximateDistinct.distinct(new RotatingBloomFilter(1000, 0.01), ApproximateDistinct::hash64))
+                .subscribe(list::add);
+
+        assertEquals(Arrays.asList("hello ", "reactive ", "world"), list);
+    }
+
+    /**
+     * Interval never finishes, so the filter must forget old keys instead of growing.
+     */
+    @Test
+    public void testDistinctInterval()
+    {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100, 0.01);
+
+        StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofSeconds(1))
+                .map(value -> value % 1000)
+                .transform(ApproximateDistinct.distinctLongs(filter))
+                .take(2000))
+                .thenAwait(Duration.ofSeconds(3000))
+                .expectNextCount(2000)
+                .expectComplete()
+                .verify();
+
+        assertTrue(filter.getRotations() >= 19, "Expects a rotation per 100 keys");
+        assertTrue(filter.getDuplicates() < 40, "Expects keys repeated after 1000 values are forgotten");
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100_000, 0.01);
+
+        for (long key = 0; key < 99_999; key++)
+        {
+            filter.add(key);
+        }
+
+        long falsePositives = 0;
+        for (long key = 1_000_000; key < 1_100_000; key++)
+        {
+            if (filter.mightContain(key))
+            {
+                falsePositives++;
+            }
+        }
+
+        assertEquals(0, filter.getRotations());
+        assertTrue(falsePositives < 1000, "Expects 1% false positives at most, but was " + falsePositives);
+        assertTrue(filter.estimatedFalsePositiveRate() < 0.01, "Expects estimated rate below 1%");
+        assertTrue(filter.fillRatio() > 0.4 && filter.fillRatio() < 0.6, "Expects a half of bits set in full generation");
+    }
+
+    @Test
+    public void testSharedFilterIsLockFree() throws InterruptedException
+    {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000_000, 0.01);
+
+        Flux.range(0, 4)
+                .parallel(4)
+                .runOn(Schedulers.parallel())
+                .map(thread ->
+                {
+                    for (long key = thread * 100_000L; key < (thread + 1) * 100_000L; key++)
+                    {
+                        filter.add(key);
+                    }
+                    return thread;
+                })
+                .sequential()
+                .blockLast(Duration.ofSeconds(30));
+
+        for (long key = 0; key < 400_000; key++)
+        {
+            assertTrue(filter.mightContain(key), "Expects no false negatives");
+        }
+        assertTrue(filter.getAdded() > 400_000 * 0.99, "Expects almost all keys taken as new");
+    }
+
+    @Test
+    public void testConcurrentAddsRotateOncePerGeneration() throws Exception
+    {
+        long keysPerGeneration = 50_000;
+        RotatingBloomFilter filter = new RotatingBloomFilter(keysPerGeneration, 0.01);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++)
+            {
+                long from = thread * 100_000L;
+                futures.add(executor.submit(() ->
+                {
+                    for (long key = from; key < from + 100_000L; key++)
+                    {
+                        filter.add(key);
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertTrue(filter.getRotations() <= filter.getAdded() / keysPerGeneration + 1, "Expects a rotation per full generation, but got " + filter.getRotations() + " rotations of " + filter.getAdded() + " keys");
+    }
+}
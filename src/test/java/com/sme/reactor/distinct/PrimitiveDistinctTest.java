@@ -0,0 +1,129 @@
+package com.sme.reactor.distinct;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link PrimitiveDistinct} operators.
+ */
+public class PrimitiveDistinctTest
+{
+    @Test
+    public void testDistinctInts()
+    {
+        List<Integer> list = new ArrayList<>();
+
+        Flux.just(7, 5, 1, 2, 3, 4, 4, 5, 5, 8, 6, 7, 7, 0, 0)
+                .transform(PrimitiveDistinct.distinctInts())
+                .subscribe(list::add);
+
+        assertEquals(Arrays.asList(7, 5, 1, 2, 3, 4, 8, 6, 0), list);
+    }
+
+    @Test
+    public void testDistinctLongsByKey()
+    {
+        List<String> list = new ArrayList<>();
+
+        Flux.just("hello ", "reactive ", "world", "hello ", "!")
+                .transform(PrimitiveDistinct.distinctLongs(String::length))
+                .subscribe(list::add);
+
+        assertEquals(Arrays.asList("hello ", "reactive ", "world", "!"), list);
+    }
+
+    @Test
+    public void testDistinctPerSubscription()
+    {
+        Flux<Integer> flux = Flux.just(1, 1, 2)
+                .transform(PrimitiveDistinct.distinctInts());
+
+        assertEquals(Arrays.asList(1, 2), flux.collectList().block());
+        assertEquals(Arrays.asList(1, 2), flux.collectList().block());
+    }
+
+    @Test
+    public void testDistinctWithinLastKeys()
+    {
+        List<Integer> list = new ArrayList<>();
+
+        Flux.just(1, 2, 1, 3, 4, 1, 4)
+                .transform(PrimitiveDistinct.distinctInts(Integer::intValue, 2))
+                .subscribe(list::add);
+
+        // 1 is forgotten when 3 and 4 pass
+        assertEquals(Arrays.asList(1, 2, 3, 4, 1), list);
+    }
+
+    @Test
+    public void testDistinctWithinTimeWindow()
+    {
+        VirtualTimeScheduler clock = VirtualTimeScheduler.create();
+        List<Long> list = new ArrayList<>();
+
+        Flux.just(1L, 2L, 1L, 2L, 1L)
+                .doOnNext(value -> clock.advanceTimeBy(Duration.ofSeconds(1)))
+                .transform(PrimitiveDistinct.distinctLongs(Long::longValue, 100, Duration.ofMillis(2500), clock))
+                .subscribe(list::add);
+
+        // 1 passed at 1s is forgotten at 3.5s
+        assertEquals(Arrays.asList(1L, 2L, 1L), list);
+    }
+
+    @Test
+    public void testLongHashSetAgainstHashSet()
+    {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++)
+        {
+            long key = random.nextInt(1000) - 500;
+            if (random.nextBoolean())
+            {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            else
+            {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (long key = -500; key < 500; key++)
+        {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+
+    @Test
+    public void testIntHashSetGrows()
+    {
+        IntHashSet set = new IntHashSet();
+
+        for (int key = 0; key < 10_000; key++)
+        {
+            set.add(key * 31);
+        }
+
+        assertEquals(10_000, set.size());
+        assertEquals(32_768, set.capacity());
+        for (int key = 0; key < 10_000; key++)
+        {
+            assertEquals(true, set.contains(key * 31));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.sme.reactor.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import com.sme.reactor.eventbus.EventBus.Overflow;
+import com.sme.reactor.eventbus.EventBus.SubscriberLag;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link EventBus}.
+ */
+public class EventBusTest
+{
+    @Test
+    public void testMulticastToCurrentSubscribers()
+    {
+        EventBus<Integer> bus = EventBus.create(8, Overflow.DROP, Schedulers.immediate());
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+
+        bus.flux("first").subscribe(first::add);
+        bus.publish(1);
+        bus.flux("second").subscribe(second::add);
+        bus.connect(Flux.range(2, 3));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), first);
+        assertEquals(Arrays.asList(2, 3, 4), second);
+        assertEquals(4, bus.getPublished());
+        assertEquals(0, bus.getSubscriberCount());
+
+        // Subscribers after completion complete at once
+        StepVerifier.create(bus.flux("late")).expectComplete().verify();
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotStallOthers()
+    {
+        EventBus<Integer> bus = EventBus.create(8, Overflow.DROP, Schedulers.immediate());
+        List<Integer> fast = new ArrayList<>();
+        PausedSubscriber slow = new PausedSubscriber();
+
+        bus.flux("fast").subscribe(fast::add);
+        bus.flux("slow").subscribe(slow);
+        publish(bus, 100);
+
+        assertEquals(100, fast.size());
+        assertEquals(Arrays.asList("fast#1[pending=0, delivered=100, dropped=0]", "slow#2[pending=8, delivered=0, dropped=92]"),
+                bus.getLags().stream().map(SubscriberLag::toString).collect(Collectors.toList()));
+
+        slow.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), slow.values);
+    }
+
+    @Test
+    public void testSlowSubscriberSamplesLatest()
+    {
+        EventBus<Integer> bus = EventBus.create(8, Overflow.LATEST, Schedulers.immediate());
+        PausedSubscriber slow = new PausedSubscriber();
+
+        bus.flux("slow").subscribe(slow);
+        publish(bus, 20);
+        assertEquals(9, bus.getLags().get(0).getPending());
+        assertEquals(11, bus.getLags().get(0).getDropped());
+
+        slow.request(Long.MAX_VALUE);
+        bus.publish(21);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 20, 21), slow.values);
+    }
+
+    @Test
+    public void testSlowSubscriberIsDisconnected()
+    {
+        EventBus<Integer> bus = EventBus.create(8, Overflow.DISCONNECT, Schedulers.immediate());
+        List<Integer> fast = new ArrayList<>();
+        bus.flux("fast").subscribe(fast::add);
+
+        StepVerifier.create(bus.flux("slow"), 0)
+                .expectSubscription()
+                .then(() -> publish(bus, 10))
+                .thenRequest(10)
+                .expectNext(1, 2, 3, 4, 5, 6, 7, 8)
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(10, fast.size());
+        assertEquals(1, bus.getSubscriberCount());
+    }
+
+    @Test
+    public void testSlowOnNextDoesNotBlockPublisher() throws InterruptedException
+    {
+        Scheduler scheduler = Schedulers.newElastic("bus");
+        try
+        {
+            EventBus<Integer> bus = EventBus.create(128, Overflow.DROP, scheduler);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch slowDone = new CountDownLatch(1);
+            CountDownLatch fastDone = new CountDownLatch(1);
+            List<Integer> slow = new ArrayList<>();
+            List<Integer> fast = new ArrayList<>();
+
+            // The slow subscriber has unbounded demand and blocks in onNext until released
+            bus.flux("slow").subscribe(value ->
+            {
+                awaitUninterruptibly(release);
+                slow.add(value);
+            }, e -> slowDone.countDown(), slowDone::countDown);
+            bus.flux("fast").subscribe(fast::add, e -> fastDone.countDown(), fastDone::countDown);
+
+            publish(bus, 100);
+            bus.complete();
+
+            assertTrue(fastDone.await(5, TimeUnit.SECONDS), "Expects the fast subscriber to complete while the slow one is blocked");
+            assertEquals(100, fast.size());
+            assertEquals(0, slow.size());
+
+            release.countDown();
+            assertTrue(slowDone.await(5, TimeUnit.SECONDS), "Expects the slow subscriber to catch up");
+            assertEquals(100, slow.size());
+        }
+        finally
+        {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testUnboundedQueueCapacityIsRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> EventBus.create(20_000_000, Overflow.DROP, Schedulers.immediate()));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void publish(EventBus<Integer> bus, int count)
+    {
+        IntStream.rangeClosed(1, count).forEach(bus::publish);
+    }
+
+    /**
+     * Subscriber that requests nothing until asked to.
+     */
+    private static final class PausedSubscriber extends BaseSubscriber<Integer>
+    {
+        private final List<Integer> values = new ArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription)
+        {
+        }
+
+        @Override
+        protected void hookOnNext(Integer value)
+        {
+            values.add(value);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.sme.reactor.eventlog;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sme.reactor.spill.SpillCodec;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link EventLog}.
+ */
+public class EventLogTest
+{
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private Scheduler writer;
+    private List<String> events;
+
+    @BeforeEach
+    public void setUp()
+    {
+        writer = Schedulers.newSingle("event-log-writer");
+        events = IntStream.range(0, 1000)
+                .mapToObj(i -> "event " + i)
+                .collect(toList());
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        writer.dispose();
+    }
+
+    @Test
+    public void testAppendAndReadFromOffset() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+
+        StepVerifier.create(log.appendAll(Flux.fromIterable(events)).collectList())
+                .expectNext(LongStream.range(0, 1000).boxed().collect(toList()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        assertEquals(1000, log.getEndOffset());
+        assertTrue(log.getSegmentCount() > 1, "Expects records across segments");
+        assertTrue(log.getCommits() <= log.getAppended());
+
+        StepVerifier.create(log.read(0).map(LogRecord::getValue).collectList())
+                .expectNext(events)
+                .verifyComplete();
+
+        StepVerifier.create(log.read(777).take(2).map(LogRecord::toString))
+                .expectNext("777:event 777", "778:event 778")
+                .verifyComplete();
+
+        log.dispose();
+    }
+
+    @Test
+    public void testResumeAfterReopen() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        log.appendAll(Flux.fromIterable(events)).blockLast(Duration.ofSeconds(10));
+        log.dispose();
+
+        EventLog<String> reopened = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        assertEquals(1000, reopened.getEndOffset());
+        assertEquals(0, reopened.getStartOffset());
+
+        StepVerifier.create(reopened.append("event 1000"))
+                .expectNext(1000L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        StepVerifier.create(reopened.read(998).map(LogRecord::getValue))
+                .expectNext("event 998", "event 999", "event 1000")
+                .verifyComplete();
+
+        reopened.dispose();
+    }
+
+    @Test
+    public void testTailWaitsForNewRecords() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        log.append("first").block(Duration.ofSeconds(10));
+
+        StepVerifier.create(log.tail(0, Schedulers.elastic()).map(LogRecord::getValue).take(3))
+                .expectNext("first")
+                .then(() -> log.append("second").block(Duration.ofSeconds(10)))
+                .expectNext("second")
+                .then(() -> log.append("third").block(Duration.ofSeconds(10)))
+                .expectNext("third")
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        StepVerifier.create(log.tail(3, Schedulers.elastic()))
+                .then(log::dispose)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testEmptyEventSurvivesReopen() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        log.appendAll(Flux.just("first", "", "third")).blockLast(Duration.ofSeconds(10));
+        log.dispose();
+
+        EventLog<String> reopened = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        assertEquals(3, reopened.getEndOffset());
+        StepVerifier.create(reopened.read(0).map(LogRecord::getValue))
+                .expectNext("first", "", "third")
+                .verifyComplete();
+
+        reopened.dispose();
+    }
+
+    @Test
+    public void testTornRecordDoesNotResurrect() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        log.appendAll(Flux.just("aaa", "bbb", "ccc")).blockLast(Duration.ofSeconds(10));
+        log.dispose();
+
+        // Breaks the checksum of the second record, the third one stays valid behind it
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.log", 0)), StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] {'x'}), LogSegment.HEADER_SIZE * 2 + 3);
+        }
+
+        EventLog<String> recovered = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        assertEquals(1, recovered.getEndOffset());
+        recovered.append("ddd").block(Duration.ofSeconds(10));
+        recovered.dispose();
+
+        // The new record of the same size ends where the old third one started
+        EventLog<String> reopened = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        assertEquals(2, reopened.getEndOffset());
+        StepVerifier.create(reopened.read(0).map(LogRecord::getValue))
+                .expectNext("aaa", "ddd")
+                .verifyComplete();
+
+        reopened.dispose();
+    }
+
+    @Test
+    public void testAppendAfterDisposeFails() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        log.dispose();
+
+        StepVerifier.create(log.append("late"))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testRejectsEventLargerThanSegment() throws IOException
+    {
+        EventLog<String> log = EventLog.open(directory, SpillCodec.utf8(), SEGMENT_SIZE, 64, writer);
+        StringBuilder large = new StringBuilder();
+        while (large.length() < SEGMENT_SIZE)
+        {
+            large.append("large event ");
+        }
+
+        StepVerifier.create(log.append(large.toString()))
+                .expectError(IllegalArgumentException.class)
+                .verify(Duration.ofSeconds(10));
+
+        assertEquals(0, log.getEndOffset());
+        log.dispose();
+    }
+}
@@ -0,0 +1,137 @@
+package com.sme.reactor.file;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link MappedFiles}.
+ */
+public class MappedFilesTest
+{
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private List<String> lines;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        file = directory.resolve("lines.txt");
+        lines = IntStream.range(0, 1000)
+                .mapToObj(i -> "line " + i + " of reactive file")
+                .collect(toList());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLines()
+    {
+        StepVerifier.create(MappedFiles.lines(file).collectList())
+                .expectNext(lines)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testLinesAcrossRegions()
+    {
+        StepVerifier.create(MappedFiles.lineBuffers(file, 100)
+                .map(line -> StandardCharsets.UTF_8.decode(line).toString())
+                .collectList())
+                .expectNext(lines)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testLineLongerThanRegion()
+    {
+        StepVerifier.create(MappedFiles.lineBuffers(file, 16))
+                .verifyError(IOException.class);
+    }
+
+    @Test
+    public void testChunks() throws IOException
+    {
+        byte[] expected = Files.readAllBytes(file);
+
+        StepVerifier.create(MappedFiles.chunks(file, 7, 64)
+                .reduce(ByteBuffer.allocate(expected.length), (result, chunk) -> result.put(chunk))
+                .map(ByteBuffer::array))
+                .consumeNextWith(bytes -> assertArrayEquals(expected, bytes))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testReadsOnDemand()
+    {
+        StepVerifier.create(MappedFiles.lines(file), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(2)
+                .expectNext("line 0 of reactive file", "line 1 of reactive file")
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(1)
+                .expectNext("line 2 of reactive file")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException
+    {
+        Path empty = Files.createFile(directory.resolve("empty.txt"));
+
+        StepVerifier.create(MappedFiles.lines(empty))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testWriteLines() throws IOException
+    {
+        Path copy = directory.resolve("copy.txt");
+
+        StepVerifier.create(MappedFiles.writeLines(MappedFiles.lines(file), copy, 64))
+                .expectNext(Files.size(file))
+                .verifyComplete();
+
+        assertEquals(lines, Files.readAllLines(copy, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteChunks() throws IOException
+    {
+        Path copy = directory.resolve("copy.bin");
+
+        StepVerifier.create(MappedFiles.write(MappedFiles.chunks(file, 100), copy, 8, 1024))
+                .expectNext(Files.size(file))
+                .verifyComplete();
+
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+    }
+
+    @Test
+    public void testWriteError()
+    {
+        Path copy = directory.resolve("failed.txt");
+
+        StepVerifier.create(MappedFiles.writeLines(Flux.concat(Flux.just("first"), Flux.error(new IllegalStateException("Source failed"))), copy, 10))
+                .verifyError(IllegalStateException.class);
+    }
+}
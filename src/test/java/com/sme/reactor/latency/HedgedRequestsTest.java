@@ -0,0 +1,110 @@
+package com.sme.reactor.latency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link HedgedRequests}.
+ */
+public class HedgedRequestsTest
+{
+    @Test
+    public void testBackupWinsOverSlowPrimary()
+    {
+        AtomicReference<HedgedRequests> hedging = new AtomicReference<>();
+
+        StepVerifier.withVirtualTime(() ->
+        {
+            hedging.set(HedgedRequests.create(0.95, Duration.ofSeconds(1), Duration.ZERO, Duration.ofSeconds(10), VirtualTimeScheduler.getOrSet(),
+                    VirtualTimeScheduler.getOrSet()));
+            return hedging.get().hedge(
+                    LatencySources.delayed("primary", Duration.ofSeconds(5)),
+                    LatencySources.delayed("backup", Duration.ofSeconds(2)));
+        })
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(3))
+                .expectNext("backup")
+                .expectComplete()
+                .verify();
+
+        assertEquals(1, hedging.get().getRequests());
+        assertEquals(1, hedging.get().getHedged());
+        assertEquals(0, hedging.get().getPrimaryWins());
+        assertEquals(1, hedging.get().getBackupWins());
+    }
+
+    @Test
+    public void testFastPrimaryIsNotHedged()
+    {
+        AtomicReference<HedgedRequests> hedging = new AtomicReference<>();
+
+        StepVerifier.withVirtualTime(() ->
+        {
+            hedging.set(HedgedRequests.create(0.95, Duration.ofSeconds(1), Duration.ZERO, Duration.ofSeconds(10), VirtualTimeScheduler.getOrSet(),
+                    VirtualTimeScheduler.getOrSet()));
+            return hedging.get().hedge(
+                    LatencySources.delayed("primary", Duration.ofMillis(500)),
+                    LatencySources.delayed("backup", Duration.ofMillis(100)));
+        })
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(500))
+                .expectNext("primary")
+                .expectComplete()
+                .verify();
+
+        assertEquals(0, hedging.get().getHedged());
+        assertEquals(1, hedging.get().getPrimaryWins());
+        assertEquals(0d, hedging.get().getHedgeRate());
+    }
+
+    @Test
+    public void testDelayTracksPercentileOfPrimaryLatencies()
+    {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        HedgedRequests hedging = HedgedRequests.create(0.9, Duration.ofSeconds(1), Duration.ofMillis(10), Duration.ofSeconds(10), timer, timer);
+
+        for (int i = 0; i < 64; i++)
+        {
+            Mono<String> call = Mono.just("value").delayElement(Duration.ofMillis(i % 10 == 9 ? 500 : 100), timer);
+            AtomicReference<String> result = new AtomicReference<>();
+            hedging.hedge(call, call).subscribe(result::set);
+            timer.advanceTimeBy(Duration.ofMillis(500));
+            assertEquals("value", result.get());
+        }
+
+        // 90% of calls take 100 ms, so once the delay is tuned after 32 calls only the slow calls 39, 49 and 59 are hedged
+        assertEquals(Duration.ofMillis(100), hedging.getDelay());
+        assertEquals(64, hedging.getPrimaryWins());
+        assertEquals(3, hedging.getHedged());
+        assertEquals(0, hedging.getBackupWins());
+    }
+
+    @Test
+    public void testLostPrimaryIsCensoredSample()
+    {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        HedgedRequests hedging = HedgedRequests.create(0.5, Duration.ofSeconds(1), Duration.ZERO, Duration.ofSeconds(10), timer, timer);
+
+        for (int i = 0; i < 32; i++)
+        {
+            Mono<String> primary = Mono.just("primary").delayElement(Duration.ofSeconds(5), timer);
+            Mono<String> backup = Mono.just("backup").delayElement(Duration.ofSeconds(2), timer);
+            AtomicReference<String> result = new AtomicReference<>();
+            hedging.hedge(primary, backup).subscribe(result::set);
+            timer.advanceTimeBy(Duration.ofSeconds(5));
+            assertEquals("backup", result.get());
+        }
+
+        // Primaries ran 3 seconds until the backups won, the delay grows to it rather than to the 2 seconds of backups
+        assertEquals(Duration.ofSeconds(3), hedging.getDelay());
+        assertEquals(32, hedging.getBackupWins());
+    }
+}
@@ -0,0 +1,128 @@
+package com.sme.reactor.latency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link LatencySources}.
+ */
+public class LatencySourcesTest
+{
+    @Test
+    public void testMergeTakesMaxLatency()
+    {
+        StepVerifier.withVirtualTime(() -> Flux.merge(
+                LatencySources.delayed("Hello ", Duration.ofSeconds(2)),
+                LatencySources.delayed("reactive ", Duration.ofSeconds(5)),
+                LatencySources.delayed("world!", Duration.ofSeconds(3)))
+                .map(String::toUpperCase))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(2))
+                .expectNext("HELLO ")
+                .thenAwait(Duration.ofSeconds(3))
+                .expectNext("WORLD!", "REACTIVE ")
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testConcatTakesSumOfLatencies()
+    {
+        StepVerifier.withVirtualTime(() -> Flux.concat(
+                LatencySources.delayed("Hello ", Duration.ofSeconds(2)),
+                LatencySources.delayed("reactive ", Duration.ofSeconds(5)),
+                LatencySources.delayed("world!", Duration.ofSeconds(3))))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(7))
+                .expectNext("Hello ", "reactive ")
+                .expectNoEvent(Duration.ofSeconds(2))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("world!")
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testMergeThousandsOfSourcesOnFewThreads()
+    {
+        Scheduler timer = Schedulers.newParallel("timer", 2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try
+        {
+            long start = System.nanoTime();
+
+            Long count = LatencySources.merge(Flux.range(0, 10_000)
+                    .map(value -> LatencySources.delayed(value, Duration.ofMillis(200), timer)), 10_000, 1)
+                    .doOnNext(value -> threads.add(Thread.currentThread().getName()))
+                    .count()
+                    .block(Duration.ofSeconds(10));
+
+            long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertEquals(Long.valueOf(10_000), count);
+            assertTrue(millis < 5000, "Expects about max latency, but took " + millis + " ms");
+            assertTrue(threads.size() <= 2, "Expects timer threads only, but was " + threads);
+        }
+        finally
+        {
+            timer.dispose();
+        }
+    }
+
+    @Test
+    public void testFromFuture()
+    {
+        Scheduler timer = Schedulers.newSingle("timer");
+        try
+        {
+            StepVerifier.create(LatencySources.fromFuture(() -> LatencySources.completeLater("world", Duration.ofMillis(100), timer)))
+                    .expectNext("world")
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        }
+        finally
+        {
+            timer.dispose();
+        }
+    }
+
+    @Test
+    public void testCancelFuture()
+    {
+        CompletableFuture<String> future = new CompletableFuture<>();
+
+        Disposable disposable = LatencySources.fromFuture(() -> future).subscribe();
+        disposable.dispose();
+
+        assertTrue(future.isCancelled(), "Expects cancelled future");
+    }
+
+    @Test
+    public void testFromBlocking()
+    {
+        Scheduler blockingScheduler = Schedulers.newElastic("blocking");
+        try
+        {
+            String thread = LatencySources.fromBlocking(() -> Thread.currentThread().getName(), blockingScheduler)
+                    .block(Duration.ofSeconds(5));
+
+            assertTrue(thread.startsWith("blocking"), "Expects blocking call on elastic thread, but was " + thread);
+        }
+        finally
+        {
+            blockingScheduler.dispose();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.sme.reactor.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link KeyedParallel}.
+ */
+public class KeyedParallelTest
+{
+    private static final int SIZE = 10_000;
+
+    @Test
+    public void testKeepsOrderPerKey()
+    {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Map<Integer, AtomicInteger> running = new ConcurrentHashMap<>();
+        KeyedParallel<Integer, Integer> keyed = KeyedParallel.create(i -> i % 50, i ->
+        {
+            // Values of a key are never mapped concurrently
+            AtomicInteger concurrency = running.computeIfAbsent(i % 50, key -> new AtomicInteger());
+            assertEquals(1, concurrency.incrementAndGet());
+            threads.add(Thread.currentThread().getName());
+            spin(TimeUnit.MICROSECONDS.toNanos(i % 7 * 10));
+            concurrency.decrementAndGet();
+            return i;
+        }, 4, 64, Schedulers.parallel());
+
+        List<Integer> result = Flux.range(0, SIZE).transform(keyed).collectList().block(Duration.ofSeconds(30));
+
+        assertEquals(SIZE, result.size());
+        Map<Integer, List<Integer>> byKey = result.stream().collect(Collectors.groupingBy(i -> i % 50));
+        byKey.values().forEach(values -> assertEquals(values.stream().sorted().collect(Collectors.toList()), values));
+        assertEquals(SIZE, keyed.getMapped());
+        assertTrue(threads.size() > 1 || Runtime.getRuntime().availableProcessors() == 1, "Expects values are mapped on partitions " + threads);
+    }
+
+    @Test
+    public void testIdleWorkerStealsKeysOfBusyPartition()
+    {
+        // Partitions need own threads, the parallel scheduler has a single thread on a single core
+        Scheduler scheduler = Schedulers.newParallel("keyed", 2);
+        try
+        {
+            // Small integer keys are their own groups, even keys have the same home partition of 2
+            KeyedParallel<Integer, Integer> keyed = KeyedParallel.create(i -> i % 2 == 0 ? 0 : i % 10 * 2, i ->
+            {
+                spin(TimeUnit.MILLISECONDS.toNanos(i % 2 == 0 ? 1 : 0));
+                return i;
+            }, 2, 64, scheduler);
+
+            Long count = Flux.range(0, 200).transform(keyed).count().block(Duration.ofSeconds(30));
+
+            assertEquals(200, count.longValue());
+            assertTrue(keyed.getSteals() > 0, "Expects groups of the busy partition are stolen " + keyed);
+        }
+        finally
+        {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testBoundedWindow()
+    {
+        int window = 32;
+        AtomicLong issued = new AtomicLong();
+        AtomicLong maxInFlight = new AtomicLong();
+        AtomicLong emitted = new AtomicLong();
+        KeyedParallel<Integer, Integer> keyed = KeyedParallel.create(i -> i % 3, i ->
+        {
+            // Key 0 is slow, so values of other keys wait in the output
+            spin(TimeUnit.MICROSECONDS.toNanos(i % 3 == 0 ? 100 : 0));
+            return i;
+        }, 4, window, Schedulers.parallel());
+
+        Long count = Flux.range(0, 2_000)
+                .doOnNext(i -> issued.incrementAndGet())
+                .transform(keyed)
+                .doOnNext(value -> maxInFlight.accumulateAndGet(issued.get() - emitted.incrementAndGet(), Math::max))
+                .count()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(2_000, count.longValue());
+        assertTrue(maxInFlight.get() <= window, "Expects no more than window values in flight, but got " + maxInFlight.get());
+        assertTrue(keyed.getMaxGroupBacklog() <= window);
+    }
+
+    @Test
+    public void testBackpressure()
+    {
+        StepVerifier.create(Flux.range(0, SIZE).transform(KeyedParallel.<Integer, Integer> create(i -> 0, i -> i + 1)), 0)
+                .expectSubscription()
+                .thenRequest(3)
+                .expectNext(1, 2, 3)
+                .thenRequest(2)
+                .expectNext(4, 5)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testMapperError()
+    {
+        StepVerifier.create(Flux.range(0, 100).transform(KeyedParallel.<Integer, Integer> create(i -> i % 4, i -> 100 / (50 - i), 2, 16,
+                Schedulers.parallel())))
+                .thenConsumeWhile(value -> true)
+                .expectError(ArithmeticException.class)
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testWindowPerPartition()
+    {
+        assertThrows(IllegalArgumentException.class, () -> KeyedParallel.create(i -> i, i -> i, 8, 16, Schedulers.parallel()));
+    }
+
+    private static void spin(long nanos)
+    {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.sme.reactor.parallel;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link OrderedParallel}.
+ */
+public class OrderedParallelTest
+{
+    private static final int SIZE = 10_000;
+
+    @Test
+    public void testKeepsOrder()
+    {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> result = Flux.range(0, SIZE)
+                .transform(OrderedParallel.<Integer, Integer> map(i ->
+                {
+                    threads.add(Thread.currentThread().getName());
+                    spin(TimeUnit.MICROSECONDS.toNanos(i % 7 * 10));
+                    return i * 2;
+                }, 4, 64, Schedulers.parallel()))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(IntStream.range(0, SIZE).map(i -> i * 2).boxed().collect(toList()), result);
+        assertTrue(threads.size() > 1 || Runtime.getRuntime().availableProcessors() == 1, "Expects values are mapped on rails " + threads);
+    }
+
+    @Test
+    public void testBoundedWindow()
+    {
+        int window = 32;
+        AtomicLong issued = new AtomicLong();
+        AtomicLong maxInFlight = new AtomicLong();
+        AtomicLong emitted = new AtomicLong();
+
+        Long count = Flux.range(0, 2_000)
+                .doOnNext(i -> issued.incrementAndGet())
+                .transform(OrderedParallel.<Integer, Integer> map(i ->
+                {
+                    // Every 100th value is slow, so faster values wait for it in the reorder buffer
+                    spin(TimeUnit.MILLISECONDS.toNanos(i % 100 == 0 ? 5 : 0));
+                    return i;
+                }, 4, window, Schedulers.parallel()))
+                .doOnNext(value ->
+                {
+                    long position = emitted.getAndIncrement();
+                    assertEquals(position, value.longValue());
+                    maxInFlight.accumulateAndGet(issued.get() - position - 1, Math::max);
+                })
+                .count()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(2_000, count.longValue());
+        assertTrue(maxInFlight.get() <= window, "Expects no more than window values in flight, but got " + maxInFlight.get());
+    }
+
+    @Test
+    public void testSmallWindowDoesNotStall()
+    {
+        for (int parallelism : new int[] {2, 4, 8})
+        {
+            Long count = Flux.range(0, SIZE)
+                    .transform(OrderedParallel.<Integer, Integer> map(i ->
+                    {
+                        // Uneven rails, so values come early and wait for the next expected one
+                        spin(TimeUnit.MICROSECONDS.toNanos(i % parallelism == 0 ? 20 : 0));
+                        return i;
+                    }, parallelism, 4 * parallelism, Schedulers.parallel()))
+                    .count()
+                    .block(Duration.ofSeconds(30));
+
+            assertEquals(SIZE, count.longValue());
+        }
+    }
+
+    @Test
+    public void testBackpressure()
+    {
+        StepVerifier.create(Flux.range(0, SIZE).transform(OrderedParallel.<Integer, Integer> map(i -> i + 1)), 0)
+                .expectSubscription()
+                .thenRequest(3)
+                .expectNext(1, 2, 3)
+                .thenRequest(2)
+                .expectNext(4, 5)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testMapperError()
+    {
+        StepVerifier.create(Flux.range(0, 100).transform(OrderedParallel.<Integer, Integer> map(i -> 100 / (50 - i), 2, 16, Schedulers.parallel())))
+                .thenConsumeWhile(value -> true)
+                .expectError(ArithmeticException.class)
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testUnordered()
+    {
+        List<Integer> result = Flux.range(0, SIZE)
+                .transform(OrderedParallel.<Integer, Integer> mapUnordered(i -> i * 2))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(SIZE, result.size());
+        assertEquals(IntStream.range(0, SIZE).map(i -> i * 2).boxed().collect(toSet()), new HashSet<>(result));
+    }
+
+    @Test
+    public void testWindowPerRail()
+    {
+        assertThrows(IllegalArgumentException.class, () -> OrderedParallel.map(i -> i, 8, 16, Schedulers.parallel()));
+    }
+
+    private static void spin(long nanos)
+    {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+    }
+}
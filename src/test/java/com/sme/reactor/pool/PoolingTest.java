@@ -0,0 +1,210 @@
+package com.sme.reactor.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests of {@link ObjectPool}, {@link Pooled} and {@link Pooling}.
+ */
+public class PoolingTest
+{
+    private ObjectPool<StringBuilder> pool;
+
+    @BeforeEach
+    public void setUp()
+    {
+        pool = ObjectPool.create(StringBuilder::new, builder -> builder.setLength(0), 16);
+    }
+
+    @Test
+    public void testRecycleOnLastRelease()
+    {
+        Pooled<StringBuilder> element = pool.acquire();
+        StringBuilder builder = element.get().append("value");
+
+        element.retain();
+        assertFalse(element.release());
+        assertTrue(element.release());
+
+        assertThrows(IllegalStateException.class, element::get);
+        assertThrows(IllegalStateException.class, element::release);
+
+        Pooled<StringBuilder> reused = pool.acquire();
+        assertSame(builder, reused.get());
+        assertEquals(0, reused.get().length());
+        assertEquals(1, pool.getAllocated());
+        assertEquals(1, pool.getReused());
+    }
+
+    @Test
+    public void testReleaseOnAnotherThreadReturnsToOwner() throws Exception
+    {
+        Pooled<StringBuilder> element = pool.acquire();
+        StringBuilder builder = element.get();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(element::release).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertSame(builder, pool.acquire().get());
+        assertEquals(1, pool.getCrossThreadReturns());
+        assertEquals(1, pool.getReused());
+    }
+
+    @Test
+    public void testPipelineReusesElements()
+    {
+        List<String> result = Flux.range(1, 100)
+                .map(this::acquire)
+                .transform(Pooling.filter(builder -> builder.length() == 2))
+                .transform(Pooling.<StringBuilder, StringBuilder> map(pool, (input, output) -> output.append(input).reverse()))
+                .transform(Pooling.extract(StringBuilder::toString))
+                .filter(value -> value.startsWith("9"))
+                .collectList()
+                .block();
+
+        assertEquals(Arrays.asList("91", "92", "93", "94", "95", "96", "97", "98", "99"), result);
+        // An element is released before the next one is acquired, so the stages of a synchronous pipeline share two objects
+        assertEquals(2, pool.getAllocated());
+        // 100 elements of the source and 90 elements of map
+        assertEquals(190 - 2, pool.getReused());
+    }
+
+    @Test
+    public void testCancelReleasesQueuedElementsOnly() throws Exception
+    {
+        CompletableFuture<Pooled<StringBuilder>> delivered = new CompletableFuture<>();
+        BaseSubscriber<Pooled<StringBuilder>> subscriber = new BaseSubscriber<Pooled<StringBuilder>>()
+        {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription)
+            {
+                // No demand, so the elements stay in the queue
+            }
+
+            @Override
+            protected void hookOnNext(Pooled<StringBuilder> element)
+            {
+                delivered.complete(element);
+            }
+        };
+        // The source emits the prefetch into the queue on subscribe
+        Flux.range(1, 5)
+                .map(this::acquire)
+                .concatWith(Flux.never())
+                .transform(Pooling.publishOn(Schedulers.single()))
+                .subscribe(subscriber);
+        assertEquals(5, pool.getAllocated());
+
+        subscriber.request(1);
+        Pooled<StringBuilder> element = delivered.get(5, TimeUnit.SECONDS);
+        subscriber.dispose();
+
+        // The queued elements are recycled, the delivered element is still valid
+        assertEquals("1", element.get().toString());
+        for (int i = 0; i < 4; i++)
+        {
+            pool.acquire();
+        }
+        assertEquals(5, pool.getAllocated());
+        assertEquals(4, pool.getReused());
+        assertTrue(element.release());
+    }
+
+    @Test
+    public void testCancelReleasesQueueWithDrainPending() throws Exception
+    {
+        Scheduler scheduler = Schedulers.newSingle("pooling-test");
+        CountDownLatch blocked = new CountDownLatch(1);
+        try
+        {
+            // Blocks the only thread, so the drain scheduled by the first element waits behind
+            scheduler.schedule(() ->
+            {
+                try
+                {
+                    blocked.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            BaseSubscriber<Pooled<StringBuilder>> subscriber = new BaseSubscriber<Pooled<StringBuilder>>()
+            {
+                @Override
+                protected void hookOnSubscribe(Subscription subscription)
+                {
+                    // No demand, so the elements stay in the queue
+                }
+            };
+            Flux.range(1, 5)
+                    .map(this::acquire)
+                    .concatWith(Flux.never())
+                    .transform(Pooling.publishOn(scheduler))
+                    .subscribe(subscriber);
+
+            subscriber.dispose();
+            blocked.countDown();
+            // Waits for the tasks queued before this one
+            Mono.fromCallable(() -> true).subscribeOn(scheduler).block(Duration.ofSeconds(5));
+
+            assertEquals(5, pool.getCrossThreadReturns());
+            for (int i = 0; i < 5; i++)
+            {
+                pool.acquire();
+            }
+            assertEquals(5, pool.getAllocated());
+        }
+        finally
+        {
+            blocked.countDown();
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testPublishOnDeliversQueuedElementsBeforeError()
+    {
+        List<String> result = Flux.range(1, 100)
+                .map(this::acquire)
+                .concatWith(Flux.error(new IllegalStateException("failed")))
+                .transform(Pooling.publishOn(Schedulers.single(), 16))
+                .transform(Pooling.extract(StringBuilder::toString))
+                .onErrorResume(IllegalStateException.class, e -> Flux.just("error"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(101, result.size());
+        assertEquals("error", result.get(100));
+    }
+
+    private Pooled<StringBuilder> acquire(int value)
+    {
+        Pooled<StringBuilder> element = pool.acquire();
+        element.get().append(value);
+        return element;
+    }
+}
@@ -0,0 +1,112 @@
+package com.sme.reactor.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link RateLimiter} and {@link TokenBucket}.
+ */
+public class RateLimiterTest
+{
+    @Test
+    public void testBurstThenRefillRate()
+    {
+        StepVerifier.withVirtualTime(() ->
+        {
+            VirtualTimeScheduler timer = VirtualTimeScheduler.getOrSet();
+            TokenBucket bucket = TokenBucket.create(10, 10, Duration.ofSeconds(1), timer);
+            return Flux.range(1, 30).transform(RateLimiter.limit(bucket, 1, timer));
+        })
+                .expectSubscription()
+                .expectNextCount(10)
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(11)
+                .thenAwait(Duration.ofMillis(900))
+                .expectNextCount(9)
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNextCount(10)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    public void testRequestsOnlyDemandOfDownstream()
+    {
+        TokenBucket bucket = TokenBucket.create(100, 100, Duration.ofSeconds(1));
+
+        StepVerifier.create(Flux.range(1, 1000).transform(RateLimiter.limit(bucket)), 5)
+                .expectNextCount(5)
+                .thenCancel()
+                .verify();
+
+        assertEquals(5, bucket.getAcquired());
+        assertEquals(0, bucket.getThrottles());
+    }
+
+    @Test
+    public void testSharedBucketCapsTotalRate()
+    {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        TokenBucket bucket = TokenBucket.create(10, 10, Duration.ofSeconds(1), timer);
+        AtomicInteger count = new AtomicInteger();
+
+        Disposable first = Flux.range(1, 100).transform(RateLimiter.limit(bucket, 1, timer)).subscribe(value -> count.incrementAndGet());
+        Disposable second = Flux.range(1, 100).transform(RateLimiter.limit(bucket, 1, timer)).subscribe(value -> count.incrementAndGet());
+
+        timer.advanceTimeBy(Duration.ofSeconds(5));
+
+        // The burst of 10 values plus 10 values per second, whatever number of pipelines share the bucket
+        assertEquals(60, count.get());
+        assertEquals(60, bucket.getAcquired());
+        assertTrue(bucket.getThrottles() > 0);
+        assertTrue(bucket.getThrottledTime().compareTo(Duration.ZERO) > 0);
+
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    public void testConcurrentAcquireNeverExceedsCapacity() throws InterruptedException
+    {
+        TokenBucket bucket = TokenBucket.create(10_000, 1, Duration.ofHours(1));
+        AtomicInteger taken = new AtomicInteger();
+        int threads = 4;
+        CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++)
+        {
+            executor.execute(() ->
+            {
+                long granted;
+                while ((granted = bucket.tryAcquire(3)) > 0)
+                {
+                    taken.addAndGet((int) granted);
+                }
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(10_000, taken.get());
+        assertEquals(10_000, bucket.getAcquired());
+        assertEquals(0, bucket.getAvailable());
+    }
+}
@@ -0,0 +1,66 @@
+package com.sme.reactor.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.sme.reactor.latency.LatencySources;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link Bulkhead}.
+ */
+public class BulkheadTest
+{
+    @Test
+    public void testRejectsCallsOverLimit()
+    {
+        Bulkhead bulkhead = Bulkhead.create("backend", 2);
+
+        StepVerifier.withVirtualTime(() -> Flux.range(1, 4)
+                .flatMap(i -> LatencySources.delayed(i, Duration.ofSeconds(1))
+                        .transform(bulkhead.protectMono())
+                        .onErrorResume(e -> Mono.just(-i))))
+                .expectSubscription()
+                .expectNext(-3, -4)
+                .expectNoEvent(Duration.ofSeconds(1))
+                .expectNext(1, 2)
+                .expectComplete()
+                .verify();
+
+        assertEquals(2, bulkhead.getPermitted());
+        assertEquals(2, bulkhead.getRejected());
+        assertEquals(2, bulkhead.getMaxInFlight());
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    public void testReleasesPermitOnErrorAndCancel()
+    {
+        Bulkhead bulkhead = Bulkhead.create("backend", 1);
+
+        StepVerifier.create(Flux.<Integer> error(new IllegalStateException("Backend is down")).transform(bulkhead.protect()))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(0, bulkhead.getInFlight());
+
+        StepVerifier.create(Flux.<Integer> never().transform(bulkhead.protect()))
+                .expectSubscription()
+                .thenCancel()
+                .verify();
+        assertEquals(0, bulkhead.getInFlight());
+
+        StepVerifier.create(Flux.range(1, 3).transform(bulkhead.protect()))
+                .expectNext(1, 2, 3)
+                .expectComplete()
+                .verify();
+
+        assertEquals(3, bulkhead.getPermitted());
+        assertEquals(0, bulkhead.getRejected());
+    }
+}
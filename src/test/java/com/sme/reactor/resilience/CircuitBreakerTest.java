@@ -0,0 +1,132 @@
+package com.sme.reactor.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sme.reactor.resilience.CircuitBreaker.State;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest
+{
+    private VirtualTimeScheduler clock;
+    private CircuitBreaker breaker;
+    private AtomicInteger subscriptions;
+
+    @BeforeEach
+    public void setUp()
+    {
+        clock = VirtualTimeScheduler.create();
+        breaker = CircuitBreaker.create("backend", 10, 0.5, 4, Duration.ofSeconds(30), 2, clock);
+        subscriptions = new AtomicInteger();
+    }
+
+    @Test
+    public void testOpensWhenFailureRateReachesThreshold()
+    {
+        call(true);
+        call(false);
+        call(true);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        call(false);
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getTransitions(State.OPEN));
+
+        // Fails fast without subscribing to the dependency
+        StepVerifier.create(dependency(false).transform(breaker.protect()))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+        assertEquals(4, subscriptions.get());
+        assertEquals(1, breaker.getNotPermitted());
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterSuccessfulTrialCalls()
+    {
+        openBreaker();
+
+        clock.advanceTimeBy(Duration.ofSeconds(30));
+        call(true);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        call(true);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getTransitions(State.HALF_OPEN));
+        assertEquals(1, breaker.getTransitions(State.CLOSED));
+        assertEquals(-1d, breaker.getFailureRate());
+    }
+
+    @Test
+    public void testHalfOpenReopensAfterFailedTrialCall()
+    {
+        openBreaker();
+
+        clock.advanceTimeBy(Duration.ofSeconds(30));
+        call(false);
+        call(true);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTransitions(State.OPEN));
+    }
+
+    @Test
+    public void testHalfOpenPermitsOnlyTrialCalls()
+    {
+        openBreaker();
+        clock.advanceTimeBy(Duration.ofSeconds(30));
+
+        Disposable first = Mono.never().transform(breaker.protectMono()).subscribe();
+        Disposable second = Mono.never().transform(breaker.protectMono()).subscribe();
+
+        // Both trial calls are in flight
+        StepVerifier.create(dependency(true).transform(breaker.protect()))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+
+        // A cancelled trial call gives its permit back
+        first.dispose();
+        call(true);
+        second.dispose();
+        call(true);
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    private void openBreaker()
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            call(false);
+        }
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean success)
+    {
+        dependency(success).transform(breaker.protect())
+                .onErrorResume(e -> Flux.empty())
+                .blockLast();
+    }
+
+    private Flux<String> dependency(boolean success)
+    {
+        return Flux.defer(() ->
+        {
+            subscriptions.incrementAndGet();
+            return success ? Flux.just("ok") : Flux.<String> error(new IllegalStateException("Backend is down"));
+        });
+    }
+}
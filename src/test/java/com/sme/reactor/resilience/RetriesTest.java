@@ -0,0 +1,108 @@
+package com.sme.reactor.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests of {@link Retries}, {@link RetryPolicy} and {@link RetryBudget}.
+ */
+public class RetriesTest
+{
+    @Test
+    public void testExponentialBackoff()
+    {
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() ->
+        {
+            Retries retries = Retries.create(RetryPolicy.create(5, Duration.ofMillis(100), Duration.ofSeconds(1), 0d),
+                    Collections.emptyMap(), RetryBudget.create(0.1, 10), VirtualTimeScheduler.getOrSet());
+            return failing(subscriptions, 3).transform(retries.retryMono());
+        })
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(300))
+                .thenAwait(Duration.ofMillis(400))
+                .expectNext("ok")
+                .expectComplete()
+                .verify();
+
+        // Retries after 100, 200 and 400 ms
+        assertEquals(4, subscriptions.get());
+    }
+
+    @Test
+    public void testBackoffIsCappedAndJittered()
+    {
+        RetryPolicy policy = RetryPolicy.create(100, Duration.ofMillis(100), Duration.ofSeconds(1), 0.5);
+
+        for (int retry = 1; retry <= 100; retry++)
+        {
+            long expected = Math.min(1000, 100L << Math.min(retry - 1, 10));
+            long backoff = policy.backoff(retry).toMillis();
+            assertTrue(backoff > expected / 2 - 1 && backoff <= expected, "Backoff " + backoff + " of retry " + retry);
+        }
+    }
+
+    @Test
+    public void testPolicyPerErrorType()
+    {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Retries retries = Retries.create(RetryPolicy.create(3, Duration.ZERO, Duration.ZERO, 0d),
+                Collections.singletonMap(IllegalArgumentException.class, RetryPolicy.none()), RetryBudget.create(0.1, 10), Schedulers.parallel());
+
+        StepVerifier.create(Flux.defer(() ->
+        {
+            subscriptions.incrementAndGet();
+            return Flux.error(new NumberFormatException("Not a number"));
+        })
+                .transform(retries.retry()))
+                .expectError(NumberFormatException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, retries.getExhausted());
+        assertEquals(RetryPolicy.none(), retries.policyOf(new NumberFormatException()));
+        assertEquals(3, retries.policyOf(new IllegalStateException()).getMaxRetries());
+    }
+
+    @Test
+    public void testBudgetStopsRetryStorm()
+    {
+        RetryBudget budget = RetryBudget.create(0.1, 2);
+        Retries retries = Retries.create(RetryPolicy.create(3, Duration.ZERO, Duration.ZERO, 0d), Collections.emptyMap(), budget, Schedulers.parallel());
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        for (int i = 0; i < 11; i++)
+        {
+            StepVerifier.create(failing(subscriptions, Integer.MAX_VALUE).transform(retries.retryMono()))
+                    .expectError(IllegalStateException.class)
+                    .verify(Duration.ofSeconds(5));
+        }
+
+        // The first call spends the 2 saved retries, the next 10 calls earn 1 retry, instead of 3 retries per call
+        assertEquals(14, subscriptions.get());
+        assertEquals(3, budget.getRetries());
+        assertEquals(11, budget.getCalls());
+        assertEquals(11, retries.getOverBudget());
+        assertEquals(0, retries.getExhausted());
+    }
+
+    private static Mono<String> failing(AtomicInteger subscriptions, int failures)
+    {
+        return Mono.defer(() -> subscriptions.incrementAndGet() <= failures
+                ? Mono.<String> error(new IllegalStateException("Backend is down"))
+                : Mono.just("ok"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.sme.reactor.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests of {@link InstrumentedScheduler}.
+ */
+public class InstrumentedSchedulerTest
+{
+    private InstrumentedScheduler scheduler;
+
+    @BeforeEach
+    public void setUp()
+    {
+        scheduler = InstrumentedScheduler.wrap(Schedulers.newParallel("instrumented", 1), "instrumented");
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        scheduler.dispose();
+    }
+
+    @Test
+    public void testQueueDepthAndWaitTime() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+
+        scheduler.schedule(() -> await(release));
+        scheduler.schedule(() ->
+        {
+        });
+        scheduler.schedule(() ->
+        {
+        });
+
+        awaitMetrics(metrics -> metrics.getRunning() == 1);
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(3, metrics.getScheduled());
+        assertEquals(2, metrics.getPending());
+
+        Thread.sleep(100);
+        release.countDown();
+
+        metrics = awaitMetrics(m -> m.getCompleted() == 3);
+        assertEquals(0, metrics.getPending());
+        assertEquals(0, metrics.getRunning());
+        assertEquals(3, metrics.getQueueWait().getTotalCount());
+        assertEquals(3, metrics.getExecution().getTotalCount());
+        assertTrue(metrics.getQueueWait().getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(100), "Expects tasks waited for the blocked thread");
+        assertTrue(metrics.getExecution().getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(100), "Expects the blocked task ran long");
+    }
+
+    @Test
+    public void testWorkersOfPublishOn()
+    {
+        Flux.range(1, 100)
+                .publishOn(scheduler)
+                .blockLast(Duration.ofSeconds(5));
+
+        // The last drain task may still finish after blockLast returns
+        SchedulerMetrics metrics = awaitMetrics(m -> m.getCompleted() == m.getScheduled());
+        assertTrue(metrics.getCompleted() > 0, "Expects drain tasks of publishOn");
+    }
+
+    @Test
+    public void testCancelPendingTask()
+    {
+        scheduler.schedule(() ->
+        {
+        }, 1, TimeUnit.HOURS).dispose();
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1, metrics.getScheduled());
+        assertEquals(0, metrics.getPending());
+    }
+
+    @Test
+    public void testDelayedTaskIsPendingWhenDue() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.schedule(() -> await(release));
+        awaitMetrics(metrics -> metrics.getRunning() == 1);
+
+        scheduler.schedule(() ->
+        {
+        }, 50, TimeUnit.MILLISECONDS);
+        assertEquals(0, scheduler.metrics().getPending());
+
+        Thread.sleep(100);
+        assertEquals(1, scheduler.metrics().getPending());
+
+        release.countDown();
+        SchedulerMetrics metrics = awaitMetrics(m -> m.getCompleted() == 2);
+        assertEquals(0, metrics.getPending());
+    }
+
+    @Test
+    public void testFailedAndRejectedTasks()
+    {
+        scheduler.schedule(() ->
+        {
+            throw new IllegalStateException("Expected failure");
+        });
+        awaitMetrics(metrics -> metrics.getFailed() == 1);
+
+        scheduler.dispose();
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() ->
+        {
+        }));
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1, metrics.getRejected());
+        assertEquals(0, metrics.getCompleted());
+        assertEquals(0, metrics.getPending());
+    }
+
+    private SchedulerMetrics awaitMetrics(Predicate<SchedulerMetrics> condition)
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        SchedulerMetrics metrics = scheduler.metrics();
+        while (!condition.test(metrics) && System.nanoTime() < deadline)
+        {
+            Thread.yield();
+            metrics = scheduler.metrics();
+        }
+        assertTrue(condition.test(metrics), "Unexpected metrics " + metrics);
+        return metrics;
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.sme.reactor.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests of {@link VirtualThreadScheduler}.
+ */
+public class VirtualThreadSchedulerTest
+{
+    private VirtualThreadScheduler scheduler;
+
+    @BeforeEach
+    public void setUp()
+    {
+        scheduler = VirtualThreadScheduler.create("virtual");
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        scheduler.dispose();
+    }
+
+    @Test
+    public void testSubscribeOn()
+    {
+        String thread = Mono.fromCallable(() -> Thread.currentThread().getName())
+                .subscribeOn(scheduler)
+                .block(Duration.ofSeconds(5));
+
+        assertTrue(thread.startsWith("virtual-"), "Expects virtual thread, but was " + thread);
+    }
+
+    @Test
+    public void testPublishOnKeepsOrder()
+    {
+        List<Integer> list = Flux.range(1, 1000)
+                .publishOn(scheduler)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList()), list);
+    }
+
+    @Test
+    public void testInterval()
+    {
+        List<Long> list = Flux.interval(Duration.ofMillis(10), scheduler)
+                .take(5)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), list);
+    }
+
+    @Test
+    public void testCancelRunningTask() throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Disposable task = scheduler.schedule(() ->
+        {
+            started.countDown();
+            try
+            {
+                Thread.sleep(10_000);
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        task.dispose();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Expects interrupted task");
+    }
+
+    @Test
+    public void testRejectAfterDispose()
+    {
+        scheduler.dispose();
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() ->
+        {
+        }));
+    }
+
+    @Test
+    public void testThousandsOfBlockingSubscriptions()
+    {
+        assumeTrue(scheduler.isVirtual(), "Virtual threads need JDK 21");
+
+        long start = System.nanoTime();
+
+        Long count = Flux.range(0, 10_000)
+                .flatMap(value -> Mono.fromCallable(() ->
+                {
+                    Thread.sleep(500);
+                    return value;
+                })
+                        .subscribeOn(scheduler), 10_000)
+                .count()
+                .block(Duration.ofSeconds(30));
+
+        long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertEquals(Long.valueOf(10_000), count);
+        assertTrue(millis < 10_000, "Expects blocking calls in parallel, but took " + millis + " ms");
+    }
+}
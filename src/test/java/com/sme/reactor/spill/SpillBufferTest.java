@@ -0,0 +1,143 @@
+package com.sme.reactor.spill;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link SpillBuffer}.
+ */
+public class SpillBufferTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSpillsOverflowAndReplaysInOrder()
+    {
+        SpillBuffer<Long> buffer = SpillBuffer.create(10, directory, SpillCodec.longs());
+
+        StepVerifier.create(Flux.range(0, 100).map(Integer::longValue).transform(buffer), 0)
+                .expectSubscription()
+                .then(() ->
+                {
+                    assertEquals(90, buffer.getSpilledRecords());
+                    assertEquals(90, buffer.getPendingRecords());
+                    assertEquals(90 * (SpillFile.HEADER_SIZE + Long.BYTES), buffer.getSpilledBytes());
+                    assertEquals(1, spillFiles());
+                })
+                .thenRequest(15)
+                .expectNextSequence(LongStream.range(0, 15).boxed().collect(toList()))
+                .then(() -> assertEquals(10, buffer.getReplayedRecords()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextSequence(LongStream.range(15, 100).boxed().collect(toList()))
+                .verifyComplete();
+
+        assertEquals(90, buffer.getReplayedRecords());
+        assertEquals(0, buffer.getPendingRecords());
+        assertEquals(0, buffer.getPendingBytes());
+        assertTrue(buffer.getMaxReplayLagNanos() > 0);
+        assertEquals(0, spillFiles(), "Expects the spill file is deleted");
+    }
+
+    @Test
+    public void testKeepsOrderWhileReplaying()
+    {
+        SpillBuffer<String> buffer = SpillBuffer.create(16, directory, SpillCodec.utf8());
+        List<String> expected = Stream.iterate(0, i -> i + 1).limit(2_000).map(i -> "value " + i).collect(toList());
+
+        StepVerifier.create(Flux.fromIterable(expected)
+                .subscribeOn(Schedulers.elastic())
+                .transform(buffer)
+                .limitRate(8)
+                .publishOn(Schedulers.single(), 8)
+                .delayElements(Duration.ofNanos(1))
+                .collectList())
+                .expectNext(expected)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+
+        assertEquals(0, buffer.getPendingRecords());
+        assertEquals(buffer.getSpilledRecords(), buffer.getReplayedRecords());
+    }
+
+    @Test
+    public void testLargeRecords()
+    {
+        SpillBuffer<String> buffer = SpillBuffer.create(1, directory, SpillCodec.utf8());
+        List<String> expected = Stream.of('a', 'b', 'c', 'd').map(c -> repeat(c, 100_000)).collect(toList());
+
+        // No demand until the source completes, so the records after the first one are spilled
+        StepVerifier.create(Flux.fromIterable(expected).transform(buffer), 0)
+                .expectSubscription()
+                .then(() -> assertEquals(3, buffer.getSpilledRecords()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextSequence(expected)
+                .verifyComplete();
+
+        assertEquals(3, buffer.getReplayedRecords());
+    }
+
+    @Test
+    public void testErrorAfterBufferedValues()
+    {
+        SpillBuffer<Long> buffer = SpillBuffer.create(2, directory, SpillCodec.longs());
+
+        StepVerifier.create(Flux.concat(Flux.just(1L, 2L, 3L, 4L), Flux.error(new IllegalStateException("Source failed"))).transform(buffer), 0)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(1L, 2L, 3L, 4L)
+                .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testCancelDeletesSpillFile()
+    {
+        SpillBuffer<Long> buffer = SpillBuffer.create(4, directory, SpillCodec.longs());
+
+        StepVerifier.create(Flux.range(0, 100).map(Integer::longValue).transform(buffer), 1)
+                .expectNext(0L)
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, spillFiles());
+        assertEquals(0, buffer.getPendingRecords());
+    }
+
+    private long spillFiles()
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.count();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String repeat(char c, int count)
+    {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+        {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.sme.reactor.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests of {@link OperatorTracer}.
+ */
+public class OperatorTracerTest
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperatorTracerTest.class);
+
+    private OperatorTracer tracer;
+
+    @AfterEach
+    public void tearDown()
+    {
+        tracer.uninstall();
+    }
+
+    @Test
+    public void testSlowestOperator()
+    {
+        tracer = OperatorTracer.install(1);
+
+        Long count = Flux.range(1, 50)
+                .map(i -> i * 2)
+                .filter(i ->
+                {
+                    spin(TimeUnit.MILLISECONDS.toNanos(1));
+                    return i % 4 == 0;
+                })
+                .map(i -> i + 1)
+                .count()
+                .block();
+
+        assertEquals(25, count.longValue());
+        LOGGER.debug(tracer.report(3));
+
+        List<OperatorStats> slowest = tracer.slowest(1);
+        assertEquals(1, slowest.size());
+        assertTrue(slowest.get(0).getLabel().contains("Filter"), "Expects filter is the slowest stage, but got " + slowest);
+        assertTrue(slowest.get(0).getSelfNanos() >= TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testSignalCounters()
+    {
+        tracer = OperatorTracer.install(0.1);
+
+        Flux.range(1, 1000)
+                .map(i -> i)
+                .limitRate(100)
+                .blockLast();
+
+        OperatorStats source = stage("Range");
+        assertEquals(0, source.getDepth());
+        assertEquals(1000, source.getOnNextCount());
+        assertEquals(1, source.getCompletions());
+        assertEquals(100, source.getSamples());
+
+        OperatorStats map = stage("Map");
+        assertEquals(source, map.getParent());
+        assertEquals(1000, map.getOnNextCount());
+        assertTrue(map.getRequestCount() > 1, "Expects limitRate requests in batches");
+        assertTrue(map.getRequested() >= 1000);
+        assertEquals(0, map.getUnboundedRequests());
+    }
+
+    @Test
+    public void testCancelAndReset()
+    {
+        tracer = OperatorTracer.install(0.5);
+
+        Flux.range(1, 100)
+                .map(i -> i)
+                .take(5)
+                .blockLast();
+
+        OperatorStats map = stage("Map");
+        assertEquals(5, map.getOnNextCount());
+        assertEquals(1, map.getCancellations());
+
+        tracer.reset();
+        assertEquals(0, map.getOnNextCount());
+        assertEquals(0, map.getSamples());
+    }
+
+    @Test
+    public void testUninstall()
+    {
+        tracer = OperatorTracer.install(1);
+        tracer.uninstall();
+
+        Flux.range(1, 10).blockLast();
+
+        assertTrue(tracer.getOperators().isEmpty());
+    }
+
+    private OperatorStats stage(String name)
+    {
+        return tracer.getOperators()
+                .stream()
+                .filter(s -> s.getLabel().contains(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " stage in " + tracer.getOperators()));
+    }
+
+    private static void spin(long nanos)
+    {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sme.reactor.window;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of {@link EventTimeWindows}.
+ */
+public class EventTimeWindowsTest
+{
+    @Test
+    public void testTumblingWindowsEmitOnWatermark()
+    {
+        EventTimeWindows<Event, long[], Long> windows = EventTimeWindows.tumbling(Duration.ofMillis(10), Duration.ZERO, Event::getTime,
+                WindowAggregator.count());
+
+        // The first window is emitted by the event that passes its end, before completion
+        StepVerifier.create(Flux.just(event(1, 0), event(5, 0), event(9, 0), event(12, 0)).concatWith(Flux.never()).transform(windows))
+                .expectNextMatches(w -> w.getStart() == 0 && w.getEnd() == 10 && w.getResult() == 3)
+                .thenCancel()
+                .verify();
+
+        assertEquals("[0..10:3, 10..20:1, 30..40:2]",
+                results(Flux.just(event(1, 0), event(5, 0), event(9, 0), event(12, 0), event(30, 0), event(35, 0)).transform(windows)));
+    }
+
+    @Test
+    public void testOutOfOrderAndLateValues()
+    {
+        EventTimeWindows<Event, long[], Long> windows = EventTimeWindows.tumbling(Duration.ofMillis(10), Duration.ofMillis(5), Event::getTime,
+                WindowAggregator.count());
+
+        // 8 is within the allowed delay behind 12, 3 comes after the watermark 16 passed the end of its window
+        assertEquals("[0..10:2, 10..20:2, 20..30:1]",
+                results(Flux.just(event(1, 0), event(12, 0), event(8, 0), event(21, 0), event(3, 0), event(15, 0)).transform(windows)));
+        assertEquals(1, windows.getLateValues());
+        assertEquals(3, windows.getWindows());
+    }
+
+    @Test
+    public void testSlidingWindows()
+    {
+        EventTimeWindows<Event, NumericStats, NumericStats> windows = EventTimeWindows.sliding(Duration.ofMillis(10), Duration.ofMillis(5),
+                Duration.ZERO, Event::getTime, WindowAggregator.stats(Event::getValue));
+
+        List<WindowResult<NumericStats>> results = Flux.just(event(1, 10), event(6, 20), event(11, 30)).transform(windows).collectList().block();
+
+        assertEquals("[-5..5:1, 0..10:2, 5..15:2, 10..20:1]", format(results));
+        assertEquals(15.0, results.get(1).getResult().getMean(), 0.0);
+        assertEquals(20.0, results.get(2).getResult().getMin(), 0.0);
+        assertEquals(30.0, results.get(2).getResult().getMax(), 0.0);
+        assertEquals(3, windows.getMaxOpenWindows());
+    }
+
+    @Test
+    public void testSessionWindowsMergeOnOutOfOrderValue()
+    {
+        EventTimeWindows<Event, long[], Long> windows = EventTimeWindows.session(Duration.ofMillis(10), Duration.ofMillis(20), Event::getTime,
+                WindowAggregator.count());
+
+        // 12 fills the gap between sessions started at 0 and 20
+        assertEquals("[0..38:5, 100..110:1]",
+                results(Flux.just(event(0, 0), event(5, 0), event(20, 0), event(28, 0), event(12, 0), event(100, 0)).transform(windows)));
+        assertEquals(0, windows.getLateValues());
+    }
+
+    @Test
+    public void testQuantilesAndDistinctCount()
+    {
+        Flux<Event> events = Flux.range(0, 10_000).map(i -> event(i / 1000 * 1000, i % 1000));
+
+        List<WindowResult<TDigest>> quantiles = events
+                .transform(EventTimeWindows.tumbling(Duration.ofSeconds(1), Duration.ZERO, Event::getTime, WindowAggregator.quantiles(Event::getValue, 100)))
+                .collectList()
+                .block();
+        assertEquals(10, quantiles.size());
+        assertEquals(1000, quantiles.get(0).getCount());
+        assertEquals(500.0, quantiles.get(0).getResult().quantile(0.5), 10.0);
+        assertEquals(990.0, quantiles.get(0).getResult().quantile(0.99), 5.0);
+
+        List<WindowResult<HyperLogLog>> distinct = events
+                .transform(EventTimeWindows.tumbling(Duration.ofSeconds(5), Duration.ZERO, Event::getTime,
+                        WindowAggregator.distinctCount(e -> (long) e.getValue(), 12)))
+                .collectList()
+                .block();
+        assertEquals(2, distinct.size());
+        assertEquals(1000.0, distinct.get(0).getResult().estimate(), 50.0);
+    }
+
+    private static String results(Flux<? extends WindowResult<Long>> results)
+    {
+        return format(results.collectList().block());
+    }
+
+    private static String format(List<? extends WindowResult<?>> results)
+    {
+        return results.stream().map(w -> w.getStart() + ".." + w.getEnd() + ":" + w.getCount()).collect(Collectors.toList()).toString();
+    }
+
+    private static Event event(long time, double value)
+    {
+        return new Event(time, value);
+    }
+
+    /**
+     * Event with its time.
+     */
+    private static final class Event
+    {
+        private final long time;
+        private final double value;
+
+        private Event(long time, double value)
+        {
+            this.time = time;
+            this.value = value;
+        }
+
+        private long getTime()
+        {
+            return time;
+        }
+
+        private double getValue()
+        {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sme.reactor.window;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link TDigest} and {@link HyperLogLog}.
+ */
+public class TDigestTest
+{
+    @Test
+    public void testQuantilesOfNormalDistribution()
+    {
+        TDigest digest = new TDigest(100);
+        Random random = new Random(1);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = random.nextGaussian();
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, digest.getCount());
+        assertEquals(values[0], digest.quantile(0), 0.0);
+        assertEquals(values[values.length - 1], digest.quantile(1), 0.0);
+        for (double q : new double[] {0.01, 0.1, 0.5, 0.9, 0.99})
+        {
+            assertEquals(values[(int) (q * values.length)], digest.quantile(q), 0.05, "Quantile " + q);
+        }
+        assertTrue(digest.getCentroids() <= 100, "Centroids " + digest.getCentroids());
+    }
+
+    @Test
+    public void testMerge()
+    {
+        TDigest first = new TDigest(100);
+        TDigest second = new TDigest(100);
+        for (int i = 0; i < 5000; i++)
+        {
+            first.add(i);
+            second.add(i + 5000);
+        }
+        first.merge(second);
+
+        assertEquals(10_000, first.getCount());
+        assertEquals(5000.0, first.quantile(0.5), 50.0);
+        assertEquals(9900.0, first.quantile(0.99), 20.0);
+        assertEquals(9999.0, first.getMax(), 0.0);
+    }
+
+    @Test
+    public void testHyperLogLog()
+    {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (long i = 0; i < 50_000; i++)
+        {
+            first.add(i);
+            second.add(i + 25_000);
+        }
+        assertEquals(0, new HyperLogLog(12).estimate());
+        assertEquals(50_000.0, first.estimate(), 50_000 * 0.05);
+
+        first.merge(second);
+        assertEquals(75_000.0, first.estimate(), 75_000 * 0.05);
+    }
+}